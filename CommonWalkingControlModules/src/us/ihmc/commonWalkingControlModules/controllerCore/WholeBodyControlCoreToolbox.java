@@ -23,8 +23,8 @@ import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.math.frames.YoFrameVector;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.screwTheory.FloatingInverseDynamicsJoint;
-import us.ihmc.robotics.screwTheory.InverseDynamicsCalculator;
 import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.PrecompiledInverseDynamicsCalculator;
 import us.ihmc.robotics.screwTheory.RigidBody;
 import us.ihmc.robotics.screwTheory.ScrewTools;
 import us.ihmc.robotics.screwTheory.SpatialAccelerationCalculator;
@@ -46,7 +46,7 @@ public class WholeBodyControlCoreToolbox
    private final JointIndexHandler jointIndexHandler;
    private final double totalRobotMass;
    private final CentroidalMomentumHandler centroidalMomentumHandler;
-   private final InverseDynamicsCalculator inverseDynamicsCalculator;
+   private final PrecompiledInverseDynamicsCalculator inverseDynamicsCalculator;
    private final SpatialAccelerationCalculator spatialAccelerationCalculator;
 
    private RigidBody vmcMainBody;
@@ -125,8 +125,8 @@ public class WholeBodyControlCoreToolbox
       jointIndexHandler = new JointIndexHandler(controlledJoints);
       totalRobotMass = TotalMassCalculator.computeSubTreeMass(rootBody);
       centroidalMomentumHandler = new CentroidalMomentumHandler(rootBody, centerOfMassFrame);
-      inverseDynamicsCalculator = new InverseDynamicsCalculator(rootBody, gravityZ);
-      spatialAccelerationCalculator = inverseDynamicsCalculator.getSpatialAccelerationCalculator();
+      inverseDynamicsCalculator = new PrecompiledInverseDynamicsCalculator(rootBody, gravityZ);
+      spatialAccelerationCalculator = new SpatialAccelerationCalculator(rootBody, gravityZ, true);
 
       parentRegistry.addChild(registry);
    }
@@ -277,7 +277,7 @@ public class WholeBodyControlCoreToolbox
       return spatialAccelerationCalculator;
    }
 
-   public InverseDynamicsCalculator getInverseDynamicsCalculator()
+   public PrecompiledInverseDynamicsCalculator getInverseDynamicsCalculator()
    {
       return inverseDynamicsCalculator;
    }
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import org.ejml.data.DenseMatrix64F;
 
+import gnu.trove.list.array.TIntArrayList;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.CenterOfPressureCommand;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.ExternalWrenchCommand;
 import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.InverseDynamicsCommand;
@@ -36,11 +37,12 @@ import us.ihmc.robotics.geometry.FrameVector;
 import us.ihmc.robotics.linearAlgebra.MatrixTools;
 import us.ihmc.robotics.math.frames.YoFrameVector;
 import us.ihmc.robotics.screwTheory.FloatingInverseDynamicsJoint;
-import us.ihmc.robotics.screwTheory.InverseDynamicsCalculator;
 import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
 import us.ihmc.robotics.screwTheory.OneDoFJoint;
+import us.ihmc.robotics.screwTheory.PrecompiledInverseDynamicsCalculator;
 import us.ihmc.robotics.screwTheory.RigidBody;
 import us.ihmc.robotics.screwTheory.ScrewTools;
+import us.ihmc.robotics.screwTheory.SpatialAccelerationCalculator;
 import us.ihmc.robotics.screwTheory.SpatialForceVector;
 import us.ihmc.robotics.screwTheory.Wrench;
 
@@ -48,7 +50,10 @@ public class WholeBodyInverseDynamicsSolver
 {
    private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
 
-   private final InverseDynamicsCalculator inverseDynamicsCalculator;
+   private final PrecompiledInverseDynamicsCalculator inverseDynamicsCalculator;
+   private final SpatialAccelerationCalculator spatialAccelerationCalculator;
+   /** Index in the inverse dynamics calculator of each rigid-body with an external wrench, in the same order. */
+   private final TIntArrayList externalWrenchBodyIndices = new TIntArrayList();
    private final InverseDynamicsOptimizationControlModule optimizationControlModule;
 
    private final FloatingInverseDynamicsJoint rootJoint;
@@ -86,6 +91,7 @@ public class WholeBodyInverseDynamicsSolver
       controlDT = toolbox.getControlDT();
       rootJoint = toolbox.getRootJoint();
       inverseDynamicsCalculator = toolbox.getInverseDynamicsCalculator();
+      spatialAccelerationCalculator = toolbox.getSpatialAccelerationCalculator();
       optimizationControlModule = new InverseDynamicsOptimizationControlModule(toolbox, registry);
 
       JointIndexHandler jointIndexHandler = toolbox.getJointIndexHandler();
@@ -128,6 +134,7 @@ public class WholeBodyInverseDynamicsSolver
       // When you initialize into this controller, reset the estimator positions to current. Otherwise it might be in a bad state
       // where the feet are all jacked up. For example, after falling and getting back up.
       inverseDynamicsCalculator.compute();
+      spatialAccelerationCalculator.compute();
       optimizationControlModule.initialize();
       planeContactWrenchProcessor.initialize();
    }
@@ -158,15 +165,26 @@ public class WholeBodyInverseDynamicsSolver
       yoAchievedMomentumRateAngular.set(centroidalMomentumRateSolution.getAngularPart());
       yoAchievedMomentumRateAngular.getFrameTupleIncludingFrame(achievedMomentumRateAngular);
 
+      // The list of rigid-bodies with an external wrench only grows, the index of the new ones is searched once.
+      for (int i = externalWrenchBodyIndices.size(); i < rigidBodiesWithExternalWrench.size(); i++)
+      {
+         RigidBody rigidBody = rigidBodiesWithExternalWrench.get(i);
+         int bodyIndex = inverseDynamicsCalculator.getBodyIndex(rigidBody);
+         if (bodyIndex < 0)
+            throw new RuntimeException("The rigid-body: " + rigidBody.getName() + " with an external wrench is not part of the inverse dynamics tree.");
+         externalWrenchBodyIndices.add(bodyIndex);
+      }
+
       for (int i = 0; i < rigidBodiesWithExternalWrench.size(); i++)
       {
          RigidBody rigidBody = rigidBodiesWithExternalWrench.get(i);
-         inverseDynamicsCalculator.setExternalWrench(rigidBody, externalWrenchSolution.get(rigidBody));
+         inverseDynamicsCalculator.setExternalWrench(externalWrenchBodyIndices.get(i), externalWrenchSolution.get(rigidBody));
       }
 
       ScrewTools.setDesiredAccelerations(jointsToOptimizeFor, jointAccelerations);
 
       inverseDynamicsCalculator.compute();
+      spatialAccelerationCalculator.compute();
       updateLowLevelData();
 
       if (rootJoint != null)
@@ -4,6 +4,8 @@ import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
 import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInput;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.SparseMotionTaskAccumulator;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleActiveSetQPSolverInterface;
 import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolver;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
@@ -17,7 +19,7 @@ public class InverseKinematicsQPSolver
    private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
 
    private final BooleanYoVariable firstCall = new BooleanYoVariable("firstCall", registry);
-   private final SimpleEfficientActiveSetQPSolver qpSolver = new SimpleEfficientActiveSetQPSolver();
+   private final SimpleActiveSetQPSolverInterface qpSolver;
 
    private final DenseMatrix64F solverInput_H;
    private final DenseMatrix64F solverInput_f;
@@ -44,6 +46,12 @@ public class InverseKinematicsQPSolver
 
    public InverseKinematicsQPSolver(int numberOfDoFs, YoVariableRegistry parentRegistry)
    {
+      this(numberOfDoFs, new SimpleEfficientActiveSetQPSolver(), parentRegistry);
+   }
+
+   public InverseKinematicsQPSolver(int numberOfDoFs, SimpleActiveSetQPSolverInterface qpSolver, YoVariableRegistry parentRegistry)
+   {
+      this.qpSolver = qpSolver;
       this.numberOfDoFs = numberOfDoFs;
 
       firstCall.set(true);
@@ -99,10 +107,14 @@ public class InverseKinematicsQPSolver
    private final DenseMatrix64F tempTask_H = new DenseMatrix64F(1, 1);
    private final DenseMatrix64F tempTask_f = new DenseMatrix64F(1, 1);
 
+   private final SparseMotionTaskAccumulator sparseMotionTaskAccumulator = new SparseMotionTaskAccumulator();
+
    public void addMotionInput(MotionQPInput input)
    {
       if (input.isMotionConstraint())
          addMotionConstraint(input.taskJacobian, input.taskObjective);
+      else if (input.hasTaskJacobianColumnIndices())
+         sparseMotionTaskAccumulator.addMotionTask(input, solverInput_H, solverInput_f);
       else if (input.useWeightScalar())
          addMotionTask(input.taskJacobian, input.taskObjective, input.getWeightScalar());
       else
@@ -2,7 +2,12 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 
 import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCore;
 import us.ihmc.commonWalkingControlModules.controllerCore.WholeBodyControllerCoreMode;
+import us.ihmc.commonWalkingControlModules.inverseKinematics.InverseKinematicsOptimizationControlModule;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.groundContactForce.GroundContactForceOptimizationControlModule;
 import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.virtualModelControl.VirtualModelControlOptimizationControlModule;
+import us.ihmc.convexOptimization.quadraticProgram.GoldfarbIdnaniActiveSetQPSolver;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleActiveSetQPSolverInterface;
+import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolver;
 import us.ihmc.euclid.tuple2D.Vector2D;
 
 public interface ControllerCoreOptimizationSettings
@@ -243,4 +248,21 @@ public interface ControllerCoreOptimizationSettings
     */
    int getRhoSize();
 
+   /**
+    * Creates the QP solver used by the {@link InverseDynamicsOptimizationControlModule}, the
+    * {@link InverseKinematicsOptimizationControlModule} and the
+    * {@link GroundContactForceOptimizationControlModule}. Each module creates its own solver.
+    * <p>
+    * The {@link GoldfarbIdnaniActiveSetQPSolver} can be used instead of the default
+    * {@link SimpleEfficientActiveSetQPSolver}. It updates the factorization of the active set
+    * instead of solving the KKT system again at every iteration, which makes it faster on problems
+    * with many active inequality constraints and bounds.
+    * </p>
+    * 
+    * @return a new QP solver.
+    */
+   default SimpleActiveSetQPSolverInterface createActiveSetQPSolver()
+   {
+      return new SimpleEfficientActiveSetQPSolver();
+   }
 }
\ No newline at end of file
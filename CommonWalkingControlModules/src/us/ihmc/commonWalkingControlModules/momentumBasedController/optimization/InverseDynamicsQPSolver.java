@@ -3,6 +3,7 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
+import us.ihmc.convexOptimization.quadraticProgram.SimpleActiveSetQPSolverInterface;
 import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolver;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
@@ -26,7 +27,7 @@ public class InverseDynamicsQPSolver
    private final YoFrameVector wrenchEquilibriumTorqueError;
 
    private final BooleanYoVariable firstCall = new BooleanYoVariable("firstCall", registry);
-   private final SimpleEfficientActiveSetQPSolver qpSolver = new SimpleEfficientActiveSetQPSolver();
+   private final SimpleActiveSetQPSolverInterface qpSolver;
 
    private final DenseMatrix64F solverInput_H;
    private final DenseMatrix64F solverInput_f;
@@ -56,6 +57,7 @@ public class InverseDynamicsQPSolver
    private final DenseMatrix64F tempMotionTask_f;
    private final DenseMatrix64F tempRhoTask_H;
    private final DenseMatrix64F tempRhoTask_f;
+   private final SparseMotionTaskAccumulator sparseMotionTaskAccumulator = new SparseMotionTaskAccumulator();
 
    private final int numberOfDoFs;
    private final int rhoSize;
@@ -65,6 +67,12 @@ public class InverseDynamicsQPSolver
 
    public InverseDynamicsQPSolver(int numberOfDoFs, int rhoSize, boolean hasFloatingBase, YoVariableRegistry parentRegistry)
    {
+      this(numberOfDoFs, rhoSize, hasFloatingBase, new SimpleEfficientActiveSetQPSolver(), parentRegistry);
+   }
+
+   public InverseDynamicsQPSolver(int numberOfDoFs, int rhoSize, boolean hasFloatingBase, SimpleActiveSetQPSolverInterface qpSolver, YoVariableRegistry parentRegistry)
+   {
+      this.qpSolver = qpSolver;
       this.numberOfDoFs = numberOfDoFs;
       this.rhoSize = rhoSize;
       this.hasFloatingBase = hasFloatingBase;
@@ -170,6 +178,8 @@ public class InverseDynamicsQPSolver
    {
       if (input.isMotionConstraint())
          addMotionConstraint(input.taskJacobian, input.taskObjective);
+      else if (input.hasTaskJacobianColumnIndices())
+         sparseMotionTaskAccumulator.addMotionTask(input, solverInput_H, solverInput_f);
       else if (input.useWeightScalar())
          addMotionTask(input.taskJacobian, input.taskObjective, input.getWeightScalar());
       else
@@ -2,11 +2,14 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 
 import org.ejml.data.DenseMatrix64F;
 
+import gnu.trove.list.array.TIntArrayList;
+
 public class MotionQPInput
 {
    public final DenseMatrix64F taskJacobian;
    public final DenseMatrix64F taskObjective;
    public final DenseMatrix64F taskWeightMatrix;
+   private final TIntArrayList taskJacobianColumnIndices = new TIntArrayList();
    private double taskWeightScalar;
    private boolean useWeightScalar = false;
    private boolean isMotionConstraint = false;
@@ -37,6 +40,7 @@ public class MotionQPInput
       taskJacobian.reshape(taskSize, numberOfDoFs);
       taskObjective.reshape(taskSize, 1);
       taskWeightMatrix.reshape(taskSize, taskSize);
+      taskJacobianColumnIndices.reset();
    }
 
    public void setTaskJacobian(DenseMatrix64F taskJacobian)
@@ -44,6 +48,38 @@ public class MotionQPInput
       this.taskJacobian.set(taskJacobian);
    }
 
+   /**
+    * Declares the columns of the task Jacobian that can be non-zero, usually the columns of the
+    * joints between the base and the end-effector of the task. When at least one column is
+    * declared, the QP solver only adds the task cost to the rows and columns of the declared
+    * columns. The other columns of the task Jacobian have to be zero.
+    * <p>
+    * The declared columns are cleared when this input is reshaped, such that an input is considered
+    * dense unless its columns are declared after it is reshaped.
+    * </p>
+    * 
+    * @param columnIndices the indices of the columns to add, indices that are already declared are
+    *           ignored.
+    */
+   public void addTaskJacobianColumnIndices(int[] columnIndices)
+   {
+      for (int i = 0; i < columnIndices.length; i++)
+      {
+         if (!taskJacobianColumnIndices.contains(columnIndices[i]))
+            taskJacobianColumnIndices.add(columnIndices[i]);
+      }
+   }
+
+   public boolean hasTaskJacobianColumnIndices()
+   {
+      return !taskJacobianColumnIndices.isEmpty();
+   }
+
+   public TIntArrayList getTaskJacobianColumnIndices()
+   {
+      return taskJacobianColumnIndices;
+   }
+
    public void setTaskObjective(DenseMatrix64F taskObjective)
    {
       this.taskObjective.set(taskObjective);
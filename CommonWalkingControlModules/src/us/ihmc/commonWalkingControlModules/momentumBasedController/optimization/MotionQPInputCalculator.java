@@ -244,6 +244,8 @@ public class MotionQPInputCalculator
 
       // Step 2: The small Jacobian matrix into the full Jacobian matrix. Proper indexing has to be ensured, so it is handled by the jointIndexHandler.
       jointIndexHandler.compactBlockToFullBlockIgnoreUnindexedJoints(jointsUsedInTask, tempTaskJacobian, motionQPInputToPack.taskJacobian);
+      // Step 3: Only the columns of the joints used in the task can be non-zero, the QP solver then only updates their block of the cost.
+      addTaskJacobianColumnIndices(jointsUsedInTask, motionQPInputToPack);
 
       if (primaryBase == null)
       { // No primary base provided for this task.
@@ -358,6 +360,8 @@ public class MotionQPInputCalculator
 
       // Step 2: The small Jacobian matrix into the full Jacobian matrix. Proper indexing has to be ensured, so it is handled by the jointIndexHandler.
       jointIndexHandler.compactBlockToFullBlockIgnoreUnindexedJoints(jointsUsedInTask, tempTaskJacobian, motionQPInputToPack.taskJacobian);
+      // Step 3: Only the columns of the joints used in the task can be non-zero, the QP solver then only updates their block of the cost.
+      addTaskJacobianColumnIndices(jointsUsedInTask, motionQPInputToPack);
 
       if (primaryBase == null)
       { // No primary base provided for this task.
@@ -519,6 +523,7 @@ public class MotionQPInputCalculator
          if (columns == null)
             return false;
 
+         motionQPInputToPack.addTaskJacobianColumnIndices(columns);
          CommonOps.insert(commandToConvert.getDesiredAcceleration(jointIndex), motionQPInputToPack.taskObjective, row, 0);
          for (int column : columns)
          {
@@ -559,6 +564,7 @@ public class MotionQPInputCalculator
          if (columns == null)
             return false;
 
+         motionQPInputToPack.addTaskJacobianColumnIndices(columns);
          CommonOps.insert(commandToConvert.getDesiredVelocity(jointIndex), motionQPInputToPack.taskObjective, row, 0);
          for (int column : columns)
          {
@@ -572,6 +578,17 @@ public class MotionQPInputCalculator
       return true;
    }
 
+   private void addTaskJacobianColumnIndices(List<InverseDynamicsJoint> jointsUsedInTask, MotionQPInput motionQPInputToPack)
+   {
+      for (int i = 0; i < jointsUsedInTask.size(); i++)
+      {
+         int[] jointIndices = jointIndexHandler.getJointIndices(jointsUsedInTask.get(i));
+
+         if (jointIndices != null) // Joints that are not indexed are not in the Jacobian
+            motionQPInputToPack.addTaskJacobianColumnIndices(jointIndices);
+      }
+   }
+
    private void recordTaskJacobian(DenseMatrix64F taskJacobian)
    {
       int taskSize = taskJacobian.getNumRows();
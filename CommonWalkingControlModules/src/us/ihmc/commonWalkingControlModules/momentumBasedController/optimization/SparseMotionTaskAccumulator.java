@@ -0,0 +1,71 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.robotics.linearAlgebra.MatrixTools;
+import us.ihmc.robotics.screwTheory.SpatialMotionVector;
+
+/**
+ * Adds the cost of a motion task to the cost of a QP, H += J<sup>T</sup> W J and f -= J<sup>T</sup>
+ * W p, using only the columns of the task Jacobian declared in the {@link MotionQPInput}.
+ * <p>
+ * The Jacobian of a hand or foot task has non-zero columns only for the joints between its base and
+ * its end-effector. For k of these columns and a task of size m, the cost is computed in O(m
+ * k<sup>2</sup>) instead of O(m n<sup>2</sup>) where n is the number of DoFs of the robot.
+ * </p>
+ */
+public class SparseMotionTaskAccumulator
+{
+   private final DenseMatrix64F compactTaskJacobian = new DenseMatrix64F(SpatialMotionVector.SIZE, 12);
+   private final DenseMatrix64F compactTaskJtW = new DenseMatrix64F(12, SpatialMotionVector.SIZE);
+   private final DenseMatrix64F compactTask_H = new DenseMatrix64F(12, 12);
+   private final DenseMatrix64F compactTask_f = new DenseMatrix64F(12, 1);
+
+   /**
+    * @param input the motion task to add, it has to declare the columns of its task Jacobian that
+    *           can be non-zero.
+    * @param hessianToModify the matrix H of the QP cost, the task DoFs are the first block of
+    *           variables.
+    * @param gradientToModify the vector f of the QP cost.
+    */
+   public void addMotionTask(MotionQPInput input, DenseMatrix64F hessianToModify, DenseMatrix64F gradientToModify)
+   {
+      TIntArrayList columnIndices = input.getTaskJacobianColumnIndices();
+      DenseMatrix64F taskJacobian = input.taskJacobian;
+      int taskSize = taskJacobian.getNumRows();
+      int numberOfColumns = columnIndices.size();
+
+      compactTaskJacobian.reshape(taskSize, numberOfColumns);
+      for (int row = 0; row < taskSize; row++)
+      {
+         for (int i = 0; i < numberOfColumns; i++)
+            compactTaskJacobian.unsafe_set(row, i, taskJacobian.unsafe_get(row, columnIndices.get(i)));
+      }
+
+      // J^T W
+      compactTaskJtW.reshape(numberOfColumns, taskSize);
+      if (input.useWeightScalar())
+         MatrixTools.scaleTranspose(input.getWeightScalar(), compactTaskJacobian, compactTaskJtW);
+      else
+         CommonOps.multTransA(compactTaskJacobian, input.taskWeightMatrix, compactTaskJtW);
+
+      // Compute: H += J^T W J and f += - J^T W Objective on the compact block
+      compactTask_H.reshape(numberOfColumns, numberOfColumns);
+      CommonOps.mult(compactTaskJtW, compactTaskJacobian, compactTask_H);
+      compactTask_f.reshape(numberOfColumns, 1);
+      CommonOps.mult(compactTaskJtW, input.taskObjective, compactTask_f);
+
+      // Scatter the compact block into the rows and columns of the task DoFs
+      for (int i = 0; i < numberOfColumns; i++)
+      {
+         int row = columnIndices.get(i);
+
+         for (int j = 0; j < numberOfColumns; j++)
+            hessianToModify.add(row, columnIndices.get(j), compactTask_H.unsafe_get(i, j));
+
+         gradientToModify.add(row, 0, -compactTask_f.get(i, 0));
+      }
+   }
+}
@@ -81,7 +81,7 @@ public class GroundContactForceOptimizationControlModule
       }
 
       rhoMin.set(optimizationSettings.getRhoMin());
-      qpSolver = new GroundContactForceQPSolver(rhoSize, registry);
+      qpSolver = new GroundContactForceQPSolver(rhoSize, optimizationSettings.createActiveSetQPSolver(), registry);
       qpSolver.setMinRho(optimizationSettings.getRhoMin());
 
       parentRegistry.addChild(registry);
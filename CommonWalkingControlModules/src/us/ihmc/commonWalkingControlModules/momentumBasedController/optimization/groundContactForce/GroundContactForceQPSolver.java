@@ -3,6 +3,7 @@ package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
+import us.ihmc.convexOptimization.quadraticProgram.SimpleActiveSetQPSolverInterface;
 import us.ihmc.convexOptimization.quadraticProgram.SimpleEfficientActiveSetQPSolver;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
@@ -18,7 +19,7 @@ public class GroundContactForceQPSolver
    private final ExecutionTimer qpSolverTimer = new ExecutionTimer("qpSolverTimer", 0.5, registry);
 
    private final BooleanYoVariable firstCall = new BooleanYoVariable("firstCall", registry);
-   private final SimpleEfficientActiveSetQPSolver qpSolver = new SimpleEfficientActiveSetQPSolver();
+   private final SimpleActiveSetQPSolverInterface qpSolver;
 
    private final DenseMatrix64F solverInput_H;
    private final DenseMatrix64F solverInput_f;
@@ -47,6 +48,12 @@ public class GroundContactForceQPSolver
 
    public GroundContactForceQPSolver(int rhoSize, YoVariableRegistry parentRegistry)
    {
+      this(rhoSize, new SimpleEfficientActiveSetQPSolver(), parentRegistry);
+   }
+
+   public GroundContactForceQPSolver(int rhoSize, SimpleActiveSetQPSolverInterface qpSolver, YoVariableRegistry parentRegistry)
+   {
+      this.qpSolver = qpSolver;
       this.rhoSize = rhoSize;
 
       solverInput_H = new DenseMatrix64F(rhoSize, rhoSize);
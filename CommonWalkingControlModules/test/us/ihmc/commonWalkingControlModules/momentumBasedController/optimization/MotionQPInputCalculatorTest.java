@@ -1,5 +1,7 @@
 package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
 
+import static org.junit.Assert.assertEquals;
+
 import java.util.List;
 import java.util.Random;
 
@@ -117,4 +119,54 @@ public class MotionQPInputCalculatorTest
          SpatialAccelerationCalculatorTest.assertSpatialAccelerationVectorEquals(achievedSpatialAcceleration, desiredSpatialAcceleration, 1.0e-10);
       }
    }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testTaskJacobianColumnIndices() throws Exception
+   {
+      Random random = new Random(3452L);
+
+      int numberOfJoints = 40;
+
+      List<RevoluteJoint> joints = ScrewTestTools.createRandomTreeRobot(numberOfJoints, random);
+      RigidBody rootBody = joints.get(0).getPredecessor();
+      int numberOfDoFs = ScrewTools.computeDegreesOfFreedom(joints);
+
+      CenterOfMassReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("comFrame", worldFrame, rootBody);
+      JointIndexHandler jointIndexHandler = new JointIndexHandler(joints);
+      YoVariableRegistry registry = new YoVariableRegistry("dummyRegistry");
+      CentroidalMomentumHandler centroidalMomentumHandler = new CentroidalMomentumHandler(rootBody, centerOfMassFrame);
+      MotionQPInputCalculator motionQPInputCalculator = new MotionQPInputCalculator(centerOfMassFrame, centroidalMomentumHandler, jointIndexHandler, null, registry);
+
+      MotionQPInput motionQPInput = new MotionQPInput(numberOfDoFs);
+      SpatialAccelerationCommand spatialAccelerationCommand = new SpatialAccelerationCommand();
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         ScrewTestTools.setRandomPositions(joints, random);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         joints.get(0).updateFramesRecursively();
+         centerOfMassFrame.update();
+
+         RigidBody endEffector = joints.get(random.nextInt(numberOfJoints)).getSuccessor();
+         spatialAccelerationCommand.set(rootBody, endEffector);
+         spatialAccelerationCommand.setWeight(random.nextDouble());
+         spatialAccelerationCommand.setSpatialAccelerationToZero(endEffector.getBodyFixedFrame());
+
+         motionQPInputCalculator.initialize();
+         motionQPInputCalculator.convertSpatialAccelerationCommand(spatialAccelerationCommand, motionQPInput);
+
+         // One column per joint from the root body to the end-effector, all the other columns are zero
+         assertEquals(ScrewTools.createJointPath(rootBody, endEffector).length, motionQPInput.getTaskJacobianColumnIndices().size());
+
+         for (int column = 0; column < numberOfDoFs; column++)
+         {
+            if (motionQPInput.getTaskJacobianColumnIndices().contains(column))
+               continue;
+
+            for (int row = 0; row < motionQPInput.taskJacobian.getNumRows(); row++)
+               assertEquals(0.0, motionQPInput.taskJacobian.get(row, column), 0.0);
+         }
+      }
+   }
 }
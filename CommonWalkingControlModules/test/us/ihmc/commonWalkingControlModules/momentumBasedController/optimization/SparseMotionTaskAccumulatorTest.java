@@ -0,0 +1,84 @@
+package us.ihmc.commonWalkingControlModules.momentumBasedController.optimization;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.random.RandomGeometry;
+
+public class SparseMotionTaskAccumulatorTest
+{
+   private static final int ITERATIONS = 500;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testAgainstDenseAssembly()
+   {
+      Random random = new Random(4576L);
+      int numberOfDoFs = 40;
+      SparseMotionTaskAccumulator accumulator = new SparseMotionTaskAccumulator();
+      MotionQPInput motionQPInput = new MotionQPInput(numberOfDoFs);
+
+      DenseMatrix64F sparseH = new DenseMatrix64F(numberOfDoFs, numberOfDoFs);
+      DenseMatrix64F sparseF = new DenseMatrix64F(numberOfDoFs, 1);
+      DenseMatrix64F denseH = new DenseMatrix64F(numberOfDoFs, numberOfDoFs);
+      DenseMatrix64F denseF = new DenseMatrix64F(numberOfDoFs, 1);
+      DenseMatrix64F taskJtW = new DenseMatrix64F(numberOfDoFs, 6);
+      DenseMatrix64F taskH = new DenseMatrix64F(numberOfDoFs, numberOfDoFs);
+      DenseMatrix64F taskF = new DenseMatrix64F(numberOfDoFs, 1);
+
+      for (int i = 0; i < ITERATIONS; i++)
+      {
+         int taskSize = 1 + random.nextInt(6);
+         motionQPInput.reshape(taskSize);
+         motionQPInput.taskJacobian.zero();
+
+         // Columns of a random subset of joints, some of them declared twice
+         int numberOfColumns = 1 + random.nextInt(12);
+         for (int j = 0; j < numberOfColumns; j++)
+         {
+            int column = random.nextInt(numberOfDoFs);
+            motionQPInput.addTaskJacobianColumnIndices(new int[] {column});
+            for (int row = 0; row < taskSize; row++)
+               motionQPInput.taskJacobian.set(row, column, RandomNumbers.nextDouble(random, 10.0));
+         }
+
+         motionQPInput.setTaskObjective(RandomGeometry.nextDenseMatrix64F(random, taskSize, 1, 10.0));
+         boolean useWeightScalar = random.nextBoolean();
+         motionQPInput.setUseWeightScalar(useWeightScalar);
+         motionQPInput.setWeight(random.nextDouble());
+         DenseMatrix64F randomMatrix = RandomGeometry.nextDenseMatrix64F(random, taskSize, taskSize);
+         CommonOps.multTransA(randomMatrix, randomMatrix, motionQPInput.taskWeightMatrix);
+
+         accumulator.addMotionTask(motionQPInput, sparseH, sparseF);
+
+         taskJtW.reshape(numberOfDoFs, taskSize);
+         if (useWeightScalar)
+         {
+            CommonOps.transpose(motionQPInput.taskJacobian, taskJtW);
+            CommonOps.scale(motionQPInput.getWeightScalar(), taskJtW);
+         }
+         else
+         {
+            CommonOps.multTransA(motionQPInput.taskJacobian, motionQPInput.taskWeightMatrix, taskJtW);
+         }
+         CommonOps.mult(taskJtW, motionQPInput.taskJacobian, taskH);
+         CommonOps.addEquals(denseH, taskH);
+         CommonOps.mult(taskJtW, motionQPInput.taskObjective, taskF);
+         CommonOps.subtractEquals(denseF, taskF);
+
+         for (int row = 0; row < numberOfDoFs; row++)
+         {
+            for (int column = 0; column < numberOfDoFs; column++)
+               assertEquals(denseH.get(row, column), sparseH.get(row, column), 1.0e-8);
+            assertEquals(denseF.get(row), sparseF.get(row), 1.0e-8);
+         }
+      }
+   }
+}
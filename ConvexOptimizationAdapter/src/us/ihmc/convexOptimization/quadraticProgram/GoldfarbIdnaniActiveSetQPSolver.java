@@ -0,0 +1,992 @@
+package us.ihmc.convexOptimization.quadraticProgram;
+
+import org.ejml.alg.dense.decomposition.TriangularSolver;
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.DecompositionFactory;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition;
+import org.ejml.ops.CommonOps;
+
+import gnu.trove.list.array.TIntArrayList;
+import us.ihmc.robotics.linearAlgebra.MatrixTools;
+
+/**
+ * Solves a Quadratic Program using the dual active set method of Goldfarb and Idnani, the same
+ * algorithm as in {@link JavaQuadProgSolver}, through the {@link SimpleActiveSetQPSolverInterface}
+ * so it can be used in place of the {@link SimpleEfficientActiveSetQPSolver}.
+ *
+ * The quadratic cost matrix is only factorized once per solve, Q = L L^T. The solver then keeps
+ * J = L^-T Q<sub>R</sub> and the upper triangular R of the QR decomposition of the active
+ * constraints, and updates them with Givens rotations when a constraint is added to or dropped
+ * from the active set. Nothing is inverted or rebuilt when the active set changes. Variable bounds
+ * are handled as single variable constraints, infinite bounds are never active.
+ *
+ * Each iteration adds one violated constraint to the active set, so it usually takes more
+ * iterations than the {@link SimpleEfficientActiveSetQPSolver}, which adds all the violated
+ * constraints at once, but every iteration is much cheaper.
+ *
+ * Uses the algorithm found in the Paper
+ * "A numerically stable dual method for solving strictly convex quadratic programs"
+ * by D. Goldfarb and A. Idnani.
+ *
+ * The problem solved is of the form:
+ * min 0.5 * x^T Q x + f^T x
+ * s.t.
+ *     A x = b
+ *     C x <= d
+ *     lowerBounds <= x <= upperBounds
+ *
+ * The Lagrange multipliers have the same convention as for the {@link SimpleEfficientActiveSetQPSolver}:
+ * Q x + f + A^T mu + C^T lambda - lambdaLowerBounds + lambdaUpperBounds = 0,
+ * where the multipliers of the inequality constraints and the bounds are positive.
+ */
+public class GoldfarbIdnaniActiveSetQPSolver implements SimpleActiveSetQPSolverInterface
+{
+   private static final int defaultSize = 100;
+   private static final double epsilon = Math.ulp(1.0);
+
+   private int maxNumberOfIterations = 500;
+   private boolean useWarmStart = false;
+
+   private final DenseMatrix64F quadraticCostQMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F quadraticCostQVector = new DenseMatrix64F(0, 0);
+   private double quadraticCostScalar;
+
+   private final DenseMatrix64F linearEqualityConstraintsAMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F linearEqualityConstraintsBVector = new DenseMatrix64F(0, 0);
+
+   private final DenseMatrix64F linearInequalityConstraintsCMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F linearInequalityConstraintsDVector = new DenseMatrix64F(0, 0);
+
+   private final DenseMatrix64F variableLowerBounds = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F variableUpperBounds = new DenseMatrix64F(0, 0);
+
+   private final CholeskyDecomposition<DenseMatrix64F> choleskyDecomposer = DecompositionFactory.chol(defaultSize, true);
+   private final DenseMatrix64F decomposedQuadraticCostQMatrix = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F choleskyFactor = new DenseMatrix64F(0, 0);
+
+   private final DenseMatrix64F J = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F R = new DenseMatrix64F(0, 0);
+   private double rNorm;
+
+   // Normal of the constraint being added, n^T x >= c. Bounds have a unit normal, only its variable index and sign are kept.
+   private final DenseMatrix64F constraintNormal = new DenseMatrix64F(0, 0);
+   private int constraintNormalVariableIndex;
+   private double constraintNormalSign;
+
+   private final DenseMatrix64F d = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F primalStepDirection = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F dualStepDirection = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeMultipliers = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F inequalityConstraintSlacks = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F tempVector = new DenseMatrix64F(0, 0);
+
+   private final TIntArrayList activeSetIndices = new TIntArrayList();
+   private int numberOfActiveConstraints;
+
+   private final DenseMatrix64F previousSolution = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F previousLagrangeMultipliers = new DenseMatrix64F(0, 0);
+   private final TIntArrayList previousActiveSetIndices = new TIntArrayList();
+   private int previousNumberOfActiveConstraints;
+
+   private boolean[] isConstraintActive = new boolean[0];
+   private boolean[] isConstraintExcluded = new boolean[0];
+   private boolean[] wasConstraintActiveInLastSolve = new boolean[0];
+
+   private final DenseMatrix64F computedObjectiveFunctionValue = new DenseMatrix64F(1, 1);
+
+   private int previousNumberOfVariables = 0;
+   private int previousNumberOfEqualityConstraints = 0;
+   private int previousNumberOfInequalityConstraints = 0;
+   private int previousNumberOfLowerBoundConstraints = 0;
+   private int previousNumberOfUpperBoundConstraints = 0;
+
+   /**
+    * Each iteration adds one constraint to the active set, the default maximum is therefore higher
+    * than for the other active set solvers.
+    */
+   @Override
+   public void setMaxNumberOfIterations(int maxNumberOfIterations)
+   {
+      this.maxNumberOfIterations = maxNumberOfIterations;
+   }
+
+   @Override
+   public void clear()
+   {
+      quadraticCostQMatrix.reshape(0, 0);
+      quadraticCostQVector.reshape(0, 0);
+
+      linearEqualityConstraintsAMatrix.reshape(0, 0);
+      linearEqualityConstraintsBVector.reshape(0, 0);
+
+      linearInequalityConstraintsCMatrix.reshape(0, 0);
+      linearInequalityConstraintsDVector.reshape(0, 0);
+
+      variableLowerBounds.reshape(0, 0);
+      variableUpperBounds.reshape(0, 0);
+   }
+
+   @Override
+   public void setVariableBounds(DenseMatrix64F variableLowerBounds, DenseMatrix64F variableUpperBounds)
+   {
+      if (variableLowerBounds.getNumRows() != quadraticCostQMatrix.getNumRows())
+         throw new RuntimeException("variableLowerBounds.getNumRows() != quadraticCostQMatrix.getNumRows()");
+      if (variableUpperBounds.getNumRows() != quadraticCostQMatrix.getNumRows())
+         throw new RuntimeException("variableUpperBounds.getNumRows() != quadraticCostQMatrix.getNumRows()");
+
+      this.variableLowerBounds.set(variableLowerBounds);
+      this.variableUpperBounds.set(variableUpperBounds);
+   }
+
+   @Override
+   public void setVariableBounds(double[] variableLowerBounds, double[] variableUpperBounds)
+   {
+      setVariableBounds(MatrixTools.createVector(variableLowerBounds), MatrixTools.createVector(variableUpperBounds));
+   }
+
+   @Override
+   public void setQuadraticCostFunction(double[][] quadraticCostFunctionQMatrix, double[] quadraticCostFunctionQVector, double quadraticCostScalar)
+   {
+      setQuadraticCostFunction(new DenseMatrix64F(quadraticCostFunctionQMatrix), MatrixTools.createVector(quadraticCostFunctionQVector), quadraticCostScalar);
+   }
+
+   @Override
+   public void setQuadraticCostFunction(DenseMatrix64F costQuadraticMatrix, DenseMatrix64F costLinearVector, double quadraticCostScalar)
+   {
+      if (costLinearVector.getNumCols() != 1)
+         throw new RuntimeException("costLinearVector.getNumCols() != 1");
+      if (costQuadraticMatrix.getNumRows() != costLinearVector.getNumRows())
+         throw new RuntimeException("costQuadraticMatrix.getNumRows() != costLinearVector.getNumRows()");
+      if (costQuadraticMatrix.getNumRows() != costQuadraticMatrix.getNumCols())
+         throw new RuntimeException("costQuadraticMatrix.getNumRows() != costQuadraticMatrix.getNumCols()");
+
+      int numberOfVariables = costQuadraticMatrix.getNumRows();
+      quadraticCostQMatrix.reshape(numberOfVariables, numberOfVariables);
+
+      for (int row = 0; row < numberOfVariables; row++)
+      {
+         for (int col = row; col < numberOfVariables; col++)
+         {
+            double value = 0.5 * (costQuadraticMatrix.unsafe_get(row, col) + costQuadraticMatrix.unsafe_get(col, row));
+            quadraticCostQMatrix.unsafe_set(row, col, value);
+            quadraticCostQMatrix.unsafe_set(col, row, value);
+         }
+      }
+
+      this.quadraticCostQVector.set(costLinearVector);
+      this.quadraticCostScalar = quadraticCostScalar;
+   }
+
+   @Override
+   public double getObjectiveCost(DenseMatrix64F x)
+   {
+      tempVector.reshape(x.getNumRows(), 1);
+      CommonOps.mult(quadraticCostQMatrix, x, tempVector);
+      CommonOps.multTransA(0.5, x, tempVector, computedObjectiveFunctionValue);
+      CommonOps.multAddTransA(quadraticCostQVector, x, computedObjectiveFunctionValue);
+      return computedObjectiveFunctionValue.get(0, 0) + quadraticCostScalar;
+   }
+
+   @Override
+   public void setLinearEqualityConstraints(double[][] linearEqualityConstraintsAMatrix, double[] linearEqualityConstraintsBVector)
+   {
+      setLinearEqualityConstraints(new DenseMatrix64F(linearEqualityConstraintsAMatrix), MatrixTools.createVector(linearEqualityConstraintsBVector));
+   }
+
+   @Override
+   public void setLinearEqualityConstraints(DenseMatrix64F linearEqualityConstraintsAMatrix, DenseMatrix64F linearEqualityConstraintsBVector)
+   {
+      if (linearEqualityConstraintsBVector.getNumCols() != 1)
+         throw new RuntimeException("linearEqualityConstraintsBVector.getNumCols() != 1");
+      if (linearEqualityConstraintsAMatrix.getNumRows() != linearEqualityConstraintsBVector.getNumRows())
+         throw new RuntimeException("linearEqualityConstraintsAMatrix.getNumRows() != linearEqualityConstraintsBVector.getNumRows()");
+      if (linearEqualityConstraintsAMatrix.getNumCols() != quadraticCostQMatrix.getNumCols())
+         throw new RuntimeException("linearEqualityConstraintsAMatrix.getNumCols() != quadraticCostQMatrix.getNumCols()");
+
+      this.linearEqualityConstraintsBVector.set(linearEqualityConstraintsBVector);
+      this.linearEqualityConstraintsAMatrix.set(linearEqualityConstraintsAMatrix);
+   }
+
+   @Override
+   public void setLinearInequalityConstraints(double[][] linearInequalityConstraintsCMatrix, double[] linearInqualityConstraintsDVector)
+   {
+      setLinearInequalityConstraints(new DenseMatrix64F(linearInequalityConstraintsCMatrix), MatrixTools.createVector(linearInqualityConstraintsDVector));
+   }
+
+   @Override
+   public void setLinearInequalityConstraints(DenseMatrix64F linearInequalityConstraintCMatrix, DenseMatrix64F linearInequalityConstraintDVector)
+   {
+      if (linearInequalityConstraintDVector.getNumCols() != 1)
+         throw new RuntimeException("linearInequalityConstraintDVector.getNumCols() != 1");
+      if (linearInequalityConstraintCMatrix.getNumRows() != linearInequalityConstraintDVector.getNumRows())
+         throw new RuntimeException("linearInequalityConstraintCMatrix.getNumRows() != linearInequalityConstraintDVector.getNumRows()");
+      if (linearInequalityConstraintCMatrix.getNumCols() != quadraticCostQMatrix.getNumCols())
+         throw new RuntimeException("linearInequalityConstraintCMatrix.getNumCols() != quadraticCostQMatrix.getNumCols()");
+
+      this.linearInequalityConstraintsDVector.set(linearInequalityConstraintDVector);
+      this.linearInequalityConstraintsCMatrix.set(linearInequalityConstraintCMatrix);
+   }
+
+   /**
+    * When enabled, the violated constraints that were active at the end of the previous solve are
+    * added to the active set first, which avoids adding constraints that are dropped later on when
+    * the problem changes little between two solves.
+    */
+   @Override
+   public void setUseWarmStart(boolean useWarmStart)
+   {
+      this.useWarmStart = useWarmStart;
+   }
+
+   @Override
+   public void resetActiveConstraints()
+   {
+      for (int i = 0; i < wasConstraintActiveInLastSolve.length; i++)
+         wasConstraintActiveInLastSolve[i] = false;
+   }
+
+   private final DenseMatrix64F solution = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeEqualityConstraintMultipliers = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeInequalityConstraintMultipliers = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeLowerBoundConstraintMultipliers = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeUpperBoundConstraintMultipliers = new DenseMatrix64F(0, 0);
+
+   @Override
+   public int solve(double[] solutionToPack)
+   {
+      if (solutionToPack.length != quadraticCostQMatrix.getNumCols())
+         throw new RuntimeException("solutionToPack.length != numberOfVariables");
+
+      return solveAndCopy(solutionToPack, null, null, null, null);
+   }
+
+   @Override
+   public int solve(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack, double[] lagrangeInequalityConstraintMultipliersToPack)
+   {
+      if (solutionToPack.length != quadraticCostQMatrix.getNumCols())
+         throw new RuntimeException("solutionToPack.length != numberOfVariables");
+      if (lagrangeEqualityConstraintMultipliersToPack.length != linearEqualityConstraintsAMatrix.getNumRows())
+         throw new RuntimeException("lagrangeEqualityConstraintMultipliersToPack.length != numberOfEqualityConstraints");
+      if (lagrangeInequalityConstraintMultipliersToPack.length != linearInequalityConstraintsCMatrix.getNumRows())
+         throw new RuntimeException("lagrangeInequalityConstraintMultipliersToPack.length != numberOfInequalityConstraints");
+
+      return solveAndCopy(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack, null, null);
+   }
+
+   @Override
+   public int solve(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack, double[] lagrangeInequalityConstraintMultipliersToPack,
+                    double[] lagrangeLowerBoundsConstraintMultipliersToPack, double[] lagrangeUpperBoundsConstraintMultipliersToPack)
+   {
+      if (solutionToPack.length != quadraticCostQMatrix.getNumCols())
+         throw new RuntimeException("solutionToPack.length != numberOfVariables");
+      if (lagrangeEqualityConstraintMultipliersToPack.length != linearEqualityConstraintsAMatrix.getNumRows())
+         throw new RuntimeException("lagrangeEqualityConstraintMultipliersToPack.length != numberOfEqualityConstraints");
+      if (lagrangeInequalityConstraintMultipliersToPack.length != linearInequalityConstraintsCMatrix.getNumRows())
+         throw new RuntimeException("lagrangeInequalityConstraintMultipliersToPack.length != numberOfInequalityConstraints");
+      if (lagrangeLowerBoundsConstraintMultipliersToPack.length != variableLowerBounds.getNumRows())
+         throw new RuntimeException("lagrangeLowerBoundsConstraintMultipliersToPack.length != numberOfLowerBoundConstraints");
+      if (lagrangeUpperBoundsConstraintMultipliersToPack.length != variableUpperBounds.getNumRows())
+         throw new RuntimeException("lagrangeUpperBoundsConstraintMultipliersToPack.length != numberOfUpperBoundConstraints");
+
+      return solveAndCopy(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                          lagrangeLowerBoundsConstraintMultipliersToPack, lagrangeUpperBoundsConstraintMultipliersToPack);
+   }
+
+   private int solveAndCopy(double[] solutionToPack, double[] lagrangeEqualityConstraintMultipliersToPack, double[] lagrangeInequalityConstraintMultipliersToPack,
+                            double[] lagrangeLowerBoundsConstraintMultipliersToPack, double[] lagrangeUpperBoundsConstraintMultipliersToPack)
+   {
+      int numberOfIterations = solve(solution, lagrangeEqualityConstraintMultipliers, lagrangeInequalityConstraintMultipliers,
+                                     lagrangeLowerBoundConstraintMultipliers, lagrangeUpperBoundConstraintMultipliers);
+
+      copy(solution, solutionToPack);
+      copy(lagrangeEqualityConstraintMultipliers, lagrangeEqualityConstraintMultipliersToPack);
+      copy(lagrangeInequalityConstraintMultipliers, lagrangeInequalityConstraintMultipliersToPack);
+      copy(lagrangeLowerBoundConstraintMultipliers, lagrangeLowerBoundsConstraintMultipliersToPack);
+      copy(lagrangeUpperBoundConstraintMultipliers, lagrangeUpperBoundsConstraintMultipliersToPack);
+
+      return numberOfIterations;
+   }
+
+   private static void copy(DenseMatrix64F vector, double[] vectorToPack)
+   {
+      if (vectorToPack != null)
+         System.arraycopy(vector.getData(), 0, vectorToPack, 0, vectorToPack.length);
+   }
+
+   private final DenseMatrix64F lagrangeEqualityConstraintMultipliersToThrowAway = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeInequalityConstraintMultipliersToThrowAway = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeLowerBoundMultipliersToThrowAway = new DenseMatrix64F(0, 0);
+   private final DenseMatrix64F lagrangeUpperBoundMultipliersToThrowAway = new DenseMatrix64F(0, 0);
+
+   @Override
+   public int solve(DenseMatrix64F solutionToPack)
+   {
+      return solve(solutionToPack, lagrangeEqualityConstraintMultipliersToThrowAway, lagrangeInequalityConstraintMultipliersToThrowAway);
+   }
+
+   @Override
+   public int solve(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack,
+                    DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack)
+   {
+      return solve(solutionToPack, lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                   lagrangeLowerBoundMultipliersToThrowAway, lagrangeUpperBoundMultipliersToThrowAway);
+   }
+
+   /**
+    * @return the number of constraints that had to be added to the active set. The solution is
+    *         filled with {@link Double#NaN} when the problem is infeasible, the cost is not
+    *         positive definite, or the maximum number of iterations is reached.
+    */
+   @Override
+   public int solve(DenseMatrix64F solutionToPack, DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack,
+                    DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack, DenseMatrix64F lagrangeLowerBoundConstraintMultipliersToPack,
+                    DenseMatrix64F lagrangeUpperBoundConstraintMultipliersToPack)
+   {
+      if (!useWarmStart || problemSizeChanged())
+         resetActiveConstraints();
+
+      int numberOfVariables = quadraticCostQMatrix.getNumRows();
+      int numberOfEqualityConstraints = linearEqualityConstraintsAMatrix.getNumRows();
+      int numberOfInequalityConstraints = linearInequalityConstraintsCMatrix.getNumRows();
+      int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
+      int numberOfUpperBoundConstraints = variableUpperBounds.getNumRows();
+      int numberOfConstraints = numberOfInequalityConstraints + numberOfLowerBoundConstraints + numberOfUpperBoundConstraints;
+
+      solutionToPack.reshape(numberOfVariables, 1);
+      lagrangeEqualityConstraintMultipliersToPack.reshape(numberOfEqualityConstraints, 1);
+      lagrangeEqualityConstraintMultipliersToPack.zero();
+      lagrangeInequalityConstraintMultipliersToPack.reshape(numberOfInequalityConstraints, 1);
+      lagrangeInequalityConstraintMultipliersToPack.zero();
+      lagrangeLowerBoundConstraintMultipliersToPack.reshape(numberOfLowerBoundConstraints, 1);
+      lagrangeLowerBoundConstraintMultipliersToPack.zero();
+      lagrangeUpperBoundConstraintMultipliersToPack.reshape(numberOfUpperBoundConstraints, 1);
+      lagrangeUpperBoundConstraintMultipliersToPack.zero();
+
+      reshape(numberOfVariables, numberOfConstraints);
+
+      if (!computeInverseCholeskyFactor())
+      { // The cost is not positive definite
+         CommonOps.fill(solutionToPack, Double.NaN);
+         return 0;
+      }
+
+      // c1 * c2 is an estimate of the condition number of Q, used to scale the tolerance on the constraint violations
+      double violationTolerance = numberOfConstraints * epsilon * CommonOps.trace(quadraticCostQMatrix) * CommonOps.trace(J) * 100.0;
+
+      // Unconstrained minimum: x = -Q^-1 f = -J J^T f
+      CommonOps.multTransA(J, quadraticCostQVector, tempVector);
+      CommonOps.mult(-1.0, J, tempVector, solutionToPack);
+
+      numberOfActiveConstraints = 0;
+      rNorm = 1.0;
+
+      for (int i = 0; i < numberOfEqualityConstraints; i++)
+      {
+         setEqualityConstraintNormal(i);
+         computeStepDirections();
+
+         // Full step to satisfy the equality constraint. There is no primal step when its normal is spanned by the previous equality constraints.
+         double stepLength = 0.0;
+         if (CommonOps.dot(primalStepDirection, primalStepDirection) > epsilon)
+         {
+            double violation = linearEqualityConstraintsBVector.get(i) - dotWithConstraintNormal(solutionToPack);
+            stepLength = violation / dotWithConstraintNormal(primalStepDirection);
+         }
+
+         CommonOps.addEquals(solutionToPack, stepLength, primalStepDirection);
+         lagrangeMultipliers.set(numberOfActiveConstraints, 0.0);
+         updateLagrangeMultipliers(stepLength);
+         activeSetIndices.set(numberOfActiveConstraints, -i - 1);
+
+         if (!addConstraint())
+         { // The equality constraints are linearly dependent
+            CommonOps.fill(solutionToPack, Double.NaN);
+            return 0;
+         }
+      }
+
+      for (int i = 0; i < numberOfConstraints; i++)
+         isConstraintActive[i] = false;
+
+      int numberOfIterations = 0;
+      boolean isSolutionFound = false;
+
+      while (!isSolutionFound)
+      {
+         // Step 1: compute the slacks of the inactive constraints at the current solution
+         double sumOfViolations = 0.0;
+
+         for (int i = 0; i < numberOfConstraints; i++)
+         {
+            isConstraintExcluded[i] = false;
+
+            if (isConstraintActive[i])
+               continue;
+
+            double slack = computeSlack(i, solutionToPack);
+            inequalityConstraintSlacks.set(i, slack);
+            if (slack < 0.0)
+               sumOfViolations -= slack;
+         }
+
+         if (sumOfViolations <= violationTolerance)
+            break;
+
+         if (numberOfIterations >= maxNumberOfIterations)
+         {
+            CommonOps.fill(solutionToPack, Double.NaN);
+            return numberOfIterations;
+         }
+
+         numberOfIterations++;
+         saveState(solutionToPack);
+
+         // Step 2: add the most violated constraint to the active set
+         while (true)
+         {
+            int constraintToAdd = selectViolatedConstraint(numberOfConstraints);
+
+            if (constraintToAdd == -1)
+            { // Only numerically dependent constraints are left
+               isSolutionFound = true;
+               break;
+            }
+
+            int numberOfDroppedConstraints = stepToConstraint(constraintToAdd, solutionToPack, numberOfEqualityConstraints);
+
+            if (numberOfDroppedConstraints == -1)
+            { // No step in the primal nor in the dual space, the problem is infeasible
+               CommonOps.fill(solutionToPack, Double.NaN);
+               return numberOfIterations;
+            }
+
+            if (addConstraint())
+            {
+               isConstraintActive[constraintToAdd] = true;
+               break;
+            }
+
+            // The constraint is numerically dependent on the active constraints, remove it and try another one
+            dropConstraint(numberOfActiveConstraints - 1);
+            isConstraintExcluded[constraintToAdd] = true;
+
+            if (numberOfDroppedConstraints > 0)
+               break;
+
+            restoreState(solutionToPack);
+         }
+      }
+
+      for (int i = 0; i < numberOfConstraints; i++)
+         wasConstraintActiveInLastSolve[i] = isConstraintActive[i];
+
+      packLagrangeMultipliers(lagrangeEqualityConstraintMultipliersToPack, lagrangeInequalityConstraintMultipliersToPack,
+                              lagrangeLowerBoundConstraintMultipliersToPack, lagrangeUpperBoundConstraintMultipliersToPack);
+
+      return numberOfIterations;
+   }
+
+   private boolean problemSizeChanged()
+   {
+      boolean sizeChanged = checkProblemSize();
+
+      previousNumberOfVariables = quadraticCostQMatrix.getNumRows();
+      previousNumberOfEqualityConstraints = linearEqualityConstraintsAMatrix.getNumRows();
+      previousNumberOfInequalityConstraints = linearInequalityConstraintsCMatrix.getNumRows();
+      previousNumberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
+      previousNumberOfUpperBoundConstraints = variableUpperBounds.getNumRows();
+
+      return sizeChanged;
+   }
+
+   private boolean checkProblemSize()
+   {
+      if (previousNumberOfVariables != quadraticCostQMatrix.getNumRows())
+         return true;
+      if (previousNumberOfEqualityConstraints != linearEqualityConstraintsAMatrix.getNumRows())
+         return true;
+      if (previousNumberOfInequalityConstraints != linearInequalityConstraintsCMatrix.getNumRows())
+         return true;
+      if (previousNumberOfLowerBoundConstraints != variableLowerBounds.getNumRows())
+         return true;
+      if (previousNumberOfUpperBoundConstraints != variableUpperBounds.getNumRows())
+         return true;
+
+      return false;
+   }
+
+   private void reshape(int numberOfVariables, int numberOfConstraints)
+   {
+      // There can't be more active constraints than variables, plus the one being added
+      int maximumNumberOfActiveConstraints = numberOfVariables + 1;
+
+      R.reshape(numberOfVariables, numberOfVariables);
+      R.zero();
+      constraintNormal.reshape(numberOfVariables, 1);
+      d.reshape(numberOfVariables, 1);
+      primalStepDirection.reshape(numberOfVariables, 1);
+      dualStepDirection.reshape(numberOfVariables, 1);
+      tempVector.reshape(numberOfVariables, 1);
+      previousSolution.reshape(numberOfVariables, 1);
+      lagrangeMultipliers.reshape(maximumNumberOfActiveConstraints, 1);
+      previousLagrangeMultipliers.reshape(maximumNumberOfActiveConstraints, 1);
+      activeSetIndices.fill(0, maximumNumberOfActiveConstraints, 0);
+      previousActiveSetIndices.fill(0, maximumNumberOfActiveConstraints, 0);
+
+      inequalityConstraintSlacks.reshape(numberOfConstraints, 1);
+
+      if (isConstraintActive.length < numberOfConstraints)
+      {
+         isConstraintActive = new boolean[numberOfConstraints];
+         isConstraintExcluded = new boolean[numberOfConstraints];
+         // The size of the problem changed, so the active set of the last solve is not used anyways
+         wasConstraintActiveInLastSolve = new boolean[numberOfConstraints];
+      }
+   }
+
+   /**
+    * Computes J = L^-T, where L is the Cholesky factor of the quadratic cost matrix, Q = L L^T.
+    */
+   private boolean computeInverseCholeskyFactor()
+   {
+      int numberOfVariables = quadraticCostQMatrix.getNumRows();
+
+      decomposedQuadraticCostQMatrix.set(quadraticCostQMatrix);
+      if (!choleskyDecomposer.decompose(decomposedQuadraticCostQMatrix))
+         return false;
+
+      choleskyFactor.reshape(numberOfVariables, numberOfVariables);
+      choleskyDecomposer.getT(choleskyFactor);
+
+      J.reshape(numberOfVariables, numberOfVariables);
+      J.zero();
+      TriangularSolver.invertLower(choleskyFactor.getData(), J.getData(), numberOfVariables);
+      CommonOps.transpose(J);
+
+      return true;
+   }
+
+   private void setEqualityConstraintNormal(int equalityConstraintIndex)
+   {
+      constraintNormalVariableIndex = -1;
+      for (int i = 0; i < constraintNormal.getNumRows(); i++)
+         constraintNormal.set(i, linearEqualityConstraintsAMatrix.unsafe_get(equalityConstraintIndex, i));
+   }
+
+   /**
+    * The constraints are stored as n^T x >= c, the general inequality constraints first, then the
+    * lower bounds, then the upper bounds.
+    */
+   private void setInequalityConstraintNormal(int constraintIndex)
+   {
+      int numberOfInequalityConstraints = linearInequalityConstraintsCMatrix.getNumRows();
+      int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
+
+      if (constraintIndex < numberOfInequalityConstraints)
+      {
+         constraintNormalVariableIndex = -1;
+         for (int i = 0; i < constraintNormal.getNumRows(); i++)
+            constraintNormal.set(i, -linearInequalityConstraintsCMatrix.unsafe_get(constraintIndex, i));
+      }
+      else if (constraintIndex < numberOfInequalityConstraints + numberOfLowerBoundConstraints)
+      {
+         constraintNormalVariableIndex = constraintIndex - numberOfInequalityConstraints;
+         constraintNormalSign = 1.0;
+      }
+      else
+      {
+         constraintNormalVariableIndex = constraintIndex - numberOfInequalityConstraints - numberOfLowerBoundConstraints;
+         constraintNormalSign = -1.0;
+      }
+   }
+
+   private double dotWithConstraintNormal(DenseMatrix64F vector)
+   {
+      if (constraintNormalVariableIndex != -1)
+         return constraintNormalSign * vector.get(constraintNormalVariableIndex);
+      else
+         return CommonOps.dot(constraintNormal, vector);
+   }
+
+   /**
+    * @return n^T x - c for the given constraint, which is negative when the constraint is violated.
+    */
+   private double computeSlack(int constraintIndex, DenseMatrix64F x)
+   {
+      int numberOfInequalityConstraints = linearInequalityConstraintsCMatrix.getNumRows();
+      int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
+
+      if (constraintIndex < numberOfInequalityConstraints)
+      {
+         double slack = linearInequalityConstraintsDVector.get(constraintIndex);
+         for (int i = 0; i < x.getNumRows(); i++)
+            slack -= linearInequalityConstraintsCMatrix.unsafe_get(constraintIndex, i) * x.get(i);
+         return slack;
+      }
+
+      constraintIndex -= numberOfInequalityConstraints;
+      if (constraintIndex < numberOfLowerBoundConstraints)
+         return x.get(constraintIndex) - variableLowerBounds.get(constraintIndex);
+
+      constraintIndex -= numberOfLowerBoundConstraints;
+      return variableUpperBounds.get(constraintIndex) - x.get(constraintIndex);
+   }
+
+   /**
+    * @return the most violated constraint that is neither active nor excluded, or -1 if there are
+    *         none. With warm start, the constraints that were active at the end of the last solve
+    *         come first.
+    */
+   private int selectViolatedConstraint(int numberOfConstraints)
+   {
+      int selectedConstraint = -1;
+      double selectedSlack = 0.0;
+      boolean selectedWasActive = false;
+
+      for (int i = 0; i < numberOfConstraints; i++)
+      {
+         if (isConstraintActive[i] || isConstraintExcluded[i])
+            continue;
+
+         double slack = inequalityConstraintSlacks.get(i);
+         if (!(slack < 0.0))
+            continue;
+
+         boolean wasActive = useWarmStart && wasConstraintActiveInLastSolve[i];
+
+         if ((wasActive && !selectedWasActive) || (wasActive == selectedWasActive && slack < selectedSlack))
+         {
+            selectedConstraint = i;
+            selectedSlack = slack;
+            selectedWasActive = wasActive;
+         }
+      }
+
+      return selectedConstraint;
+   }
+
+   /**
+    * Steps in the primal and dual spaces until the given violated constraint is satisfied, and drops
+    * the active constraints whose multiplier reaches zero on the way. The constraint is then stored
+    * right after the active ones, ready to be added.
+    *
+    * @return the number of constraints dropped from the active set, or -1 if no step can be taken,
+    *         in which case the problem is infeasible.
+    */
+   private int stepToConstraint(int constraintToAdd, DenseMatrix64F solution, int numberOfEqualityConstraints)
+   {
+      setInequalityConstraintNormal(constraintToAdd);
+      lagrangeMultipliers.set(numberOfActiveConstraints, 0.0);
+      activeSetIndices.set(numberOfActiveConstraints, constraintToAdd);
+
+      int numberOfDroppedConstraints = 0;
+
+      while (true)
+      {
+         computeStepDirections();
+
+         // Partial step length: largest step in the dual space that keeps the multipliers of the active inequality constraints positive
+         double dualStepLength = Double.POSITIVE_INFINITY;
+         int constraintToDrop = -1;
+
+         for (int i = numberOfEqualityConstraints; i < numberOfActiveConstraints; i++)
+         {
+            double dualStep = dualStepDirection.get(i);
+
+            if (dualStep < 0.0)
+            {
+               double stepLength = -lagrangeMultipliers.get(i) / dualStep;
+               if (stepLength < dualStepLength)
+               {
+                  dualStepLength = stepLength;
+                  constraintToDrop = i;
+               }
+            }
+         }
+
+         // Full step length: step in the primal space that satisfies the constraint to add
+         double primalStepLength = Double.POSITIVE_INFINITY;
+
+         if (CommonOps.dot(primalStepDirection, primalStepDirection) > epsilon)
+         {
+            primalStepLength = -inequalityConstraintSlacks.get(constraintToAdd) / dotWithConstraintNormal(primalStepDirection);
+            if (primalStepLength < 0.0) // Numerical inconsistency
+               primalStepLength = Double.POSITIVE_INFINITY;
+         }
+
+         if (Double.isInfinite(primalStepLength))
+         {
+            if (Double.isInfinite(dualStepLength))
+               return -1;
+
+            // Step in the dual space only
+            updateLagrangeMultipliers(dualStepLength);
+            dropConstraint(constraintToDrop);
+            numberOfDroppedConstraints++;
+            continue;
+         }
+
+         double stepLength = Math.min(primalStepLength, dualStepLength);
+         CommonOps.addEquals(solution, stepLength, primalStepDirection);
+         updateLagrangeMultipliers(stepLength);
+
+         if (primalStepLength <= dualStepLength)
+            return numberOfDroppedConstraints;
+
+         // Partial step
+         dropConstraint(constraintToDrop);
+         numberOfDroppedConstraints++;
+         inequalityConstraintSlacks.set(constraintToAdd, computeSlack(constraintToAdd, solution));
+      }
+   }
+
+   /**
+    * Computes d = J^T n, the step direction in the primal space z = J2 d2, and the step direction
+    * in the dual space r = -R^-1 d1, where the columns of J1 span the active constraints and the
+    * columns of J2 their null space.
+    */
+   private void computeStepDirections()
+   {
+      int numberOfVariables = J.getNumRows();
+
+      if (constraintNormalVariableIndex != -1)
+      {
+         for (int i = 0; i < numberOfVariables; i++)
+            d.set(i, constraintNormalSign * J.unsafe_get(constraintNormalVariableIndex, i));
+      }
+      else
+      {
+         CommonOps.multTransA(J, constraintNormal, d);
+      }
+
+      for (int i = 0; i < numberOfVariables; i++)
+      {
+         double sum = 0.0;
+         for (int j = numberOfActiveConstraints; j < numberOfVariables; j++)
+            sum += J.unsafe_get(i, j) * d.get(j);
+         primalStepDirection.set(i, sum);
+      }
+
+      for (int i = numberOfActiveConstraints - 1; i >= 0; i--)
+      {
+         double sum = d.get(i);
+         for (int j = i + 1; j < numberOfActiveConstraints; j++)
+            sum += R.unsafe_get(i, j) * dualStepDirection.get(j);
+         dualStepDirection.set(i, -sum / R.unsafe_get(i, i));
+      }
+   }
+
+   /**
+    * u = u + t * [r 1], where the last multiplier is the one of the constraint being added.
+    */
+   private void updateLagrangeMultipliers(double stepLength)
+   {
+      for (int i = 0; i < numberOfActiveConstraints; i++)
+         lagrangeMultipliers.set(i, lagrangeMultipliers.get(i) + stepLength * dualStepDirection.get(i));
+      lagrangeMultipliers.set(numberOfActiveConstraints, lagrangeMultipliers.get(numberOfActiveConstraints) + stepLength);
+   }
+
+   /**
+    * Adds the constraint of the current d = J^T n to the factorization: Givens rotations zero the
+    * components of d past the number of active constraints, and d becomes the new column of R.
+    *
+    * @return false if the constraint is linearly dependent on the active constraints.
+    */
+   private boolean addConstraint()
+   {
+      int numberOfVariables = J.getNumRows();
+
+      if (numberOfActiveConstraints >= numberOfVariables)
+         return false;
+
+      for (int j = numberOfVariables - 1; j > numberOfActiveConstraints; j--)
+      {
+         double cc = d.get(j - 1);
+         double ss = d.get(j);
+         double h = distance(cc, ss);
+
+         if (h < epsilon)
+            continue;
+
+         d.set(j, 0.0);
+         cc /= h;
+         ss /= h;
+
+         if (cc < 0.0)
+         {
+            cc = -cc;
+            ss = -ss;
+            d.set(j - 1, -h);
+         }
+         else
+         {
+            d.set(j - 1, h);
+         }
+
+         double xny = ss / (1.0 + cc);
+         for (int k = 0; k < numberOfVariables; k++)
+         {
+            double t1 = J.unsafe_get(k, j - 1);
+            double t2 = J.unsafe_get(k, j);
+            double rotated = t1 * cc + t2 * ss;
+            J.unsafe_set(k, j - 1, rotated);
+            J.unsafe_set(k, j, xny * (t1 + rotated) - t2);
+         }
+      }
+
+      numberOfActiveConstraints++;
+
+      for (int i = 0; i < numberOfActiveConstraints; i++)
+         R.unsafe_set(i, numberOfActiveConstraints - 1, d.get(i));
+
+      double diagonal = Math.abs(d.get(numberOfActiveConstraints - 1));
+      if (diagonal <= epsilon * rNorm)
+         return false;
+
+      rNorm = Math.max(rNorm, diagonal);
+      return true;
+   }
+
+   /**
+    * Removes the active constraint at the given position. The constraint being added, stored right
+    * after the active ones, moves along. Givens rotations bring R back to upper triangular.
+    */
+   private void dropConstraint(int position)
+   {
+      int numberOfVariables = J.getNumRows();
+      int droppedConstraint = activeSetIndices.get(position);
+
+      if (droppedConstraint >= 0)
+         isConstraintActive[droppedConstraint] = false;
+
+      for (int i = position; i < numberOfActiveConstraints; i++)
+      {
+         activeSetIndices.set(i, activeSetIndices.get(i + 1));
+         lagrangeMultipliers.set(i, lagrangeMultipliers.get(i + 1));
+      }
+
+      for (int i = position; i < numberOfActiveConstraints - 1; i++)
+      {
+         for (int j = 0; j < numberOfActiveConstraints; j++)
+            R.unsafe_set(j, i, R.unsafe_get(j, i + 1));
+      }
+
+      for (int j = 0; j < numberOfActiveConstraints; j++)
+         R.unsafe_set(j, numberOfActiveConstraints - 1, 0.0);
+
+      numberOfActiveConstraints--;
+
+      for (int j = position; j < numberOfActiveConstraints; j++)
+      {
+         double cc = R.unsafe_get(j, j);
+         double ss = R.unsafe_get(j + 1, j);
+         double h = distance(cc, ss);
+
+         if (h < epsilon)
+            continue;
+
+         cc /= h;
+         ss /= h;
+         R.unsafe_set(j + 1, j, 0.0);
+
+         if (cc < 0.0)
+         {
+            R.unsafe_set(j, j, -h);
+            cc = -cc;
+            ss = -ss;
+         }
+         else
+         {
+            R.unsafe_set(j, j, h);
+         }
+
+         double xny = ss / (1.0 + cc);
+         for (int k = j + 1; k < numberOfActiveConstraints; k++)
+         {
+            double t1 = R.unsafe_get(j, k);
+            double t2 = R.unsafe_get(j + 1, k);
+            double rotated = t1 * cc + t2 * ss;
+            R.unsafe_set(j, k, rotated);
+            R.unsafe_set(j + 1, k, xny * (t1 + rotated) - t2);
+         }
+
+         for (int k = 0; k < numberOfVariables; k++)
+         {
+            double t1 = J.unsafe_get(k, j);
+            double t2 = J.unsafe_get(k, j + 1);
+            double rotated = t1 * cc + t2 * ss;
+            J.unsafe_set(k, j, rotated);
+            J.unsafe_set(k, j + 1, xny * (t1 + rotated) - t2);
+         }
+      }
+   }
+
+   private void saveState(DenseMatrix64F solution)
+   {
+      previousSolution.set(solution);
+      previousNumberOfActiveConstraints = numberOfActiveConstraints;
+
+      for (int i = 0; i < numberOfActiveConstraints; i++)
+      {
+         previousLagrangeMultipliers.set(i, lagrangeMultipliers.get(i));
+         previousActiveSetIndices.set(i, activeSetIndices.get(i));
+      }
+   }
+
+   private void restoreState(DenseMatrix64F solutionToPack)
+   {
+      solutionToPack.set(previousSolution);
+      numberOfActiveConstraints = previousNumberOfActiveConstraints;
+
+      for (int i = 0; i < numberOfActiveConstraints; i++)
+      {
+         lagrangeMultipliers.set(i, previousLagrangeMultipliers.get(i));
+         activeSetIndices.set(i, previousActiveSetIndices.get(i));
+      }
+   }
+
+   private void packLagrangeMultipliers(DenseMatrix64F lagrangeEqualityConstraintMultipliersToPack, DenseMatrix64F lagrangeInequalityConstraintMultipliersToPack,
+                                        DenseMatrix64F lagrangeLowerBoundConstraintMultipliersToPack,
+                                        DenseMatrix64F lagrangeUpperBoundConstraintMultipliersToPack)
+   {
+      int numberOfInequalityConstraints = linearInequalityConstraintsCMatrix.getNumRows();
+      int numberOfLowerBoundConstraints = variableLowerBounds.getNumRows();
+
+      for (int i = 0; i < numberOfActiveConstraints; i++)
+      {
+         int constraintIndex = activeSetIndices.get(i);
+         double lagrangeMultiplier = lagrangeMultipliers.get(i);
+
+         // The multipliers of the solver satisfy Q x + f = N u, with the normals of the constraints stored as n^T x >= c
+         if (constraintIndex < 0)
+            lagrangeEqualityConstraintMultipliersToPack.set(-constraintIndex - 1, -lagrangeMultiplier);
+         else if (constraintIndex < numberOfInequalityConstraints)
+            lagrangeInequalityConstraintMultipliersToPack.set(constraintIndex, lagrangeMultiplier);
+         else if (constraintIndex < numberOfInequalityConstraints + numberOfLowerBoundConstraints)
+            lagrangeLowerBoundConstraintMultipliersToPack.set(constraintIndex - numberOfInequalityConstraints, lagrangeMultiplier);
+         else
+            lagrangeUpperBoundConstraintMultipliersToPack.set(constraintIndex - numberOfInequalityConstraints - numberOfLowerBoundConstraints, lagrangeMultiplier);
+      }
+   }
+
+   /**
+    * Computes the Euclidean distance between two numbers without overflow.
+    */
+   private static double distance(double a, double b)
+   {
+      double a1 = Math.abs(a);
+      double b1 = Math.abs(b);
+      if (a1 > b1)
+      {
+         double t = b1 / a1;
+         return a1 * Math.sqrt(1.0 + t * t);
+      }
+      else if (b1 > a1)
+      {
+         double t = a1 / b1;
+         return b1 * Math.sqrt(1.0 + t * t);
+      }
+
+      return a1 * Math.sqrt(2.0);
+   }
+}
@@ -0,0 +1,274 @@
+package us.ihmc.convexOptimization.quadraticProgram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.random.RandomGeometry;
+
+public class GoldfarbIdnaniActiveSetQPSolverTest
+{
+   private static final double epsilon = 1.0e-7;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testSimpleCases()
+   {
+      GoldfarbIdnaniActiveSetQPSolver solver = new GoldfarbIdnaniActiveSetQPSolver();
+
+      // Minimize x^2 + y^2 subject to x + y = 1
+      double[][] costQuadraticMatrix = new double[][] {{2.0, 0.0}, {0.0, 2.0}};
+      double[] costLinearVector = new double[] {0.0, 0.0};
+      solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+      solver.setLinearEqualityConstraints(new double[][] {{1.0, 1.0}}, new double[] {1.0});
+
+      double[] solution = new double[2];
+      double[] lagrangeEqualityMultipliers = new double[1];
+      double[] lagrangeInequalityMultipliers = new double[0];
+      int numberOfIterations = solver.solve(solution, lagrangeEqualityMultipliers, lagrangeInequalityMultipliers);
+      assertEquals(0, numberOfIterations);
+      assertEquals(0.5, solution[0], epsilon);
+      assertEquals(0.5, solution[1], epsilon);
+      assertEquals(-1.0, lagrangeEqualityMultipliers[0], epsilon);
+
+      // Minimize x^2 + y^2 subject to x + y >= 2
+      solver.clear();
+      solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+      solver.setLinearInequalityConstraints(new double[][] {{-1.0, -1.0}}, new double[] {-2.0});
+
+      lagrangeEqualityMultipliers = new double[0];
+      lagrangeInequalityMultipliers = new double[1];
+      numberOfIterations = solver.solve(solution, lagrangeEqualityMultipliers, lagrangeInequalityMultipliers);
+      assertEquals(1, numberOfIterations);
+      assertEquals(1.0, solution[0], epsilon);
+      assertEquals(1.0, solution[1], epsilon);
+      assertEquals(2.0, lagrangeInequalityMultipliers[0], epsilon);
+
+      // Same problem, with y <= 10x - 2 and x <= 10y - 2 that are violated by the unconstrained optimum but inactive at the solution
+      solver.clear();
+      solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+      solver.setLinearInequalityConstraints(new double[][] {{-1.0, -1.0}, {-10.0, 1.0}, {1.0, -10.0}}, new double[] {-2.0, -2.0, -2.0});
+
+      lagrangeInequalityMultipliers = new double[3];
+      solver.solve(solution, lagrangeEqualityMultipliers, lagrangeInequalityMultipliers);
+      assertEquals(1.0, solution[0], epsilon);
+      assertEquals(1.0, solution[1], epsilon);
+      assertEquals(2.0, lagrangeInequalityMultipliers[0], epsilon);
+      assertEquals(0.0, lagrangeInequalityMultipliers[1], epsilon);
+      assertEquals(0.0, lagrangeInequalityMultipliers[2], epsilon);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testBoundsWithInfiniteValues()
+   {
+      GoldfarbIdnaniActiveSetQPSolver solver = new GoldfarbIdnaniActiveSetQPSolver();
+
+      // Minimize (x - 5)^2 + (y + 3)^2 + (z - 1)^2 subject to x <= 2, y unbounded, z >= 3
+      solver.setQuadraticCostFunction(new double[][] {{2.0, 0.0, 0.0}, {0.0, 2.0, 0.0}, {0.0, 0.0, 2.0}}, new double[] {-10.0, 6.0, -2.0}, 35.0);
+      double[] lowerBounds = new double[] {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 3.0};
+      double[] upperBounds = new double[] {2.0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+      solver.setVariableBounds(lowerBounds, upperBounds);
+
+      double[] solution = new double[3];
+      double[] lagrangeLowerBoundMultipliers = new double[3];
+      double[] lagrangeUpperBoundMultipliers = new double[3];
+      solver.solve(solution, new double[0], new double[0], lagrangeLowerBoundMultipliers, lagrangeUpperBoundMultipliers);
+
+      assertEquals(2.0, solution[0], epsilon);
+      assertEquals(-3.0, solution[1], epsilon);
+      assertEquals(3.0, solution[2], epsilon);
+      assertEquals(0.0, lagrangeLowerBoundMultipliers[0], epsilon);
+      assertEquals(0.0, lagrangeLowerBoundMultipliers[1], epsilon);
+      assertEquals(4.0, lagrangeLowerBoundMultipliers[2], epsilon);
+      assertEquals(6.0, lagrangeUpperBoundMultipliers[0], epsilon);
+      assertEquals(0.0, lagrangeUpperBoundMultipliers[1], epsilon);
+      assertEquals(0.0, lagrangeUpperBoundMultipliers[2], epsilon);
+
+      DenseMatrix64F solutionMatrix = new DenseMatrix64F(3, 1);
+      solutionMatrix.setData(solution);
+      assertEquals(9.0 + 4.0, solver.getObjectiveCost(solutionMatrix), epsilon);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testRandomProblemsSatisfyOptimalityConditions()
+   {
+      Random random = new Random(1776L);
+      GoldfarbIdnaniActiveSetQPSolver solver = new GoldfarbIdnaniActiveSetQPSolver();
+
+      for (int testNumber = 0; testNumber < 500; testNumber++)
+      {
+         int numberOfVariables = 1 + random.nextInt(20);
+         int numberOfEqualityConstraints = random.nextInt(Math.min(numberOfVariables, 4) + 1);
+         int numberOfInequalityConstraints = random.nextInt(30);
+         boolean hasBounds = random.nextBoolean();
+
+         DenseMatrix64F costQuadraticMatrix = new DenseMatrix64F(numberOfVariables, numberOfVariables);
+         DenseMatrix64F randomMatrix = RandomGeometry.nextDenseMatrix64F(random, numberOfVariables, numberOfVariables);
+         CommonOps.multTransA(randomMatrix, randomMatrix, costQuadraticMatrix);
+         for (int i = 0; i < numberOfVariables; i++)
+            costQuadraticMatrix.add(i, i, 0.1);
+         DenseMatrix64F costLinearVector = RandomGeometry.nextDenseMatrix64F(random, numberOfVariables, 1, -5.0, 5.0);
+
+         // Make the problems feasible by building the constraints around a random point
+         DenseMatrix64F feasiblePoint = RandomGeometry.nextDenseMatrix64F(random, numberOfVariables, 1);
+         DenseMatrix64F linearEqualityConstraintsAMatrix = RandomGeometry.nextDenseMatrix64F(random, numberOfEqualityConstraints, numberOfVariables);
+         DenseMatrix64F linearEqualityConstraintsBVector = new DenseMatrix64F(numberOfEqualityConstraints, 1);
+         CommonOps.mult(linearEqualityConstraintsAMatrix, feasiblePoint, linearEqualityConstraintsBVector);
+         DenseMatrix64F linearInequalityConstraintsCMatrix = RandomGeometry.nextDenseMatrix64F(random, numberOfInequalityConstraints, numberOfVariables);
+         DenseMatrix64F linearInequalityConstraintsDVector = RandomGeometry.nextDenseMatrix64F(random, numberOfInequalityConstraints, 1, 0.0, 1.0);
+         CommonOps.multAdd(linearInequalityConstraintsCMatrix, feasiblePoint, linearInequalityConstraintsDVector);
+
+         DenseMatrix64F variableLowerBounds = new DenseMatrix64F(hasBounds ? numberOfVariables : 0, 1);
+         DenseMatrix64F variableUpperBounds = new DenseMatrix64F(hasBounds ? numberOfVariables : 0, 1);
+         for (int i = 0; i < variableLowerBounds.getNumRows(); i++)
+         {
+            double lowerBound = feasiblePoint.get(i) - random.nextDouble();
+            double upperBound = feasiblePoint.get(i) + random.nextDouble();
+            variableLowerBounds.set(i, random.nextInt(4) == 0 ? Double.NEGATIVE_INFINITY : lowerBound);
+            variableUpperBounds.set(i, random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY : upperBound);
+         }
+
+         solver.clear();
+         solver.setUseWarmStart(random.nextBoolean());
+         solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+         solver.setLinearEqualityConstraints(linearEqualityConstraintsAMatrix, linearEqualityConstraintsBVector);
+         solver.setLinearInequalityConstraints(linearInequalityConstraintsCMatrix, linearInequalityConstraintsDVector);
+         if (hasBounds)
+            solver.setVariableBounds(variableLowerBounds, variableUpperBounds);
+
+         DenseMatrix64F solution = new DenseMatrix64F(numberOfVariables, 1);
+         DenseMatrix64F lagrangeEqualityMultipliers = new DenseMatrix64F(numberOfEqualityConstraints, 1);
+         DenseMatrix64F lagrangeInequalityMultipliers = new DenseMatrix64F(numberOfInequalityConstraints, 1);
+         DenseMatrix64F lagrangeLowerBoundMultipliers = new DenseMatrix64F(variableLowerBounds.getNumRows(), 1);
+         DenseMatrix64F lagrangeUpperBoundMultipliers = new DenseMatrix64F(variableUpperBounds.getNumRows(), 1);
+         solver.solve(solution, lagrangeEqualityMultipliers, lagrangeInequalityMultipliers, lagrangeLowerBoundMultipliers, lagrangeUpperBoundMultipliers);
+
+         // Stationarity: Q x + f + A^T mu + C^T lambda - lambdaLower + lambdaUpper = 0
+         DenseMatrix64F gradient = new DenseMatrix64F(numberOfVariables, 1);
+         CommonOps.mult(costQuadraticMatrix, solution, gradient);
+         CommonOps.addEquals(gradient, costLinearVector);
+         CommonOps.multAddTransA(linearEqualityConstraintsAMatrix, lagrangeEqualityMultipliers, gradient);
+         CommonOps.multAddTransA(linearInequalityConstraintsCMatrix, lagrangeInequalityMultipliers, gradient);
+         if (hasBounds)
+         {
+            CommonOps.subtractEquals(gradient, lagrangeLowerBoundMultipliers);
+            CommonOps.addEquals(gradient, lagrangeUpperBoundMultipliers);
+         }
+         for (int i = 0; i < numberOfVariables; i++)
+            assertEquals(0.0, gradient.get(i), 1.0e-6);
+
+         DenseMatrix64F constraintValues = new DenseMatrix64F(numberOfEqualityConstraints, 1);
+         CommonOps.mult(linearEqualityConstraintsAMatrix, solution, constraintValues);
+         for (int i = 0; i < numberOfEqualityConstraints; i++)
+            assertEquals(linearEqualityConstraintsBVector.get(i), constraintValues.get(i), 1.0e-6);
+
+         constraintValues.reshape(numberOfInequalityConstraints, 1);
+         CommonOps.mult(linearInequalityConstraintsCMatrix, solution, constraintValues);
+         for (int i = 0; i < numberOfInequalityConstraints; i++)
+         {
+            double slack = linearInequalityConstraintsDVector.get(i) - constraintValues.get(i);
+            assertComplementarity(slack, lagrangeInequalityMultipliers.get(i));
+         }
+
+         for (int i = 0; i < variableLowerBounds.getNumRows(); i++)
+         {
+            assertComplementarity(solution.get(i) - variableLowerBounds.get(i), lagrangeLowerBoundMultipliers.get(i));
+            assertComplementarity(variableUpperBounds.get(i) - solution.get(i), lagrangeUpperBoundMultipliers.get(i));
+         }
+      }
+   }
+
+   private static void assertComplementarity(double slack, double lagrangeMultiplier)
+   {
+      assertTrue(slack > -1.0e-6);
+      assertTrue(lagrangeMultiplier > -1.0e-6);
+      if (Double.isInfinite(slack))
+         assertEquals(0.0, lagrangeMultiplier, 0.0);
+      else
+         assertEquals(0.0, slack * lagrangeMultiplier, 1.0e-6);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testInfeasibleProblems()
+   {
+      GoldfarbIdnaniActiveSetQPSolver solver = new GoldfarbIdnaniActiveSetQPSolver();
+
+      // Minimize x^2 + y^2 subject to x + y = 5, x + y <= 2
+      double[][] costQuadraticMatrix = new double[][] {{2.0, 0.0}, {0.0, 2.0}};
+      solver.setQuadraticCostFunction(costQuadraticMatrix, new double[] {0.0, 0.0}, 0.0);
+      solver.setLinearEqualityConstraints(new double[][] {{1.0, 1.0}}, new double[] {5.0});
+      solver.setLinearInequalityConstraints(new double[][] {{1.0, 1.0}}, new double[] {2.0});
+
+      double[] solution = new double[2];
+      solver.solve(solution, new double[1], new double[1]);
+      assertTrue(Double.isNaN(solution[0]));
+      assertTrue(Double.isNaN(solution[1]));
+
+      // Minimize x^2 subject to 1 <= x <= -1
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{2.0}}, new double[] {0.0}, 0.0);
+      solver.setVariableBounds(new double[] {1.0}, new double[] {-1.0});
+
+      solution = new double[1];
+      solver.solve(solution, new double[0], new double[0], new double[1], new double[1]);
+      assertTrue(Double.isNaN(solution[0]));
+
+      // Cost that is not positive definite
+      solver.clear();
+      solver.setQuadraticCostFunction(new double[][] {{1.0, 0.0}, {0.0, -1.0}}, new double[] {0.0, 0.0}, 0.0);
+
+      solution = new double[2];
+      solver.solve(solution);
+      assertTrue(Double.isNaN(solution[0]));
+      assertTrue(Double.isNaN(solution[1]));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testWarmStartGivesTheSameSolution()
+   {
+      Random random = new Random(5843L);
+      GoldfarbIdnaniActiveSetQPSolver solver = new GoldfarbIdnaniActiveSetQPSolver();
+      GoldfarbIdnaniActiveSetQPSolver coldSolver = new GoldfarbIdnaniActiveSetQPSolver();
+      solver.setUseWarmStart(true);
+
+      int numberOfVariables = 12;
+      int numberOfInequalityConstraints = 20;
+      DenseMatrix64F costQuadraticMatrix = CommonOps.identity(numberOfVariables, numberOfVariables);
+      DenseMatrix64F linearInequalityConstraintsCMatrix = RandomGeometry.nextDenseMatrix64F(random, numberOfInequalityConstraints, numberOfVariables);
+      DenseMatrix64F linearInequalityConstraintsDVector = RandomGeometry.nextDenseMatrix64F(random, numberOfInequalityConstraints, 1, 0.1, 1.0);
+      DenseMatrix64F costLinearVector = RandomGeometry.nextDenseMatrix64F(random, numberOfVariables, 1, -5.0, 5.0);
+
+      DenseMatrix64F solution = new DenseMatrix64F(numberOfVariables, 1);
+      DenseMatrix64F coldSolution = new DenseMatrix64F(numberOfVariables, 1);
+
+      // Slowly changing problems, like a controller running at a high rate
+      for (int i = 0; i < 50; i++)
+      {
+         for (int j = 0; j < numberOfVariables; j++)
+            costLinearVector.add(j, 0, 0.1 * (random.nextDouble() - 0.5));
+
+         solver.clear();
+         solver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+         solver.setLinearInequalityConstraints(linearInequalityConstraintsCMatrix, linearInequalityConstraintsDVector);
+         solver.solve(solution);
+
+         coldSolver.clear();
+         coldSolver.setQuadraticCostFunction(costQuadraticMatrix, costLinearVector, 0.0);
+         coldSolver.setLinearInequalityConstraints(linearInequalityConstraintsCMatrix, linearInequalityConstraintsDVector);
+         coldSolver.solve(coldSolution);
+
+         for (int j = 0; j < numberOfVariables; j++)
+            assertEquals(coldSolution.get(j), solution.get(j), 1.0e-7);
+      }
+   }
+}
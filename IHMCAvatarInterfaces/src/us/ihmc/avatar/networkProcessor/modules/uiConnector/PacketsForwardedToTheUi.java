@@ -32,6 +32,7 @@ import us.ihmc.humanoidRobotics.communication.packets.sensing.FisheyePacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.HeadPosePacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.LocalizationPointMapPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.MultisenseMocapExperimentPacket;
+import us.ihmc.humanoidRobotics.communication.packets.sensing.PackedPointCloudWorldPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PelvisPoseErrorPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PointCloudWorldPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.RawIMUPacket;
@@ -82,6 +83,7 @@ public class PacketsForwardedToTheUi
       BehaviorStatusPacket.class,
       DoorLocationPacket.class,
       PointCloudWorldPacket.class,
+      PackedPointCloudWorldPacket.class,
       HandJointAnglePacket.class,
       WholeBodyTrajectoryMessage.class,
       JointAnglesPacket.class,
@@ -0,0 +1,136 @@
+package us.ihmc.commonWalkingControlModules;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.avatar.MultiRobotTestInterface;
+import us.ihmc.commonWalkingControlModules.controllerCore.command.inverseDynamics.SpatialAccelerationCommand;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.CentroidalMomentumHandler;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.InverseDynamicsQPSolver;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.JointIndexHandler;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInput;
+import us.ihmc.commonWalkingControlModules.momentumBasedController.optimization.MotionQPInputCalculator;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotModels.FullHumanoidRobotModel;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.referenceFrames.CenterOfMassReferenceFrame;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.screwTheory.InverseDynamicsJoint;
+import us.ihmc.robotics.screwTheory.RigidBody;
+import us.ihmc.robotics.screwTheory.ScrewTestTools;
+import us.ihmc.robotics.screwTheory.ScrewTools;
+
+/**
+ * Measures the time it takes to add the motion tasks to the cost of the whole-body QP against the
+ * number of tasks, with the task Jacobian columns declared by the {@link MotionQPInputCalculator}
+ * and with dense task Jacobians.
+ */
+public abstract class AvatarQPAssemblyBenchmarkTest implements MultiRobotTestInterface
+{
+   private static final int MAXIMUM_NUMBER_OF_TASKS = 20;
+   private static final int WARMUP_ITERATIONS = 2000;
+   private static final int ITERATIONS = 5000;
+
+   @ContinuousIntegrationTest(estimatedDuration = 10.0)
+   @Test(timeout = 300000)
+   public void testAssemblyTimeAgainstNumberOfTasks()
+   {
+      Random random = new Random(5165L);
+      FullHumanoidRobotModel fullRobotModel = getRobotModel().createFullRobotModel();
+      RigidBody elevator = fullRobotModel.getElevator();
+      RigidBody chest = fullRobotModel.getChest();
+
+      ScrewTestTools.setRandomPositions(fullRobotModel.getOneDoFJoints(), random, -0.5, 0.5);
+      fullRobotModel.updateFrames();
+
+      InverseDynamicsJoint[] jointsToOptimizeFor = ScrewTools.computeSubtreeJoints(elevator);
+      JointIndexHandler jointIndexHandler = new JointIndexHandler(jointsToOptimizeFor);
+      int numberOfDoFs = jointIndexHandler.getNumberOfDoFs();
+
+      YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+      CenterOfMassReferenceFrame centerOfMassFrame = new CenterOfMassReferenceFrame("comFrame", ReferenceFrame.getWorldFrame(), elevator);
+      centerOfMassFrame.update();
+      CentroidalMomentumHandler centroidalMomentumHandler = new CentroidalMomentumHandler(elevator, centerOfMassFrame);
+      MotionQPInputCalculator motionQPInputCalculator = new MotionQPInputCalculator(centerOfMassFrame, centroidalMomentumHandler, jointIndexHandler, null,
+                                                                                    registry);
+      motionQPInputCalculator.initialize();
+
+      // Tasks as the walking controller sets them up: the hands and head with respect to the chest, the other bodies with respect to the elevator.
+      List<SpatialAccelerationCommand> commands = new ArrayList<>();
+      for (RobotSide robotSide : RobotSide.values)
+      {
+         addCommand(chest, fullRobotModel.getHand(robotSide), commands);
+         addCommand(elevator, fullRobotModel.getFoot(robotSide), commands);
+      }
+      addCommand(elevator, fullRobotModel.getPelvis(), commands);
+      addCommand(elevator, chest, commands);
+      addCommand(chest, fullRobotModel.getHead(), commands);
+
+      List<MotionQPInput> sparseInputs = new ArrayList<>();
+      List<MotionQPInput> denseInputs = new ArrayList<>();
+      for (int i = 0; i < MAXIMUM_NUMBER_OF_TASKS; i++)
+      {
+         MotionQPInput sparseInput = new MotionQPInput(numberOfDoFs);
+         assertTrue(motionQPInputCalculator.convertSpatialAccelerationCommand(commands.get(i % commands.size()), sparseInput));
+         assertTrue(sparseInput.hasTaskJacobianColumnIndices());
+         sparseInputs.add(sparseInput);
+
+         // Same task without the declared columns
+         MotionQPInput denseInput = new MotionQPInput(numberOfDoFs);
+         denseInput.reshape(sparseInput.taskJacobian.getNumRows());
+         denseInput.setTaskJacobian(sparseInput.taskJacobian);
+         denseInput.setTaskObjective(sparseInput.taskObjective);
+         denseInput.setTaskWeightMatrix(sparseInput.taskWeightMatrix);
+         denseInputs.add(denseInput);
+      }
+
+      InverseDynamicsQPSolver qpSolver = new InverseDynamicsQPSolver(numberOfDoFs, 0, true, registry);
+
+      System.out.println(getSimpleRobotName() + ", " + numberOfDoFs + " DoFs, QP assembly time per control tick:");
+      for (int numberOfTasks = 1; numberOfTasks <= MAXIMUM_NUMBER_OF_TASKS; numberOfTasks++)
+      {
+         double denseTime = measureAssemblyTime(qpSolver, denseInputs, numberOfTasks);
+         double sparseTime = measureAssemblyTime(qpSolver, sparseInputs, numberOfTasks);
+         System.out.println(String.format("%2d tasks: dense %8.2f us, sparse %8.2f us", numberOfTasks, denseTime, sparseTime));
+      }
+   }
+
+   private static void addCommand(RigidBody base, RigidBody endEffector, List<SpatialAccelerationCommand> commands)
+   {
+      if (endEffector == null)
+         return;
+
+      SpatialAccelerationCommand command = new SpatialAccelerationCommand();
+      command.set(base, endEffector);
+      command.setWeight(1.0);
+      command.setSpatialAccelerationToZero(endEffector.getBodyFixedFrame());
+      commands.add(command);
+   }
+
+   /**
+    * @return the average time in microseconds to add the first {@code numberOfTasks} inputs.
+    */
+   private static double measureAssemblyTime(InverseDynamicsQPSolver qpSolver, List<MotionQPInput> inputs, int numberOfTasks)
+   {
+      for (int i = 0; i < WARMUP_ITERATIONS; i++)
+         addMotionInputs(qpSolver, inputs, numberOfTasks);
+
+      long startTime = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++)
+         addMotionInputs(qpSolver, inputs, numberOfTasks);
+      return (System.nanoTime() - startTime) / 1000.0 / ITERATIONS;
+   }
+
+   private static void addMotionInputs(InverseDynamicsQPSolver qpSolver, List<MotionQPInput> inputs, int numberOfTasks)
+   {
+      qpSolver.reset();
+      for (int i = 0; i < numberOfTasks; i++)
+         qpSolver.addMotionInput(inputs.get(i));
+   }
+}
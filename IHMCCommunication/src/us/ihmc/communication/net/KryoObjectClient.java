@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Client;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.KryoSerialization;
@@ -100,6 +101,12 @@ public class KryoObjectClient extends KryoObjectCommunicator
       return client.sendUDP(object);
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return client.getKryo();
+   }
+
    @Override
    protected int sendTCP(Object object)
    {
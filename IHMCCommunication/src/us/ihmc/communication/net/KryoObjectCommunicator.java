@@ -2,17 +2,22 @@ package us.ihmc.communication.net;
 
 import java.awt.Container;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.table.DefaultTableModel;
 
+import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.EndPoint;
 import com.esotericsoftware.kryonet.FrameworkMessage.KeepAlive;
@@ -25,12 +30,22 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
 {
    private final AtomicBoolean throwExceptionForUnregisteredPackets = new AtomicBoolean(true);
    private final LinkedHashMap<Class<?>, ExecutorService> listenerExecutors = new LinkedHashMap<Class<?>, ExecutorService>();
-   private final LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>> listeners = new LinkedHashMap<Class<?>, ArrayList<ObjectConsumer<?>>>();
+   private final LinkedHashMap<Class<?>, CopyOnWriteArrayList<ObjectConsumer<?>>> listeners = new LinkedHashMap<Class<?>, CopyOnWriteArrayList<ObjectConsumer<?>>>();
 
    private final ArrayList<TcpNetStateListener> tcpStateListeners = new ArrayList<TcpNetStateListener>();
    private final ArrayList<NetStateListener> stateListeners = new ArrayList<NetStateListener>();
    
-   private final ArrayList<GlobalObjectConsumer> globalListeners = new ArrayList<GlobalObjectConsumer>();
+   private final CopyOnWriteArrayList<GlobalObjectConsumer> globalListeners = new CopyOnWriteArrayList<GlobalObjectConsumer>();
+
+   // Shared dispatch and asynchronous send, see enableSharedDispatch() and enableAsynchronousSend()
+   private StripedObjectDispatcher sharedDispatcher = null;
+   private ConcurrentLinkedQueue<Object> outbox = null;
+   private Thread outboxWriter = null;
+   private volatile boolean outboxRunning = false;
+
+   // Recycling, see enableRecycling()
+   private ObjectRecycler recycler = null;
+   private final ArrayDeque<RecycledObject> unusedRecycledObjects = new ArrayDeque<>();
    
    // Stuff for data count table 
    private DefaultTableModel dataRateTable;
@@ -72,15 +87,128 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    {
 	   if(!listeners.containsKey(Object.class))
 	   {
-		   listeners.put(Object.class, new ArrayList<ObjectConsumer<?>>());
+		   listeners.put(Object.class, new CopyOnWriteArrayList<ObjectConsumer<?>>());
 	   }
 	   
 	   for(Class<?> clazz : classList.getPacketClassList())
 	   {
-		   listeners.put(clazz, new ArrayList<ObjectConsumer<?>>());
+		   listeners.put(clazz, new CopyOnWriteArrayList<ObjectConsumer<?>>());
 		   listenerExecutors.put(clazz, Executors.newFixedThreadPool(1, ThreadTools.getNamedThreadFactory("Kryo" + clazz.getSimpleName() + "Listener")));
 	   }
    }
+
+   /**
+    * Consume received objects on a shared pool of threads instead of a thread per registered class.
+    * Objects of the same class are still consumed in order and never concurrently. Has to be called
+    * before connecting.
+    * 
+    * @param numberOfThreads number of dispatch threads, a handful is enough for most class lists
+    */
+   public void enableSharedDispatch(int numberOfThreads)
+   {
+      if (isConnected() || sharedDispatcher != null)
+      {
+         throw new RuntimeException("Cannot change the dispatch mode after connecting");
+      }
+
+      sharedDispatcher = new StripedObjectDispatcher("Kryo", numberOfThreads, listenerExecutors.keySet(), this::dispatch);
+
+      // The per class executors have not started any threads yet
+      for (ExecutorService executor : listenerExecutors.values())
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   /**
+    * Queue sent objects and write them to the connection from a single thread. Sending no longer
+    * blocks on serialization or on other threads sending, and {@link #send(Object)} returns 0 instead
+    * of the number of bytes sent. Objects sent after {@link #close()} are not written and
+    * {@link #send(Object)} returns -1. Has to be called before connecting.
+    */
+   public void enableAsynchronousSend()
+   {
+      if (isConnected() || outbox != null)
+      {
+         throw new RuntimeException("Cannot change the send mode after connecting");
+      }
+
+      outbox = new ConcurrentLinkedQueue<>();
+      outboxRunning = true;
+      outboxWriter = new Thread(this::writeOutbox, "KryoOutboxWriter");
+      outboxWriter.setDaemon(true);
+      outboxWriter.start();
+   }
+
+   private void writeOutbox()
+   {
+      while (true)
+      {
+         Object object = outbox.poll();
+         if (object == null)
+         {
+            if (!outboxRunning)
+            {
+               return;
+            }
+
+            // Sending unparks the writer after the offer, so the queue is polled again after every offer
+            LockSupport.park(this);
+            continue;
+         }
+
+         if (object instanceof RecycledObject)
+         {
+            RecycledObject recycledObject = (RecycledObject) object;
+            object = recycledObject.object;
+            recycledObject.object = null;
+            synchronized (unusedRecycledObjects)
+            {
+               unusedRecycledObjects.add(recycledObject);
+            }
+
+            int bytesSend = sendTCP(object);
+            updateDataRateTable(object, bytesSend);
+            recycler.release(object);
+            continue;
+         }
+
+         int bytesSend = sendTCP(object);
+         updateDataRateTable(object, bytesSend);
+      }
+   }
+
+   /**
+    * Received objects of the classes of the recycler are deserialized into recycled objects, and are
+    * given back to the recycler when all listeners consumed them. Listeners of these classes must copy
+    * the data they keep, or {@link ObjectRecycler#retain} the object and release it themselves. Has
+    * to be called before connecting.
+    */
+   @Override
+   public void enableRecycling(ObjectRecycler recycler)
+   {
+      if (isConnected() || this.recycler != null)
+      {
+         throw new RuntimeException("Cannot change the recycling mode after connecting");
+      }
+
+      for (Class<?> clazz : recycler.getRecycledClasses())
+      {
+         if (!listeners.containsKey(clazz))
+         {
+            throw new RuntimeException("Class " + clazz.getSimpleName() + " is not registered with ObjectCommunicator");
+         }
+      }
+
+      recycler.registerWithKryo(getKryo());
+      this.recycler = recycler;
+   }
+
+   @Override
+   public ObjectRecycler getRecycler()
+   {
+      return recycler;
+   }
    
    @Override
    public void attachStateListener(NetStateListener stateListener)
@@ -112,11 +240,7 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    {
       if(listeners.containsKey(clazz))
       {
-         ArrayList<ObjectConsumer<?>> listenerList = listeners.get(clazz);
-         if (listenerList.contains(listener))
-         {
-            listenerList.remove(listener);
-         }
+         listeners.get(clazz).remove(listener);
       }
    }
    
@@ -129,20 +253,17 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    @Override
    public void detachGlobalListener(GlobalObjectConsumer listener)
    {
-      if (globalListeners.contains(listener))
-      {
-         globalListeners.remove(listener);
-      }
+      globalListeners.remove(listener);
    }
    
    @Override
-   public synchronized void consumeObject(Object object)
+   public void consumeObject(Object object)
    {
       send(object);
    }
 
    @Override
-   public synchronized int send(Object object)
+   public int send(Object object)
    {
 
       if (!listeners.containsKey(object.getClass()))
@@ -152,9 +273,80 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
          else
             return -1;
       }
-      int bytesSend = sendTCP(object);
-      updateDataRateTable(object, bytesSend);
-      return bytesSend;
+
+      if (outbox != null)
+      {
+         return offerToOutbox(object) ? 0 : -1;
+      }
+
+      synchronized (this)
+      {
+         int bytesSend = sendTCP(object);
+         updateDataRateTable(object, bytesSend);
+         return bytesSend;
+      }
+   }
+
+   /**
+    * Sends the object and gives it to the recycler once it is written. With asynchronous send that is
+    * after the writer thread serialized it.
+    */
+   @Override
+   public int sendAndRecycle(Object object)
+   {
+      if (outbox == null || recycler == null || !recycler.isRecycled(object.getClass()))
+      {
+         int bytesSend = send(object);
+         if (recycler != null)
+         {
+            recycler.release(object);
+         }
+         return bytesSend;
+      }
+
+      if (!listeners.containsKey(object.getClass()))
+      {
+         throw new RuntimeException(object.getClass().getSimpleName() + " not registered with ObjectCommunicator");
+      }
+
+      RecycledObject recycledObject;
+      synchronized (unusedRecycledObjects)
+      {
+         recycledObject = unusedRecycledObjects.poll();
+      }
+      if (recycledObject == null)
+      {
+         recycledObject = new RecycledObject();
+      }
+      recycledObject.object = object;
+      if (!offerToOutbox(recycledObject))
+      {
+         recycledObject.object = null;
+         recycler.release(object);
+         return -1;
+      }
+      return 0;
+   }
+
+   /**
+    * @return false if the communicator is closed and the object will not be written
+    */
+   private boolean offerToOutbox(Object object)
+   {
+      if (!outboxRunning)
+      {
+         return false;
+      }
+
+      outbox.offer(object);
+      LockSupport.unpark(outboxWriter);
+
+      // If close() raced this offer the writer may have stopped already, take the object back unless it was written
+      if (!outboxRunning && outbox.remove(object))
+      {
+         return false;
+      }
+      return true;
    }
 
    public void throwExceptionForUnregisteredPackets(boolean value)
@@ -184,39 +376,31 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       Listener listener = new Listener()
       {
          @Override
-         @SuppressWarnings("unchecked")
          public void received(Connection connection, final Object object)
          {
             final Class<? extends Object> classType = object.getClass();
-            ExecutorService executorService = listenerExecutors.get(classType);
-            if(executorService != null)
+            if (sharedDispatcher != null)
             {
-               executorService.execute(new Runnable()
+               if (sharedDispatcher.dispatch(object))
+               {
+                  return;
+               }
+            }
+            else if (listenerExecutors.containsKey(classType))
+            {
+               listenerExecutors.get(classType).execute(new Runnable()
                {
                   
                   @Override
                   public void run()
                   {
-                     for(int i = 0; i < globalListeners.size(); i++)
-                     {
-                        globalListeners.get(i).consumeObject(object);
-                     }
-                     
-                     ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(classType);
-                     if (objectListeners != null)
-                     {
-                        for (int i = 0; i < objectListeners.size(); i++)
-                        {
-                           @SuppressWarnings("rawtypes")
-                           ObjectConsumer listener = objectListeners.get(i);
-                           listener.consumeObject(object);
-                        }
-                     }
+                     dispatch(object);
                   }
                });
+               return;
             }
             
-            else if (!(object instanceof KeepAlive))
+            if (!(object instanceof KeepAlive))
             {
                System.err.println("Received unkown object of class " + classType);
             }
@@ -255,6 +439,35 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
       endPoint.addListener(listener);
    }
 
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private void dispatch(Object object)
+   {
+      try
+      {
+         for (GlobalObjectConsumer globalListener : globalListeners)
+         {
+            globalListener.consumeObject(object);
+         }
+
+         CopyOnWriteArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
+         if (objectListeners != null)
+         {
+            for (ObjectConsumer listener : objectListeners)
+            {
+               listener.consumeObject(object);
+            }
+         }
+      }
+      finally
+      {
+         // Objects a listener retained go back to the pool when that listener releases them
+         if (recycler != null)
+         {
+            recycler.release(object);
+         }
+      }
+   }
+
    @Override
    public final void connect() throws IOException
    {
@@ -264,11 +477,30 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    @Override
    public final void close()
    {
+      if (outboxWriter != null)
+      {
+         // Write the queued objects before closing the connection
+         outboxRunning = false;
+         LockSupport.unpark(outboxWriter);
+         try
+         {
+            outboxWriter.join(1000);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+
       closeConnection();
       for(ExecutorService executor : listenerExecutors.values())
       {
          executor.shutdownNow();
       }
+      if (sharedDispatcher != null)
+      {
+         sharedDispatcher.shutdown();
+      }
    }
    
    protected abstract void openConnection() throws IOException;
@@ -276,6 +508,8 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
    protected abstract int sendUDP(Object object);
 
    protected abstract int sendTCP(Object object);
+
+   protected abstract Kryo getKryo();
    
    @Override
    public abstract boolean isConnected();
@@ -285,6 +519,11 @@ public abstract class KryoObjectCommunicator implements NetworkedObjectCommunica
     */
    public abstract void closeConnection();
 
+   private static class RecycledObject
+   {
+      private Object object;
+   }
+
    private class TableData
    {
       private final int row;
@@ -95,6 +95,12 @@ public class KryoObjectServer extends KryoObjectCommunicator
       return bbos.getByteBuffer().position();
    }
 
+   @Override
+   protected Kryo getKryo()
+   {
+      return server.getKryo();
+   }
+
    @Override
    protected int sendTCP(Object object)
    {
@@ -20,4 +20,38 @@ public interface NetworkedObjectCommunicator extends ObjectCommunicator
     * Use close() when you want to shutdown the connection completely. 
     */
    void closeConnection();
+
+   /**
+    * Deserializes received objects of the recycled classes into objects of the recycler, and gives
+    * them back to the recycler when the listeners are done with them. A listener that keeps an object
+    * has to {@link ObjectRecycler#retain} it and release it later. Has to be called before
+    * connecting.
+    */
+   default void enableRecycling(ObjectRecycler recycler)
+   {
+      throw new RuntimeException(getClass().getSimpleName() + " does not support recycling");
+   }
+
+   /**
+    * @return the recycler, or null if recycling is not enabled
+    */
+   default ObjectRecycler getRecycler()
+   {
+      return null;
+   }
+
+   /**
+    * Sends the object and gives it back to the recycler once it is serialized. The caller must not
+    * use the object afterwards.
+    */
+   default int sendAndRecycle(Object object)
+   {
+      int bytesSend = send(object);
+      ObjectRecycler recycler = getRecycler();
+      if (recycler != null)
+      {
+         recycler.release(object);
+      }
+      return bytesSend;
+   }
 }
@@ -0,0 +1,331 @@
+package us.ihmc.communication.net;
+
+import java.lang.reflect.Constructor;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import us.ihmc.commons.Conversions;
+
+/**
+ * Keeps a pool of objects for each of its classes, so high rate packets can be received and sent
+ * without creating a new object every time.
+ *
+ * Communicators with recycling enabled deserialize received objects of these classes into pooled
+ * objects, and give them back to the pool when all listeners have consumed them. The arrays and
+ * tuples in the fields of a recycled object are reused as well when their size matches. Listeners
+ * must not keep a reference to a recycled object or to its fields after they return, they have to
+ * copy the data they need, or {@link #retain} the object and release it when they are done with it.
+ * Senders can {@link #obtain} objects and send them with sendAndRecycle.
+ *
+ * Communicators that pass objects to each other within the process should share one recycler, so
+ * the objects go back to the pool they are taken from.
+ */
+public class ObjectRecycler
+{
+   private final LinkedHashMap<Class<?>, ClassPool> pools = new LinkedHashMap<>();
+   private long startTime = System.nanoTime();
+
+   /**
+    * @param maximumPooledObjectsPerClass objects that are released when the pool of their class is
+    *           full are left to the garbage collector
+    */
+   public ObjectRecycler(int maximumPooledObjectsPerClass, Class<?>... classes)
+   {
+      for (Class<?> clazz : classes)
+      {
+         pools.put(clazz, new ClassPool(clazz, maximumPooledObjectsPerClass));
+      }
+   }
+
+   public ObjectRecycler(int maximumPooledObjectsPerClass, Iterable<Class<?>> classes)
+   {
+      for (Class<?> clazz : classes)
+      {
+         pools.put(clazz, new ClassPool(clazz, maximumPooledObjectsPerClass));
+      }
+   }
+
+   public boolean isRecycled(Class<?> clazz)
+   {
+      return pools.containsKey(clazz);
+   }
+
+   public Set<Class<?>> getRecycledClasses()
+   {
+      return pools.keySet();
+   }
+
+   /**
+    * Makes the kryo read and copy objects of the recycled classes into pooled objects, and reuse the
+    * arrays and tuples in their fields. The classes have to be registered with the kryo already, they
+    * keep their registration id.
+    */
+   public void registerWithKryo(Kryo kryo)
+   {
+      ReusableFieldValues reusableFieldValues = new ReusableFieldValues();
+      reusableFieldValues.registerWithKryo(kryo, pools.keySet());
+      for (Class<?> clazz : pools.keySet())
+      {
+         registerRecyclingSerializer(kryo, clazz, reusableFieldValues);
+      }
+   }
+
+   private <T> void registerRecyclingSerializer(Kryo kryo, Class<T> clazz, ReusableFieldValues reusableFieldValues)
+   {
+      kryo.register(clazz, new RecyclingFieldSerializer<T>(kryo, clazz, this, reusableFieldValues));
+   }
+
+   /**
+    * Takes an object from the pool, or creates one with the no-argument constructor if the pool is
+    * empty. Pooled objects keep the values of their previous use. The arrays and tuples in the fields
+    * are reused when Kryo reads into the object again, so they must not be shared with other objects.
+    */
+   public <T> T obtain(Class<T> clazz)
+   {
+      ClassPool pool = getPool(clazz);
+      T object = clazz.cast(pool.take());
+      if (object == null)
+      {
+         object = clazz.cast(pool.newInstance());
+      }
+      return object;
+   }
+
+   /**
+    * @return a pooled object, or null if the pool is empty. The caller creates the object then and
+    *         reports it with {@link #created}.
+    */
+   Object take(Class<?> clazz)
+   {
+      return getPool(clazz).take();
+   }
+
+   void created(Class<?> clazz)
+   {
+      getPool(clazz).created();
+   }
+
+   /**
+    * Keeps the object out of the pool for one more {@link #release}. A listener that needs a
+    * received object after it returns retains it, and releases it when it is done with it. Objects
+    * of other classes are ignored.
+    */
+   public void retain(Object object)
+   {
+      ClassPool pool = pools.get(object.getClass());
+      if (pool != null)
+      {
+         pool.retain(object);
+      }
+   }
+
+   /**
+    * Gives the object back to the pool of its class, unless it is still retained. Objects of other
+    * classes are ignored. The caller must not use the object afterwards.
+    */
+   public void release(Object object)
+   {
+      ClassPool pool = pools.get(object.getClass());
+      if (pool != null)
+      {
+         pool.release(object);
+      }
+   }
+
+   private ClassPool getPool(Class<?> clazz)
+   {
+      ClassPool pool = pools.get(clazz);
+      if (pool == null)
+      {
+         throw new RuntimeException("Class " + clazz.getSimpleName() + " is not recycled by this ObjectRecycler");
+      }
+      return pool;
+   }
+
+   /**
+    * @return number of objects of the class that were created because the pool was empty
+    */
+   public long getNumberOfAllocations(Class<?> clazz)
+   {
+      return getPool(clazz).getNumberOfAllocations();
+   }
+
+   /**
+    * @return number of objects of the class that were taken from the pool
+    */
+   public long getNumberOfReuses(Class<?> clazz)
+   {
+      return getPool(clazz).getNumberOfReuses();
+   }
+
+   /**
+    * @return number of released objects of the class that did not fit in the pool
+    */
+   public long getNumberOfDiscards(Class<?> clazz)
+   {
+      return getPool(clazz).getNumberOfDiscards();
+   }
+
+   public int getNumberOfPooledObjects(Class<?> clazz)
+   {
+      return getPool(clazz).getNumberOfPooledObjects();
+   }
+
+   /**
+    * @return number of objects of the class that are retained and not released yet
+    */
+   public int getNumberOfRetainedObjects(Class<?> clazz)
+   {
+      return getPool(clazz).getNumberOfRetainedObjects();
+   }
+
+   /**
+    * @return objects of the class created per second since the recycler was created or the
+    *         statistics were reset
+    */
+   public double getAllocationRate(Class<?> clazz)
+   {
+      double elapsedTime = Math.max(Conversions.nanosecondsToSeconds(System.nanoTime() - startTime), 1.0e-9);
+      return getNumberOfAllocations(clazz) / elapsedTime;
+   }
+
+   public void resetStatistics()
+   {
+      startTime = System.nanoTime();
+      for (ClassPool pool : pools.values())
+      {
+         pool.resetStatistics();
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      StringBuilder builder = new StringBuilder(getClass().getSimpleName());
+      for (Class<?> clazz : pools.keySet())
+      {
+         builder.append(String.format("%n%s: allocations: %d (%.1f/s), reuses: %d, discards: %d, pooled: %d, retained: %d", clazz.getSimpleName(),
+                                      getNumberOfAllocations(clazz), getAllocationRate(clazz), getNumberOfReuses(clazz), getNumberOfDiscards(clazz),
+                                      getNumberOfPooledObjects(clazz), getNumberOfRetainedObjects(clazz)));
+      }
+      return builder.toString();
+   }
+
+   private static class ClassPool
+   {
+      private final Class<?> clazz;
+      private final Object[] pooledObjects;
+      private int numberOfPooledObjects = 0;
+      // Number of releases each retained object still waits for before it goes back to the pool
+      private final IdentityHashMap<Object, Integer> retainCounts = new IdentityHashMap<>();
+
+      private long numberOfAllocations = 0;
+      private long numberOfReuses = 0;
+      private long numberOfDiscards = 0;
+
+      private ClassPool(Class<?> clazz, int maximumPooledObjects)
+      {
+         this.clazz = clazz;
+         pooledObjects = new Object[maximumPooledObjects];
+      }
+
+      private synchronized Object take()
+      {
+         if (numberOfPooledObjects == 0)
+         {
+            return null;
+         }
+
+         numberOfReuses++;
+         Object object = pooledObjects[--numberOfPooledObjects];
+         pooledObjects[numberOfPooledObjects] = null;
+         return object;
+      }
+
+      private Object newInstance()
+      {
+         created();
+         try
+         {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+         }
+         catch (ReflectiveOperationException e)
+         {
+            throw new RuntimeException("Cannot create " + clazz.getSimpleName() + ", it needs a no-argument constructor", e);
+         }
+      }
+
+      private synchronized void created()
+      {
+         numberOfAllocations++;
+      }
+
+      private synchronized void retain(Object object)
+      {
+         Integer retainCount = retainCounts.get(object);
+         retainCounts.put(object, retainCount == null ? 1 : retainCount + 1);
+      }
+
+      private synchronized void release(Object object)
+      {
+         Integer retainCount = retainCounts.get(object);
+         if (retainCount != null)
+         {
+            if (retainCount == 1)
+            {
+               retainCounts.remove(object);
+            }
+            else
+            {
+               retainCounts.put(object, retainCount - 1);
+            }
+            return;
+         }
+
+         if (numberOfPooledObjects == pooledObjects.length)
+         {
+            numberOfDiscards++;
+            return;
+         }
+
+         pooledObjects[numberOfPooledObjects++] = object;
+      }
+
+      private synchronized long getNumberOfAllocations()
+      {
+         return numberOfAllocations;
+      }
+
+      private synchronized long getNumberOfReuses()
+      {
+         return numberOfReuses;
+      }
+
+      private synchronized long getNumberOfDiscards()
+      {
+         return numberOfDiscards;
+      }
+
+      private synchronized int getNumberOfPooledObjects()
+      {
+         return numberOfPooledObjects;
+      }
+
+      private synchronized int getNumberOfRetainedObjects()
+      {
+         return retainCounts.size();
+      }
+
+      private synchronized void resetStatistics()
+      {
+         numberOfAllocations = 0;
+         numberOfReuses = 0;
+         numberOfDiscards = 0;
+      }
+   }
+}
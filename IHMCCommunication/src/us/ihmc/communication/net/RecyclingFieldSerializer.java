@@ -0,0 +1,89 @@
+package us.ihmc.communication.net;
+
+import java.lang.reflect.Field;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+
+import us.ihmc.communication.packets.Packet;
+
+/**
+ * FieldSerializer that reads and copies into objects taken from an ObjectRecycler instead of new
+ * objects. The arrays and tuples in the fields of a recycled object are read into again when their
+ * class and size match, see {@link ReusableFieldValues}. Kryo still creates the other objects in
+ * its fields.
+ */
+class RecyclingFieldSerializer<T> extends FieldSerializer<T>
+{
+   private final ObjectRecycler recycler;
+   private final ReusableFieldValues reusableFieldValues;
+   private final Field[] reusableFields;
+
+   RecyclingFieldSerializer(Kryo kryo, Class<T> type, ObjectRecycler recycler, ReusableFieldValues reusableFieldValues)
+   {
+      super(kryo, type);
+      this.recycler = recycler;
+      this.reusableFieldValues = reusableFieldValues;
+      reusableFields = ReusableFieldValues.getReusableFields(type);
+   }
+
+   @Override
+   public T read(Kryo kryo, Input input, Class<T> type)
+   {
+      reusableFieldValues.begin();
+      try
+      {
+         return super.read(kryo, input, type);
+      }
+      finally
+      {
+         reusableFieldValues.end();
+      }
+   }
+
+   @Override
+   public T copy(Kryo kryo, T original)
+   {
+      reusableFieldValues.begin();
+      try
+      {
+         return super.copy(kryo, original);
+      }
+      finally
+      {
+         reusableFieldValues.end();
+      }
+   }
+
+   @Override
+   protected T create(Kryo kryo, Input input, Class<T> type)
+   {
+      return obtain(kryo, type);
+   }
+
+   @SuppressWarnings("unchecked")
+   @Override
+   protected T createCopy(Kryo kryo, T original)
+   {
+      return obtain(kryo, (Class<T>) original.getClass());
+   }
+
+   private T obtain(Kryo kryo, Class<T> type)
+   {
+      T object = type.cast(recycler.take(type));
+      if (object == null)
+      {
+         recycler.created(type);
+         return kryo.newInstance(type);
+      }
+
+      // Optional fields are skipped unless the Kryo context enables them, so they would keep the value of the previous use
+      if (object instanceof Packet)
+      {
+         ((Packet<?>) object).setNotes(null);
+      }
+      reusableFieldValues.addFieldValues(object, reusableFields);
+      return object;
+   }
+}
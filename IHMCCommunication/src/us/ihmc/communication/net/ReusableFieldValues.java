@@ -0,0 +1,419 @@
+package us.ihmc.communication.net;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.ByteArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.DoubleArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.FloatArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.IntArraySerializer;
+import com.esotericsoftware.kryo.serializers.DefaultArraySerializers.LongArraySerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.FieldSerializer.Optional;
+
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Point3D32;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.euclid.tuple3D.Vector3D32;
+import us.ihmc.euclid.tuple4D.Quaternion;
+import us.ihmc.euclid.tuple4D.Quaternion32;
+
+/**
+ * Arrays and tuples held by the fields of the recycled objects Kryo is reading or copying into.
+ * Kryo creates a new value for every field it reads, the serializers registered by
+ * {@link #registerWithKryo} take an old value of the same class and size instead. The values that
+ * are not reused are dropped when the top level object is done.
+ *
+ * Used by a single Kryo, so it is not thread safe either.
+ */
+class ReusableFieldValues
+{
+   private static final Class<?>[] TUPLE_CLASSES = {Point3D32.class, Vector3D32.class, Quaternion32.class, Point3D.class, Vector3D.class, Quaternion.class};
+   private static final Class<?>[] ARRAY_CLASSES = {float[].class, double[].class, int[].class, long[].class, byte[].class};
+
+   private final ArrayList<Object> values = new ArrayList<>();
+   private int depth = 0;
+
+   /**
+    * Registers the reusing serializers for the arrays and tuples in the fields of the recycled
+    * classes. Only types that are registered with their default serializer are replaced, they keep
+    * their registration id and the serialized format does not change.
+    */
+   void registerWithKryo(Kryo kryo, Iterable<Class<?>> recycledClasses)
+   {
+      LinkedHashSet<Class<?>> types = new LinkedHashSet<>();
+      for (Class<?> recycledClass : recycledClasses)
+      {
+         for (Field field : getReusableFields(recycledClass))
+         {
+            Class<?> type = field.getType();
+            types.add(isArrayOfArrays(type) ? type.getComponentType() : type);
+         }
+      }
+
+      for (Class<?> type : types)
+      {
+         Registration registration = kryo.getClassResolver().getRegistration(type);
+         if (registration == null)
+         {
+            continue;
+         }
+
+         Serializer<?> serializer = registration.getSerializer();
+         if (type == float[].class && serializer instanceof FloatArraySerializer)
+            kryo.register(type, new ReusingFloatArraySerializer((FloatArraySerializer) serializer));
+         else if (type == double[].class && serializer instanceof DoubleArraySerializer)
+            kryo.register(type, new ReusingDoubleArraySerializer((DoubleArraySerializer) serializer));
+         else if (type == int[].class && serializer instanceof IntArraySerializer)
+            kryo.register(type, new ReusingIntArraySerializer((IntArraySerializer) serializer));
+         else if (type == long[].class && serializer instanceof LongArraySerializer)
+            kryo.register(type, new ReusingLongArraySerializer((LongArraySerializer) serializer));
+         else if (type == byte[].class && serializer instanceof ByteArraySerializer)
+            kryo.register(type, new ReusingByteArraySerializer((ByteArraySerializer) serializer));
+         else if (serializer.getClass() == FieldSerializer.class)
+            registerTupleSerializer(kryo, type);
+      }
+   }
+
+   private <T> void registerTupleSerializer(Kryo kryo, Class<T> type)
+   {
+      kryo.register(type, new ReusingTupleSerializer<T>(kryo, type));
+   }
+
+   /**
+    * @return the fields Kryo writes whose arrays and tuples can be reused, including the arrays in
+    *         arrays of arrays
+    */
+   static Field[] getReusableFields(Class<?> clazz)
+   {
+      ArrayList<Field> reusableFields = new ArrayList<>();
+      for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass())
+      {
+         for (Field field : type.getDeclaredFields())
+         {
+            // Values of fields Kryo does not read would stay in use
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || field.isAnnotationPresent(Optional.class))
+            {
+               continue;
+            }
+
+            if (isReusable(field.getType()) || isArrayOfArrays(field.getType()))
+            {
+               field.setAccessible(true);
+               reusableFields.add(field);
+            }
+         }
+      }
+      return reusableFields.toArray(new Field[reusableFields.size()]);
+   }
+
+   private static boolean isReusable(Class<?> type)
+   {
+      for (Class<?> reusableClass : ARRAY_CLASSES)
+      {
+         if (type == reusableClass)
+            return true;
+      }
+      for (Class<?> reusableClass : TUPLE_CLASSES)
+      {
+         if (type == reusableClass)
+            return true;
+      }
+      return false;
+   }
+
+   private static boolean isArrayOfArrays(Class<?> type)
+   {
+      return type.isArray() && isReusable(type.getComponentType()) && type.getComponentType().isArray();
+   }
+
+   /**
+    * Called before Kryo reads or copies into a recycled object.
+    */
+   void begin()
+   {
+      depth++;
+   }
+
+   /**
+    * Called when Kryo is done with a recycled object.
+    */
+   void end()
+   {
+      depth--;
+      if (depth == 0)
+      {
+         values.clear();
+      }
+   }
+
+   /**
+    * Makes the values of the fields of a recycled object available to the serializers, Kryo reads
+    * new values into all these fields.
+    */
+   void addFieldValues(Object object, Field[] fields)
+   {
+      try
+      {
+         for (Field field : fields)
+         {
+            Object value = field.get(object);
+            if (value instanceof Object[])
+            {
+               for (Object element : (Object[]) value)
+               {
+                  add(element);
+               }
+            }
+            else
+            {
+               add(value);
+            }
+         }
+      }
+      catch (IllegalAccessException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   private void add(Object value)
+   {
+      if (value == null)
+      {
+         return;
+      }
+
+      // A value that is held by more than one field must only be reused once
+      for (int i = 0; i < values.size(); i++)
+      {
+         if (values.get(i) == value)
+            return;
+      }
+      values.add(value);
+   }
+
+   /**
+    * @param length length of the array, or -1 for tuples
+    * @return a value of the class, or null if there is none
+    */
+   private <T> T take(Class<T> type, int length)
+   {
+      for (int i = 0; i < values.size(); i++)
+      {
+         Object value = values.get(i);
+         if (value.getClass() == type && (length < 0 || Array.getLength(value) == length))
+         {
+            int lastIndex = values.size() - 1;
+            values.set(i, values.get(lastIndex));
+            values.remove(lastIndex);
+            return type.cast(value);
+         }
+      }
+      return null;
+   }
+
+   private class ReusingTupleSerializer<T> extends FieldSerializer<T>
+   {
+      private ReusingTupleSerializer(Kryo kryo, Class<T> type)
+      {
+         super(kryo, type);
+      }
+
+      @Override
+      protected T create(Kryo kryo, Input input, Class<T> type)
+      {
+         T tuple = take(type, -1);
+         return tuple != null ? tuple : super.create(kryo, input, type);
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      protected T createCopy(Kryo kryo, T original)
+      {
+         T tuple = take((Class<T>) original.getClass(), -1);
+         return tuple != null ? tuple : super.createCopy(kryo, original);
+      }
+   }
+
+   /**
+    * Writes and reads the same format as the default serializer of the array class.
+    */
+   private abstract class ReusingArraySerializer<A> extends Serializer<A>
+   {
+      private final Serializer<A> defaultSerializer;
+
+      private ReusingArraySerializer(Serializer<A> defaultSerializer)
+      {
+         this.defaultSerializer = defaultSerializer;
+         setAcceptsNull(true);
+      }
+
+      @Override
+      public void write(Kryo kryo, Output output, A array)
+      {
+         defaultSerializer.write(kryo, output, array);
+      }
+
+      @Override
+      public A read(Kryo kryo, Input input, Class<A> type)
+      {
+         // The length is written plus one, zero is null
+         int length = input.readInt(true);
+         if (length == 0)
+         {
+            return null;
+         }
+         length--;
+
+         A array = take(type, length);
+         if (array == null)
+         {
+            array = newArray(length);
+         }
+         readElements(input, array, length);
+         return array;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public A copy(Kryo kryo, A original)
+      {
+         int length = Array.getLength(original);
+         A array = take((Class<A>) original.getClass(), length);
+         if (array == null)
+         {
+            return defaultSerializer.copy(kryo, original);
+         }
+         System.arraycopy(original, 0, array, 0, length);
+         return array;
+      }
+
+      protected abstract A newArray(int length);
+
+      protected abstract void readElements(Input input, A array, int length);
+   }
+
+   private class ReusingFloatArraySerializer extends ReusingArraySerializer<float[]>
+   {
+      private ReusingFloatArraySerializer(FloatArraySerializer defaultSerializer)
+      {
+         super(defaultSerializer);
+      }
+
+      @Override
+      protected float[] newArray(int length)
+      {
+         return new float[length];
+      }
+
+      @Override
+      protected void readElements(Input input, float[] array, int length)
+      {
+         for (int i = 0; i < length; i++)
+         {
+            array[i] = input.readFloat();
+         }
+      }
+   }
+
+   private class ReusingDoubleArraySerializer extends ReusingArraySerializer<double[]>
+   {
+      private ReusingDoubleArraySerializer(DoubleArraySerializer defaultSerializer)
+      {
+         super(defaultSerializer);
+      }
+
+      @Override
+      protected double[] newArray(int length)
+      {
+         return new double[length];
+      }
+
+      @Override
+      protected void readElements(Input input, double[] array, int length)
+      {
+         for (int i = 0; i < length; i++)
+         {
+            array[i] = input.readDouble();
+         }
+      }
+   }
+
+   private class ReusingIntArraySerializer extends ReusingArraySerializer<int[]>
+   {
+      private ReusingIntArraySerializer(IntArraySerializer defaultSerializer)
+      {
+         super(defaultSerializer);
+      }
+
+      @Override
+      protected int[] newArray(int length)
+      {
+         return new int[length];
+      }
+
+      @Override
+      protected void readElements(Input input, int[] array, int length)
+      {
+         // Variable length encoded, like the default serializer writes them
+         for (int i = 0; i < length; i++)
+         {
+            array[i] = input.readInt(false);
+         }
+      }
+   }
+
+   private class ReusingLongArraySerializer extends ReusingArraySerializer<long[]>
+   {
+      private ReusingLongArraySerializer(LongArraySerializer defaultSerializer)
+      {
+         super(defaultSerializer);
+      }
+
+      @Override
+      protected long[] newArray(int length)
+      {
+         return new long[length];
+      }
+
+      @Override
+      protected void readElements(Input input, long[] array, int length)
+      {
+         // Variable length encoded, like the default serializer writes them
+         for (int i = 0; i < length; i++)
+         {
+            array[i] = input.readLong(false);
+         }
+      }
+   }
+
+   private class ReusingByteArraySerializer extends ReusingArraySerializer<byte[]>
+   {
+      private ReusingByteArraySerializer(ByteArraySerializer defaultSerializer)
+      {
+         super(defaultSerializer);
+      }
+
+      @Override
+      protected byte[] newArray(int length)
+      {
+         return new byte[length];
+      }
+
+      @Override
+      protected void readElements(Input input, byte[] array, int length)
+      {
+         input.readBytes(array);
+      }
+   }
+}
@@ -0,0 +1,115 @@
+package us.ihmc.communication.net;
+
+import java.util.HashMap;
+import java.util.concurrent.LinkedTransferQueue;
+
+import us.ihmc.commons.PrintTools;
+
+/**
+ * Hands received objects to a small, fixed number of worker threads.
+ *
+ * Every registered class is assigned to one worker, round robin in the order of registration. Each
+ * worker has its own lock-free queue and consumes the objects in the order they are dispatched, so
+ * objects of the same class are always consumed in order and by a single thread. Objects of
+ * different classes can be consumed concurrently.
+ */
+class StripedObjectDispatcher
+{
+   private final GlobalObjectConsumer consumer;
+   private final Worker[] workers;
+   private final HashMap<Class<?>, Worker> assignedWorkers = new HashMap<>();
+
+   /**
+    * @param consumer called on the worker threads for every dispatched object
+    */
+   StripedObjectDispatcher(String name, int numberOfThreads, Iterable<Class<?>> classes, GlobalObjectConsumer consumer)
+   {
+      if (numberOfThreads < 1)
+      {
+         throw new RuntimeException("Need at least one dispatch thread");
+      }
+
+      this.consumer = consumer;
+      workers = new Worker[numberOfThreads];
+      for (int i = 0; i < numberOfThreads; i++)
+      {
+         workers[i] = new Worker(name + "Dispatcher" + i);
+      }
+
+      // The assignment is fixed before the workers start, so lookups from the receive thread need no locking
+      int next = 0;
+      for (Class<?> clazz : classes)
+      {
+         assignedWorkers.put(clazz, workers[next]);
+         next = (next + 1) % numberOfThreads;
+      }
+
+      for (Worker worker : workers)
+      {
+         worker.start();
+      }
+   }
+
+   /**
+    * Queues the object on the worker of its class. Does not block.
+    *
+    * @return false if the class of the object is not registered
+    */
+   boolean dispatch(Object object)
+   {
+      Worker worker = assignedWorkers.get(object.getClass());
+      if (worker == null)
+      {
+         return false;
+      }
+      worker.queue.offer(object);
+      return true;
+   }
+
+   void shutdown()
+   {
+      for (Worker worker : workers)
+      {
+         worker.interrupt();
+      }
+   }
+
+   private class Worker extends Thread
+   {
+      private final LinkedTransferQueue<Object> queue = new LinkedTransferQueue<>();
+
+      private Worker(String name)
+      {
+         super(name);
+         setDaemon(true);
+      }
+
+      @Override
+      public void run()
+      {
+         while (!isInterrupted())
+         {
+            Object object;
+            try
+            {
+               object = queue.take();
+            }
+            catch (InterruptedException e)
+            {
+               return;
+            }
+
+            try
+            {
+               consumer.consumeObject(object);
+            }
+            catch (RuntimeException e)
+            {
+               // Keep the worker alive, it is shared with the listeners of other classes
+               PrintTools.error(this, "Listener for " + object.getClass().getSimpleName() + " threw " + e);
+               e.printStackTrace();
+            }
+         }
+      }
+   }
+}
@@ -11,6 +11,7 @@ import us.ihmc.communication.net.NetClassList;
 import us.ihmc.communication.net.NetStateListener;
 import us.ihmc.communication.net.NetworkedObjectCommunicator;
 import us.ihmc.communication.net.ObjectConsumer;
+import us.ihmc.communication.net.ObjectRecycler;
 import us.ihmc.communication.net.TcpNetStateListener;
 
 public class IntraprocessObjectCommunicator implements NetworkedObjectCommunicator
@@ -21,6 +22,7 @@ public class IntraprocessObjectCommunicator implements NetworkedObjectCommunicat
    private final ArrayList<NetStateListener> stateListeners = new ArrayList<NetStateListener>();
 
    private final int port;
+   private ObjectRecycler recycler = null;
 
    /**
     * Simple client for Interprocess Communication using objects. Will connect to a predefined port, mimicking TCP/UDP. Easily replaceable by an UDP/TCP implementation, but is traceable in debug.
@@ -56,22 +58,55 @@ public class IntraprocessObjectCommunicator implements NetworkedObjectCommunicat
       return IntraprocessCommunicationNetwork.sendObject(this, port, object);
    }
    
-   @SuppressWarnings("unchecked")
-   /* package-private */void receiveObject(Object object)
+   /**
+    * The copies of sent objects are taken from the recycler of the sender, so communicators on the
+    * same port should share one recycler. Listeners that keep a received object
+    * {@link ObjectRecycler#retain} it and release it when they are done with it.
+    */
+   @Override
+   public void enableRecycling(ObjectRecycler recycler)
    {
-      for (GlobalObjectConsumer listener : globalListeners)
+      if (isConnected() || this.recycler != null)
       {
-         listener.consumeObject(object);
+         throw new RuntimeException("Cannot change the recycling mode after connecting");
       }
 
-      ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
-      if (objectListeners != null)
+      recycler.registerWithKryo(kryo);
+      this.recycler = recycler;
+   }
+
+   @Override
+   public ObjectRecycler getRecycler()
+   {
+      return recycler;
+   }
+
+   @SuppressWarnings("unchecked")
+   /* package-private */void receiveObject(Object object)
+   {
+      try
       {
-         for (@SuppressWarnings("rawtypes")
-         ObjectConsumer listener : objectListeners)
+         for (GlobalObjectConsumer listener : globalListeners)
          {
             listener.consumeObject(object);
          }
+
+         ArrayList<ObjectConsumer<?>> objectListeners = listeners.get(object.getClass());
+         if (objectListeners != null)
+         {
+            for (@SuppressWarnings("rawtypes")
+            ObjectConsumer listener : objectListeners)
+            {
+               listener.consumeObject(object);
+            }
+         }
+      }
+      finally
+      {
+         if (recycler != null)
+         {
+            recycler.release(object);
+         }
       }
    }
 
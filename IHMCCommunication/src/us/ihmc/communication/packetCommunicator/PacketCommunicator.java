@@ -11,6 +11,7 @@ import us.ihmc.communication.net.NetClassList;
 import us.ihmc.communication.net.NetStateListener;
 import us.ihmc.communication.net.NetworkedObjectCommunicator;
 import us.ihmc.communication.net.ObjectConsumer;
+import us.ihmc.communication.net.ObjectRecycler;
 import us.ihmc.communication.net.PacketConsumer;
 import us.ihmc.communication.net.TcpNetStateListener;
 import us.ihmc.communication.net.local.IntraprocessObjectCommunicator;
@@ -163,6 +164,49 @@ public class PacketCommunicator
       return communicator.send(packet);
    }
    
+   /**
+    * Receives the packets of the classes of the recycler into pooled packets. A received packet is
+    * given back to the recycler when all listeners returned, listeners of these classes must copy
+    * the data they keep, or {@link ObjectRecycler#retain} the packet and release it when they are
+    * done with it. Has to be called before connecting.
+    */
+   public void enablePacketRecycling(ObjectRecycler recycler)
+   {
+      communicator.enableRecycling(recycler);
+   }
+
+   /**
+    * @return the recycler, or null if packet recycling is not enabled
+    */
+   public ObjectRecycler getPacketRecycler()
+   {
+      return communicator.getRecycler();
+   }
+
+   /**
+    * @return a packet from the recycler. It keeps the values of its previous use, so all fields have
+    *         to be set before sending it with {@link #sendAndRecycle}. Arrays and tuples should be
+    *         set in place, they are reused once the packet is recycled.
+    */
+   public <T extends Packet<?>> T obtainPacket(Class<T> clazz)
+   {
+      ObjectRecycler recycler = communicator.getRecycler();
+      if (recycler == null)
+      {
+         throw new RuntimeException("Packet recycling is not enabled for " + description);
+      }
+      return recycler.obtain(clazz);
+   }
+
+   /**
+    * Sends the packet and gives it back to the recycler once it is serialized. The packet must not be
+    * used afterwards.
+    */
+   public int sendAndRecycle(Packet<?> packet)
+   {
+      return communicator.sendAndRecycle(packet);
+   }
+
    private static class GlobalPacketObjectConsumer implements GlobalObjectConsumer
    {
       private final GlobalPacketConsumer globalPacketConsumer;
@@ -1,56 +1,81 @@
 package us.ihmc.communication.producers;
 
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.util.EnumMap;
 
 import boofcv.struct.calib.IntrinsicParameters;
-import us.ihmc.codecs.generated.YUVPicture;
-import us.ihmc.codecs.generated.YUVPicture.YUVSubsamplingType;
-import us.ihmc.codecs.yuv.JPEGEncoder;
-import us.ihmc.codecs.yuv.YUVPictureConverter;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple4D.Quaternion;
 
+/**
+ * Compresses the images of every VideoSource on its own JPEGEncoderPool. updateImage only copies the
+ * image and returns, the compressed frames are handed to the handler from the encoder threads.
+ *
+ * The conversion to YUV of different cameras runs concurrently, but the native JPEG encoder is not
+ * thread safe and encodes one image at a time for all cameras, see {@link JPEGCompressor}. So a
+ * camera still waits for the encoding of the others, compressing the cameras in parallel is not
+ * possible with this encoder.
+ */
 public class JPEGCompressedVideoDataServer implements CompressedVideoDataServer
 {
-   private static final Object hackyLockBecauseJPEGEncoderIsNotThreadsafe = new Object();
-   
-   private final YUVPictureConverter converter = new YUVPictureConverter();
-   private final JPEGEncoder encoder = new JPEGEncoder();
    private final CompressedVideoHandler handler;
-   
+   private final int quality;
+
+   private final EnumMap<VideoSource, JPEGEncoderPool> encoderPools = new EnumMap<VideoSource, JPEGEncoderPool>(VideoSource.class);
+   private boolean closed = false;
+
    public JPEGCompressedVideoDataServer(CompressedVideoHandler handler)
+   {
+      this(handler, JPEGCompressor.DEFAULT_QUALITY);
+   }
+
+   public JPEGCompressedVideoDataServer(CompressedVideoHandler handler, int quality)
    {
       this.handler = handler;
+      this.quality = quality;
    }
 
    @Override
    public void updateImage(VideoSource videoSource, BufferedImage bufferedImage, long timeStamp, Point3D cameraPosition, Quaternion cameraOrientation, IntrinsicParameters intrinsicParameters)
    {
-      YUVPicture picture = converter.fromBufferedImage(bufferedImage, YUVSubsamplingType.YUV420);
-      try
+      JPEGEncoderPool encoderPool = getEncoderPool(videoSource);
+      if (encoderPool != null)
       {
-         ByteBuffer buffer;
-         synchronized (hackyLockBecauseJPEGEncoderIsNotThreadsafe)
-         {
-            buffer = encoder.encode(picture, 75);
-         }
-         byte[] data =  new byte[buffer.remaining()];
-         buffer.get(data);
-         handler.newVideoPacketAvailable(videoSource, timeStamp, data, cameraPosition, cameraOrientation, intrinsicParameters);
+         encoderPool.submit(bufferedImage, timeStamp, cameraPosition, cameraOrientation, intrinsicParameters);
       }
-      catch (IOException e)
+   }
+
+   /**
+    * @return the statistics of the stream, or null if the source did not send an image yet
+    */
+   public synchronized VideoStreamStatistics getStatistics(VideoSource videoSource)
+   {
+      JPEGEncoderPool encoderPool = encoderPools.get(videoSource);
+      return encoderPool == null ? null : encoderPool.getStatistics();
+   }
+
+   private synchronized JPEGEncoderPool getEncoderPool(VideoSource videoSource)
+   {
+      if (closed)
+         return null;
+
+      JPEGEncoderPool encoderPool = encoderPools.get(videoSource);
+      if (encoderPool == null)
       {
-         e.printStackTrace();
+         encoderPool = new JPEGEncoderPool(videoSource, handler, quality);
+         encoderPools.put(videoSource, encoderPool);
       }
-      picture.delete();
+      return encoderPool;
    }
 
    @Override
-   public void close()
+   public synchronized void close()
    {
-      // TODO
+      closed = true;
+      for (JPEGEncoderPool encoderPool : encoderPools.values())
+      {
+         encoderPool.close();
+      }
    }
 
    @Override
@@ -9,25 +9,58 @@ import us.ihmc.codecs.generated.YUVPicture.YUVSubsamplingType;
 import us.ihmc.codecs.yuv.JPEGEncoder;
 import us.ihmc.codecs.yuv.YUVPictureConverter;
 
+/**
+ * Converts BufferedImages to JPEG data. Not thread safe, every thread that compresses images needs
+ * its own compressor. The native JPEG encoder is not thread safe either, even with one instance per
+ * thread, so only one image is encoded at a time in the whole JVM. The conversion to YUV is done
+ * outside of that lock.
+ *
+ * YUVPictureConverter creates a new native picture for every image, so the picture is deleted
+ * after every encode instead of reused. The data is returned in a new array of exactly its length,
+ * because the handlers wrap it in packets that keep it.
+ */
 public class JPEGCompressor
-{   
+{
+   public static final int DEFAULT_QUALITY = 75;
+
+   private static final Object hackyLockBecauseJPEGEncoderIsNotThreadsafe = new Object();
+
    private final YUVPictureConverter converter = new YUVPictureConverter();
    private final JPEGEncoder encoder = new JPEGEncoder();
-   
+   private final int quality;
+
+   public JPEGCompressor()
+   {
+      this(DEFAULT_QUALITY);
+   }
+
+   public JPEGCompressor(int quality)
+   {
+      this.quality = quality;
+   }
+
    public byte[] convertBufferedImageToJPEGData(BufferedImage bufferedImage)
    {
+      YUVPicture picture = converter.fromBufferedImage(bufferedImage, YUVSubsamplingType.YUV420);
       try
       {
-         YUVPicture picture = converter.fromBufferedImage(bufferedImage, YUVSubsamplingType.YUV420);
-         ByteBuffer buffer = encoder.encode(picture, 75);
-         byte[] data = new byte[buffer.remaining()];
-         buffer.get(data);
-         return data;
+         synchronized (hackyLockBecauseJPEGEncoderIsNotThreadsafe)
+         {
+            ByteBuffer buffer = encoder.encode(picture, quality);
+            byte[] data = new byte[buffer.remaining()];
+            buffer.get(data);
+            return data;
+         }
       }
       catch (IOException e)
       {
          e.printStackTrace();
          return null;
       }
+      finally
+      {
+         // The picture lives in native memory
+         picture.delete();
+      }
    }
 }
@@ -0,0 +1,216 @@
+package us.ihmc.communication.producers;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.ArrayList;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+
+/**
+ * Compresses the frames of one video stream on its own encoder thread and hands them to the
+ * CompressedVideoHandler, so the thread that produces the images does not wait for the compression.
+ *
+ * The encoder thread has its own JPEGCompressor. The native encoding is still serialized between
+ * all streams, see {@link JPEGCompressor}, so more encoder threads would not compress more frames
+ * at the same time and there is only one per stream. The image is copied into a frame that is reused,
+ * so the caller can reuse its image as soon as {@link #submit} returns. When the encoder
+ * falls behind, only the newest frame waits: a new frame replaces the frame that is still waiting.
+ * So operators always get the most recent image instead of a growing backlog.
+ */
+public class JPEGEncoderPool
+{
+   private final VideoSource videoSource;
+   private final CompressedVideoHandler handler;
+   private final VideoStreamStatistics statistics = new VideoStreamStatistics();
+
+   private final ArrayList<Frame> unusedFrames = new ArrayList<Frame>();
+   private Frame waitingFrame = null;
+   private boolean running = true;
+
+   private final Object sendLock = new Object();
+
+   public JPEGEncoderPool(VideoSource videoSource, CompressedVideoHandler handler, int quality)
+   {
+      this(videoSource, handler, new JPEGCompressor(quality)::convertBufferedImageToJPEGData);
+   }
+
+   /**
+    * @param compressor compressor of the encoder thread
+    */
+   JPEGEncoderPool(VideoSource videoSource, CompressedVideoHandler handler, FrameCompressor compressor)
+   {
+      this.videoSource = videoSource;
+      this.handler = handler;
+
+      Thread encoderThread = new Thread(() -> encodeFrames(compressor), "JPEGEncoder" + videoSource);
+      encoderThread.setDaemon(true);
+      encoderThread.start();
+   }
+
+   /**
+    * Copies the image and queues it for compression, replacing the frame that is still waiting.
+    */
+   public void submit(BufferedImage bufferedImage, long timeStamp, Point3D cameraPosition, Quaternion cameraOrientation,
+                      IntrinsicParameters intrinsicParameters)
+   {
+      long receiveTime = System.nanoTime();
+      statistics.frameReceived();
+
+      Frame frame;
+      synchronized (this)
+      {
+         if (!running)
+            return;
+         frame = unusedFrames.isEmpty() ? new Frame() : unusedFrames.remove(unusedFrames.size() - 1);
+      }
+
+      frame.set(bufferedImage, timeStamp, cameraPosition, cameraOrientation, intrinsicParameters, receiveTime);
+
+      synchronized (this)
+      {
+         if (!running)
+            return;
+
+         if (waitingFrame != null)
+         {
+            statistics.frameDropped();
+            unusedFrames.add(waitingFrame);
+         }
+
+         waitingFrame = frame;
+         notify();
+      }
+   }
+
+   public VideoStreamStatistics getStatistics()
+   {
+      return statistics;
+   }
+
+   /**
+    * Stops the encoder threads. Frames that are not sent yet are dropped, nothing is handed to the
+    * handler after this returns.
+    */
+   public void close()
+   {
+      synchronized (sendLock)
+      {
+         synchronized (this)
+         {
+            running = false;
+            if (waitingFrame != null)
+            {
+               statistics.frameDropped();
+               waitingFrame = null;
+            }
+            notifyAll();
+         }
+      }
+   }
+
+   private void encodeFrames(FrameCompressor compressor)
+   {
+      while (true)
+      {
+         Frame frame;
+         synchronized (this)
+         {
+            while (running && waitingFrame == null)
+            {
+               try
+               {
+                  wait();
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+            }
+
+            if (!running)
+               return;
+
+            frame = waitingFrame;
+            waitingFrame = null;
+         }
+
+         byte[] data = compressor.compress(frame.image);
+         if (data != null)
+            send(frame, data);
+         else
+            statistics.frameDropped();
+
+         synchronized (this)
+         {
+            unusedFrames.add(frame);
+         }
+      }
+   }
+
+   private void send(Frame frame, byte[] data)
+   {
+      synchronized (sendLock)
+      {
+         synchronized (this)
+         {
+            if (!running)
+            {
+               statistics.frameDropped();
+               return;
+            }
+         }
+
+         // The handler keeps the pose, so it gets its own copy
+         Point3D position = frame.hasPosition ? new Point3D(frame.position) : null;
+         Quaternion orientation = frame.hasOrientation ? new Quaternion(frame.orientation) : null;
+         handler.newVideoPacketAvailable(videoSource, frame.timeStamp, data, position, orientation, frame.intrinsicParameters);
+      }
+
+      statistics.frameSent(data.length, System.nanoTime() - frame.receiveTime);
+   }
+
+   interface FrameCompressor
+   {
+      /**
+       * @return the compressed image, or null if it could not be compressed
+       */
+      byte[] compress(BufferedImage image);
+   }
+
+   private static class Frame
+   {
+      private BufferedImage image;
+      private long timeStamp;
+      private final Point3D position = new Point3D();
+      private boolean hasPosition;
+      private final Quaternion orientation = new Quaternion();
+      private boolean hasOrientation;
+      private IntrinsicParameters intrinsicParameters;
+      private long receiveTime;
+
+      private void set(BufferedImage bufferedImage, long timeStamp, Point3D position, Quaternion orientation, IntrinsicParameters intrinsicParameters,
+                       long receiveTime)
+      {
+         if (image == null || image.getWidth() != bufferedImage.getWidth() || image.getHeight() != bufferedImage.getHeight()
+               || image.getType() != bufferedImage.getType() || bufferedImage.getType() == BufferedImage.TYPE_CUSTOM)
+         {
+            ColorModel colorModel = bufferedImage.getColorModel();
+            image = new BufferedImage(colorModel, colorModel.createCompatibleWritableRaster(bufferedImage.getWidth(), bufferedImage.getHeight()),
+                                      colorModel.isAlphaPremultiplied(), null);
+         }
+         bufferedImage.copyData(image.getRaster());
+
+         this.timeStamp = timeStamp;
+         hasPosition = position != null;
+         if (hasPosition)
+            this.position.set(position);
+         hasOrientation = orientation != null;
+         if (hasOrientation)
+            this.orientation.set(orientation);
+         this.intrinsicParameters = intrinsicParameters;
+         this.receiveTime = receiveTime;
+      }
+   }
+}
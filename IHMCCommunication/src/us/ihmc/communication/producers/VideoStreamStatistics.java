@@ -0,0 +1,120 @@
+package us.ihmc.communication.producers;
+
+import us.ihmc.commons.Conversions;
+
+/**
+ * Frame counts, latency and throughput of one video stream. The latency of a frame is the time from
+ * handing the image to the server till the compressed frame is handed to the CompressedVideoHandler.
+ */
+public class VideoStreamStatistics
+{
+   private long startTime = System.nanoTime();
+
+   private long numberOfFramesReceived = 0;
+   private long numberOfFramesSent = 0;
+   private long numberOfFramesDropped = 0;
+   private long numberOfBytesSent = 0;
+
+   private long totalLatency = 0;
+   private long maximumLatency = 0;
+
+   synchronized void frameReceived()
+   {
+      numberOfFramesReceived++;
+   }
+
+   synchronized void frameDropped()
+   {
+      numberOfFramesDropped++;
+   }
+
+   synchronized void frameSent(int numberOfBytes, long latency)
+   {
+      numberOfFramesSent++;
+      numberOfBytesSent += numberOfBytes;
+      totalLatency += latency;
+      maximumLatency = Math.max(maximumLatency, latency);
+   }
+
+   public synchronized void reset()
+   {
+      startTime = System.nanoTime();
+      numberOfFramesReceived = 0;
+      numberOfFramesSent = 0;
+      numberOfFramesDropped = 0;
+      numberOfBytesSent = 0;
+      totalLatency = 0;
+      maximumLatency = 0;
+   }
+
+   public synchronized long getNumberOfFramesReceived()
+   {
+      return numberOfFramesReceived;
+   }
+
+   public synchronized long getNumberOfFramesSent()
+   {
+      return numberOfFramesSent;
+   }
+
+   /**
+    * @return the number of frames that were replaced by a newer frame before they were compressed, or
+    *         that were compressed after a newer frame was sent
+    */
+   public synchronized long getNumberOfFramesDropped()
+   {
+      return numberOfFramesDropped;
+   }
+
+   public synchronized long getNumberOfBytesSent()
+   {
+      return numberOfBytesSent;
+   }
+
+   /**
+    * @return average latency of the sent frames in seconds
+    */
+   public synchronized double getAverageLatency()
+   {
+      if (numberOfFramesSent == 0)
+         return 0.0;
+      return Conversions.nanosecondsToSeconds(totalLatency) / numberOfFramesSent;
+   }
+
+   /**
+    * @return maximum latency of the sent frames in seconds
+    */
+   public synchronized double getMaximumLatency()
+   {
+      return Conversions.nanosecondsToSeconds(maximumLatency);
+   }
+
+   /**
+    * @return sent frames per second since the statistics were created or reset
+    */
+   public synchronized double getFramesPerSecond()
+   {
+      return numberOfFramesSent / getElapsedTime();
+   }
+
+   /**
+    * @return sent bytes per second since the statistics were created or reset
+    */
+   public synchronized double getBytesPerSecond()
+   {
+      return numberOfBytesSent / getElapsedTime();
+   }
+
+   private double getElapsedTime()
+   {
+      return Math.max(Conversions.nanosecondsToSeconds(System.nanoTime() - startTime), 1.0e-9);
+   }
+
+   @Override
+   public synchronized String toString()
+   {
+      return String.format("received: %d, sent: %d, dropped: %d, fps: %.1f, kB/s: %.1f, average latency: %.1f ms, maximum latency: %.1f ms",
+                           numberOfFramesReceived, numberOfFramesSent, numberOfFramesDropped, getFramesPerSecond(), getBytesPerSecond() / 1024.0,
+                           1000.0 * getAverageLatency(), 1000.0 * getMaximumLatency());
+   }
+}
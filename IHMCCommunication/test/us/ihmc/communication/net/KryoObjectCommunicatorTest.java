@@ -1,5 +1,6 @@
 package us.ihmc.communication.net;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -9,6 +10,7 @@ import java.net.BindException;
 import java.util.ArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -312,6 +314,159 @@ public class KryoObjectCommunicatorTest
       
    }
 
+	@ContinuousIntegrationTest(estimatedDuration = 0.4)
+	@Test(timeout=300000)
+   public void testSharedDispatchAndAsynchronousSendPreserveOrder() throws IOException, InterruptedException
+   {
+      int TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152));
+      Log.set(Log.LEVEL_ERROR);
+      int objectsToSend = 1000;
+      final CountDownLatch latch = new CountDownLatch(objectsToSend * 2);
+      final AtomicInteger outOfOrder = new AtomicInteger();
+
+      NetClassList netClassList = new NetClassList();
+      netClassList.registerPacketClass(TypeA.class);
+      netClassList.registerPacketClass(TypeB.class);
+      netClassList.registerPacketField(Vector3D.class);
+      KryoObjectServer server = null;
+      KryoObjectClient client = null;
+
+      boolean connected = false;
+      do
+      {
+         server = new KryoObjectServer(TCP_PORT, netClassList);
+         client = new KryoObjectClient("127.0.0.1", TCP_PORT, netClassList);
+         server.enableSharedDispatch(1);
+         client.enableAsynchronousSend();
+	      try
+	      {
+	    	  server.connect();
+	    	  client.connect();
+	    	  connected = true;
+	      }
+	      catch (BindException e)
+	      {
+	    	  TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152));
+	      }
+      }while(!connected);
+
+      server.attachListener(TypeA.class, new ObjectConsumer<TypeA>()
+      {
+         private int expected = 0;
+
+         public void consumeObject(TypeA object)
+         {
+            if (object.b != expected++)
+               outOfOrder.incrementAndGet();
+            latch.countDown();
+         }
+      });
+      server.attachListener(TypeB.class, new ObjectConsumer<TypeB>()
+      {
+         private int expected = 0;
+
+         public void consumeObject(TypeB object)
+         {
+            if (object.b != expected++)
+               outOfOrder.incrementAndGet();
+            latch.countDown();
+         }
+      });
+
+      for(int i = 0; i < objectsToSend; i++)
+      {
+         TypeA a = new TypeA();
+         a.a = "a";
+         a.b = i;
+         a.testVector = new Vector3D();
+         TypeB b = new TypeB();
+         b.b = i;
+         client.consumeObject(a);
+         client.consumeObject(b);
+      }
+
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertEquals(0, outOfOrder.get());
+
+      client.close();
+      server.close();
+
+      // Sending after closing is reported instead of silently dropped
+      TypeB b = new TypeB();
+      assertEquals(-1, client.send(b));
+   }
+
+	@ContinuousIntegrationTest(estimatedDuration = 0.4)
+	@Test(timeout=300000)
+   public void testRecycledSendAndReceive() throws IOException, InterruptedException
+   {
+      int TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152));
+      Log.set(Log.LEVEL_ERROR);
+      int objectsToSend = 1000;
+      final CountDownLatch latch = new CountDownLatch(objectsToSend);
+      final AtomicInteger outOfOrder = new AtomicInteger();
+
+      NetClassList netClassList = new NetClassList();
+      netClassList.registerPacketClass(TypeA.class);
+      netClassList.registerPacketClass(TypeB.class);
+      netClassList.registerPacketField(Vector3D.class);
+      ObjectRecycler serverRecycler = new ObjectRecycler(16, TypeB.class);
+      ObjectRecycler clientRecycler = new ObjectRecycler(16, TypeB.class);
+      KryoObjectServer server = null;
+      KryoObjectClient client = null;
+
+      boolean connected = false;
+      do
+      {
+         server = new KryoObjectServer(TCP_PORT, netClassList);
+         client = new KryoObjectClient("127.0.0.1", TCP_PORT, netClassList);
+         server.enableRecycling(serverRecycler);
+         client.enableRecycling(clientRecycler);
+         client.enableAsynchronousSend();
+	      try
+	      {
+	    	  server.connect();
+	    	  client.connect();
+	    	  connected = true;
+	      }
+	      catch (BindException e)
+	      {
+	    	  TCP_PORT = 49152 + (int)(Math.random() * (65535 - 49152));
+	      }
+      }while(!connected);
+
+      server.attachListener(TypeB.class, new ObjectConsumer<TypeB>()
+      {
+         private int expected = 0;
+
+         public void consumeObject(TypeB object)
+         {
+            if (object.b != expected++ || object.c != 2.0f * object.b)
+               outOfOrder.incrementAndGet();
+            latch.countDown();
+         }
+      });
+
+      for(int i = 0; i < objectsToSend; i++)
+      {
+         TypeB b = clientRecycler.obtain(TypeB.class);
+         b.b = i;
+         b.c = 2.0f * i;
+         client.sendAndRecycle(b);
+         if (i % 100 == 0)
+            Thread.sleep(10);
+      }
+
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+      assertEquals(0, outOfOrder.get());
+      assertTrue(serverRecycler.getNumberOfAllocations(TypeB.class) < objectsToSend);
+      assertTrue(serverRecycler.getNumberOfReuses(TypeB.class) > 0);
+      assertTrue(clientRecycler.getNumberOfAllocations(TypeB.class) < objectsToSend);
+
+      client.close();
+      server.close();
+   }
+
    // Member classes need to be static in order for deserialization to work
    private static class TypeA
    {
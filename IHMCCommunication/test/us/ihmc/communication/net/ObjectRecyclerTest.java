@@ -0,0 +1,269 @@
+package us.ihmc.communication.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import us.ihmc.communication.packets.Packet;
+import us.ihmc.euclid.tuple3D.Point3D32;
+import us.ihmc.euclid.tuple4D.Quaternion32;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+
+@ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class ObjectRecyclerTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testObtainAndRelease()
+   {
+      ObjectRecycler recycler = new ObjectRecycler(2, TestPacket.class);
+      assertTrue(recycler.isRecycled(TestPacket.class));
+      assertFalse(recycler.isRecycled(String.class));
+
+      TestPacket first = recycler.obtain(TestPacket.class);
+      TestPacket second = recycler.obtain(TestPacket.class);
+      TestPacket third = recycler.obtain(TestPacket.class);
+      assertEquals(3, recycler.getNumberOfAllocations(TestPacket.class));
+      assertEquals(0, recycler.getNumberOfReuses(TestPacket.class));
+
+      recycler.release(first);
+      recycler.release(second);
+      recycler.release(third);
+      assertEquals(2, recycler.getNumberOfPooledObjects(TestPacket.class));
+      assertEquals(1, recycler.getNumberOfDiscards(TestPacket.class));
+
+      assertSame(second, recycler.obtain(TestPacket.class));
+      assertSame(first, recycler.obtain(TestPacket.class));
+      recycler.obtain(TestPacket.class);
+      assertEquals(4, recycler.getNumberOfAllocations(TestPacket.class));
+      assertEquals(2, recycler.getNumberOfReuses(TestPacket.class));
+
+      // Objects of other classes are not pooled
+      recycler.release("not recycled");
+
+      recycler.resetStatistics();
+      assertEquals(0, recycler.getNumberOfAllocations(TestPacket.class));
+      assertEquals(0.0, recycler.getAllocationRate(TestPacket.class), 0.0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testRetain()
+   {
+      ObjectRecycler recycler = new ObjectRecycler(2, TestPacket.class);
+      TestPacket packet = recycler.obtain(TestPacket.class);
+
+      // Retained by two consumers, the release of the communicator and the first consumer keep it out of the pool
+      recycler.retain(packet);
+      recycler.retain(packet);
+      assertEquals(1, recycler.getNumberOfRetainedObjects(TestPacket.class));
+      recycler.release(packet);
+      recycler.release(packet);
+      assertEquals(0, recycler.getNumberOfPooledObjects(TestPacket.class));
+      assertEquals(1, recycler.getNumberOfRetainedObjects(TestPacket.class));
+
+      recycler.release(packet);
+      assertEquals(1, recycler.getNumberOfPooledObjects(TestPacket.class));
+      assertEquals(0, recycler.getNumberOfRetainedObjects(TestPacket.class));
+      assertSame(packet, recycler.obtain(TestPacket.class));
+
+      // Objects of other classes are not counted
+      recycler.retain("not recycled");
+      assertEquals(0, recycler.getNumberOfRetainedObjects(TestPacket.class));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testKryoReadsAndCopiesIntoRecycledObjects()
+   {
+      ObjectRecycler recycler = new ObjectRecycler(4, TestPacket.class);
+      Kryo kryo = new Kryo();
+      kryo.register(TestPacket.class);
+      kryo.register(double[].class);
+      recycler.registerWithKryo(kryo);
+
+      TestPacket packet = new TestPacket();
+      packet.value = 42;
+      packet.data = new double[] {1.0, 2.0, 3.0};
+
+      Output output = new Output(1024);
+      kryo.writeObject(output, packet);
+      output.close();
+
+      TestPacket recycledPacket = recycler.obtain(TestPacket.class);
+      recycledPacket.value = -1;
+      recycledPacket.setNotes("left over");
+      recycler.release(recycledPacket);
+
+      TestPacket readPacket = kryo.readObject(new Input(output.getBuffer(), 0, output.position()), TestPacket.class);
+      assertSame(recycledPacket, readPacket);
+      assertEquals(42, readPacket.value);
+      assertEquals(3, readPacket.data.length);
+      assertEquals(3.0, readPacket.data[2], 0.0);
+      assertNull(readPacket.getNotes());
+
+      recycler.release(readPacket);
+      TestPacket copy = kryo.copy(packet);
+      assertSame(recycledPacket, copy);
+      assertEquals(42, copy.value);
+      assertEquals(1, recycler.getNumberOfAllocations(TestPacket.class));
+      assertEquals(2, recycler.getNumberOfReuses(TestPacket.class));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000)
+   public void testKryoReusesArraysAndTuples()
+   {
+      ObjectRecycler recycler = new ObjectRecycler(4, ArrayPacket.class);
+      Kryo kryo = createArrayPacketKryo();
+      recycler.registerWithKryo(kryo);
+
+      // Written with the default serializers, so the format does not change
+      Kryo writerKryo = createArrayPacketKryo();
+      ArrayPacket packet = new ArrayPacket();
+      packet.floats = new float[] {1.0f, 2.0f};
+      packet.doubles = new double[] {3.0};
+      packet.ints = new int[] {-1, 0, 300000};
+      packet.longs = new long[] {-5L, Long.MAX_VALUE};
+      packet.bytes = new byte[] {7, -7};
+      packet.wrenches = new float[][] {{1.0f, 2.0f, 3.0f}, {4.0f, 5.0f, 6.0f}};
+      packet.position.set(1.0f, 2.0f, 3.0f);
+      packet.orientation.set(0.0f, 0.0f, 0.0f, 1.0f);
+      Output output = new Output(1024);
+      writerKryo.writeObject(output, packet);
+      output.close();
+
+      ArrayPacket recycledPacket = recycler.obtain(ArrayPacket.class);
+      recycledPacket.floats = new float[2];
+      recycledPacket.doubles = new double[1];
+      recycledPacket.ints = new int[4]; // size does not match
+      recycledPacket.longs = new long[2];
+      recycledPacket.bytes = new byte[2];
+      float[] firstWrench = new float[3];
+      float[] secondWrench = new float[3];
+      recycledPacket.wrenches = new float[][] {firstWrench, secondWrench};
+      float[] floats = recycledPacket.floats;
+      double[] doubles = recycledPacket.doubles;
+      int[] ints = recycledPacket.ints;
+      long[] longs = recycledPacket.longs;
+      byte[] bytes = recycledPacket.bytes;
+      Point3D32 position = recycledPacket.position;
+      Quaternion32 orientation = recycledPacket.orientation;
+      recycler.release(recycledPacket);
+
+      ArrayPacket readPacket = kryo.readObject(new Input(output.getBuffer(), 0, output.position()), ArrayPacket.class);
+      assertSame(recycledPacket, readPacket);
+      assertSame(floats, readPacket.floats);
+      assertSame(doubles, readPacket.doubles);
+      assertNotSame(ints, readPacket.ints);
+      assertSame(longs, readPacket.longs);
+      assertSame(bytes, readPacket.bytes);
+      assertTrue(readPacket.wrenches[0] == firstWrench || readPacket.wrenches[0] == secondWrench);
+      assertTrue(readPacket.wrenches[1] == firstWrench || readPacket.wrenches[1] == secondWrench);
+      assertNotSame(readPacket.wrenches[0], readPacket.wrenches[1]);
+      assertSame(position, readPacket.position);
+      assertSame(orientation, readPacket.orientation);
+      assertPacketEquals(packet, readPacket);
+
+      // Copies reuse them as well, and an array held by two fields is only reused once
+      readPacket.doubles = new double[3];
+      readPacket.shared = readPacket.doubles;
+      packet.shared = new double[] {4.0, 5.0, 6.0};
+      packet.doubles = new double[] {1.0, 2.0, 3.0};
+      recycler.release(readPacket);
+      ArrayPacket copy = kryo.copy(packet);
+      assertSame(recycledPacket, copy);
+      assertSame(floats, copy.floats);
+      assertNotSame(copy.doubles, copy.shared);
+      assertPacketEquals(packet, copy);
+
+      // Objects that are not recycled still get new arrays
+      Point3D32 point = kryo.copy(packet.position);
+      assertNotSame(packet.position, point);
+      assertEquals(packet.position, point);
+      assertEquals(1, recycler.getNumberOfAllocations(ArrayPacket.class));
+   }
+
+   private static Kryo createArrayPacketKryo()
+   {
+      Kryo kryo = new Kryo();
+      kryo.register(ArrayPacket.class);
+      kryo.register(float[].class);
+      kryo.register(double[].class);
+      kryo.register(int[].class);
+      kryo.register(long[].class);
+      kryo.register(byte[].class);
+      kryo.register(float[][].class);
+      kryo.register(Point3D32.class);
+      kryo.register(Quaternion32.class);
+      return kryo;
+   }
+
+   private static void assertPacketEquals(ArrayPacket expected, ArrayPacket actual)
+   {
+      assertArrayEquals(expected.floats, actual.floats, 0.0f);
+      assertArrayEquals(expected.doubles, actual.doubles, 0.0);
+      assertArrayEquals(expected.shared, actual.shared, 0.0);
+      assertArrayEquals(expected.ints, actual.ints);
+      assertArrayEquals(expected.longs, actual.longs);
+      assertArrayEquals(expected.bytes, actual.bytes);
+      assertEquals(expected.wrenches.length, actual.wrenches.length);
+      for (int i = 0; i < expected.wrenches.length; i++)
+      {
+         assertArrayEquals(expected.wrenches[i], actual.wrenches[i], 0.0f);
+      }
+      assertEquals(expected.position, actual.position);
+      assertEquals(expected.orientation, actual.orientation);
+   }
+
+   public static class ArrayPacket extends Packet<ArrayPacket>
+   {
+      public float[] floats;
+      public double[] doubles;
+      public double[] shared;
+      public int[] ints;
+      public long[] longs;
+      public byte[] bytes;
+      public float[][] wrenches;
+      public Point3D32 position = new Point3D32();
+      public Quaternion32 orientation = new Quaternion32();
+
+      public ArrayPacket()
+      {
+      }
+
+      @Override
+      public boolean epsilonEquals(ArrayPacket other, double epsilon)
+      {
+         return position.epsilonEquals(other.position, epsilon);
+      }
+   }
+
+   public static class TestPacket extends Packet<TestPacket>
+   {
+      public int value;
+      public double[] data;
+
+      public TestPacket()
+      {
+      }
+
+      @Override
+      public boolean epsilonEquals(TestPacket other, double epsilon)
+      {
+         return value == other.value;
+      }
+   }
+}
@@ -0,0 +1,239 @@
+package us.ihmc.communication.producers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import us.ihmc.communication.net.NetStateListener;
+import us.ihmc.communication.producers.JPEGEncoderPool.FrameCompressor;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple4D.Quaternion;
+
+@ContinuousIntegrationPlan(categories = {IntegrationCategory.FAST})
+public class JPEGEncoderPoolTest
+{
+   private static final long TIMEOUT_IN_SECONDS = 10;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testLatestFrameWins() throws Exception
+   {
+      BlockingCompressor compressor = new BlockingCompressor();
+      RecordingHandler handler = new RecordingHandler();
+      JPEGEncoderPool encoderPool = new JPEGEncoderPool(VideoSource.MULTISENSE_LEFT_EYE, handler, compressor);
+
+      Point3D position = new Point3D(1.0, 2.0, 3.0);
+      Quaternion orientation = new Quaternion(0.1, 0.2, 0.3, 0.4);
+      BufferedImage image = createImage(0);
+      encoderPool.submit(image, 0, position, orientation, null);
+      compressor.waitForStart(0);
+
+      // The image is copied, so the caller can reuse it right away
+      image.setRGB(0, 0, 5);
+      position.setToZero();
+
+      // The encoder is busy, so every frame replaces the one that is waiting
+      for (int id = 1; id <= 3; id++)
+      {
+         encoderPool.submit(createImage(id), id, null, null, null);
+      }
+      compressor.finish(0);
+      compressor.waitForStart(3);
+      compressor.finish(3);
+
+      handler.waitForPackets(2);
+      assertEquals(0, handler.getTimeStamp(0));
+      assertEquals(3, handler.getTimeStamp(1));
+      assertEquals(new Point3D(1.0, 2.0, 3.0), handler.positions.get(0));
+      assertEquals(new Quaternion(0.1, 0.2, 0.3, 0.4), handler.orientations.get(0));
+      assertNull(handler.positions.get(1));
+      assertNull(handler.orientations.get(1));
+      assertSame(VideoSource.MULTISENSE_LEFT_EYE, handler.videoSources.get(0));
+
+      VideoStreamStatistics statistics = encoderPool.getStatistics();
+      assertEquals(4, statistics.getNumberOfFramesReceived());
+      assertEquals(2, statistics.getNumberOfFramesSent());
+      assertEquals(2, statistics.getNumberOfFramesDropped());
+      assertEquals(BlockingCompressor.getDataLength(0) + BlockingCompressor.getDataLength(3), statistics.getNumberOfBytesSent());
+      assertTrue(statistics.getAverageLatency() > 0.0);
+      assertTrue(statistics.getMaximumLatency() >= statistics.getAverageLatency());
+      assertTrue(statistics.getFramesPerSecond() > 0.0);
+      assertTrue(statistics.getBytesPerSecond() > 0.0);
+
+      statistics.reset();
+      assertEquals(0, statistics.getNumberOfFramesReceived());
+      assertEquals(0, statistics.getNumberOfFramesSent());
+      assertEquals(0, statistics.getNumberOfFramesDropped());
+      assertEquals(0, statistics.getNumberOfBytesSent());
+      assertEquals(0.0, statistics.getAverageLatency(), 0.0);
+      assertEquals(0.0, statistics.getMaximumLatency(), 0.0);
+
+      encoderPool.close();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testClose() throws Exception
+   {
+      BlockingCompressor compressor = new BlockingCompressor();
+      RecordingHandler handler = new RecordingHandler();
+      JPEGEncoderPool encoderPool = new JPEGEncoderPool(VideoSource.FISHEYE_RIGHT, handler, compressor);
+      VideoStreamStatistics statistics = encoderPool.getStatistics();
+
+      encoderPool.submit(createImage(0), 0, null, null, null);
+      compressor.waitForStart(0);
+      encoderPool.submit(createImage(1), 1, null, null, null);
+
+      // Neither the waiting frame nor the frame that is being compressed is sent
+      encoderPool.close();
+      assertEquals(1, statistics.getNumberOfFramesDropped());
+      compressor.finish(0);
+      waitFor(() -> statistics.getNumberOfFramesDropped() == 2);
+
+      // Frames submitted after closing are ignored
+      encoderPool.submit(createImage(2), 2, null, null, null);
+      Thread.sleep(100);
+      assertEquals(0, handler.getNumberOfPackets());
+      assertEquals(0, statistics.getNumberOfFramesSent());
+      assertEquals(1, compressor.getNumberOfCompressedFrames());
+   }
+
+   private static BufferedImage createImage(int id)
+   {
+      BufferedImage image = new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB);
+      image.setRGB(0, 0, id);
+      return image;
+   }
+
+   private static void waitFor(BooleanSupplier condition) throws InterruptedException
+   {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_IN_SECONDS);
+      while (!condition.getAsBoolean())
+      {
+         assertTrue("Timed out", System.nanoTime() < deadline);
+         Thread.sleep(1);
+      }
+   }
+
+   /**
+    * Identifies the frames by the first pixel of the image, and only finishes compressing a frame
+    * when the test says so. The data is as long as the id of the frame plus one.
+    */
+   private static class BlockingCompressor implements FrameCompressor
+   {
+      private final ConcurrentHashMap<Integer, CountDownLatch> started = new ConcurrentHashMap<>();
+      private final ConcurrentHashMap<Integer, CountDownLatch> finished = new ConcurrentHashMap<>();
+      private final AtomicInteger numberOfCompressedFrames = new AtomicInteger();
+
+      @Override
+      public byte[] compress(BufferedImage image)
+      {
+         int id = image.getRGB(0, 0) & 0xFFFFFF;
+         getLatch(started, id).countDown();
+         try
+         {
+            getLatch(finished, id).await();
+         }
+         catch (InterruptedException e)
+         {
+            return null;
+         }
+         numberOfCompressedFrames.incrementAndGet();
+         return new byte[getDataLength(id)];
+      }
+
+      private static int getDataLength(int id)
+      {
+         return id + 1;
+      }
+
+      private void waitForStart(int id) throws InterruptedException
+      {
+         assertTrue("Frame " + id + " was not compressed", getLatch(started, id).await(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS));
+      }
+
+      private void finish(int id)
+      {
+         getLatch(finished, id).countDown();
+      }
+
+      private int getNumberOfCompressedFrames()
+      {
+         return numberOfCompressedFrames.get();
+      }
+
+      private static CountDownLatch getLatch(ConcurrentHashMap<Integer, CountDownLatch> latches, int id)
+      {
+         return latches.computeIfAbsent(id, key -> new CountDownLatch(1));
+      }
+   }
+
+   private static class RecordingHandler implements CompressedVideoHandler
+   {
+      private final LinkedBlockingQueue<Long> timeStamps = new LinkedBlockingQueue<>();
+      private final List<Long> receivedTimeStamps = new ArrayList<>();
+      private final List<VideoSource> videoSources = new ArrayList<>();
+      private final List<Point3D> positions = new ArrayList<>();
+      private final List<Quaternion> orientations = new ArrayList<>();
+
+      @Override
+      public synchronized void newVideoPacketAvailable(VideoSource videoSource, long timeStamp, byte[] data, Point3D position, Quaternion orientation,
+                                                       IntrinsicParameters intrinsicParameters)
+      {
+         assertNotNull(data);
+         videoSources.add(videoSource);
+         positions.add(position);
+         orientations.add(orientation);
+         timeStamps.add(timeStamp);
+      }
+
+      private void waitForPackets(int numberOfPackets) throws InterruptedException
+      {
+         while (receivedTimeStamps.size() < numberOfPackets)
+         {
+            Long timeStamp = timeStamps.poll(TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+            assertNotNull("Timed out", timeStamp);
+            receivedTimeStamps.add(timeStamp);
+         }
+      }
+
+      private int getNumberOfPackets()
+      {
+         return receivedTimeStamps.size() + timeStamps.size();
+      }
+
+      private long getTimeStamp(int index)
+      {
+         return receivedTimeStamps.get(index);
+      }
+
+      @Override
+      public void addNetStateListener(NetStateListener compressedVideoDataServer)
+      {
+      }
+
+      @Override
+      public boolean isConnected()
+      {
+         return true;
+      }
+   }
+}
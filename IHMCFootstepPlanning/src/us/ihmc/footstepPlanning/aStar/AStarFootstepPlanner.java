@@ -1,9 +1,13 @@
 package us.ihmc.footstepPlanning.aStar;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.PriorityQueue;
 
+import gnu.trove.impl.Constants;
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import us.ihmc.commons.Conversions;
 import us.ihmc.footstepPlanning.FootstepPlan;
 import us.ihmc.footstepPlanning.FootstepPlanner;
@@ -34,6 +38,16 @@ public class AStarFootstepPlanner implements FootstepPlanner
    private PriorityQueue<FootstepNode> stack;
    private FootstepNode goalNode;
 
+   private static final int NO_NODE_ID = -1;
+
+   private boolean useIndexedHeap = false;
+   private final IndexedFootstepNodeIdHeap indexedStack = new IndexedFootstepNodeIdHeap();
+   private final TObjectIntHashMap<FootstepNode> nodeIds = new TObjectIntHashMap<>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, NO_NODE_ID);
+   private final ArrayList<FootstepNode> nodesById = new ArrayList<>();
+   private final TDoubleArrayList heuristicCostsById = new TDoubleArrayList();
+
+   private ParallelNeighborEvaluator neighborEvaluator = null;
+
    private final FootstepNodeChecker nodeChecker;
    private final GraphVisualization visualization;
    private final CostToGoHeuristics heuristics;
@@ -67,6 +81,51 @@ public class AStarFootstepPlanner implements FootstepPlanner
       timeout = timeoutInSeconds;
    }
 
+   /**
+    * Selects the open set of the search. By default a {@link PriorityQueue} ordered by a
+    * {@link NodeComparator} is used. That queue has no decrease-key so a node that is reached
+    * through a cheaper parent is added again, and the comparator looks up the graph cost and
+    * evaluates the heuristics for every comparison.
+    *
+    * If enabled, an {@link IndexedFootstepNodeIdHeap} is used instead. Each node is contained at
+    * most once with its cost from start plus heuristic cached in the heap, and a cheaper parent
+    * lowers the priority of the node in place. The heuristic is evaluated once per node. Costs that
+    * are lowered through the recursive child update of the {@link FootstepGraph} are picked up the
+    * next time the node is relaxed.
+    */
+   public void setUseIndexedHeap(boolean useIndexedHeap)
+   {
+      this.useIndexedHeap = useIndexedHeap;
+   }
+
+   /**
+    * Enables batched expansion: the neighbors of every expanded node are checked and costed in
+    * parallel on a pool with the given number of threads and merged into the graph in the same
+    * order as in the serial search, so the resulting plans are identical. The node checker and cost
+    * calculator of this planner must be thread safe when this is enabled. Passing one or less
+    * evaluates the neighbors on the planning thread.
+    */
+   public void setNumberOfExpansionThreads(int numberOfThreads)
+   {
+      if (neighborEvaluator != null)
+         neighborEvaluator.shutdown();
+
+      if (numberOfThreads > 1)
+         neighborEvaluator = new ParallelNeighborEvaluator(numberOfThreads);
+      else
+         neighborEvaluator = null;
+   }
+
+   /**
+    * Shuts down the threads used for batched expansion. The planner can still be used afterwards
+    * and evaluates the neighbors on the planning thread until
+    * {@link #setNumberOfExpansionThreads(int)} is called again.
+    */
+   public void close()
+   {
+      setNumberOfExpansionThreads(1);
+   }
+
    @Override
    public void setInitialStanceFoot(FramePose stanceFootPose, RobotSide side)
    {
@@ -135,10 +194,21 @@ public class AStarFootstepPlanner implements FootstepPlanner
          throw new RuntimeException("Need to set goal before planning.");
 
       graph = new FootstepGraph(startNode);
-      NodeComparator nodeComparator = new NodeComparator(graph, goalNodes, heuristics);
-      stack = new PriorityQueue<>(nodeComparator);
-      stack.add(startNode);
       expandedNodes = new HashSet<>();
+      if (useIndexedHeap)
+      {
+         stack = null;
+         indexedStack.clear();
+         nodeIds.clear();
+         nodesById.clear();
+         heuristicCostsById.resetQuick();
+      }
+      else
+      {
+         NodeComparator nodeComparator = new NodeComparator(graph, goalNodes, heuristics);
+         stack = new PriorityQueue<>(nodeComparator);
+      }
+      addToOpenSet(startNode);
       goalNode = null;
 
       if (visualization != null)
@@ -154,9 +224,9 @@ public class AStarFootstepPlanner implements FootstepPlanner
    {
       long planningStartTime = System.nanoTime();
 
-      while (!stack.isEmpty())
+      while (!isOpenSetEmpty())
       {
-         FootstepNode nodeToExpand = stack.poll();
+         FootstepNode nodeToExpand = pollOpenSet();
          if (expandedNodes.contains(nodeToExpand))
             continue;
          expandedNodes.add(nodeToExpand);
@@ -176,14 +246,25 @@ public class AStarFootstepPlanner implements FootstepPlanner
          }
 
          HashSet<FootstepNode> neighbors = nodeExpansion.expandNode(nodeToExpand);
-         for (FootstepNode neighbor : neighbors)
+         if (neighborEvaluator != null)
          {
-            if (!nodeChecker.isNodeValid(neighbor))
-               continue;
-
-            double cost = stepCostCalculator.compute(nodeToExpand, neighbor);
-            graph.checkAndSetEdge(nodeToExpand, neighbor, cost);
-            stack.add(neighbor);
+            neighborEvaluator.evaluate(nodeToExpand, neighbors, nodeChecker, stepCostCalculator);
+            for (int i = 0; i < neighborEvaluator.getNumberOfNeighbors(); i++)
+            {
+               if (neighborEvaluator.isNeighborValid(i))
+                  addEdge(nodeToExpand, neighborEvaluator.getNeighbor(i), neighborEvaluator.getCost(i));
+            }
+         }
+         else
+         {
+            for (FootstepNode neighbor : neighbors)
+            {
+               if (!nodeChecker.isNodeValid(neighbor))
+                  continue;
+
+               double cost = stepCostCalculator.compute(nodeToExpand, neighbor);
+               addEdge(nodeToExpand, neighbor, cost);
+            }
          }
 
          long timeInNano = System.nanoTime();
@@ -192,9 +273,51 @@ public class AStarFootstepPlanner implements FootstepPlanner
       }
    }
 
+   private void addEdge(FootstepNode nodeToExpand, FootstepNode neighbor, double cost)
+   {
+      graph.checkAndSetEdge(nodeToExpand, neighbor, cost);
+      if (!useIndexedHeap || !expandedNodes.contains(neighbor))
+         addToOpenSet(neighbor);
+   }
+
+   private void addToOpenSet(FootstepNode node)
+   {
+      if (!useIndexedHeap)
+      {
+         stack.add(node);
+         return;
+      }
+
+      int nodeId = nodeIds.get(node);
+      if (nodeId == NO_NODE_ID)
+      {
+         nodeId = nodesById.size();
+         nodeIds.put(node, nodeId);
+         nodesById.add(node);
+         heuristicCostsById.add(heuristics.compute(node, goalNodes.get(node.getRobotSide())));
+      }
+
+      double priority = graph.getCostFromStart(node) + heuristicCostsById.get(nodeId);
+      indexedStack.insertOrDecrease(nodeId, priority);
+   }
+
+   private FootstepNode pollOpenSet()
+   {
+      if (useIndexedHeap)
+         return nodesById.get(indexedStack.poll());
+      return stack.poll();
+   }
+
+   private boolean isOpenSetEmpty()
+   {
+      if (useIndexedHeap)
+         return indexedStack.isEmpty();
+      return stack.isEmpty();
+   }
+
    private FootstepPlanningResult checkResult()
    {
-      if (stack.isEmpty())
+      if (isOpenSetEmpty())
          return FootstepPlanningResult.NO_PATH_EXISTS;
       if (!graph.doesNodeExist(goalNode))
          return FootstepPlanningResult.TIMED_OUT_BEFORE_SOLUTION;
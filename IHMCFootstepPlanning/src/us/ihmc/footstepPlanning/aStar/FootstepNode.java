@@ -14,6 +14,17 @@ public class FootstepNode
    private final int yawIndex;
    private final RobotSide robotSide;
 
+   /**
+    * Creates a node from a key packed with {@link FootstepNodeKeyTools}.
+    */
+   public FootstepNode(long packedKey)
+   {
+      xIndex = FootstepNodeKeyTools.unpackXIndex(packedKey);
+      yIndex = FootstepNodeKeyTools.unpackYIndex(packedKey);
+      yawIndex = FootstepNodeKeyTools.unpackYawIndex(packedKey);
+      robotSide = FootstepNodeKeyTools.unpackRobotSide(packedKey);
+   }
+
    public FootstepNode(double x, double y)
    {
       this(x, y, 0.0, RobotSide.LEFT);
@@ -27,19 +38,39 @@ public class FootstepNode
       this.robotSide = robotSide;
    }
 
+   public long getPackedKey()
+   {
+      return FootstepNodeKeyTools.packKey(getXIndex(), getYIndex(), getYawIndex(), getRobotSide());
+   }
+
+   public int getXIndex()
+   {
+      return xIndex;
+   }
+
+   public int getYIndex()
+   {
+      return yIndex;
+   }
+
+   public int getYawIndex()
+   {
+      return yawIndex;
+   }
+
    public double getX()
    {
-      return gridSizeX * xIndex;
+      return gridSizeX * getXIndex();
    }
 
    public double getY()
    {
-      return gridSizeY * yIndex;
+      return gridSizeY * getYIndex();
    }
 
    public double getYaw()
    {
-      return gridSizeYaw * yawIndex;
+      return gridSizeYaw * getYawIndex();
    }
 
    public RobotSide getRobotSide()
@@ -59,10 +90,10 @@ public class FootstepNode
    {
       final int prime = 31;
       int result = 1;
-      result = prime * result + ((robotSide == null) ? 0 : robotSide.hashCode());
-      result = prime * result + xIndex;
-      result = prime * result + yIndex;
-      result = prime * result + yawIndex;
+      result = prime * result + ((getRobotSide() == null) ? 0 : getRobotSide().hashCode());
+      result = prime * result + getXIndex();
+      result = prime * result + getYIndex();
+      result = prime * result + getYawIndex();
       return result;
    }
 
@@ -73,16 +104,16 @@ public class FootstepNode
          return true;
       if (obj == null)
          return false;
-      if (getClass() != obj.getClass())
+      if (!(obj instanceof FootstepNode))
          return false;
       FootstepNode other = (FootstepNode) obj;
-      if (robotSide != other.robotSide)
+      if (getRobotSide() != other.getRobotSide())
          return false;
-      if (xIndex != other.xIndex)
+      if (getXIndex() != other.getXIndex())
          return false;
-      if (yIndex != other.yIndex)
+      if (getYIndex() != other.getYIndex())
          return false;
-      if (yawIndex != other.yawIndex)
+      if (getYawIndex() != other.getYawIndex())
          return false;
       return true;
    }
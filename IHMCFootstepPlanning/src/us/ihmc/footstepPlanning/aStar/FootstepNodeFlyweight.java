@@ -0,0 +1,65 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Node owned by {@link PackedAStarFootstepPlanner} that is decoded from a packed key again for
+ * every call to a checker, cost, or heuristic. It is equal to the {@link FootstepNode} of the same
+ * lattice cell while it holds that key.
+ *
+ * The planner changes the node after the call returns, so it must not be kept or stored in a hash
+ * based collection. Use {@code new FootstepNode(node.getPackedKey())} to keep a node.
+ */
+final class FootstepNodeFlyweight extends FootstepNode
+{
+   private long packedKey;
+   private int xIndex;
+   private int yIndex;
+   private int yawIndex;
+   private RobotSide robotSide;
+
+   FootstepNodeFlyweight()
+   {
+      super(0.0, 0.0);
+      setPackedKey(FootstepNodeKeyTools.packKey(0, 0, 0, RobotSide.LEFT));
+   }
+
+   void setPackedKey(long packedKey)
+   {
+      this.packedKey = packedKey;
+      xIndex = FootstepNodeKeyTools.unpackXIndex(packedKey);
+      yIndex = FootstepNodeKeyTools.unpackYIndex(packedKey);
+      yawIndex = FootstepNodeKeyTools.unpackYawIndex(packedKey);
+      robotSide = FootstepNodeKeyTools.unpackRobotSide(packedKey);
+   }
+
+   @Override
+   public long getPackedKey()
+   {
+      return packedKey;
+   }
+
+   @Override
+   public int getXIndex()
+   {
+      return xIndex;
+   }
+
+   @Override
+   public int getYIndex()
+   {
+      return yIndex;
+   }
+
+   @Override
+   public int getYawIndex()
+   {
+      return yawIndex;
+   }
+
+   @Override
+   public RobotSide getRobotSide()
+   {
+      return robotSide;
+   }
+}
@@ -0,0 +1,65 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of packed node keys that is meant to be cleared and refilled for every node
+ * expansion. The backing array is only reallocated when the list outgrows it.
+ */
+public class FootstepNodeKeyList
+{
+   private long[] keys;
+   private int size = 0;
+
+   public FootstepNodeKeyList()
+   {
+      this(64);
+   }
+
+   public FootstepNodeKeyList(int initialCapacity)
+   {
+      keys = new long[Math.max(initialCapacity, 1)];
+   }
+
+   public void clear()
+   {
+      size = 0;
+   }
+
+   /**
+    * Adds the key if it is not contained already. Expansions only produce a few dozen neighbors so
+    * a linear scan is cheaper than hashing.
+    *
+    * @return whether the key was added
+    */
+   public boolean addIfAbsent(long key)
+   {
+      for (int i = 0; i < size; i++)
+      {
+         if (keys[i] == key)
+            return false;
+      }
+
+      if (size == keys.length)
+         keys = Arrays.copyOf(keys, 2 * keys.length);
+      keys[size++] = key;
+      return true;
+   }
+
+   public long get(int index)
+   {
+      if (index >= size)
+         throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+      return keys[index];
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+}
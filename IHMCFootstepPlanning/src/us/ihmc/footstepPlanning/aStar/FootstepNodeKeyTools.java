@@ -0,0 +1,80 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import us.ihmc.robotics.geometry.AngleTools;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Packs the lattice index of a {@link FootstepNode} into a single long so that graph searches can
+ * store nodes in primitive arrays.
+ *
+ * The layout from the most significant bit is 24 bits x index, 24 bits y index, 8 bits yaw index,
+ * 7 unused bits, and 1 bit for the robot side. The indices are stored in two's complement and are
+ * sign extended when unpacking. With the default grid this covers more than 400km in every
+ * direction.
+ */
+public class FootstepNodeKeyTools
+{
+   /**
+    * Key that is never produced by {@link #packKey} since it has the unused bits set.
+    */
+   public static final long NO_NODE = -1L;
+
+   private static final long INDEX_MASK = 0xFFFFFFL;
+   private static final long YAW_MASK = 0xFFL;
+
+   public static long packKey(int xIndex, int yIndex, int yawIndex, RobotSide robotSide)
+   {
+      long key = (xIndex & INDEX_MASK) << 40;
+      key |= (yIndex & INDEX_MASK) << 16;
+      key |= (yawIndex & YAW_MASK) << 8;
+      key |= robotSide == RobotSide.LEFT ? 0L : 1L;
+      return key;
+   }
+
+   /**
+    * Computes the same key as {@code new FootstepNode(x, y, yaw, robotSide).getPackedKey()} without
+    * creating the node.
+    */
+   public static long packKey(double x, double y, double yaw, RobotSide robotSide)
+   {
+      int xIndex = (int) Math.round(x / FootstepNode.gridSizeX);
+      int yIndex = (int) Math.round(y / FootstepNode.gridSizeY);
+      int yawIndex = (int) Math.round(AngleTools.trimAngleMinusPiToPi(yaw) / FootstepNode.gridSizeYaw);
+      return packKey(xIndex, yIndex, yawIndex, robotSide);
+   }
+
+   public static int unpackXIndex(long key)
+   {
+      return (int) (key >> 40);
+   }
+
+   public static int unpackYIndex(long key)
+   {
+      return (int) ((key << 24) >> 40);
+   }
+
+   public static int unpackYawIndex(long key)
+   {
+      return (int) ((key << 48) >> 56);
+   }
+
+   public static RobotSide unpackRobotSide(long key)
+   {
+      return (key & 1L) == 0L ? RobotSide.LEFT : RobotSide.RIGHT;
+   }
+
+   public static double unpackX(long key)
+   {
+      return FootstepNode.gridSizeX * unpackXIndex(key);
+   }
+
+   public static double unpackY(long key)
+   {
+      return FootstepNode.gridSizeY * unpackYIndex(key);
+   }
+
+   public static double unpackYaw(long key)
+   {
+      return FootstepNode.gridSizeYaw * unpackYawIndex(key);
+   }
+}
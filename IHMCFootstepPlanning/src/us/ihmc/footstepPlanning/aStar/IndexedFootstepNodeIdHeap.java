@@ -0,0 +1,187 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min heap of node ids. Every id is contained at most once and the heap keeps track
+ * of the position of each id so that the priority of a contained id can be lowered in O(log n).
+ * The priority of each entry is cached so that comparisons are plain double comparisons.
+ *
+ * Ids must be non-negative and should be dense since the position lookup is an array indexed by
+ * id. All arrays grow by doubling and are kept when the heap is cleared.
+ */
+public class IndexedFootstepNodeIdHeap
+{
+   public static final int DEFAULT_ARITY = 4;
+
+   private static final int NOT_IN_HEAP = -1;
+
+   private final int arity;
+
+   private int[] heapIds;
+   private double[] heapPriorities;
+   private int[] positions;
+   private int size = 0;
+
+   public IndexedFootstepNodeIdHeap()
+   {
+      this(DEFAULT_ARITY, 1 << 12);
+   }
+
+   public IndexedFootstepNodeIdHeap(int arity, int initialCapacity)
+   {
+      if (arity < 2)
+         throw new RuntimeException("Heap arity must be at least two, was " + arity);
+
+      this.arity = arity;
+      initialCapacity = Math.max(initialCapacity, 1);
+      heapIds = new int[initialCapacity];
+      heapPriorities = new double[initialCapacity];
+      positions = new int[initialCapacity];
+      Arrays.fill(positions, NOT_IN_HEAP);
+   }
+
+   public void clear()
+   {
+      for (int i = 0; i < size; i++)
+         positions[heapIds[i]] = NOT_IN_HEAP;
+      size = 0;
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public boolean contains(int id)
+   {
+      return id < positions.length && positions[id] != NOT_IN_HEAP;
+   }
+
+   /**
+    * @return the cached priority of an id that is contained in the heap
+    */
+   public double getPriority(int id)
+   {
+      if (!contains(id))
+         throw new RuntimeException("Id " + id + " is not in the heap.");
+      return heapPriorities[positions[id]];
+   }
+
+   /**
+    * Adds the id to the heap or lowers its priority if it is contained already. If the id is
+    * contained with a lower or equal priority the heap is not modified.
+    *
+    * @return whether the heap was modified
+    */
+   public boolean insertOrDecrease(int id, double priority)
+   {
+      if (id < 0)
+         throw new RuntimeException("Id must not be negative, was " + id);
+
+      if (contains(id))
+      {
+         int position = positions[id];
+         if (heapPriorities[position] <= priority)
+            return false;
+         siftUp(position, id, priority);
+         return true;
+      }
+
+      ensureIdCapacity(id);
+      if (size == heapIds.length)
+      {
+         heapIds = Arrays.copyOf(heapIds, 2 * size);
+         heapPriorities = Arrays.copyOf(heapPriorities, 2 * size);
+      }
+
+      siftUp(size++, id, priority);
+      return true;
+   }
+
+   /**
+    * Removes the id with the lowest priority from the heap.
+    */
+   public int poll()
+   {
+      if (size == 0)
+         throw new RuntimeException("Heap is empty.");
+
+      int result = heapIds[0];
+      positions[result] = NOT_IN_HEAP;
+      size--;
+
+      if (size > 0)
+         siftDown(0, heapIds[size], heapPriorities[size]);
+      return result;
+   }
+
+   private void siftUp(int position, int id, double priority)
+   {
+      while (position > 0)
+      {
+         int parent = (position - 1) / arity;
+         if (heapPriorities[parent] <= priority)
+            break;
+         move(parent, position);
+         position = parent;
+      }
+
+      place(position, id, priority);
+   }
+
+   private void siftDown(int position, int id, double priority)
+   {
+      while (true)
+      {
+         int firstChild = arity * position + 1;
+         if (firstChild >= size)
+            break;
+
+         int bestChild = firstChild;
+         int lastChild = Math.min(firstChild + arity, size);
+         for (int child = firstChild + 1; child < lastChild; child++)
+         {
+            if (heapPriorities[child] < heapPriorities[bestChild])
+               bestChild = child;
+         }
+
+         if (priority <= heapPriorities[bestChild])
+            break;
+         move(bestChild, position);
+         position = bestChild;
+      }
+
+      place(position, id, priority);
+   }
+
+   private void move(int from, int to)
+   {
+      int id = heapIds[from];
+      heapIds[to] = id;
+      heapPriorities[to] = heapPriorities[from];
+      positions[id] = to;
+   }
+
+   private void place(int position, int id, double priority)
+   {
+      heapIds[position] = id;
+      heapPriorities[position] = priority;
+      positions[id] = position;
+   }
+
+   private void ensureIdCapacity(int id)
+   {
+      if (id < positions.length)
+         return;
+
+      int oldLength = positions.length;
+      positions = Arrays.copyOf(positions, Math.max(2 * oldLength, id + 1));
+      Arrays.fill(positions, oldLength, positions.length, NOT_IN_HEAP);
+   }
+}
@@ -0,0 +1,287 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import java.util.HashSet;
+import java.util.List;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.FootstepPlanner;
+import us.ihmc.footstepPlanning.FootstepPlannerGoal;
+import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.aStar.implementations.DistanceAndYawBasedCost;
+import us.ihmc.footstepPlanning.aStar.implementations.DistanceAndYawBasedHeuristics;
+import us.ihmc.footstepPlanning.aStar.implementations.SimpleNodeChecker;
+import us.ihmc.footstepPlanning.aStar.implementations.SimpleSideBasedExpansion;
+import us.ihmc.robotics.geometry.FramePose;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.referenceFrames.PoseReferenceFrame;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+import us.ihmc.robotics.robotSide.SideDependentList;
+
+/**
+ * A* footstep planner that uses the same checker, heuristics, expansion, and cost interfaces as
+ * {@link AStarFootstepPlanner} but keeps the search in a {@link PackedFootstepGraph} and a
+ * {@link IndexedFootstepNodeIdHeap}. Nodes are identified by their packed lattice key. The checker, cost,
+ * and heuristics are given two reused {@link FootstepNodeFlyweight}s that are decoded from the key
+ * of the expanded node and the neighbor, so implementations must not keep the nodes they are given.
+ * {@link FootstepNode}s are only created for the plan, the goal and start nodes, and the
+ * visualization.
+ *
+ * If the expansion implements {@link PackedFootstepNodeExpansion} the neighbors are written into a
+ * reused buffer. In that case the graph bookkeeping of a plan does not allocate once the internal
+ * arrays have grown to the size of the search.
+ *
+ * Every node is contained in the open set at most once and its priority is lowered when a cheaper
+ * parent is found. Closed nodes are never expanded again. For consistent heuristics with a weight
+ * of one this finds a plan with the same cost as {@link AStarFootstepPlanner}.
+ */
+public class PackedAStarFootstepPlanner implements FootstepPlanner
+{
+   private final PackedFootstepGraph graph = new PackedFootstepGraph();
+   private final IndexedFootstepNodeIdHeap openSet = new IndexedFootstepNodeIdHeap();
+   private final FootstepNodeKeyList neighbors = new FootstepNodeKeyList();
+   private final FootstepNodeFlyweight nodeToExpand = new FootstepNodeFlyweight();
+   private final FootstepNodeFlyweight neighborNode = new FootstepNodeFlyweight();
+
+   private SideDependentList<FootstepNode> goalNodes;
+   private final long[] goalNodeKeys = new long[RobotSide.values.length];
+   private FootstepNode startNode;
+   private int goalNodeId = PackedFootstepGraph.NO_ID;
+
+   private final FootstepNodeChecker nodeChecker;
+   private final GraphVisualization visualization;
+   private final CostToGoHeuristics heuristics;
+   private final FootstepNodeExpansion nodeExpansion;
+   private final FootstepCost stepCostCalculator;
+
+   private double timeout = Double.POSITIVE_INFINITY;
+
+   public PackedAStarFootstepPlanner(FootstepNodeChecker nodeChecker, CostToGoHeuristics heuristics, FootstepNodeExpansion expansion,
+         FootstepCost stepCostCalculator)
+   {
+      this(nodeChecker, heuristics, expansion, stepCostCalculator, null);
+   }
+
+   public PackedAStarFootstepPlanner(FootstepNodeChecker nodeChecker, CostToGoHeuristics heuristics, FootstepNodeExpansion nodeExpansion,
+         FootstepCost stepCostCalculator, GraphVisualization visualization)
+   {
+      this.nodeChecker = nodeChecker;
+      this.heuristics = heuristics;
+      this.nodeExpansion = nodeExpansion;
+      this.stepCostCalculator = stepCostCalculator;
+      this.visualization = visualization;
+   }
+
+   public void setWeight(double weight)
+   {
+      heuristics.setWeight(weight);
+   }
+
+   public void setTimeout(double timeoutInSeconds)
+   {
+      timeout = timeoutInSeconds;
+   }
+
+   @Override
+   public void setInitialStanceFoot(FramePose stanceFootPose, RobotSide side)
+   {
+      startNode = new FootstepNode(stanceFootPose.getX(), stanceFootPose.getY(), stanceFootPose.getYaw(), side);
+   }
+
+   @Override
+   public void setGoal(FootstepPlannerGoal goal)
+   {
+      checkGoalType(goal);
+      FramePose goalPose = goal.getGoalPoseBetweenFeet();
+      ReferenceFrame goalFrame = new PoseReferenceFrame("GoalFrame", goalPose);
+      goalNodes = new SideDependentList<FootstepNode>();
+
+      for (RobotSide side : RobotSide.values)
+      {
+         FramePose goalNodePose = new FramePose(goalFrame);
+         goalNodePose.setY(side.negateIfRightSide(AStarFootstepPlanner.DEFAULT_STEP_WIDTH / 2.0));
+         goalNodePose.changeFrame(goalPose.getReferenceFrame());
+         FootstepNode goalNode = new FootstepNode(goalNodePose.getX(), goalNodePose.getY(), goalNodePose.getYaw(), side);
+         goalNodes.put(side, goalNode);
+         goalNodeKeys[side.ordinal()] = goalNode.getPackedKey();
+      }
+   }
+
+   @Override
+   public void setPlanarRegions(PlanarRegionsList planarRegionsList)
+   {
+      nodeChecker.setPlanarRegions(planarRegionsList);
+   }
+
+   @Override
+   public FootstepPlanningResult plan()
+   {
+      initialize();
+      planInternal();
+      return checkResult();
+   }
+
+   @Override
+   public FootstepPlan getPlan()
+   {
+      if (goalNodeId == PackedFootstepGraph.NO_ID)
+         return null;
+
+      FootstepPlan plan = new FootstepPlan();
+      List<FootstepNode> path = graph.getPathFromStart(goalNodeId);
+      for (int i = 1; i < path.size(); i++)
+         plan.addFootstep(path.get(i).getRobotSide(), createPoseFromNode(path.get(i)));
+      return plan;
+   }
+
+   /**
+    * @return the number of nodes that were added to the graph during the last plan
+    */
+   public int getNumberOfNodesInGraph()
+   {
+      return graph.getNumberOfNodes();
+   }
+
+   private FramePose createPoseFromNode(FootstepNode node)
+   {
+      FramePose pose = new FramePose(ReferenceFrame.getWorldFrame());
+      pose.setYawPitchRoll(node.getYaw(), 0.0, 0.0);
+      pose.setX(node.getX());
+      pose.setY(node.getY());
+      return pose;
+   }
+
+   private void initialize()
+   {
+      if (startNode == null)
+         throw new RuntimeException("Need to set initial conditions before planning.");
+      if (goalNodes == null)
+         throw new RuntimeException("Need to set goal before planning.");
+
+      int startNodeId = graph.initialize(startNode.getPackedKey());
+      openSet.clear();
+      openSet.insertOrDecrease(startNodeId, heuristics.compute(startNode, goalNodes.get(startNode.getRobotSide())));
+      goalNodeId = PackedFootstepGraph.NO_ID;
+
+      if (visualization != null)
+      {
+         visualization.addNode(startNode, true);
+         for (RobotSide side : RobotSide.values)
+            visualization.addNode(goalNodes.get(side), true);
+         visualization.tickAndUpdate();
+      }
+   }
+
+   private void planInternal()
+   {
+      long planningStartTime = System.nanoTime();
+
+      while (!openSet.isEmpty())
+      {
+         int nodeToExpandId = openSet.poll();
+         graph.setClosed(nodeToExpandId);
+
+         long nodeToExpandKey = graph.getNodeKey(nodeToExpandId);
+         nodeToExpand.setPackedKey(nodeToExpandKey);
+
+         if (visualization != null)
+         {
+            visualization.addNode(new FootstepNode(nodeToExpandKey), false);
+            visualization.tickAndUpdate();
+         }
+
+         RobotSide nodeSide = nodeToExpand.getRobotSide();
+         if (nodeToExpandKey == goalNodeKeys[nodeSide.ordinal()])
+         {
+            long goalNodeKey = goalNodeKeys[nodeSide.getOppositeSide().ordinal()];
+            graph.checkAndSetEdge(nodeToExpandId, goalNodeKey, 0.0);
+            goalNodeId = graph.getNodeId(goalNodeKey);
+            break;
+         }
+
+         expandNode(nodeToExpandKey);
+         double costFromStart = graph.getCostFromStart(nodeToExpandId);
+
+         for (int i = 0; i < neighbors.size(); i++)
+         {
+            long neighborKey = neighbors.get(i);
+            int neighborId = graph.getNodeId(neighborKey);
+            if (neighborId != PackedFootstepGraph.NO_ID && graph.isClosed(neighborId))
+               continue;
+
+            neighborNode.setPackedKey(neighborKey);
+            if (!nodeChecker.isNodeValid(neighborNode))
+               continue;
+
+            double cost = stepCostCalculator.compute(nodeToExpand, neighborNode);
+            int improvedNodeId = graph.checkAndSetEdge(nodeToExpandId, neighborKey, cost);
+            if (improvedNodeId == PackedFootstepGraph.NO_ID)
+               continue;
+
+            double heuristicCost = heuristics.compute(neighborNode, goalNodes.get(neighborNode.getRobotSide()));
+            openSet.insertOrDecrease(improvedNodeId, costFromStart + cost + heuristicCost);
+         }
+
+         long timeInNano = System.nanoTime();
+         if (Conversions.nanosecondsToSeconds(timeInNano - planningStartTime) > timeout)
+            break;
+      }
+   }
+
+   private void expandNode(long nodeKey)
+   {
+      if (nodeExpansion instanceof PackedFootstepNodeExpansion)
+      {
+         ((PackedFootstepNodeExpansion) nodeExpansion).expandNode(nodeKey, neighbors);
+         return;
+      }
+
+      neighbors.clear();
+      HashSet<FootstepNode> neighborSet = nodeExpansion.expandNode(nodeToExpand);
+      for (FootstepNode neighbor : neighborSet)
+         neighbors.addIfAbsent(neighbor.getPackedKey());
+   }
+
+   private FootstepPlanningResult checkResult()
+   {
+      if (goalNodeId == PackedFootstepGraph.NO_ID)
+      {
+         if (openSet.isEmpty())
+            return FootstepPlanningResult.NO_PATH_EXISTS;
+         return FootstepPlanningResult.TIMED_OUT_BEFORE_SOLUTION;
+      }
+
+      if (visualization != null)
+      {
+         List<FootstepNode> path = graph.getPathFromStart(goalNodeId);
+         for (FootstepNode node : path)
+            visualization.setNodeActive(node);
+         visualization.tickAndUpdate();
+      }
+
+      if (heuristics.getWeight() <= 1.0)
+         return FootstepPlanningResult.OPTIMAL_SOLUTION;
+      return FootstepPlanningResult.SUB_OPTIMAL_SOLUTION;
+   }
+
+   private void checkGoalType(FootstepPlannerGoal goal)
+   {
+      FootstepPlannerGoalType supportedGoalType = FootstepPlannerGoalType.POSE_BETWEEN_FEET;
+      if (!(goal.getFootstepPlannerGoalType() == supportedGoalType))
+         throw new RuntimeException("Planner does not support goals other then " + supportedGoalType);
+   }
+
+   public static PackedAStarFootstepPlanner createDefaultPlanner(GraphVisualization viz)
+   {
+      SimpleNodeChecker nodeChecker = new SimpleNodeChecker();
+      SimpleSideBasedExpansion expansion = new SimpleSideBasedExpansion();
+
+      DistanceAndYawBasedHeuristics heuristics = new DistanceAndYawBasedHeuristics(AStarFootstepPlanner.DEFAULT_YAW_WEIGHT);
+      DistanceAndYawBasedCost stepCostCalculator = new DistanceAndYawBasedCost(AStarFootstepPlanner.DEFAULT_COST_PER_STEP,
+                                                                               AStarFootstepPlanner.DEFAULT_YAW_WEIGHT);
+
+      return new PackedAStarFootstepPlanner(nodeChecker, heuristics, expansion, stepCostCalculator, viz);
+   }
+}
@@ -0,0 +1,247 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Primitive counterpart of {@link FootstepGraph} for nodes packed with {@link FootstepNodeKeyTools}.
+ *
+ * Every node that is added to the graph gets a dense id that stays valid until the graph is
+ * cleared. The packed key, the cost from start, the id of the best parent, and the closed flag are
+ * stored in arrays indexed by that id. No {@link FootstepNode} is kept for a node, they are only
+ * created for the path returned by {@link #getPathFromStart(int)}. Keys are mapped to ids through an
+ * open addressing hash table with linear probing. All arrays grow by doubling and are kept when the graph is cleared so that repeated
+ * searches on the same graph do not allocate once the arrays are large enough.
+ *
+ * Unlike {@link FootstepGraph} this class does not keep the outgoing edges of nodes and does not
+ * propagate cost improvements to children. It is meant to be used with a search that does not
+ * expand closed nodes again.
+ */
+public class PackedFootstepGraph
+{
+   public static final int NO_ID = -1;
+
+   private static final double MAX_LOAD_FACTOR = 0.5;
+
+   private long[] tableKeys;
+   private int[] tableIds;
+   private int tableMask;
+
+   private long[] nodeKeys;
+   private double[] costsFromStart;
+   private int[] parentIds;
+   private boolean[] closed;
+   private int numberOfNodes = 0;
+
+   public PackedFootstepGraph()
+   {
+      this(1 << 12);
+   }
+
+   public PackedFootstepGraph(int initialNodeCapacity)
+   {
+      int tableSize = Integer.highestOneBit(Math.max(initialNodeCapacity, 8) - 1) << 2;
+      tableKeys = new long[tableSize];
+      tableIds = new int[tableSize];
+      tableMask = tableSize - 1;
+      Arrays.fill(tableKeys, FootstepNodeKeyTools.NO_NODE);
+
+      int nodeCapacity = tableSize / 2;
+      nodeKeys = new long[nodeCapacity];
+      costsFromStart = new double[nodeCapacity];
+      parentIds = new int[nodeCapacity];
+      closed = new boolean[nodeCapacity];
+   }
+
+   /**
+    * Removes all nodes and adds the start node with zero cost.
+    *
+    * @return the id of the start node
+    */
+   public int initialize(long startNodeKey)
+   {
+      clear();
+      return addNode(startNodeKey, 0.0, NO_ID);
+   }
+
+   public void clear()
+   {
+      if (numberOfNodes == 0)
+         return;
+
+      Arrays.fill(tableKeys, FootstepNodeKeyTools.NO_NODE);
+      numberOfNodes = 0;
+   }
+
+   /**
+    * Adds an edge from a known node to the node with the given key. If the end node is new or the
+    * path through the start node is cheaper than its current best path the cost and parent of the
+    * end node are updated.
+    *
+    * @return the id of the end node if it was added or improved, {@link #NO_ID} otherwise
+    */
+   public int checkAndSetEdge(int startNodeId, long endNodeKey, double transitionCost)
+   {
+      checkNodeExists(startNodeId);
+
+      double newNodeCost = costsFromStart[startNodeId] + transitionCost;
+      int endNodeId = getNodeId(endNodeKey);
+
+      if (endNodeId == NO_ID)
+         return addNode(endNodeKey, newNodeCost, startNodeId);
+
+      if (newNodeCost >= costsFromStart[endNodeId])
+         return NO_ID;
+
+      costsFromStart[endNodeId] = newNodeCost;
+      parentIds[endNodeId] = startNodeId;
+      return endNodeId;
+   }
+
+   /**
+    * @return the id of the node with the given key or {@link #NO_ID} if it is not in the graph
+    */
+   public int getNodeId(long nodeKey)
+   {
+      int slot = hash(nodeKey) & tableMask;
+      while (true)
+      {
+         long tableKey = tableKeys[slot];
+         if (tableKey == nodeKey)
+            return tableIds[slot];
+         if (tableKey == FootstepNodeKeyTools.NO_NODE)
+            return NO_ID;
+         slot = (slot + 1) & tableMask;
+      }
+   }
+
+   public boolean doesNodeExist(long nodeKey)
+   {
+      return getNodeId(nodeKey) != NO_ID;
+   }
+
+   public long getNodeKey(int nodeId)
+   {
+      checkNodeExists(nodeId);
+      return nodeKeys[nodeId];
+   }
+
+   public double getCostFromStart(int nodeId)
+   {
+      checkNodeExists(nodeId);
+      return costsFromStart[nodeId];
+   }
+
+   public int getParentId(int nodeId)
+   {
+      checkNodeExists(nodeId);
+      return parentIds[nodeId];
+   }
+
+   public boolean isClosed(int nodeId)
+   {
+      checkNodeExists(nodeId);
+      return closed[nodeId];
+   }
+
+   public void setClosed(int nodeId)
+   {
+      checkNodeExists(nodeId);
+      closed[nodeId] = true;
+   }
+
+   public int getNumberOfNodes()
+   {
+      return numberOfNodes;
+   }
+
+   /**
+    * Returns all nodes required to travel from the start node to the given node.
+    * The nodes returned include start and end node of the path and are created by this call.
+    */
+   public List<FootstepNode> getPathFromStart(int nodeId)
+   {
+      checkNodeExists(nodeId);
+
+      ArrayList<FootstepNode> path = new ArrayList<>();
+      while (nodeId != NO_ID)
+      {
+         path.add(new FootstepNode(nodeKeys[nodeId]));
+         nodeId = parentIds[nodeId];
+      }
+
+      Collections.reverse(path);
+      return path;
+   }
+
+   private int addNode(long nodeKey, double costFromStart, int parentId)
+   {
+      if (nodeKey == FootstepNodeKeyTools.NO_NODE)
+         throw new RuntimeException("Can not add a node with an invalid key.");
+
+      if (numberOfNodes == nodeKeys.length)
+         growNodeArrays();
+      if (numberOfNodes + 1 > MAX_LOAD_FACTOR * tableKeys.length)
+         growTable();
+
+      int nodeId = numberOfNodes++;
+      nodeKeys[nodeId] = nodeKey;
+      costsFromStart[nodeId] = costFromStart;
+      parentIds[nodeId] = parentId;
+      closed[nodeId] = false;
+      insertIntoTable(nodeKey, nodeId);
+      return nodeId;
+   }
+
+   private void insertIntoTable(long nodeKey, int nodeId)
+   {
+      int slot = hash(nodeKey) & tableMask;
+      while (tableKeys[slot] != FootstepNodeKeyTools.NO_NODE)
+         slot = (slot + 1) & tableMask;
+      tableKeys[slot] = nodeKey;
+      tableIds[slot] = nodeId;
+   }
+
+   private void growNodeArrays()
+   {
+      int newCapacity = 2 * nodeKeys.length;
+      nodeKeys = Arrays.copyOf(nodeKeys, newCapacity);
+      costsFromStart = Arrays.copyOf(costsFromStart, newCapacity);
+      parentIds = Arrays.copyOf(parentIds, newCapacity);
+      closed = Arrays.copyOf(closed, newCapacity);
+   }
+
+   private void growTable()
+   {
+      int newTableSize = 2 * tableKeys.length;
+      tableKeys = new long[newTableSize];
+      tableIds = new int[newTableSize];
+      tableMask = newTableSize - 1;
+      Arrays.fill(tableKeys, FootstepNodeKeyTools.NO_NODE);
+
+      for (int nodeId = 0; nodeId < numberOfNodes; nodeId++)
+         insertIntoTable(nodeKeys[nodeId], nodeId);
+   }
+
+   private void checkNodeExists(int nodeId)
+   {
+      if (nodeId < 0 || nodeId >= numberOfNodes)
+         throw new RuntimeException("Node has not been added to graph yet.");
+   }
+
+   /**
+    * Finalizer of MurmurHash3. Neighboring lattice cells only differ in a few bits of the key so the
+    * bits need to be mixed before masking.
+    */
+   private static int hash(long key)
+   {
+      key ^= key >>> 33;
+      key *= 0xff51afd7ed558ccdL;
+      key ^= key >>> 33;
+      key *= 0xc4ceb9fe1a85ec53L;
+      key ^= key >>> 33;
+      return (int) key;
+   }
+}
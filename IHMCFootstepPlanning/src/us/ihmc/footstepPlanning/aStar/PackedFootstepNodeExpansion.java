@@ -0,0 +1,14 @@
+package us.ihmc.footstepPlanning.aStar;
+
+/**
+ * Node expansion that writes the packed keys of the neighbors into a reusable buffer instead of
+ * creating a new set of nodes for every expansion.
+ */
+public interface PackedFootstepNodeExpansion extends FootstepNodeExpansion
+{
+   /**
+    * Packs the keys of all neighbors of the node with the given key. The list is cleared before
+    * it is filled and will not contain duplicates.
+    */
+   public void expandNode(long nodeKey, FootstepNodeKeyList neighborsToPack);
+}
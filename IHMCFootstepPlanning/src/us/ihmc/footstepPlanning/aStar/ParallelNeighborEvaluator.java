@@ -0,0 +1,154 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Checks and costs all neighbors of an expanded node on a bounded {@link ForkJoinPool}.
+ *
+ * The neighbors are stored in the order in which they are given and the results can be read back
+ * by index in that order. A search that merges the results into its graph in index order therefore
+ * makes the same decisions as a search that evaluates the neighbors one at a time.
+ *
+ * The {@link FootstepNodeChecker} and {@link FootstepCost} used with this class are called from
+ * multiple threads at once and must be thread safe. They should also not share a lock, otherwise
+ * the neighbors are still evaluated one at a time. The region queries of a PlanarRegionsList and
+ * the PlanarRegionSnapCache used by the snapping checkers do not lock once they are set up.
+ */
+public class ParallelNeighborEvaluator
+{
+   private final ForkJoinPool pool;
+
+   private FootstepNode[] neighbors = new FootstepNode[64];
+   private boolean[] valid = new boolean[64];
+   private double[] costs = new double[64];
+   private int numberOfNeighbors = 0;
+
+   private FootstepNode nodeToExpand;
+   private FootstepNodeChecker nodeChecker;
+   private FootstepCost stepCostCalculator;
+
+   public ParallelNeighborEvaluator(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+         throw new RuntimeException("Need at least one thread, was " + numberOfThreads);
+      pool = new ForkJoinPool(numberOfThreads);
+   }
+
+   /**
+    * Checks all neighbors of the node and computes the cost of the step to every valid neighbor.
+    * Blocks until all neighbors are evaluated.
+    */
+   public void evaluate(FootstepNode nodeToExpand, Collection<FootstepNode> neighborsToEvaluate, FootstepNodeChecker nodeChecker,
+                        FootstepCost stepCostCalculator)
+   {
+      numberOfNeighbors = 0;
+      ensureCapacity(neighborsToEvaluate.size());
+      for (FootstepNode neighbor : neighborsToEvaluate)
+         neighbors[numberOfNeighbors++] = neighbor;
+
+      this.nodeToExpand = nodeToExpand;
+      this.nodeChecker = nodeChecker;
+      this.stepCostCalculator = stepCostCalculator;
+
+      pool.invoke(new EvaluationTask(0, numberOfNeighbors));
+
+      this.nodeToExpand = null;
+      this.nodeChecker = null;
+      this.stepCostCalculator = null;
+   }
+
+   public int getNumberOfNeighbors()
+   {
+      return numberOfNeighbors;
+   }
+
+   public FootstepNode getNeighbor(int index)
+   {
+      checkIndex(index);
+      return neighbors[index];
+   }
+
+   public boolean isNeighborValid(int index)
+   {
+      checkIndex(index);
+      return valid[index];
+   }
+
+   /**
+    * @return the cost of the step to the neighbor or NaN if the neighbor is not valid
+    */
+   public double getCost(int index)
+   {
+      checkIndex(index);
+      return costs[index];
+   }
+
+   public int getNumberOfThreads()
+   {
+      return pool.getParallelism();
+   }
+
+   public void shutdown()
+   {
+      pool.shutdown();
+   }
+
+   private void evaluateNeighbor(int index)
+   {
+      FootstepNode neighbor = neighbors[index];
+      valid[index] = nodeChecker.isNodeValid(neighbor);
+      costs[index] = valid[index] ? stepCostCalculator.compute(nodeToExpand, neighbor) : Double.NaN;
+   }
+
+   private void ensureCapacity(int capacity)
+   {
+      if (capacity <= neighbors.length)
+         return;
+
+      int newCapacity = Math.max(capacity, 2 * neighbors.length);
+      neighbors = Arrays.copyOf(neighbors, newCapacity);
+      valid = Arrays.copyOf(valid, newCapacity);
+      costs = Arrays.copyOf(costs, newCapacity);
+   }
+
+   private void checkIndex(int index)
+   {
+      if (index < 0 || index >= numberOfNeighbors)
+         throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + numberOfNeighbors + " neighbors");
+   }
+
+   /**
+    * Splits the neighbor range in halves until single neighbors are left. Snapping one neighbor is
+    * expensive enough that it is not worth batching neighbors together.
+    */
+   private class EvaluationTask extends RecursiveAction
+   {
+      private static final long serialVersionUID = 3451749180573625014L;
+
+      private final int from;
+      private final int to;
+
+      public EvaluationTask(int from, int to)
+      {
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected void compute()
+      {
+         if (to - from <= 1)
+         {
+            if (to > from)
+               evaluateNeighbor(from);
+            return;
+         }
+
+         int middle = (from + to) >>> 1;
+         invokeAll(new EvaluationTask(from, middle), new EvaluationTask(middle, to));
+      }
+   }
+}
@@ -3,13 +3,15 @@ package us.ihmc.footstepPlanning.aStar.implementations;
 import java.util.HashSet;
 
 import us.ihmc.footstepPlanning.aStar.FootstepNode;
-import us.ihmc.footstepPlanning.aStar.FootstepNodeExpansion;
+import us.ihmc.footstepPlanning.aStar.FootstepNodeKeyList;
+import us.ihmc.footstepPlanning.aStar.FootstepNodeKeyTools;
+import us.ihmc.footstepPlanning.aStar.PackedFootstepNodeExpansion;
 import us.ihmc.robotics.geometry.FramePose;
 import us.ihmc.robotics.referenceFrames.PoseReferenceFrame;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.robotSide.RobotSide;
 
-public class SimpleSideBasedExpansion implements FootstepNodeExpansion
+public class SimpleSideBasedExpansion implements PackedFootstepNodeExpansion
 {
    private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
 
@@ -77,4 +79,48 @@ public class SimpleSideBasedExpansion implements FootstepNodeExpansion
 
       return neighbors;
    }
+
+   @Override
+   public void expandNode(long nodeKey, FootstepNodeKeyList neighborsToPack)
+   {
+      neighborsToPack.clear();
+
+      double stanceX = FootstepNodeKeyTools.unpackX(nodeKey);
+      double stanceY = FootstepNodeKeyTools.unpackY(nodeKey);
+      double stanceYaw = FootstepNodeKeyTools.unpackYaw(nodeKey);
+      double cosYaw = Math.cos(stanceYaw);
+      double sinYaw = Math.sin(stanceYaw);
+
+      RobotSide stepSide = FootstepNodeKeyTools.unpackRobotSide(nodeKey).getOppositeSide();
+      double ySign = stepSide.negateIfRightSide(1.0);
+
+      // walk forward and backward
+      for (int i = 0; i < stepLengths.length; i++)
+      {
+         double stepLength = stepLengths[i];
+         for (int j = 0; j < stepYaws.length; j++)
+         {
+            double yaw = stanceYaw + ySign * stepYaws[j];
+            addStep(stanceX, stanceY, cosYaw, sinYaw, stepLength, ySign * defaultStepWidth, yaw, stepSide, neighborsToPack);
+            addStep(stanceX, stanceY, cosYaw, sinYaw, -stepLength, ySign * defaultStepWidth, yaw, stepSide, neighborsToPack);
+         }
+      }
+
+      // side step
+      for (int i = 0; i < stepWidths.length; i++)
+         addStep(stanceX, stanceY, cosYaw, sinYaw, 0.0, ySign * stepWidths[i], stanceYaw, stepSide, neighborsToPack);
+
+      // turn in place
+      double turnX = -defaultStepWidth * Math.sin(maxYaw) / 2.0;
+      double turnY = ySign * defaultStepWidth * (1.0 + Math.cos(maxYaw)) / 2.0;
+      addStep(stanceX, stanceY, cosYaw, sinYaw, turnX, turnY, stanceYaw + ySign * maxYaw, stepSide, neighborsToPack);
+   }
+
+   private static void addStep(double stanceX, double stanceY, double cosYaw, double sinYaw, double xInStance, double yInStance, double yaw,
+                               RobotSide stepSide, FootstepNodeKeyList neighborsToPack)
+   {
+      double x = stanceX + cosYaw * xInStance - sinYaw * yInStance;
+      double y = stanceY + sinYaw * xInStance + cosYaw * yInStance;
+      neighborsToPack.addIfAbsent(FootstepNodeKeyTools.packKey(x, y, yaw, stepSide));
+   }
 }
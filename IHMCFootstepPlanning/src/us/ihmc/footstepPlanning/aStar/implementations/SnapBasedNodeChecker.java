@@ -4,6 +4,8 @@ import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.footstepPlanning.aStar.FootstepNode;
 import us.ihmc.footstepPlanning.aStar.FootstepNodeChecker;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache.SnapCacheEntry;
 import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListPolygonSnapper;
 import us.ihmc.robotics.geometry.PlanarRegionsList;
 import us.ihmc.robotics.robotSide.SideDependentList;
@@ -11,12 +13,22 @@ import us.ihmc.robotics.robotSide.SideDependentList;
 public class SnapBasedNodeChecker implements FootstepNodeChecker
 {
    private PlanarRegionsList planarRegions;
-   private final ConvexPolygon2D footPolygon = new ConvexPolygon2D();
    private final SideDependentList<ConvexPolygon2D> footPolygons;
+   private final PlanarRegionSnapCache snapCache;
 
    public SnapBasedNodeChecker(SideDependentList<ConvexPolygon2D> footPolygons)
+   {
+      this(footPolygons, null);
+   }
+
+   /**
+    * @param snapCache cache for snap results of nodes, can be shared with other checkers using the
+    *           same foot polygons. If null every node is snapped.
+    */
+   public SnapBasedNodeChecker(SideDependentList<ConvexPolygon2D> footPolygons, PlanarRegionSnapCache snapCache)
    {
       this.footPolygons = footPolygons;
+      this.snapCache = snapCache;
    }
 
    @Override
@@ -31,13 +43,24 @@ public class SnapBasedNodeChecker implements FootstepNodeChecker
       if (planarRegions == null)
          return true;
 
-      footPolygon.setAndUpdate(footPolygons.get(node.getRobotSide()));
       RigidBodyTransform worldToSole = new RigidBodyTransform();
       worldToSole.setRotationYawAndZeroTranslation(node.getYaw());
       worldToSole.setTranslation(node.getX(), node.getY(), 0.0);
+
+      if (snapCache != null)
+      {
+         SnapCacheEntry cachedSnap = snapCache.get(planarRegions, node.getPackedKey(), worldToSole);
+         if (cachedSnap != null)
+            return cachedSnap.isValid();
+      }
+
+      ConvexPolygon2D footPolygon = new ConvexPolygon2D(footPolygons.get(node.getRobotSide()));
       footPolygon.applyTransformAndProjectToXYPlane(worldToSole);
 
       RigidBodyTransform snapTransform = PlanarRegionsListPolygonSnapper.snapPolygonToPlanarRegionsList(footPolygon, planarRegions);
+      if (snapCache != null)
+         snapCache.put(planarRegions, node.getPackedKey(), worldToSole, snapTransform, null);
+
       if (snapTransform == null)
          return false;
 
@@ -16,6 +16,7 @@ import us.ihmc.footstepPlanning.FootstepPlan;
 import us.ihmc.footstepPlanning.FootstepPlanner;
 import us.ihmc.footstepPlanning.FootstepPlannerGoal;
 import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache;
 import us.ihmc.robotics.MathTools;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
@@ -69,6 +70,16 @@ public class PlanarRegionBipedalFootstepPlanner implements FootstepPlanner
       planarRegionPotentialNextStepCalculator.setBipedalFootstepPlannerListener(listener);
    }
 
+   /**
+    * Sets the cache for snap and wiggle results. By default every planner has its own cache.
+    * Planners that use the same foot polygons and parameters can share one cache so that a
+    * foothold is only snapped once per version of the planar regions.
+    */
+   public void setSnapCache(PlanarRegionSnapCache snapCache)
+   {
+      planarRegionPotentialNextStepCalculator.setSnapCache(snapCache);
+   }
+
    public void setMaximumNumberOfNodesToExpand(int maximumNumberOfNodesToExpand)
    {
       this.maximumNumberOfNodesToExpand.set(maximumNumberOfNodesToExpand);
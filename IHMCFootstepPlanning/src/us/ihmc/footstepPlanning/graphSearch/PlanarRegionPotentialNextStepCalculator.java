@@ -13,6 +13,8 @@ import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
 import us.ihmc.footstepPlanning.FootstepPlannerGoal;
 import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache.SnapCacheEntry;
 import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListPolygonSnapper;
 import us.ihmc.footstepPlanning.polygonWiggling.PolygonWiggler;
 import us.ihmc.footstepPlanning.polygonWiggling.WiggleParameters;
@@ -65,6 +67,9 @@ public class PlanarRegionPotentialNextStepCalculator
    private final IncreasingCostEachStepProvider increasingCostEachStepProvider;
    private final PlanarRegionBaseOfCliffAvoider baseOfCliffAvoider;
 
+   private PlanarRegionSnapCache snapCache;
+   private final double[] snapParameters = new double[7];
+
    PlanarRegionPotentialNextStepCalculator(BipedalFootstepPlannerParameters parameters, YoVariableRegistry parentRegistry, YoGraphicsListRegistry yoGraphicsListRegistry)
    {
       this.parameters = parameters;
@@ -76,6 +81,7 @@ public class PlanarRegionPotentialNextStepCalculator
 
       stepAdjustmentCostCalculator = new BipedalStepAdjustmentCostCalculator(parentRegistry, null);
       increasingCostEachStepProvider = new IncreasingCostEachStepProvider();
+      snapCache = new PlanarRegionSnapCache("", registry);
 
       parentRegistry.addChild(registry);
    }
@@ -89,6 +95,18 @@ public class PlanarRegionPotentialNextStepCalculator
    {
       this.footPolygonsInSoleFrame = footPolygonsInSoleFrame;
       this.controllerPolygonsInSoleFrame = controllerPolygonsInSoleFrame;
+      if (snapCache != null)
+         snapCache.clear();
+   }
+
+   /**
+    * Sets the cache for snap and wiggle results. The cache can be shared with other planners that
+    * use the same foot polygons. The snap and wiggle parameters are part of every lookup so that
+    * changing them drops the cached results. Passing null disables caching.
+    */
+   public void setSnapCache(PlanarRegionSnapCache snapCache)
+   {
+      this.snapCache = snapCache;
    }
 
    public void setPlanarRegions(PlanarRegionsList planarRegionsList)
@@ -662,8 +680,36 @@ public class PlanarRegionPotentialNextStepCalculator
    {
       if (planarRegionsList != null)
       {
-         PlanarRegion planarRegion = new PlanarRegion();
-         RigidBodyTransform nodeToExpandSnapTransform = getSnapAndWiggleTransform(parameters.getWiggleInsideDelta(), nodeToExpand, planarRegion);
+         PlanarRegion planarRegion;
+         RigidBodyTransform nodeToExpandSnapTransform;
+
+         // The cache is bypassed while a listener is attached so every rejection is still reported.
+         if (snapCache != null && listener == null)
+         {
+            RigidBodyTransform soleTransformBeforeSnap = new RigidBodyTransform();
+            nodeToExpand.getSoleTransform(soleTransformBeforeSnap);
+            long cellKey = PlanarRegionSnapCache.computeCellKey(soleTransformBeforeSnap, nodeToExpand.getRobotSide());
+            packSnapParameters(snapParameters);
+            SnapCacheEntry cachedSnap = snapCache.get(planarRegionsList, snapParameters, cellKey, soleTransformBeforeSnap);
+
+            if (cachedSnap != null)
+            {
+               planarRegion = cachedSnap.getPlanarRegion();
+               nodeToExpandSnapTransform = cachedSnap.getSnapTransformCopy();
+            }
+            else
+            {
+               planarRegion = new PlanarRegion();
+               nodeToExpandSnapTransform = getSnapAndWiggleTransform(parameters.getWiggleInsideDelta(), nodeToExpand, planarRegion);
+               snapCache.put(planarRegionsList, snapParameters, cellKey, soleTransformBeforeSnap, nodeToExpandSnapTransform,
+                             nodeToExpandSnapTransform == null ? null : planarRegion);
+            }
+         }
+         else
+         {
+            planarRegion = new PlanarRegion();
+            nodeToExpandSnapTransform = getSnapAndWiggleTransform(parameters.getWiggleInsideDelta(), nodeToExpand, planarRegion);
+         }
 
          if (nodeToExpandSnapTransform == null)
          {
@@ -682,6 +728,20 @@ public class PlanarRegionPotentialNextStepCalculator
       return true;
    }
 
+   /**
+    * Packs all parameters that {@link #getSnapAndWiggleTransform(double, BipedalFootstepPlannerNode, PlanarRegion)} depends on.
+    */
+   private void packSnapParameters(double[] snapParametersToPack)
+   {
+      snapParametersToPack[0] = parameters.getWiggleInsideDelta();
+      snapParametersToPack[1] = parameters.getMinimumSurfaceNormalZ();
+      snapParametersToPack[2] = parameters.getWiggleIntoConvexHullOfPlanarRegions() ? 1.0 : 0.0;
+      snapParametersToPack[3] = parameters.getRejectIfCannotFullyWiggleInside() ? 1.0 : 0.0;
+      snapParametersToPack[4] = parameters.getMaximumXYWiggleDistance();
+      snapParametersToPack[5] = parameters.getMaximumYawWiggle();
+      snapParametersToPack[6] = parameters.getMaximumZPenetrationOnVRegions();
+   }
+
    private boolean checkIfEnoughArea(BipedalFootstepPlannerNode nodeToExpand, PlanarRegion planarRegion)
    {
       RigidBodyTransform nodeToExpandTransform = new RigidBodyTransform();
@@ -0,0 +1,458 @@
+package us.ihmc.footstepPlanning.polygonSnapping;
+
+import java.util.Arrays;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.footstepPlanning.aStar.FootstepNodeKeyTools;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
+import us.ihmc.robotics.dataStructures.variable.LongYoVariable;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Bounded least recently used cache of snap (and wiggle) results for footholds.
+ *
+ * Entries are keyed by the lattice cell of the foothold as computed by {@link FootstepNodeKeyTools}
+ * and store the sole transform before snapping that the result was computed for. A lookup only hits
+ * if that transform matches the query, so the cached results are exactly what the snapper would
+ * compute. A failed snap is cached as well.
+ *
+ * The cache is tied to one {@link PlanarRegionsList} and its {@link PlanarRegionsList#getVersion()},
+ * and to the values of the snap parameters given with each lookup, e.g. the minimum surface normal
+ * or the wiggle limits. Whenever a different list, a different version, or different parameters
+ * are used all entries are dropped. The foot polygons are assumed to be constant and
+ * {@link #clear()} has to be called if they change.
+ *
+ * The cache can be shared between planners and threads. It is split into stripes by the hash of
+ * the cell key, each with its own lock, primitive keyed map, and least recently used list, so
+ * threads snapping different cells rarely wait for each other. The capacity is divided evenly
+ * between the stripes and entries are evicted per stripe. The hit and miss counts are kept per
+ * stripe and copied to their YoVariables with every {@link #put} and when the cache is cleared.
+ */
+public class PlanarRegionSnapCache
+{
+   public static final int DEFAULT_CAPACITY = 1 << 16;
+
+   /** Parameters for users whose snap does not depend on any tunable parameter. */
+   public static final double[] NO_SNAP_PARAMETERS = new double[0];
+
+   private static final double TRANSFORM_EPSILON = 1.0e-10;
+
+   private static final int MAXIMUM_NUMBER_OF_STRIPES = 64;
+   private static final int MINIMUM_STRIPE_CAPACITY = 64;
+
+   private final YoVariableRegistry registry;
+   private final LongYoVariable hits;
+   private final LongYoVariable misses;
+   private final LongYoVariable invalidations;
+   private final IntegerYoVariable size;
+
+   private final int capacity;
+   private final Stripe[] stripes;
+   private final int stripeMask;
+
+   private volatile CacheInputs inputs = new CacheInputs(null, -1, NO_SNAP_PARAMETERS, 0);
+
+   public PlanarRegionSnapCache(String namePrefix, YoVariableRegistry parentRegistry)
+   {
+      this(namePrefix, DEFAULT_CAPACITY, parentRegistry);
+   }
+
+   /**
+    * Creates a cache with as many stripes as fit the capacity with at least
+    * {@value #MINIMUM_STRIPE_CAPACITY} entries each, up to {@value #MAXIMUM_NUMBER_OF_STRIPES}.
+    */
+   public PlanarRegionSnapCache(String namePrefix, int capacity, YoVariableRegistry parentRegistry)
+   {
+      this(namePrefix, capacity, Math.min(MAXIMUM_NUMBER_OF_STRIPES, Integer.highestOneBit(Math.max(1, capacity / MINIMUM_STRIPE_CAPACITY))), parentRegistry);
+   }
+
+   /**
+    * @param numberOfStripes the number of independently locked parts of the cache, must be a power
+    *           of two and not larger than the capacity.
+    */
+   public PlanarRegionSnapCache(String namePrefix, int capacity, int numberOfStripes, YoVariableRegistry parentRegistry)
+   {
+      if (capacity < 1)
+         throw new RuntimeException("Cache capacity must be positive, was " + capacity);
+      if (numberOfStripes < 1 || Integer.bitCount(numberOfStripes) != 1 || numberOfStripes > capacity)
+         throw new RuntimeException("Number of stripes must be a power of two between 1 and the capacity, was " + numberOfStripes);
+
+      registry = new YoVariableRegistry(namePrefix + getClass().getSimpleName());
+      hits = new LongYoVariable(namePrefix + "SnapCacheHits", registry);
+      misses = new LongYoVariable(namePrefix + "SnapCacheMisses", registry);
+      invalidations = new LongYoVariable(namePrefix + "SnapCacheInvalidations", registry);
+      size = new IntegerYoVariable(namePrefix + "SnapCacheSize", registry);
+
+      this.capacity = capacity;
+      stripes = new Stripe[numberOfStripes];
+      stripeMask = numberOfStripes - 1;
+      for (int i = 0; i < numberOfStripes; i++)
+      {
+         int stripeCapacity = capacity / numberOfStripes + (i < capacity % numberOfStripes ? 1 : 0);
+         stripes[i] = new Stripe(stripeCapacity);
+      }
+
+      if (parentRegistry != null)
+         parentRegistry.addChild(registry);
+   }
+
+   /**
+    * Computes the key of the lattice cell that contains the given flat sole transform.
+    */
+   public static long computeCellKey(RigidBodyTransform soleTransformBeforeSnap, RobotSide robotSide)
+   {
+      double yaw = Math.atan2(soleTransformBeforeSnap.getM10(), soleTransformBeforeSnap.getM00());
+      return FootstepNodeKeyTools.packKey(soleTransformBeforeSnap.getM03(), soleTransformBeforeSnap.getM13(), yaw, robotSide);
+   }
+
+   /**
+    * Looks up the snap result for a foothold.
+    *
+    * @return the cached entry or null if the foothold was not snapped on this version of the
+    *         planar regions yet
+    */
+   public SnapCacheEntry get(PlanarRegionsList planarRegionsList, long cellKey, RigidBodyTransform soleTransformBeforeSnap)
+   {
+      return get(planarRegionsList, NO_SNAP_PARAMETERS, cellKey, soleTransformBeforeSnap);
+   }
+
+   /**
+    * Looks up the snap result for a foothold that was computed with the given snap parameters.
+    *
+    * @param snapParameters the values of all tunable parameters the snap depends on. If they differ
+    *           from the values of the previous call all entries are dropped.
+    * @return the cached entry or null if the foothold was not snapped on this version of the
+    *         planar regions with these parameters yet
+    */
+   public SnapCacheEntry get(PlanarRegionsList planarRegionsList, double[] snapParameters, long cellKey, RigidBodyTransform soleTransformBeforeSnap)
+   {
+      long generation = checkInputs(planarRegionsList, snapParameters);
+      return getStripe(cellKey).get(generation, cellKey, soleTransformBeforeSnap);
+   }
+
+   /**
+    * Stores the snap result for a foothold replacing any result stored for the same cell.
+    *
+    * @param snapTransform the result of the snap or null if the foothold could not be snapped.
+    * @param planarRegion the region the foothold was snapped to, can be null. It is stored by
+    *           reference and must not be modified afterwards.
+    */
+   public void put(PlanarRegionsList planarRegionsList, long cellKey, RigidBodyTransform soleTransformBeforeSnap, RigidBodyTransform snapTransform,
+                   PlanarRegion planarRegion)
+   {
+      put(planarRegionsList, NO_SNAP_PARAMETERS, cellKey, soleTransformBeforeSnap, snapTransform, planarRegion);
+   }
+
+   /**
+    * Stores the snap result for a foothold that was computed with the given snap parameters.
+    *
+    * @see #put(PlanarRegionsList, long, RigidBodyTransform, RigidBodyTransform, PlanarRegion)
+    */
+   public void put(PlanarRegionsList planarRegionsList, double[] snapParameters, long cellKey, RigidBodyTransform soleTransformBeforeSnap,
+                   RigidBodyTransform snapTransform, PlanarRegion planarRegion)
+   {
+      long generation = checkInputs(planarRegionsList, snapParameters);
+      SnapCacheEntry entry = new SnapCacheEntry(cellKey, soleTransformBeforeSnap, snapTransform, planarRegion);
+      getStripe(cellKey).put(generation, entry);
+      updateYoVariables();
+   }
+
+   public void clear()
+   {
+      for (Stripe stripe : stripes)
+         stripe.clear(-1);
+      updateYoVariables();
+   }
+
+   public int getCapacity()
+   {
+      return capacity;
+   }
+
+   public int getNumberOfStripes()
+   {
+      return stripes.length;
+   }
+
+   public long getNumberOfHits()
+   {
+      long numberOfHits = 0;
+      for (Stripe stripe : stripes)
+         numberOfHits += stripe.getNumberOfHits();
+      return numberOfHits;
+   }
+
+   public long getNumberOfMisses()
+   {
+      long numberOfMisses = 0;
+      for (Stripe stripe : stripes)
+         numberOfMisses += stripe.getNumberOfMisses();
+      return numberOfMisses;
+   }
+
+   public int getSize()
+   {
+      int numberOfEntries = 0;
+      for (Stripe stripe : stripes)
+         numberOfEntries += stripe.getSize();
+      return numberOfEntries;
+   }
+
+   /**
+    * Reads the counts of the stripes without their locks, so the YoVariables may lag behind the
+    * lookups of other threads until the next update.
+    */
+   private void updateYoVariables()
+   {
+      long numberOfHits = 0;
+      long numberOfMisses = 0;
+      int numberOfEntries = 0;
+      for (Stripe stripe : stripes)
+      {
+         numberOfHits += stripe.numberOfHits;
+         numberOfMisses += stripe.numberOfMisses;
+         numberOfEntries += stripe.numberOfEntries;
+      }
+
+      hits.set(numberOfHits);
+      misses.set(numberOfMisses);
+      size.set(numberOfEntries);
+   }
+
+   private Stripe getStripe(long cellKey)
+   {
+      return stripes[hash(cellKey) & stripeMask];
+   }
+
+   /**
+    * @return the generation of the entries that are valid for the given inputs
+    */
+   private long checkInputs(PlanarRegionsList planarRegionsList, double[] snapParameters)
+   {
+      CacheInputs inputs = this.inputs;
+      if (inputs.matches(planarRegionsList, snapParameters))
+         return inputs.generation;
+      return updateInputs(planarRegionsList, snapParameters);
+   }
+
+   /**
+    * Starts a new generation of entries for the given inputs. The stripes are cleared right away and
+    * drop entries of older generations that are put afterwards by threads that started with the
+    * previous inputs.
+    */
+   private synchronized long updateInputs(PlanarRegionsList planarRegionsList, double[] snapParameters)
+   {
+      CacheInputs inputs = this.inputs;
+      if (inputs.matches(planarRegionsList, snapParameters))
+         return inputs.generation;
+
+      if (getSize() > 0)
+         invalidations.increment();
+
+      long generation = inputs.generation + 1;
+      this.inputs = new CacheInputs(planarRegionsList, planarRegionsList.getVersion(), snapParameters.clone(), generation);
+      for (Stripe stripe : stripes)
+         stripe.clear(generation);
+      updateYoVariables();
+      return generation;
+   }
+
+   /**
+    * Finalizer of MurmurHash3, neighboring lattice cells only differ in a few bits of the key.
+    */
+   private static int hash(long key)
+   {
+      key ^= key >>> 33;
+      key *= 0xff51afd7ed558ccdL;
+      key ^= key >>> 33;
+      key *= 0xc4ceb9fe1a85ec53L;
+      key ^= key >>> 33;
+      return (int) key;
+   }
+
+   private static class CacheInputs
+   {
+      private final PlanarRegionsList planarRegionsList;
+      private final long planarRegionsListVersion;
+      private final double[] snapParameters;
+      private final long generation;
+
+      private CacheInputs(PlanarRegionsList planarRegionsList, long planarRegionsListVersion, double[] snapParameters, long generation)
+      {
+         this.planarRegionsList = planarRegionsList;
+         this.planarRegionsListVersion = planarRegionsListVersion;
+         this.snapParameters = snapParameters;
+         this.generation = generation;
+      }
+
+      private boolean matches(PlanarRegionsList planarRegionsList, double[] snapParameters)
+      {
+         return this.planarRegionsList == planarRegionsList && planarRegionsListVersion == planarRegionsList.getVersion()
+               && Arrays.equals(this.snapParameters, snapParameters);
+      }
+   }
+
+   /**
+    * Part of the cache with its own lock. The entries are kept in a map by cell key and in a doubly
+    * linked list from the most to the least recently used one.
+    */
+   private static class Stripe
+   {
+      private final int capacity;
+      private final TLongObjectHashMap<SnapCacheEntry> entries;
+      private SnapCacheEntry mostRecentlyUsed = null;
+      private SnapCacheEntry leastRecentlyUsed = null;
+
+      private long generation = 0;
+      private long numberOfHits = 0;
+      private long numberOfMisses = 0;
+      /** Same as the size of the map, but can be read without the lock of the stripe. */
+      private int numberOfEntries = 0;
+
+      private Stripe(int capacity)
+      {
+         this.capacity = capacity;
+         entries = new TLongObjectHashMap<>(Math.min(capacity, 1024));
+      }
+
+      private synchronized SnapCacheEntry get(long generation, long cellKey, RigidBodyTransform soleTransformBeforeSnap)
+      {
+         SnapCacheEntry entry = generation == this.generation ? entries.get(cellKey) : null;
+         if (entry == null || !entry.soleTransformBeforeSnap.epsilonEquals(soleTransformBeforeSnap, TRANSFORM_EPSILON))
+         {
+            numberOfMisses++;
+            return null;
+         }
+
+         unlink(entry);
+         linkAsMostRecentlyUsed(entry);
+         numberOfHits++;
+         return entry;
+      }
+
+      private synchronized void put(long generation, SnapCacheEntry entry)
+      {
+         if (generation < this.generation)
+            return;
+         if (generation > this.generation)
+            clear(generation);
+
+         SnapCacheEntry previousEntry = entries.put(entry.cellKey, entry);
+         if (previousEntry != null)
+            unlink(previousEntry);
+         linkAsMostRecentlyUsed(entry);
+
+         if (entries.size() > capacity)
+         {
+            SnapCacheEntry eldestEntry = leastRecentlyUsed;
+            unlink(eldestEntry);
+            entries.remove(eldestEntry.cellKey);
+         }
+         numberOfEntries = entries.size();
+      }
+
+      /**
+       * Removes all entries and moves on to the given generation, a negative generation keeps the current one.
+       */
+      private synchronized void clear(long generation)
+      {
+         entries.clear();
+         mostRecentlyUsed = null;
+         leastRecentlyUsed = null;
+         numberOfEntries = 0;
+         if (generation >= 0)
+            this.generation = generation;
+      }
+
+      private synchronized long getNumberOfHits()
+      {
+         return numberOfHits;
+      }
+
+      private synchronized long getNumberOfMisses()
+      {
+         return numberOfMisses;
+      }
+
+      private synchronized int getSize()
+      {
+         return entries.size();
+      }
+
+      private void linkAsMostRecentlyUsed(SnapCacheEntry entry)
+      {
+         entry.lessRecentlyUsed = mostRecentlyUsed;
+         entry.moreRecentlyUsed = null;
+         if (mostRecentlyUsed != null)
+            mostRecentlyUsed.moreRecentlyUsed = entry;
+         mostRecentlyUsed = entry;
+         if (leastRecentlyUsed == null)
+            leastRecentlyUsed = entry;
+      }
+
+      private void unlink(SnapCacheEntry entry)
+      {
+         if (entry.lessRecentlyUsed != null)
+            entry.lessRecentlyUsed.moreRecentlyUsed = entry.moreRecentlyUsed;
+         else
+            leastRecentlyUsed = entry.moreRecentlyUsed;
+
+         if (entry.moreRecentlyUsed != null)
+            entry.moreRecentlyUsed.lessRecentlyUsed = entry.lessRecentlyUsed;
+         else
+            mostRecentlyUsed = entry.lessRecentlyUsed;
+
+         entry.lessRecentlyUsed = null;
+         entry.moreRecentlyUsed = null;
+      }
+   }
+
+   public static class SnapCacheEntry
+   {
+      private final long cellKey;
+      private final RigidBodyTransform soleTransformBeforeSnap;
+      private final RigidBodyTransform snapTransform;
+      private final PlanarRegion planarRegion;
+
+      /** Links of the least recently used list of the stripe, only accessed with the lock of the stripe held. */
+      private SnapCacheEntry lessRecentlyUsed;
+      private SnapCacheEntry moreRecentlyUsed;
+
+      private SnapCacheEntry(long cellKey, RigidBodyTransform soleTransformBeforeSnap, RigidBodyTransform snapTransform, PlanarRegion planarRegion)
+      {
+         this.cellKey = cellKey;
+         this.soleTransformBeforeSnap = new RigidBodyTransform(soleTransformBeforeSnap);
+         this.snapTransform = snapTransform == null ? null : new RigidBodyTransform(snapTransform);
+         this.planarRegion = planarRegion;
+      }
+
+      /**
+       * @return whether the snap succeeded
+       */
+      public boolean isValid()
+      {
+         return snapTransform != null;
+      }
+
+      /**
+       * @return a copy of the snap transform or null if the snap failed
+       */
+      public RigidBodyTransform getSnapTransformCopy()
+      {
+         return snapTransform == null ? null : new RigidBodyTransform(snapTransform);
+      }
+
+      /**
+       * @return the planar region the foothold was snapped to or null. This is shared between all
+       *         users of the cache and must not be modified.
+       */
+      public PlanarRegion getPlanarRegion()
+      {
+         return planarRegion;
+      }
+   }
+}
@@ -0,0 +1,47 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListExamples;
+import us.ihmc.footstepPlanning.testTools.PlanningTestTools;
+import us.ihmc.robotics.geometry.FramePose;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+@ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
+public class AStarParallelExpansionTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 300000)
+   public void testParallelExpansionMatchesSerialPlan()
+   {
+      PlanarRegionsList stairCase = PlanarRegionsListExamples.generateStairCase();
+
+      FramePose initialStanceFootPose = new FramePose(ReferenceFrame.getWorldFrame());
+      FramePose goalPose = new FramePose(ReferenceFrame.getWorldFrame());
+      goalPose.setPosition(2.0, -0.2, 0.53);
+
+      AStarFootstepPlanner serialPlanner = ParallelExpansionBenchmark.createPlanner(1);
+      FootstepPlan serialPlan = PlanningTestTools.runPlanner(serialPlanner, initialStanceFootPose, RobotSide.LEFT, goalPose, stairCase);
+
+      AStarFootstepPlanner parallelPlanner = ParallelExpansionBenchmark.createPlanner(4);
+      FootstepPlan parallelPlan;
+      try
+      {
+         parallelPlan = PlanningTestTools.runPlanner(parallelPlanner, initialStanceFootPose, RobotSide.LEFT, goalPose, stairCase);
+      }
+      finally
+      {
+         parallelPlanner.close();
+      }
+
+      assertTrue(ParallelExpansionBenchmark.arePlansEqual(serialPlan, parallelPlan));
+   }
+}
@@ -0,0 +1,84 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.FootstepPlanner;
+import us.ihmc.footstepPlanning.FootstepPlannerGoal;
+import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListExamples;
+import us.ihmc.robotics.geometry.FramePose;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Compares planning times of the {@link AStarFootstepPlanner} that uses the object based
+ * {@link FootstepGraph} with the {@link PackedAStarFootstepPlanner} for increasing goal distances.
+ * Both planners use the same default checker, expansion, cost, and heuristics.
+ */
+public class FootstepGraphBenchmark
+{
+   private static final int WARMUP_RUNS = 5;
+   private static final int RUNS = 20;
+   private static final double[] GOAL_DISTANCES = new double[] {1.0, 2.0, 4.0, 8.0};
+
+   public static void main(String[] args)
+   {
+      PlanarRegionsList flatGround = PlanarRegionsListExamples.generateFlatGround(20.0, 20.0);
+
+      for (double goalDistance : GOAL_DISTANCES)
+      {
+         FootstepPlannerGoal goal = createGoal(goalDistance);
+
+         double objectGraphTime = benchmark(AStarFootstepPlanner.createDefaultPlanner(null), goal, flatGround);
+         PackedAStarFootstepPlanner packedPlanner = PackedAStarFootstepPlanner.createDefaultPlanner(null);
+         double packedGraphTime = benchmark(packedPlanner, goal, flatGround);
+
+         System.out.println("Goal at " + goalDistance + "m (" + packedPlanner.getNumberOfNodesInGraph() + " nodes):");
+         System.out.println("   FootstepGraph:       " + objectGraphTime + "s");
+         System.out.println("   PackedFootstepGraph: " + packedGraphTime + "s");
+      }
+   }
+
+   private static double benchmark(FootstepPlanner planner, FootstepPlannerGoal goal, PlanarRegionsList planarRegions)
+   {
+      FramePose initialStanceFootPose = new FramePose(ReferenceFrame.getWorldFrame());
+      initialStanceFootPose.setY(-AStarFootstepPlanner.DEFAULT_STEP_WIDTH / 2.0);
+
+      planner.setInitialStanceFoot(initialStanceFootPose, RobotSide.RIGHT);
+      planner.setGoal(goal);
+      planner.setPlanarRegions(planarRegions);
+
+      for (int i = 0; i < WARMUP_RUNS; i++)
+         planner.plan();
+
+      long totalTime = 0;
+      int steps = 0;
+      for (int i = 0; i < RUNS; i++)
+      {
+         long startTime = System.nanoTime();
+         FootstepPlanningResult result = planner.plan();
+         totalTime += System.nanoTime() - startTime;
+
+         if (!result.validForExecution())
+            throw new RuntimeException(planner.getClass().getSimpleName() + " failed: " + result);
+         FootstepPlan plan = planner.getPlan();
+         steps = plan.getNumberOfSteps();
+      }
+
+      System.out.println(planner.getClass().getSimpleName() + " found a plan with " + steps + " steps.");
+      return Conversions.nanosecondsToSeconds(totalTime / RUNS);
+   }
+
+   private static FootstepPlannerGoal createGoal(double distance)
+   {
+      FramePose goalPose = new FramePose(ReferenceFrame.getWorldFrame());
+      goalPose.setX(distance);
+
+      FootstepPlannerGoal goal = new FootstepPlannerGoal();
+      goal.setFootstepPlannerGoalType(FootstepPlannerGoalType.POSE_BETWEEN_FEET);
+      goal.setGoalPoseBetweenFeet(goalPose);
+      return goal;
+   }
+}
@@ -0,0 +1,73 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class IndexedFootstepNodeIdHeapTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPollOrderWithDecreaseKey()
+   {
+      Random random = new Random(7382L);
+
+      for (int arity = 2; arity <= 8; arity++)
+      {
+         int numberOfIds = 5000;
+         double[] priorities = new double[numberOfIds];
+         IndexedFootstepNodeIdHeap heap = new IndexedFootstepNodeIdHeap(arity, 1);
+
+         for (int id = 0; id < numberOfIds; id++)
+         {
+            priorities[id] = random.nextDouble();
+            assertTrue(heap.insertOrDecrease(id, priorities[id]));
+         }
+
+         for (int i = 0; i < numberOfIds; i++)
+         {
+            int id = random.nextInt(numberOfIds);
+            double newPriority = random.nextDouble();
+            boolean decreased = heap.insertOrDecrease(id, newPriority);
+            assertEquals(newPriority < priorities[id], decreased);
+            priorities[id] = Math.min(priorities[id], newPriority);
+            assertEquals(priorities[id], heap.getPriority(id), 0.0);
+         }
+
+         assertEquals(numberOfIds, heap.size());
+
+         double previousPriority = Double.NEGATIVE_INFINITY;
+         while (!heap.isEmpty())
+         {
+            int id = heap.poll();
+            assertFalse(heap.contains(id));
+            assertTrue(priorities[id] >= previousPriority);
+            previousPriority = priorities[id];
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testClear()
+   {
+      IndexedFootstepNodeIdHeap heap = new IndexedFootstepNodeIdHeap();
+      for (int id = 0; id < 10; id++)
+         heap.insertOrDecrease(id, id);
+
+      heap.clear();
+      assertTrue(heap.isEmpty());
+      for (int id = 0; id < 10; id++)
+         assertFalse(heap.contains(id));
+
+      heap.insertOrDecrease(3, 1.0);
+      assertEquals(3, heap.poll());
+      assertTrue(heap.isEmpty());
+   }
+}
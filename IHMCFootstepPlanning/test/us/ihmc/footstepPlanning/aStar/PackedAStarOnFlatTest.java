@@ -0,0 +1,86 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationTools;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.footstepPlanning.FootstepPlanner;
+import us.ihmc.footstepPlanning.flatGroundPlanning.FootstepPlannerOnFlatGroundTest;
+
+@ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
+public class PackedAStarOnFlatTest extends FootstepPlannerOnFlatGroundTest
+{
+   private static final boolean visualize = !ContinuousIntegrationTools.isRunningOnContinuousIntegrationServer();
+   private static final boolean visualizePlanner = false;
+   private PackedAStarFootstepPlanner planner;
+   private FootstepNodeVisualization visualization = null;
+
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 300000)
+   public void testJustStraightLine()
+   {
+      super.testJustStraightLine(true);
+   }
+
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 300000)
+   public void testATightTurn()
+   {
+      super.testATightTurn(true);
+   }
+
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 300000)
+   public void testStraightLineWithInitialTurn()
+   {
+      super.testStraightLineWithInitialTurn(true);
+   }
+
+   @Override
+   @ContinuousIntegrationAnnotations.ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 300000)
+   public void testJustTurnInPlace()
+   {
+      super.testJustTurnInPlace(true);
+   }
+
+   @Before
+   public void createPlanner()
+   {
+      if (visualizePlanner)
+         visualization = new FootstepNodeVisualization(1000, 1.0, null);
+      planner = PackedAStarFootstepPlanner.createDefaultPlanner(visualization);
+   }
+
+   @After
+   public void destroyPlanner()
+   {
+      planner = null;
+
+      if (visualizePlanner)
+      {
+         for (int i = 0; i < 1000; i++)
+            visualization.tickAndUpdate();
+         visualization.showAndSleep(true);
+      }
+   }
+
+   @Override
+   public FootstepPlanner getPlanner()
+   {
+      return planner;
+   }
+
+   @Override
+   public boolean visualize()
+   {
+      return visualize;
+   }
+
+}
@@ -0,0 +1,102 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+public class PackedFootstepGraphTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPackingAndUnpackingKeys()
+   {
+      Random random = new Random(4291L);
+      FootstepNodeFlyweight flyweight = new FootstepNodeFlyweight();
+
+      for (int i = 0; i < 10000; i++)
+      {
+         double x = 1000.0 * (2.0 * random.nextDouble() - 1.0);
+         double y = 1000.0 * (2.0 * random.nextDouble() - 1.0);
+         double yaw = 4.0 * Math.PI * (2.0 * random.nextDouble() - 1.0);
+         RobotSide side = RobotSide.generateRandomRobotSide(random);
+
+         FootstepNode node = new FootstepNode(x, y, yaw, side);
+         long key = node.getPackedKey();
+
+         assertEquals(key, FootstepNodeKeyTools.packKey(x, y, yaw, side));
+         assertTrue(key != FootstepNodeKeyTools.NO_NODE);
+         assertEquals(node.getXIndex(), FootstepNodeKeyTools.unpackXIndex(key));
+         assertEquals(node.getYIndex(), FootstepNodeKeyTools.unpackYIndex(key));
+         assertEquals(node.getYawIndex(), FootstepNodeKeyTools.unpackYawIndex(key));
+         assertEquals(side, FootstepNodeKeyTools.unpackRobotSide(key));
+         assertEquals(node, new FootstepNode(key));
+
+         flyweight.setPackedKey(key);
+         assertEquals(node, flyweight);
+         assertEquals(flyweight, node);
+         assertEquals(node.hashCode(), flyweight.hashCode());
+         assertEquals(key, flyweight.getPackedKey());
+         assertEquals(node.getX(), flyweight.getX(), 1.0e-10);
+         assertEquals(node.getY(), flyweight.getY(), 1.0e-10);
+         assertEquals(node.getYaw(), flyweight.getYaw(), 1.0e-10);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testGraphCostsAndPaths()
+   {
+      long startKey = FootstepNodeKeyTools.packKey(0, 0, 0, RobotSide.LEFT);
+      long nodeAKey = FootstepNodeKeyTools.packKey(1, 0, 0, RobotSide.RIGHT);
+      long nodeBKey = FootstepNodeKeyTools.packKey(2, -1, 1, RobotSide.LEFT);
+
+      PackedFootstepGraph graph = new PackedFootstepGraph(4);
+      int startId = graph.initialize(startKey);
+      assertEquals(0.0, graph.getCostFromStart(startId), 1.0e-10);
+
+      int nodeBId = graph.checkAndSetEdge(startId, nodeBKey, 5.0);
+      int nodeAId = graph.checkAndSetEdge(startId, nodeAKey, 1.0);
+      assertEquals(5.0, graph.getCostFromStart(nodeBId), 1.0e-10);
+
+      assertEquals(nodeBId, graph.checkAndSetEdge(nodeAId, nodeBKey, 2.0));
+      assertEquals(3.0, graph.getCostFromStart(nodeBId), 1.0e-10);
+      assertEquals(PackedFootstepGraph.NO_ID, graph.checkAndSetEdge(startId, nodeBKey, 4.0));
+
+      List<FootstepNode> path = graph.getPathFromStart(nodeBId);
+      assertEquals(3, path.size());
+      assertEquals(new FootstepNode(startKey), path.get(0));
+      assertEquals(new FootstepNode(nodeAKey), path.get(1));
+      assertEquals(new FootstepNode(nodeBKey), path.get(2));
+
+      // grow the graph well past its initial capacity
+      int parentId = nodeBId;
+      for (int i = 0; i < 10000; i++)
+      {
+         long key = FootstepNodeKeyTools.packKey(i, i % 7, i % 36 - 18, RobotSide.values[i % 2]);
+         if (graph.doesNodeExist(key))
+            continue;
+         parentId = graph.checkAndSetEdge(parentId, key, 1.0);
+         assertEquals(key, graph.getNodeKey(parentId));
+         assertEquals(parentId, graph.getNodeId(key));
+      }
+      List<FootstepNode> longPath = graph.getPathFromStart(parentId);
+      assertEquals(new FootstepNode(graph.getNodeKey(parentId)), longPath.get(longPath.size() - 1));
+
+      assertEquals(nodeBId, graph.getNodeId(nodeBKey));
+      assertFalse(graph.isClosed(nodeBId));
+      graph.setClosed(nodeBId);
+      assertTrue(graph.isClosed(nodeBId));
+
+      graph.initialize(startKey);
+      assertEquals(1, graph.getNumberOfNodes());
+      assertFalse(graph.doesNodeExist(nodeBKey));
+   }
+}
@@ -0,0 +1,147 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.footstepPlanning.FootstepPlan;
+import us.ihmc.footstepPlanning.FootstepPlannerGoal;
+import us.ihmc.footstepPlanning.FootstepPlannerGoalType;
+import us.ihmc.footstepPlanning.FootstepPlanningResult;
+import us.ihmc.footstepPlanning.aStar.implementations.DistanceAndYawBasedCost;
+import us.ihmc.footstepPlanning.aStar.implementations.DistanceAndYawBasedHeuristics;
+import us.ihmc.footstepPlanning.aStar.implementations.SimpleSideBasedExpansion;
+import us.ihmc.footstepPlanning.aStar.implementations.SnapBasedNodeChecker;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListExamples;
+import us.ihmc.footstepPlanning.testTools.PlanningTestTools;
+import us.ihmc.robotics.geometry.FramePose;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+/**
+ * Plans over a cinder block field with the snap based node checker using one up to the number of
+ * available cores for the neighbor evaluation of the {@link AStarFootstepPlanner}. Prints the
+ * speedup over the serial expansion and checks that every plan is identical to the serial one.
+ *
+ * Every thread count is run without and with a {@link PlanarRegionSnapCache} that is shared by the
+ * expansion threads and cleared before each plan, so the cache lookups are part of the measured
+ * parallel work.
+ */
+public class ParallelExpansionBenchmark
+{
+   private static final int WARMUP_RUNS = 2;
+   private static final int RUNS = 5;
+
+   public static void main(String[] args)
+   {
+      PlanarRegionsList cinderBlockField = PlanarRegionsListExamples.generateCinderBlockField(0.0, 0.0, 0.4, 0.15, 11, 6, 0.1);
+
+      FramePose initialStanceFootPose = new FramePose(ReferenceFrame.getWorldFrame());
+      initialStanceFootPose.setPosition(0.0, -0.7, 0.0);
+      FramePose goalPose = new FramePose(ReferenceFrame.getWorldFrame());
+      goalPose.setPosition(4.0, 0.0, 0.0);
+
+      FootstepPlannerGoal goal = new FootstepPlannerGoal();
+      goal.setFootstepPlannerGoalType(FootstepPlannerGoalType.POSE_BETWEEN_FEET);
+      goal.setGoalPoseBetweenFeet(goalPose);
+
+      for (boolean useSnapCache : new boolean[] {false, true})
+      {
+         System.out.println(useSnapCache ? "With shared snap cache:" : "Without snap cache:");
+         runWithAllThreadCounts(cinderBlockField, initialStanceFootPose, goal, useSnapCache);
+      }
+   }
+
+   private static void runWithAllThreadCounts(PlanarRegionsList cinderBlockField, FramePose initialStanceFootPose, FootstepPlannerGoal goal,
+                                              boolean useSnapCache)
+   {
+      int numberOfCores = Runtime.getRuntime().availableProcessors();
+      FootstepPlan serialPlan = null;
+      double serialTime = Double.NaN;
+
+      for (int numberOfThreads = 1; numberOfThreads <= numberOfCores; numberOfThreads++)
+      {
+         PlanarRegionSnapCache snapCache = useSnapCache ? new PlanarRegionSnapCache("benchmark", null) : null;
+         AStarFootstepPlanner planner = createPlanner(numberOfThreads, snapCache);
+         planner.setInitialStanceFoot(initialStanceFootPose, RobotSide.RIGHT);
+         planner.setGoal(goal);
+         planner.setPlanarRegions(cinderBlockField);
+
+         long totalTime = 0;
+         FootstepPlan plan = null;
+         try
+         {
+            for (int i = 0; i < WARMUP_RUNS; i++)
+            {
+               clear(snapCache);
+               planner.plan();
+            }
+
+            for (int i = 0; i < RUNS; i++)
+            {
+               clear(snapCache);
+               long startTime = System.nanoTime();
+               FootstepPlanningResult result = planner.plan();
+               totalTime += System.nanoTime() - startTime;
+               if (!result.validForExecution())
+                  throw new RuntimeException("Planning with " + numberOfThreads + " threads failed: " + result);
+               plan = planner.getPlan();
+            }
+         }
+         finally
+         {
+            planner.close();
+         }
+
+         double averageTime = Conversions.nanosecondsToSeconds(totalTime / RUNS);
+         if (numberOfThreads == 1)
+         {
+            serialPlan = plan;
+            serialTime = averageTime;
+         }
+         else if (!arePlansEqual(serialPlan, plan))
+         {
+            throw new RuntimeException("Plan with " + numberOfThreads + " threads differs from the serial plan.");
+         }
+
+         System.out.println(numberOfThreads + " of " + numberOfCores + " cores: " + averageTime + "s, speedup " + serialTime / averageTime);
+      }
+   }
+
+   private static void clear(PlanarRegionSnapCache snapCache)
+   {
+      if (snapCache != null)
+         snapCache.clear();
+   }
+
+   public static AStarFootstepPlanner createPlanner(int numberOfExpansionThreads)
+   {
+      return createPlanner(numberOfExpansionThreads, null);
+   }
+
+   public static AStarFootstepPlanner createPlanner(int numberOfExpansionThreads, PlanarRegionSnapCache snapCache)
+   {
+      SnapBasedNodeChecker nodeChecker = new SnapBasedNodeChecker(PlanningTestTools.createDefaultFootPolygons(), snapCache);
+      SimpleSideBasedExpansion expansion = new SimpleSideBasedExpansion();
+      DistanceAndYawBasedHeuristics heuristics = new DistanceAndYawBasedHeuristics(AStarFootstepPlanner.DEFAULT_YAW_WEIGHT);
+      DistanceAndYawBasedCost stepCostCalculator = new DistanceAndYawBasedCost(AStarFootstepPlanner.DEFAULT_COST_PER_STEP,
+                                                                               AStarFootstepPlanner.DEFAULT_YAW_WEIGHT);
+
+      AStarFootstepPlanner planner = new AStarFootstepPlanner(nodeChecker, heuristics, expansion, stepCostCalculator);
+      planner.setNumberOfExpansionThreads(numberOfExpansionThreads);
+      return planner;
+   }
+
+   public static boolean arePlansEqual(FootstepPlan planA, FootstepPlan planB)
+   {
+      if (planA.getNumberOfSteps() != planB.getNumberOfSteps())
+         return false;
+
+      for (int i = 0; i < planA.getNumberOfSteps(); i++)
+      {
+         if (!planA.getFootstep(i).epsilonEquals(planB.getFootstep(i), 1.0e-10))
+            return false;
+      }
+
+      return true;
+   }
+}
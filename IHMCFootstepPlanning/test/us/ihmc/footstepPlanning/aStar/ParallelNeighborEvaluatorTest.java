@@ -0,0 +1,138 @@
+package us.ihmc.footstepPlanning.aStar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.footstepPlanning.aStar.implementations.DistanceAndYawBasedCost;
+import us.ihmc.footstepPlanning.aStar.implementations.SimpleSideBasedExpansion;
+import us.ihmc.footstepPlanning.aStar.implementations.SnapBasedNodeChecker;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionsListExamples;
+import us.ihmc.footstepPlanning.testTools.PlanningTestTools;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+@ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
+public class ParallelNeighborEvaluatorTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testNeighborsAreEvaluatedConcurrently()
+   {
+      int numberOfThreads = 4;
+      ParallelNeighborEvaluator evaluator = new ParallelNeighborEvaluator(numberOfThreads);
+
+      // Every check waits until as many checks as there are threads have started, which only happens if they run at the same time.
+      CountDownLatch startedChecks = new CountDownLatch(numberOfThreads);
+      AtomicInteger numberOfRunningChecks = new AtomicInteger();
+      AtomicInteger maximumNumberOfRunningChecks = new AtomicInteger();
+      FootstepNodeChecker blockingChecker = new FootstepNodeChecker()
+      {
+         @Override
+         public void setPlanarRegions(PlanarRegionsList planarRegions)
+         {
+         }
+
+         @Override
+         public boolean isNodeValid(FootstepNode node)
+         {
+            int runningChecks = numberOfRunningChecks.incrementAndGet();
+            maximumNumberOfRunningChecks.accumulateAndGet(runningChecks, Math::max);
+            startedChecks.countDown();
+            try
+            {
+               return startedChecks.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+               throw new RuntimeException(e);
+            }
+            finally
+            {
+               numberOfRunningChecks.decrementAndGet();
+            }
+         }
+      };
+
+      FootstepNode nodeToExpand = new FootstepNode(0.0, 0.0, 0.0, RobotSide.LEFT);
+      HashSet<FootstepNode> neighbors = new SimpleSideBasedExpansion().expandNode(nodeToExpand);
+      assertTrue(neighbors.size() >= 2 * numberOfThreads);
+
+      try
+      {
+         evaluator.evaluate(nodeToExpand, neighbors, blockingChecker, (startNode, endNode) -> 1.0);
+      }
+      finally
+      {
+         evaluator.shutdown();
+      }
+
+      assertEquals(numberOfThreads, maximumNumberOfRunningChecks.get());
+      for (int i = 0; i < evaluator.getNumberOfNeighbors(); i++)
+         assertTrue(evaluator.isNeighborValid(i));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testConcurrentSnappingWithSharedCacheMatchesSerial()
+   {
+      PlanarRegionsList cinderBlockField = PlanarRegionsListExamples.generateCinderBlockField(0.0, 0.0, 0.4, 0.15, 11, 6, 0.1);
+      SimpleSideBasedExpansion expansion = new SimpleSideBasedExpansion();
+      DistanceAndYawBasedCost stepCostCalculator = new DistanceAndYawBasedCost(AStarFootstepPlanner.DEFAULT_COST_PER_STEP,
+                                                                               AStarFootstepPlanner.DEFAULT_YAW_WEIGHT);
+
+      SnapBasedNodeChecker serialChecker = new SnapBasedNodeChecker(PlanningTestTools.createDefaultFootPolygons());
+      serialChecker.setPlanarRegions(cinderBlockField);
+      PlanarRegionSnapCache snapCache = new PlanarRegionSnapCache("test", new YoVariableRegistry("root"));
+      SnapBasedNodeChecker parallelChecker = new SnapBasedNodeChecker(PlanningTestTools.createDefaultFootPolygons(), snapCache);
+      parallelChecker.setPlanarRegions(cinderBlockField);
+
+      ParallelNeighborEvaluator evaluator = new ParallelNeighborEvaluator(4);
+      try
+      {
+         // Expanding every node twice makes the second pass hit the cache from several threads.
+         for (int pass = 0; pass < 2; pass++)
+         {
+            for (double x = 0.0; x < 4.0; x += 0.3)
+            {
+               for (RobotSide robotSide : RobotSide.values)
+               {
+                  FootstepNode nodeToExpand = new FootstepNode(x, robotSide.negateIfRightSide(0.15), 0.0, robotSide);
+                  List<FootstepNode> neighbors = new ArrayList<>(expansion.expandNode(nodeToExpand));
+                  evaluator.evaluate(nodeToExpand, neighbors, parallelChecker, stepCostCalculator);
+
+                  assertEquals(neighbors.size(), evaluator.getNumberOfNeighbors());
+                  for (int i = 0; i < neighbors.size(); i++)
+                  {
+                     FootstepNode neighbor = neighbors.get(i);
+                     assertEquals(neighbor, evaluator.getNeighbor(i));
+                     boolean isValid = serialChecker.isNodeValid(neighbor);
+                     assertEquals(isValid, evaluator.isNeighborValid(i));
+                     if (isValid)
+                        assertEquals(stepCostCalculator.compute(nodeToExpand, neighbor), evaluator.getCost(i), 1.0e-10);
+                  }
+               }
+            }
+         }
+      }
+      finally
+      {
+         evaluator.shutdown();
+      }
+
+      assertTrue(snapCache.getNumberOfHits() > 0);
+   }
+}
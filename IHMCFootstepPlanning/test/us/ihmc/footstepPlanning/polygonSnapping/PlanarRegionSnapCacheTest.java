@@ -0,0 +1,193 @@
+package us.ihmc.footstepPlanning.polygonSnapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.footstepPlanning.polygonSnapping.PlanarRegionSnapCache.SnapCacheEntry;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.PlanarRegion;
+import us.ihmc.robotics.geometry.PlanarRegionsList;
+import us.ihmc.robotics.robotSide.RobotSide;
+
+public class PlanarRegionSnapCacheTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testHitsMissesAndEviction()
+   {
+      PlanarRegionsList planarRegions = PlanarRegionsListExamples.generateFlatGround(2.0, 2.0);
+      PlanarRegionSnapCache cache = new PlanarRegionSnapCache("test", 2, new YoVariableRegistry("root"));
+
+      RigidBodyTransform[] soleTransforms = new RigidBodyTransform[3];
+      long[] keys = new long[3];
+      for (int i = 0; i < 3; i++)
+      {
+         soleTransforms[i] = new RigidBodyTransform();
+         soleTransforms[i].setTranslation(0.5 * i, 0.0, 0.0);
+         keys[i] = PlanarRegionSnapCache.computeCellKey(soleTransforms[i], RobotSide.LEFT);
+      }
+
+      assertNull(cache.get(planarRegions, keys[0], soleTransforms[0]));
+      cache.put(planarRegions, keys[0], soleTransforms[0], new RigidBodyTransform(), null);
+      cache.put(planarRegions, keys[1], soleTransforms[1], null, null);
+
+      assertTrue(cache.get(planarRegions, keys[0], soleTransforms[0]).isValid());
+      assertFalse(cache.get(planarRegions, keys[1], soleTransforms[1]).isValid());
+
+      // a different pose in the same cell is a miss
+      RigidBodyTransform shiftedTransform = new RigidBodyTransform(soleTransforms[0]);
+      shiftedTransform.setTranslation(0.001, 0.0, 0.0);
+      assertEquals(keys[0], PlanarRegionSnapCache.computeCellKey(shiftedTransform, RobotSide.LEFT));
+      assertNull(cache.get(planarRegions, keys[0], shiftedTransform));
+
+      // the least recently used entry is evicted
+      cache.get(planarRegions, keys[0], soleTransforms[0]);
+      cache.put(planarRegions, keys[2], soleTransforms[2], new RigidBodyTransform(), null);
+      assertNotNull(cache.get(planarRegions, keys[0], soleTransforms[0]));
+      assertNull(cache.get(planarRegions, keys[1], soleTransforms[1]));
+
+      assertEquals(4, cache.getNumberOfHits());
+      assertEquals(3, cache.getNumberOfMisses());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testInvalidationOnPlanarRegionsChange()
+   {
+      PlanarRegionsList planarRegions = PlanarRegionsListExamples.generateFlatGround(2.0, 2.0);
+      PlanarRegionSnapCache cache = new PlanarRegionSnapCache("test", new YoVariableRegistry("root"));
+
+      RigidBodyTransform soleTransform = new RigidBodyTransform();
+      long key = PlanarRegionSnapCache.computeCellKey(soleTransform, RobotSide.RIGHT);
+
+      cache.put(planarRegions, key, soleTransform, new RigidBodyTransform(), null);
+      assertNotNull(cache.get(planarRegions, key, soleTransform));
+
+      planarRegions.addPlanarRegion(new PlanarRegion());
+      assertNull(cache.get(planarRegions, key, soleTransform));
+
+      cache.put(planarRegions, key, soleTransform, new RigidBodyTransform(), null);
+      assertNull(cache.get(planarRegions.copy(), key, soleTransform));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testInvalidationOnSnapParametersChange()
+   {
+      PlanarRegionsList planarRegions = PlanarRegionsListExamples.generateFlatGround(2.0, 2.0);
+      PlanarRegionSnapCache cache = new PlanarRegionSnapCache("test", new YoVariableRegistry("root"));
+
+      RigidBodyTransform soleTransform = new RigidBodyTransform();
+      long key = PlanarRegionSnapCache.computeCellKey(soleTransform, RobotSide.LEFT);
+      double[] snapParameters = {0.02, 0.7, 1.0};
+
+      cache.put(planarRegions, snapParameters, key, soleTransform, new RigidBodyTransform(), null);
+      assertNotNull(cache.get(planarRegions, snapParameters, key, soleTransform));
+      assertNotNull(cache.get(planarRegions, snapParameters.clone(), key, soleTransform));
+
+      // the cache keeps its own copy of the parameters
+      snapParameters[1] = 0.8;
+      assertNull(cache.get(planarRegions, snapParameters, key, soleTransform));
+
+      cache.put(planarRegions, snapParameters, key, soleTransform, new RigidBodyTransform(), null);
+      assertNotNull(cache.get(planarRegions, snapParameters, key, soleTransform));
+      assertNull(cache.get(planarRegions, key, soleTransform));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testStripedEviction()
+   {
+      PlanarRegionsList planarRegions = PlanarRegionsListExamples.generateFlatGround(2.0, 2.0);
+      PlanarRegionSnapCache cache = new PlanarRegionSnapCache("test", 256, 4, new YoVariableRegistry("root"));
+      assertEquals(4, cache.getNumberOfStripes());
+
+      RigidBodyTransform soleTransform = new RigidBodyTransform();
+      for (int i = 0; i < 1000; i++)
+      {
+         soleTransform.setTranslation(0.05 * i, 0.0, 0.0);
+         long key = PlanarRegionSnapCache.computeCellKey(soleTransform, RobotSide.LEFT);
+         cache.put(planarRegions, key, soleTransform, new RigidBodyTransform(), null);
+         assertNotNull(cache.get(planarRegions, key, soleTransform));
+         assertTrue(cache.getSize() <= 256);
+      }
+
+      // the stripes are filled evenly enough by the hash of the keys
+      assertTrue(cache.getSize() > 200);
+
+      // the capacity is shared between the stripes by default
+      assertEquals(1, new PlanarRegionSnapCache("small", 100, null).getNumberOfStripes());
+      assertEquals(64, new PlanarRegionSnapCache("default", null).getNumberOfStripes());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testConcurrentLookups() throws Exception
+   {
+      int numberOfThreads = 8;
+      int numberOfKeysPerThread = 2000;
+      PlanarRegionsList planarRegions = PlanarRegionsListExamples.generateFlatGround(2.0, 2.0);
+      PlanarRegionSnapCache cache = new PlanarRegionSnapCache("test", new YoVariableRegistry("root"));
+
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+      try
+      {
+         CountDownLatch startLatch = new CountDownLatch(1);
+         List<Future<?>> futures = new ArrayList<>();
+         for (int threadIndex = 0; threadIndex < numberOfThreads; threadIndex++)
+         {
+            double y = 0.05 * threadIndex;
+            futures.add(executor.submit(() ->
+            {
+               startLatch.await();
+               RigidBodyTransform soleTransform = new RigidBodyTransform();
+               RigidBodyTransform snapTransform = new RigidBodyTransform();
+               for (int i = 0; i < numberOfKeysPerThread; i++)
+               {
+                  soleTransform.setTranslation(0.05 * i, y, 0.0);
+                  snapTransform.setTranslation(0.0, 0.0, i);
+                  long key = PlanarRegionSnapCache.computeCellKey(soleTransform, RobotSide.RIGHT);
+                  assertNull(cache.get(planarRegions, key, soleTransform));
+                  cache.put(planarRegions, key, soleTransform, snapTransform, null);
+               }
+
+               for (int i = 0; i < numberOfKeysPerThread; i++)
+               {
+                  soleTransform.setTranslation(0.05 * i, y, 0.0);
+                  long key = PlanarRegionSnapCache.computeCellKey(soleTransform, RobotSide.RIGHT);
+                  SnapCacheEntry entry = cache.get(planarRegions, key, soleTransform);
+                  assertNotNull(entry);
+                  assertEquals(i, entry.getSnapTransformCopy().getTranslationZ(), 1.0e-10);
+               }
+               return null;
+            }));
+         }
+
+         startLatch.countDown();
+         for (Future<?> future : futures)
+            future.get();
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+
+      assertEquals(numberOfThreads * numberOfKeysPerThread, cache.getSize());
+      assertEquals(numberOfThreads * numberOfKeysPerThread, cache.getNumberOfHits());
+      assertEquals(numberOfThreads * numberOfKeysPerThread, cache.getNumberOfMisses());
+   }
+}
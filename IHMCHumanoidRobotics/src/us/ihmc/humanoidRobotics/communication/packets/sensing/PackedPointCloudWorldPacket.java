@@ -0,0 +1,139 @@
+package us.ihmc.humanoidRobotics.communication.packets.sensing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import us.ihmc.communication.packets.HighBandwidthPacket;
+import us.ihmc.communication.packets.Packet;
+import us.ihmc.communication.packets.PacketDestination;
+import us.ihmc.euclid.tuple3D.interfaces.Tuple3DBasics;
+
+/**
+ * Same content as the {@link PointCloudWorldPacket}, but every point is sent as three shorts: the
+ * index of its cell in a grid of size {@link #resolution} around the origin. That is half the
+ * size of the float coordinates.
+ *
+ * A packet either has the complete cloud, or only the points that were added to and removed from
+ * the cloud of the packet with sequence number {@link #referenceSequenceNumber}. Deltas keep the
+ * origin and the resolution of the complete cloud they are based on.
+ *
+ * Use the {@link PointCloudPacker} to create these packets and the {@link PointCloudUnpacker} to get
+ * the points back.
+ */
+@HighBandwidthPacket
+public class PackedPointCloudWorldPacket extends Packet<PackedPointCloudWorldPacket>
+{
+   public static final int NO_REFERENCE = -1;
+
+   public long timestamp;
+   public float defaultGroundHeight;
+
+   public int sequenceNumber;
+   /** Sequence number of the cloud this packet is a delta of, or NO_REFERENCE if the packet has the complete cloud */
+   public int referenceSequenceNumber = NO_REFERENCE;
+
+   public float originX;
+   public float originY;
+   public float originZ;
+   public float resolution;
+
+   /** x, y and z cell index of each point */
+   public short[] groundQuadTreeSupport;
+   public short[] removedGroundQuadTreeSupport;
+   public short[] decayingWorldScan;
+   public short[] removedDecayingWorldScan;
+
+   public PackedPointCloudWorldPacket(Random random)
+   {
+      setUniqueId(VALID_MESSAGE_DEFAULT_ID);
+      timestamp = random.nextLong();
+      defaultGroundHeight = random.nextFloat();
+      sequenceNumber = Math.abs(random.nextInt());
+      referenceSequenceNumber = random.nextBoolean() ? NO_REFERENCE : Math.abs(random.nextInt());
+      originX = random.nextFloat();
+      originY = random.nextFloat();
+      originZ = random.nextFloat();
+      resolution = 0.001f + random.nextFloat();
+
+      groundQuadTreeSupport = nextPackedPoints(random);
+      removedGroundQuadTreeSupport = nextPackedPoints(random);
+      decayingWorldScan = nextPackedPoints(random);
+      removedDecayingWorldScan = nextPackedPoints(random);
+   }
+
+   private static short[] nextPackedPoints(Random random)
+   {
+      short[] packedPoints = new short[3 * random.nextInt(10000)];
+      for (int i = 0; i < packedPoints.length; i++)
+      {
+         packedPoints[i] = (short) random.nextInt();
+      }
+      return packedPoints;
+   }
+
+   public PackedPointCloudWorldPacket()
+   {
+      setUniqueId(VALID_MESSAGE_DEFAULT_ID);
+      setDestination(PacketDestination.BROADCAST);
+   }
+
+   public boolean isCompleteCloud()
+   {
+      return referenceSequenceNumber == NO_REFERENCE;
+   }
+
+   public static int getNumberOfPoints(short[] packedPoints)
+   {
+      return packedPoints == null ? 0 : packedPoints.length / 3;
+   }
+
+   /**
+    * Computes the position of one of the points of this packet.
+    *
+    * @param packedPoints one of the point arrays of this packet
+    */
+   public void getPoint(short[] packedPoints, int index, Tuple3DBasics pointToPack)
+   {
+      pointToPack.setX(originX + resolution * packedPoints[3 * index]);
+      pointToPack.setY(originY + resolution * packedPoints[3 * index + 1]);
+      pointToPack.setZ(originZ + resolution * packedPoints[3 * index + 2]);
+   }
+
+   public long getTimestamp()
+   {
+      return timestamp;
+   }
+
+   public void setTimestamp(long timestamp)
+   {
+      this.timestamp = timestamp;
+   }
+
+   @Override
+   public boolean epsilonEquals(PackedPointCloudWorldPacket other, double epsilon)
+   {
+      boolean ret = timestamp == other.timestamp;
+      ret &= Math.abs(defaultGroundHeight - other.defaultGroundHeight) <= epsilon;
+      ret &= sequenceNumber == other.sequenceNumber;
+      ret &= referenceSequenceNumber == other.referenceSequenceNumber;
+      ret &= Math.abs(originX - other.originX) <= epsilon;
+      ret &= Math.abs(originY - other.originY) <= epsilon;
+      ret &= Math.abs(originZ - other.originZ) <= epsilon;
+      ret &= Math.abs(resolution - other.resolution) <= epsilon;
+      ret &= Arrays.equals(groundQuadTreeSupport, other.groundQuadTreeSupport);
+      ret &= Arrays.equals(removedGroundQuadTreeSupport, other.removedGroundQuadTreeSupport);
+      ret &= Arrays.equals(decayingWorldScan, other.decayingWorldScan);
+      ret &= Arrays.equals(removedDecayingWorldScan, other.removedDecayingWorldScan);
+
+      return ret;
+   }
+
+   @Override
+   public String toString()
+   {
+      return getClass().getSimpleName() + " [timestamp=" + timestamp + ", sequenceNumber=" + sequenceNumber + ", referenceSequenceNumber="
+            + referenceSequenceNumber + ", groundQuadTreeSupport=" + getNumberOfPoints(groundQuadTreeSupport) + " points (" + getNumberOfPoints(removedGroundQuadTreeSupport)
+            + " removed), decayingWorldScan=" + getNumberOfPoints(decayingWorldScan) + " points (" + getNumberOfPoints(removedDecayingWorldScan)
+            + " removed), resolution=" + resolution + ", defaultGroundHeight=" + defaultGroundHeight + "]";
+   }
+}
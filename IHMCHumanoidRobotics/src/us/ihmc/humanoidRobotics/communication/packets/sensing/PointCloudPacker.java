@@ -0,0 +1,308 @@
+package us.ihmc.humanoidRobotics.communication.packets.sensing;
+
+import java.util.List;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
+
+/**
+ * Packs the ground points and the decaying world scan into {@link PackedPointCloudWorldPacket}s.
+ *
+ * The points are put in a grid of cells of size resolution and every occupied cell is sent once, at
+ * its center. With the default resolution this only removes points that are closer to each other
+ * than the sensor can tell apart. A downsampling voxel size makes the grid coarser, so dense clouds
+ * get smaller.
+ *
+ * With delta encoding, a packet only has the cells that were added and removed since the previous
+ * packet. A complete cloud is sent every keyframeInterval packets, when the delta is not smaller than
+ * the cloud, and when a point does not fit in the grid of the last complete cloud. So receivers that
+ * connect late or missed a packet get the cloud back after at most keyframeInterval packets. Delta
+ * encoding relies on every packet being delivered in order, call {@link #reset()} when the receivers
+ * change.
+ *
+ * Apart from the point arrays of the packet, packing does not allocate once the buffers have grown
+ * to the size of the cloud.
+ */
+public class PointCloudPacker
+{
+   public static final double DEFAULT_RESOLUTION = 0.002;
+   public static final int DEFAULT_KEYFRAME_INTERVAL = 10;
+
+   // Leaves some room for rounding
+   private static final int MAXIMUM_CELL_INDEX = Short.MAX_VALUE - 1;
+
+   private double resolution = DEFAULT_RESOLUTION;
+   private double downsamplingVoxelSize = 0.0;
+   private boolean useDeltaEncoding = true;
+   private int keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+
+   private final CellSet groundCells = new CellSet();
+   private final CellSet decayingWorldScanCells = new CellSet();
+
+   private int sequenceNumber = 0;
+   private int packetsSinceCompleteCloud = 0;
+   private boolean sendCompleteCloud = true;
+
+   private double originX, originY, originZ;
+   private double cellSize;
+   private double minX, minY, minZ, maxX, maxY, maxZ;
+
+   /**
+    * @param resolution size of the cells the points are rounded to. Together with the extent of the
+    *           cloud this limits how far points can be from the origin, a cloud that is larger than
+    *           about 65000 cells is sent with coarser cells.
+    */
+   public synchronized void setResolution(double resolution)
+   {
+      this.resolution = resolution;
+      sendCompleteCloud = true;
+   }
+
+   /**
+    * @param downsamplingVoxelSize size of the voxels the cloud is downsampled to, only one point per
+    *           voxel is sent. Zero to only round the points to the resolution.
+    */
+   public synchronized void setDownsamplingVoxelSize(double downsamplingVoxelSize)
+   {
+      this.downsamplingVoxelSize = downsamplingVoxelSize;
+      sendCompleteCloud = true;
+   }
+
+   public synchronized void setUseDeltaEncoding(boolean useDeltaEncoding)
+   {
+      this.useDeltaEncoding = useDeltaEncoding;
+      sendCompleteCloud = true;
+   }
+
+   public synchronized void setKeyframeInterval(int keyframeInterval)
+   {
+      this.keyframeInterval = keyframeInterval;
+   }
+
+   /**
+    * Sends the complete cloud in the next packet.
+    */
+   public synchronized void reset()
+   {
+      sendCompleteCloud = true;
+   }
+
+   /**
+    * Packs the points in the packet and remembers them as the cloud the next delta is computed
+    * against, so every packed packet has to be sent.
+    */
+   public synchronized void pack(List<? extends Point3DReadOnly> groundPoints, List<? extends Point3DReadOnly> decayingWorldScan, long timestamp,
+                                 float defaultGroundHeight, PackedPointCloudWorldPacket packetToPack)
+   {
+      boolean completeCloud = sendCompleteCloud || !useDeltaEncoding || packetsSinceCompleteCloud >= keyframeInterval - 1;
+
+      if (!completeCloud)
+      {
+         completeCloud = !groundCells.setPoints(groundPoints, originX, originY, originZ, cellSize)
+               || !decayingWorldScanCells.setPoints(decayingWorldScan, originX, originY, originZ, cellSize);
+      }
+
+      if (!completeCloud)
+      {
+         int deltaSize = groundCells.computeDelta() + decayingWorldScanCells.computeDelta();
+         completeCloud = deltaSize >= groundCells.size() + decayingWorldScanCells.size();
+      }
+
+      if (completeCloud)
+      {
+         computeGrid(groundPoints, decayingWorldScan);
+         groundCells.setPoints(groundPoints, originX, originY, originZ, cellSize);
+         decayingWorldScanCells.setPoints(decayingWorldScan, originX, originY, originZ, cellSize);
+      }
+
+      packetToPack.timestamp = timestamp;
+      packetToPack.defaultGroundHeight = defaultGroundHeight;
+      packetToPack.sequenceNumber = sequenceNumber;
+      packetToPack.referenceSequenceNumber = completeCloud ? PackedPointCloudWorldPacket.NO_REFERENCE : sequenceNumber - 1;
+      packetToPack.originX = (float) originX;
+      packetToPack.originY = (float) originY;
+      packetToPack.originZ = (float) originZ;
+      packetToPack.resolution = (float) cellSize;
+
+      if (completeCloud)
+      {
+         packetToPack.groundQuadTreeSupport = toPackedPoints(groundCells.cells);
+         packetToPack.removedGroundQuadTreeSupport = new short[0];
+         packetToPack.decayingWorldScan = toPackedPoints(decayingWorldScanCells.cells);
+         packetToPack.removedDecayingWorldScan = new short[0];
+      }
+      else
+      {
+         packetToPack.groundQuadTreeSupport = toPackedPoints(groundCells.addedCells);
+         packetToPack.removedGroundQuadTreeSupport = toPackedPoints(groundCells.removedCells);
+         packetToPack.decayingWorldScan = toPackedPoints(decayingWorldScanCells.addedCells);
+         packetToPack.removedDecayingWorldScan = toPackedPoints(decayingWorldScanCells.removedCells);
+      }
+
+      groundCells.setAsPreviousCloud();
+      decayingWorldScanCells.setAsPreviousCloud();
+
+      sequenceNumber++;
+      packetsSinceCompleteCloud = completeCloud ? 0 : packetsSinceCompleteCloud + 1;
+      sendCompleteCloud = false;
+   }
+
+   /**
+    * Puts the origin in the middle of the points and makes the cells large enough for all points to
+    * fit in a short.
+    */
+   private void computeGrid(List<? extends Point3DReadOnly> groundPoints, List<? extends Point3DReadOnly> decayingWorldScan)
+   {
+      minX = minY = minZ = Double.POSITIVE_INFINITY;
+      maxX = maxY = maxZ = Double.NEGATIVE_INFINITY;
+      updateBounds(groundPoints);
+      updateBounds(decayingWorldScan);
+
+      cellSize = Math.max(resolution, downsamplingVoxelSize);
+
+      if (minX > maxX)
+      {
+         originX = originY = originZ = 0.0;
+         return;
+      }
+
+      double halfExtent = 0.5 * Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+      // One cell less, the origin is rounded to the grid
+      cellSize = Math.max(cellSize, halfExtent / (MAXIMUM_CELL_INDEX - 1));
+
+      // Keeps the grid aligned from one complete cloud to the next, so static points stay in the same cell
+      originX = cellSize * Math.round(0.5 * (minX + maxX) / cellSize);
+      originY = cellSize * Math.round(0.5 * (minY + maxY) / cellSize);
+      originZ = cellSize * Math.round(0.5 * (minZ + maxZ) / cellSize);
+   }
+
+   private void updateBounds(List<? extends Point3DReadOnly> points)
+   {
+      for (int i = 0; i < points.size(); i++)
+      {
+         Point3DReadOnly point = points.get(i);
+         if (point.containsNaN())
+            continue;
+
+         minX = Math.min(minX, point.getX());
+         minY = Math.min(minY, point.getY());
+         minZ = Math.min(minZ, point.getZ());
+         maxX = Math.max(maxX, point.getX());
+         maxY = Math.max(maxY, point.getY());
+         maxZ = Math.max(maxZ, point.getZ());
+      }
+   }
+
+   private static short[] toPackedPoints(TLongArrayList cells)
+   {
+      short[] packedPoints = new short[3 * cells.size()];
+      for (int i = 0; i < cells.size(); i++)
+      {
+         long cell = cells.get(i);
+         packedPoints[3 * i] = getCellX(cell);
+         packedPoints[3 * i + 1] = getCellY(cell);
+         packedPoints[3 * i + 2] = getCellZ(cell);
+      }
+      return packedPoints;
+   }
+
+   static long getCell(int x, int y, int z)
+   {
+      return ((long) (x & 0xFFFF) << 32) | ((long) (y & 0xFFFF) << 16) | (z & 0xFFFF);
+   }
+
+   static short getCellX(long cell)
+   {
+      return (short) (cell >>> 32);
+   }
+
+   static short getCellY(long cell)
+   {
+      return (short) (cell >>> 16);
+   }
+
+   static short getCellZ(long cell)
+   {
+      return (short) cell;
+   }
+
+   private static class CellSet
+   {
+      /** Occupied cells in the order of the points */
+      private final TLongArrayList cells = new TLongArrayList();
+      private TLongHashSet cellSet = new TLongHashSet();
+      private TLongHashSet previousCellSet = new TLongHashSet();
+
+      private final TLongArrayList addedCells = new TLongArrayList();
+      private final TLongArrayList removedCells = new TLongArrayList();
+
+      /**
+       * @return false if a point is outside the grid
+       */
+      private boolean setPoints(List<? extends Point3DReadOnly> points, double originX, double originY, double originZ, double cellSize)
+      {
+         cells.resetQuick();
+         cellSet.clear();
+
+         for (int i = 0; i < points.size(); i++)
+         {
+            Point3DReadOnly point = points.get(i);
+            if (point.containsNaN())
+               continue;
+
+            long x = Math.round((point.getX() - originX) / cellSize);
+            long y = Math.round((point.getY() - originY) / cellSize);
+            long z = Math.round((point.getZ() - originZ) / cellSize);
+
+            if (Math.abs(x) > MAXIMUM_CELL_INDEX || Math.abs(y) > MAXIMUM_CELL_INDEX || Math.abs(z) > MAXIMUM_CELL_INDEX)
+               return false;
+
+            long cell = getCell((int) x, (int) y, (int) z);
+            if (cellSet.add(cell))
+               cells.add(cell);
+         }
+
+         return true;
+      }
+
+      /**
+       * @return number of added and removed cells since the previous cloud
+       */
+      private int computeDelta()
+      {
+         addedCells.resetQuick();
+         removedCells.resetQuick();
+
+         for (int i = 0; i < cells.size(); i++)
+         {
+            long cell = cells.get(i);
+            if (!previousCellSet.contains(cell))
+               addedCells.add(cell);
+         }
+
+         TLongIterator iterator = previousCellSet.iterator();
+         while (iterator.hasNext())
+         {
+            long cell = iterator.next();
+            if (!cellSet.contains(cell))
+               removedCells.add(cell);
+         }
+
+         return addedCells.size() + removedCells.size();
+      }
+
+      private int size()
+      {
+         return cells.size();
+      }
+
+      private void setAsPreviousCloud()
+      {
+         TLongHashSet swap = previousCellSet;
+         previousCellSet = cellSet;
+         cellSet = swap;
+      }
+   }
+}
@@ -0,0 +1,140 @@
+package us.ihmc.humanoidRobotics.communication.packets.sensing;
+
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * Keeps the cloud that is sent with {@link PackedPointCloudWorldPacket}s, applying the deltas to the
+ * last complete cloud. Deltas that do not follow the last unpacked packet are ignored until the next
+ * complete cloud arrives.
+ */
+public class PointCloudUnpacker
+{
+   private final TLongHashSet groundCells = new TLongHashSet();
+   private final TLongHashSet decayingWorldScanCells = new TLongHashSet();
+
+   private boolean hasCloud = false;
+   private int lastSequenceNumber;
+
+   private long timestamp;
+   private float defaultGroundHeight;
+   private float originX, originY, originZ;
+   private float resolution;
+
+   /**
+    * @return false if the packet is a delta of a cloud that was not unpacked, the cloud is not
+    *         changed then
+    */
+   public boolean unpack(PackedPointCloudWorldPacket packet)
+   {
+      if (packet.isCompleteCloud())
+      {
+         groundCells.clear();
+         decayingWorldScanCells.clear();
+         originX = packet.originX;
+         originY = packet.originY;
+         originZ = packet.originZ;
+         resolution = packet.resolution;
+      }
+      else if (!hasCloud || packet.referenceSequenceNumber != lastSequenceNumber)
+      {
+         return false;
+      }
+
+      removeCells(packet.removedGroundQuadTreeSupport, groundCells);
+      addCells(packet.groundQuadTreeSupport, groundCells);
+      removeCells(packet.removedDecayingWorldScan, decayingWorldScanCells);
+      addCells(packet.decayingWorldScan, decayingWorldScanCells);
+
+      timestamp = packet.timestamp;
+      defaultGroundHeight = packet.defaultGroundHeight;
+      lastSequenceNumber = packet.sequenceNumber;
+      hasCloud = true;
+      return true;
+   }
+
+   private static void addCells(short[] packedPoints, TLongHashSet cells)
+   {
+      for (int i = 0; i < PackedPointCloudWorldPacket.getNumberOfPoints(packedPoints); i++)
+      {
+         cells.add(PointCloudPacker.getCell(packedPoints[3 * i], packedPoints[3 * i + 1], packedPoints[3 * i + 2]));
+      }
+   }
+
+   private static void removeCells(short[] packedPoints, TLongHashSet cells)
+   {
+      for (int i = 0; i < PackedPointCloudWorldPacket.getNumberOfPoints(packedPoints); i++)
+      {
+         cells.remove(PointCloudPacker.getCell(packedPoints[3 * i], packedPoints[3 * i + 1], packedPoints[3 * i + 2]));
+      }
+   }
+
+   public boolean hasCloud()
+   {
+      return hasCloud;
+   }
+
+   public int getNumberOfGroundQuadTreeSupportPoints()
+   {
+      return groundCells.size();
+   }
+
+   public int getNumberOfDecayingWorldScanPoints()
+   {
+      return decayingWorldScanCells.size();
+   }
+
+   /**
+    * @return x, y and z of every ground point
+    */
+   public float[] getGroundQuadTreeSupport()
+   {
+      return toPoints(groundCells);
+   }
+
+   /**
+    * @return x, y and z of every point of the decaying world scan
+    */
+   public float[] getDecayingWorldScan()
+   {
+      return toPoints(decayingWorldScanCells);
+   }
+
+   /**
+    * @return the unpacked cloud as a PointCloudWorldPacket, for the code that uses those
+    */
+   public PointCloudWorldPacket getPointCloudWorldPacket()
+   {
+      PointCloudWorldPacket packet = new PointCloudWorldPacket();
+      packet.timestamp = timestamp;
+      packet.defaultGroundHeight = defaultGroundHeight;
+      packet.groundQuadTreeSupport = getGroundQuadTreeSupport();
+      packet.decayingWorldScan = getDecayingWorldScan();
+      return packet;
+   }
+
+   public long getTimestamp()
+   {
+      return timestamp;
+   }
+
+   public float getDefaultGroundHeight()
+   {
+      return defaultGroundHeight;
+   }
+
+   private float[] toPoints(TLongHashSet cells)
+   {
+      float[] points = new float[3 * cells.size()];
+      int index = 0;
+      TLongIterator iterator = cells.iterator();
+      while (iterator.hasNext())
+      {
+         long cell = iterator.next();
+         points[index++] = originX + resolution * PointCloudPacker.getCellX(cell);
+         points[index++] = originY + resolution * PointCloudPacker.getCellY(cell);
+         points[index++] = originZ + resolution * PointCloudPacker.getCellZ(cell);
+      }
+      return points;
+   }
+}
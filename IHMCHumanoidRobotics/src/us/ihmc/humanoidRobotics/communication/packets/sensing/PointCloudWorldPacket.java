@@ -1,6 +1,6 @@
 package us.ihmc.humanoidRobotics.communication.packets.sensing;
 
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import us.ihmc.communication.packets.HighBandwidthPacket;
@@ -8,6 +8,7 @@ import us.ihmc.communication.packets.Packet;
 import us.ihmc.communication.packets.PacketDestination;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Point3D32;
+import us.ihmc.euclid.tuple3D.interfaces.Point3DReadOnly;
 @HighBandwidthPacket
 public class PointCloudWorldPacket extends Packet<PointCloudWorldPacket>
 {
@@ -70,12 +71,24 @@ public class PointCloudWorldPacket extends Packet<PointCloudWorldPacket>
       }
    }
 
-   public void setDecayingWorldScan(ArrayList<Point3D> pointCloud)
+   public void setGroundQuadTreeSupport(List<? extends Point3DReadOnly> pointCloud)
+   {
+      groundQuadTreeSupport = new float[pointCloud.size()*3];
+      for (int i = 0; i < pointCloud.size(); i++)
+      {
+         Point3DReadOnly point = pointCloud.get(i);
+         groundQuadTreeSupport[3 * i] = (float) point.getX();
+         groundQuadTreeSupport[3 * i + 1] = (float) point.getY();
+         groundQuadTreeSupport[3 * i + 2] = (float) point.getZ();
+      }
+   }
+
+   public void setDecayingWorldScan(List<? extends Point3DReadOnly> pointCloud)
    {
       decayingWorldScan = new float[pointCloud.size()*3];
       for (int i = 0; i < pointCloud.size(); i++)
       {
-         Point3D point = pointCloud.get(i);
+         Point3DReadOnly point = pointCloud.get(i);
          decayingWorldScan[3 * i] = (float) point.getX();
          decayingWorldScan[3 * i + 1] = (float) point.getY();
          decayingWorldScan[3 * i + 2] = (float) point.getZ();
@@ -138,6 +138,7 @@ import us.ihmc.humanoidRobotics.communication.packets.sensing.MultisenseMocapExp
 import us.ihmc.humanoidRobotics.communication.packets.sensing.MultisenseParameterPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.MultisenseTest;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.MultisenseTest.MultisenseFrameName;
+import us.ihmc.humanoidRobotics.communication.packets.sensing.PackedPointCloudWorldPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PelvisPoseErrorPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PointCloudWorldPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.RawIMUPacket;
@@ -504,6 +505,8 @@ public class IHMCCommunicationKryoNetClassList extends NetClassList
       registerPacketField(Point3D[].class);
 
       registerPacketClass(PointCloudWorldPacket.class);
+      registerPacketClass(PackedPointCloudWorldPacket.class);
+      registerPacketField(short[].class);
       registerPacketClass(LidarPosePacket.class);
 
       // New quadTree
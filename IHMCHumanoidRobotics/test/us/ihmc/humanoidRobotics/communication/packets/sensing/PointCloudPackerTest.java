@@ -0,0 +1,211 @@
+package us.ihmc.humanoidRobotics.communication.packets.sensing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+@ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
+public class PointCloudPackerTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCompleteCloudIsWithinResolution()
+   {
+      Random random = new Random(1738L);
+      ArrayList<Point3D> groundPoints = createRandomPoints(random, 1000, 10.0);
+      ArrayList<Point3D> decayingWorldScan = createRandomPoints(random, 500, 2.0);
+
+      PointCloudPacker packer = new PointCloudPacker();
+      PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
+      packer.pack(groundPoints, decayingWorldScan, 12L, 0.5f, packet);
+
+      assertTrue(packet.isCompleteCloud());
+      assertEquals(12L, packet.timestamp);
+      assertEquals(0.5f, packet.defaultGroundHeight, 0.0f);
+      assertEquals(groundPoints.size(), PackedPointCloudWorldPacket.getNumberOfPoints(packet.groundQuadTreeSupport));
+      assertEquals(decayingWorldScan.size(), PackedPointCloudWorldPacket.getNumberOfPoints(packet.decayingWorldScan));
+
+      double epsilon = 0.5 * Math.sqrt(3.0) * packet.resolution + 1.0e-5;
+      Point3D point = new Point3D();
+      for (int i = 0; i < groundPoints.size(); i++)
+      {
+         packet.getPoint(packet.groundQuadTreeSupport, i, point);
+         assertTrue(point.distance(groundPoints.get(i)) <= epsilon);
+      }
+      for (int i = 0; i < decayingWorldScan.size(); i++)
+      {
+         packet.getPoint(packet.decayingWorldScan, i, point);
+         assertTrue(point.distance(decayingWorldScan.get(i)) <= epsilon);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testLargeCloudFitsInShorts()
+   {
+      ArrayList<Point3D> groundPoints = new ArrayList<>();
+      groundPoints.add(new Point3D(-200.0, -200.0, 0.0));
+      groundPoints.add(new Point3D(200.0, 200.0, 1.0));
+
+      PointCloudPacker packer = new PointCloudPacker();
+      PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
+      packer.pack(groundPoints, new ArrayList<Point3D>(), 0L, 0.0f, packet);
+
+      assertTrue(packet.resolution > PointCloudPacker.DEFAULT_RESOLUTION);
+      Point3D point = new Point3D();
+      for (int i = 0; i < groundPoints.size(); i++)
+      {
+         packet.getPoint(packet.groundQuadTreeSupport, i, point);
+         assertTrue(point.distance(groundPoints.get(i)) <= packet.resolution);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testDownsampling()
+   {
+      ArrayList<Point3D> decayingWorldScan = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+      {
+         decayingWorldScan.add(new Point3D(0.001 * i, 0.0, 0.0));
+      }
+
+      PointCloudPacker packer = new PointCloudPacker();
+      packer.setDownsamplingVoxelSize(0.05);
+      PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
+      packer.pack(new ArrayList<Point3D>(), decayingWorldScan, 0L, 0.0f, packet);
+
+      assertEquals(0.05, packet.resolution, 1.0e-7);
+      int numberOfPoints = PackedPointCloudWorldPacket.getNumberOfPoints(packet.decayingWorldScan);
+      assertTrue(numberOfPoints >= 2 && numberOfPoints <= 3);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testDeltasAreUnpackedToTheSameCloud()
+   {
+      Random random = new Random(4237L);
+      ArrayList<Point3D> groundPoints = createRandomPoints(random, 500, 10.0);
+      ArrayList<Point3D> decayingWorldScan = createRandomPoints(random, 500, 2.0);
+
+      PointCloudPacker packer = new PointCloudPacker();
+      packer.setKeyframeInterval(5);
+      PointCloudUnpacker unpacker = new PointCloudUnpacker();
+      PointCloudUnpacker referenceUnpacker = new PointCloudUnpacker();
+
+      int numberOfDeltas = 0;
+      for (int i = 0; i < 12; i++)
+      {
+         // Few changes per update, like a slowly changing map
+         for (int j = 0; j < 20; j++)
+         {
+            groundPoints.set(random.nextInt(groundPoints.size()), createRandomPoint(random, 10.0));
+            decayingWorldScan.remove(random.nextInt(decayingWorldScan.size()));
+            decayingWorldScan.add(createRandomPoint(random, 2.0));
+         }
+
+         PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
+         packer.pack(groundPoints, decayingWorldScan, i, 0.0f, packet);
+         assertEquals(i, packet.sequenceNumber);
+         assertEquals(i % 5 == 0, packet.isCompleteCloud());
+         if (!packet.isCompleteCloud())
+         {
+            numberOfDeltas++;
+            assertTrue(PackedPointCloudWorldPacket.getNumberOfPoints(packet.decayingWorldScan) < decayingWorldScan.size() / 2);
+         }
+         assertTrue(unpacker.unpack(packet));
+
+         PointCloudPacker referencePacker = new PointCloudPacker();
+         PackedPointCloudWorldPacket referencePacket = new PackedPointCloudWorldPacket();
+         referencePacker.pack(groundPoints, decayingWorldScan, i, 0.0f, referencePacket);
+         assertTrue(referenceUnpacker.unpack(referencePacket));
+
+         assertEquals(referenceUnpacker.getNumberOfGroundQuadTreeSupportPoints(), unpacker.getNumberOfGroundQuadTreeSupportPoints());
+         assertEquals(referenceUnpacker.getNumberOfDecayingWorldScanPoints(), unpacker.getNumberOfDecayingWorldScanPoints());
+         assertCloudsEqual(referenceUnpacker.getGroundQuadTreeSupport(), unpacker.getGroundQuadTreeSupport(), 2.0 * packet.resolution);
+         assertCloudsEqual(referenceUnpacker.getDecayingWorldScan(), unpacker.getDecayingWorldScan(), 2.0 * packet.resolution);
+      }
+
+      assertTrue(numberOfDeltas > 0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testMissedDeltaIsIgnoredUntilCompleteCloud()
+   {
+      Random random = new Random(9834L);
+      ArrayList<Point3D> groundPoints = createRandomPoints(random, 100, 1.0);
+      ArrayList<Point3D> decayingWorldScan = new ArrayList<>();
+
+      PointCloudPacker packer = new PointCloudPacker();
+      PointCloudUnpacker unpacker = new PointCloudUnpacker();
+
+      PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
+      packer.pack(groundPoints, decayingWorldScan, 0L, 0.0f, packet);
+      assertTrue(unpacker.unpack(packet));
+
+      groundPoints.add(createRandomPoint(random, 1.0));
+      packer.pack(groundPoints, decayingWorldScan, 1L, 0.0f, new PackedPointCloudWorldPacket());
+
+      groundPoints.add(createRandomPoint(random, 1.0));
+      packet = new PackedPointCloudWorldPacket();
+      packer.pack(groundPoints, decayingWorldScan, 2L, 0.0f, packet);
+      assertFalse(packet.isCompleteCloud());
+      assertFalse(unpacker.unpack(packet));
+      assertEquals(100, unpacker.getNumberOfGroundQuadTreeSupportPoints());
+
+      packer.reset();
+      packet = new PackedPointCloudWorldPacket();
+      packer.pack(groundPoints, decayingWorldScan, 3L, 0.0f, packet);
+      assertTrue(packet.isCompleteCloud());
+      assertTrue(unpacker.unpack(packet));
+      assertEquals(102, unpacker.getNumberOfGroundQuadTreeSupportPoints());
+   }
+
+   private static void assertCloudsEqual(float[] expected, float[] actual, double epsilon)
+   {
+      assertEquals(expected.length, actual.length);
+
+      // Same cells, but the order of the points is not defined
+      ArrayList<Point3D> expectedPoints = new ArrayList<>();
+      for (int i = 0; i < expected.length; i += 3)
+      {
+         expectedPoints.add(new Point3D(expected[i], expected[i + 1], expected[i + 2]));
+      }
+      for (int i = 0; i < actual.length; i += 3)
+      {
+         Point3D point = new Point3D(actual[i], actual[i + 1], actual[i + 2]);
+         boolean found = false;
+         for (int j = 0; j < expectedPoints.size() && !found; j++)
+         {
+            found = expectedPoints.get(j).distance(point) <= epsilon;
+         }
+         assertTrue(found);
+      }
+   }
+
+   private static ArrayList<Point3D> createRandomPoints(Random random, int numberOfPoints, double extent)
+   {
+      ArrayList<Point3D> points = new ArrayList<>();
+      for (int i = 0; i < numberOfPoints; i++)
+      {
+         points.add(createRandomPoint(random, extent));
+      }
+      return points;
+   }
+
+   private static Point3D createRandomPoint(Random random, double extent)
+   {
+      return new Point3D(extent * (2.0 * random.nextDouble() - 1.0), extent * (2.0 * random.nextDouble() - 1.0), extent * random.nextDouble());
+   }
+}
@@ -1,6 +1,7 @@
 package us.ihmc.tools.compression;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.xerial.snappy.Snappy;
 
@@ -24,4 +25,18 @@ public class SnappyLibrary
    {
       return Snappy.uncompress(input, inputOffset, inputLength, output, outputOffset);
    }
+
+   /**
+    * Uncompresses the remaining bytes of input to the position of output without copying to the heap.
+    * Both buffers have to be direct.
+    */
+   public int uncompress(ByteBuffer directInput, ByteBuffer directOutput) throws IOException
+   {
+      return Snappy.uncompress(directInput, directOutput);
+   }
+
+   public int uncompressedLength(ByteBuffer directInput) throws IOException
+   {
+      return Snappy.uncompressedLength(directInput);
+   }
 }
@@ -91,13 +91,19 @@ public class SnappyUtils
    /**
     * Uncompress Snappy compressed data packet. 
     * 
-    * @param input Snappy compressed data, faster if HeapByteBuffer
-    * @param output Decompressed data, faster if HeapByteBuffer
+    * @param input Snappy compressed data, faster if HeapByteBuffer or if both buffers are direct
+    * @param output Decompressed data, faster if HeapByteBuffer or if both buffers are direct
     * @throws IllegalArgumentException
     * @throws IOException 
     */
    public static void uncompress(ByteBuffer input, ByteBuffer output) throws IllegalArgumentException, IOException
    {
+      if (input.isDirect() && output.isDirect() && !DISABLE_COMPRESSION)
+      {
+         uncompressDirect(input, output);
+         return;
+      }
+
       byte[] in;
       int inOffset, inLength;
       if(!input.hasArray())
@@ -150,6 +156,25 @@ public class SnappyUtils
       }
    }
    
+   /**
+    * Uncompress between two direct buffers, e.g. from a memory mapped file, without going through the heap.
+    */
+   private static void uncompressDirect(ByteBuffer input, ByteBuffer output) throws IllegalArgumentException, IOException
+   {
+      int uncompressedLength = snappyLibrary.uncompressedLength(input);
+      if (output.remaining() < uncompressedLength)
+      {
+         throw new IllegalArgumentException("Cannot uncompress to output buffer, buffer size is: " + output.remaining() + ", need " + uncompressedLength);
+      }
+
+      int outputPosition = output.position();
+      int outputLimit = output.limit();
+      int uncompressedSize = snappyLibrary.uncompress(input, output);
+      input.position(input.limit());
+      output.limit(outputLimit);
+      output.position(outputPosition + uncompressedSize);
+   }
+
    /**
     * Get the maximum size of the compressed data
     * 
@@ -0,0 +1,147 @@
+package us.ihmc.manipulation.planning.robotcollisionmodel;
+
+import java.util.ArrayList;
+
+/**
+ * Says for every pair of collision models of a robot whether they are allowed to collide, in which
+ * case the pair is never checked.
+ *
+ * Adjacent links always overlap at their joint, so collisions between them are always allowed.
+ * Other pairs can be allowed, for example because the kinematics of the robot keep them apart.
+ *
+ * The matrix is handed to the collision checker as the collision masks and groups of the collision
+ * shapes: the model with index i gets bit i as mask and the bits of the models it has to be checked
+ * against as group, see {@link #applyCollisionMasksAndGroups()}.
+ */
+public class AllowedCollisionMatrix
+{
+   private static final int MAXIMUM_NUMBER_OF_MODELS = Integer.SIZE;
+
+   private final boolean allowedByDefault;
+   private final ArrayList<AbstractCollisionModel> models = new ArrayList<AbstractCollisionModel>();
+   private final boolean[][] allowed = new boolean[MAXIMUM_NUMBER_OF_MODELS][MAXIMUM_NUMBER_OF_MODELS];
+   private final boolean[][] adjacent = new boolean[MAXIMUM_NUMBER_OF_MODELS][MAXIMUM_NUMBER_OF_MODELS];
+
+   /**
+    * @param allowedByDefault whether the collisions between two models are allowed before they are
+    *           set explicitly
+    */
+   public AllowedCollisionMatrix(boolean allowedByDefault)
+   {
+      this.allowedByDefault = allowedByDefault;
+   }
+
+   /**
+    * Adds a model. The index of the model is the bit of its collision mask.
+    */
+   public int addModel(AbstractCollisionModel model)
+   {
+      if (models.contains(model))
+      {
+         throw new RuntimeException("Model is already in the allowed collision matrix");
+      }
+      if (models.size() == MAXIMUM_NUMBER_OF_MODELS)
+      {
+         throw new RuntimeException("The collision masks only have room for " + MAXIMUM_NUMBER_OF_MODELS + " models");
+      }
+
+      int index = models.size();
+      models.add(model);
+      for (int i = 0; i <= index; i++)
+      {
+         allowed[i][index] = allowedByDefault;
+         allowed[index][i] = allowedByDefault;
+      }
+      return index;
+   }
+
+   public int getNumberOfModels()
+   {
+      return models.size();
+   }
+
+   public void setCollisionAllowed(AbstractCollisionModel modelOne, AbstractCollisionModel modelTwo, boolean isAllowed)
+   {
+      int indexOne = getIndex(modelOne);
+      int indexTwo = getIndex(modelTwo);
+      allowed[indexOne][indexTwo] = isAllowed;
+      allowed[indexTwo][indexOne] = isAllowed;
+   }
+
+   /**
+    * Sets whether collisions between every model of the first set and every model of the second set
+    * are allowed.
+    */
+   public void setCollisionsAllowed(AbstractCollisionModel[] modelsOne, AbstractCollisionModel[] modelsTwo, boolean isAllowed)
+   {
+      for (AbstractCollisionModel modelOne : modelsOne)
+      {
+         for (AbstractCollisionModel modelTwo : modelsTwo)
+         {
+            setCollisionAllowed(modelOne, modelTwo, isAllowed);
+         }
+      }
+   }
+
+   /**
+    * Marks every two consecutive models of the kinematic chain as adjacent. Collisions between
+    * adjacent models are allowed whatever is set with the other methods.
+    */
+   public void addKinematicChain(AbstractCollisionModel... chain)
+   {
+      for (int i = 1; i < chain.length; i++)
+      {
+         int indexOne = getIndex(chain[i - 1]);
+         int indexTwo = getIndex(chain[i]);
+         adjacent[indexOne][indexTwo] = true;
+         adjacent[indexTwo][indexOne] = true;
+      }
+   }
+
+   public boolean isCollisionAllowed(AbstractCollisionModel modelOne, AbstractCollisionModel modelTwo)
+   {
+      return isCollisionAllowed(getIndex(modelOne), getIndex(modelTwo));
+   }
+
+   public boolean areAdjacent(AbstractCollisionModel modelOne, AbstractCollisionModel modelTwo)
+   {
+      return adjacent[getIndex(modelOne)][getIndex(modelTwo)];
+   }
+
+   /**
+    * Sets the collision masks and groups of the collision shapes of all models, so a pair of shapes
+    * passes {@code CollisionBroadPhase.canCollide} if and only if its collision is not allowed. Shapes
+    * that are not in the matrix, like the environment, can collide with a model if their mask and
+    * group have the bit of the model set.
+    */
+   public void applyCollisionMasksAndGroups()
+   {
+      for (int i = 0; i < models.size(); i++)
+      {
+         int collisionGroup = 0;
+         for (int j = 0; j < models.size(); j++)
+         {
+            if (!isCollisionAllowed(i, j))
+               collisionGroup |= 1 << j;
+         }
+
+         models.get(i).getCollisionShape().setCollisionMask(1 << i);
+         models.get(i).getCollisionShape().setCollisionGroup(collisionGroup);
+      }
+   }
+
+   private boolean isCollisionAllowed(int indexOne, int indexTwo)
+   {
+      return indexOne == indexTwo || adjacent[indexOne][indexTwo] || allowed[indexOne][indexTwo];
+   }
+
+   private int getIndex(AbstractCollisionModel model)
+   {
+      int index = models.indexOf(model);
+      if (index < 0)
+      {
+         throw new RuntimeException("Model is not in the allowed collision matrix");
+      }
+      return index;
+   }
+}
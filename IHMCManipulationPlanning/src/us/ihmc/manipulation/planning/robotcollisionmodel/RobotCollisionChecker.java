@@ -0,0 +1,395 @@
+package us.ihmc.manipulation.planning.robotcollisionmodel;
+
+import java.util.ArrayList;
+
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.geometry.polytope.ConvexPolytope;
+import us.ihmc.geometry.polytope.GilbertJohnsonKeerthiCollisionDetector;
+import us.ihmc.geometry.polytope.SupportingVertexHolder;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CapsuleShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CollisionBroadPhase;
+import us.ihmc.simulationconstructionset.physics.collision.simple.PolytopeShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleCollisionDetector;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SphereShapeDescription;
+
+/**
+ * Answers whether any pair of the shapes of a SimpleCollisionDetector collides, for validity checks
+ * of planners that only need a yes or no and check many configurations close to each other.
+ *
+ * Only the pairs that pass {@link CollisionBroadPhase#canCollide(CollisionShape, CollisionShape)}
+ * are checked, see {@link AllowedCollisionMatrix}, and the check stops at the first collision. Every
+ * shape is bounded by a sphere that is fixed in the shape frame. A pair is first tested with these
+ * spheres and only goes to the exact test (GJK, or the closest points of the segments for two
+ * capsules) if the spheres overlap. The transformed shapes are only computed for the shapes that
+ * reach the exact test.
+ *
+ * The exact test only decides that a pair is separated. Pairs that it finds in contact are handed to
+ * the narrow phase of the collision detector, so touching shapes collide exactly when they do for
+ * {@link SimpleCollisionDetector#performCollisionDetection(CollisionDetectionResult)}: when the
+ * detector adds a contact for them. Shapes other than capsules, polytopes and spheres, like
+ * cylinders and boxes, have no bounding sphere and always go to the narrow phase of the detector.
+ *
+ * For temporal coherence every pair remembers a lower bound of its separation together with the
+ * transforms of its shapes at that time, and the direction between the closest points as initial
+ * guess for the next GJK. As long as the shapes moved less than the remembered separation, the
+ * pair is still separated and not tested again. The motion of a shape is bounded by the motion of
+ * the center of its bounding sphere plus the change of its rotation times the radius of the sphere.
+ */
+public class RobotCollisionChecker
+{
+   /** Remembered separations are shrunk by this factor, to cover the stopping tolerance of GJK */
+   private static final double SEPARATION_SAFETY_FACTOR = 0.9;
+
+   private final SimpleCollisionDetector collisionDetector;
+   private final GilbertJohnsonKeerthiCollisionDetector gjkCollisionDetector = new GilbertJohnsonKeerthiCollisionDetector();
+
+   private final ArrayList<ShapeState> shapeStates = new ArrayList<ShapeState>();
+   private PairState[][] pairStates = new PairState[0][0];
+
+   private boolean useTemporalCoherence = true;
+
+   private int numberOfNarrowPhaseChecks = 0;
+   private int numberOfCoherentPairs = 0;
+
+   private final Point3D pointOnOne = new Point3D();
+   private final Point3D pointOnTwo = new Point3D();
+   private final Point3D previousCenter = new Point3D();
+   private final CollisionDetectionResult collisionDetectionResult = new CollisionDetectionResult();
+
+   public RobotCollisionChecker(SimpleCollisionDetector collisionDetector)
+   {
+      this.collisionDetector = collisionDetector;
+   }
+
+   /**
+    * Without temporal coherence every pair of which the bounding spheres overlap is tested exactly
+    * on every call.
+    */
+   public void setUseTemporalCoherence(boolean useTemporalCoherence)
+   {
+      this.useTemporalCoherence = useTemporalCoherence;
+      clearCache();
+   }
+
+   /**
+    * Forgets the remembered separations. This happens by itself when shapes are added to or removed
+    * from the collision detector, but has to be called after the description of a shape is changed.
+    */
+   public void clearCache()
+   {
+      shapeStates.clear();
+      pairStates = new PairState[0][0];
+   }
+
+   /**
+    * The transforms of the collision shapes have to be up to date.
+    *
+    * @return true if none of the pairs of shapes that can collide is colliding
+    */
+   public boolean isCollisionFree()
+   {
+      ArrayList<CollisionShape> collisionObjects = collisionDetector.getCollisionObjects();
+      int numberOfShapes = collisionObjects.size();
+
+      if (haveShapesChanged(collisionObjects))
+      {
+         shapeStates.clear();
+         for (int i = 0; i < numberOfShapes; i++)
+         {
+            shapeStates.add(new ShapeState(collisionObjects.get(i)));
+         }
+         pairStates = new PairState[numberOfShapes][numberOfShapes];
+      }
+
+      for (int i = 0; i < numberOfShapes; i++)
+      {
+         shapeStates.get(i).update();
+      }
+
+      for (int i = 0; i < numberOfShapes; i++)
+      {
+         for (int j = i + 1; j < numberOfShapes; j++)
+         {
+            if (!CollisionBroadPhase.canCollide(collisionObjects.get(i), collisionObjects.get(j)))
+               continue;
+
+            if (pairStates[i][j] == null)
+               pairStates[i][j] = new PairState();
+
+            if (!areSeparated(shapeStates.get(i), shapeStates.get(j), pairStates[i][j]))
+               return false;
+         }
+      }
+
+      return true;
+   }
+
+   private boolean haveShapesChanged(ArrayList<CollisionShape> collisionObjects)
+   {
+      if (shapeStates.size() != collisionObjects.size())
+         return true;
+
+      for (int i = 0; i < collisionObjects.size(); i++)
+      {
+         if (shapeStates.get(i).collisionShape != collisionObjects.get(i))
+            return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * @return the number of pairs that were tested exactly since this checker was created
+    */
+   public int getNumberOfNarrowPhaseChecks()
+   {
+      return numberOfNarrowPhaseChecks;
+   }
+
+   /**
+    * @return the number of pairs that were found separated from their remembered separation since
+    *         this checker was created
+    */
+   public int getNumberOfCoherentPairs()
+   {
+      return numberOfCoherentPairs;
+   }
+
+   private boolean areSeparated(ShapeState shapeOne, ShapeState shapeTwo, PairState pairState)
+   {
+      if (useTemporalCoherence && pairState.hasSeparation)
+      {
+         double motion = computeMotionBound(shapeOne, pairState.transformOne) + computeMotionBound(shapeTwo, pairState.transformTwo);
+         if (motion < pairState.separation)
+         {
+            numberOfCoherentPairs++;
+            return true;
+         }
+      }
+
+      double sphereSeparation = shapeOne.center.distance(shapeTwo.center) - shapeOne.boundingRadius - shapeTwo.boundingRadius;
+      if (sphereSeparation > 0.0)
+      {
+         pairState.setSeparation(shapeOne, shapeTwo, sphereSeparation);
+         return true;
+      }
+
+      numberOfNarrowPhaseChecks++;
+      if (shapeOne.isSupported() && shapeTwo.isSupported())
+      {
+         double separation = computeSeparation(shapeOne, shapeTwo, pairState.separatingVector);
+         if (separation > 0.0)
+         {
+            pairState.setSeparation(shapeOne, shapeTwo, SEPARATION_SAFETY_FACTOR * separation);
+            return true;
+         }
+      }
+
+      pairState.hasSeparation = false;
+      return !isCollidingInCollisionDetector(shapeOne, shapeTwo);
+   }
+
+   /**
+    * @return whether the narrow phase of the collision detector adds a contact for the pair, which is
+    *         what counts as a collision in {@link RobotCollisionModel#getCollisionResultFromCollisionDetector()}
+    */
+   private boolean isCollidingInCollisionDetector(ShapeState shapeOne, ShapeState shapeTwo)
+   {
+      shapeOne.computeTransformedShape();
+      shapeTwo.computeTransformedShape();
+
+      collisionDetectionResult.clear();
+      collisionDetector.performCollisionDetection(shapeOne.collisionShape, shapeTwo.collisionShape, collisionDetectionResult);
+      return collisionDetectionResult.getNumberOfCollisions() > 0;
+   }
+
+   /**
+    * @return the distance between the two shapes, or 0.0 if they collide
+    */
+   private double computeSeparation(ShapeState shapeOne, ShapeState shapeTwo, Vector3D separatingVector)
+   {
+      shapeOne.computeTransformedShape();
+      shapeTwo.computeTransformedShape();
+
+      if (shapeOne.segment != null && shapeTwo.segment != null)
+      {
+         collisionDetector.getClosestPointsOnLineSegments(shapeOne.segment, shapeTwo.segment, pointOnOne, pointOnTwo);
+      }
+      else if (gjkCollisionDetector.arePolytopesColliding(separatingVector, shapeOne.supportingVertexHolder, shapeTwo.supportingVertexHolder, pointOnOne,
+                                                           pointOnTwo))
+      {
+         return 0.0;
+      }
+
+      double distance = pointOnOne.distance(pointOnTwo);
+      if (distance > 1.0e-10)
+      {
+         // The initial guess for the next GJK points from the first shape towards the second one
+         separatingVector.sub(pointOnTwo, pointOnOne);
+      }
+
+      return Math.max(0.0, distance - shapeOne.radius - shapeTwo.radius);
+   }
+
+   private double computeMotionBound(ShapeState shapeState, RigidBodyTransform previousTransform)
+   {
+      previousTransform.transform(shapeState.centerInShapeFrame, previousCenter);
+      double centerMotion = previousCenter.distance(shapeState.center);
+
+      RigidBodyTransform transform = shapeState.transformToWorld;
+      double rotationChange = square(transform.getM00() - previousTransform.getM00()) + square(transform.getM01() - previousTransform.getM01())
+            + square(transform.getM02() - previousTransform.getM02()) + square(transform.getM10() - previousTransform.getM10())
+            + square(transform.getM11() - previousTransform.getM11()) + square(transform.getM12() - previousTransform.getM12())
+            + square(transform.getM20() - previousTransform.getM20()) + square(transform.getM21() - previousTransform.getM21())
+            + square(transform.getM22() - previousTransform.getM22());
+
+      // The Frobenius norm bounds how far the rotation change moves a point at a unit distance from the center
+      return centerMotion + Math.sqrt(rotationChange) * shapeState.boundingRadius;
+   }
+
+   private static double square(double value)
+   {
+      return value * value;
+   }
+
+   private static class ShapeState
+   {
+      private final CollisionShape collisionShape;
+
+      private final Point3D centerInShapeFrame = new Point3D();
+      private final double boundingRadius;
+      private final RigidBodyTransform transformToWorld = new RigidBodyTransform();
+      private final Point3D center = new Point3D();
+
+      /** Radius around the supporting vertices, or the segment of a capsule */
+      private final double radius;
+      private final LineSegment3D segment;
+      private final Point3D sphereCenter;
+      private final SupportingVertexHolder supportingVertexHolder;
+      private boolean isTransformedShapeUpToDate = false;
+
+      private ShapeState(CollisionShape collisionShape)
+      {
+         this.collisionShape = collisionShape;
+
+         CollisionShapeDescription<?> description = collisionShape.getCollisionShapeDescription();
+         if (description instanceof CapsuleShapeDescription)
+         {
+            CapsuleShapeDescription<?> capsule = (CapsuleShapeDescription<?>) description;
+            segment = new LineSegment3D();
+            capsule.getLineSegment(segment);
+            centerInShapeFrame.interpolate(segment.getFirstEndpoint(), segment.getSecondEndpoint(), 0.5);
+            radius = capsule.getRadius();
+            boundingRadius = 0.5 * segment.length() + radius;
+
+            sphereCenter = null;
+            supportingVertexHolder = new SupportingVertexHolder()
+            {
+               @Override
+               public Point3D getSupportingVertex(Vector3D supportDirection)
+               {
+                  Point3D firstEndpoint = segment.getFirstEndpoint();
+                  Point3D secondEndpoint = segment.getSecondEndpoint();
+                  double dotOne = firstEndpoint.getX() * supportDirection.getX() + firstEndpoint.getY() * supportDirection.getY()
+                        + firstEndpoint.getZ() * supportDirection.getZ();
+                  double dotTwo = secondEndpoint.getX() * supportDirection.getX() + secondEndpoint.getY() * supportDirection.getY()
+                        + secondEndpoint.getZ() * supportDirection.getZ();
+                  return dotOne > dotTwo ? firstEndpoint : secondEndpoint;
+               }
+            };
+         }
+         else if (description instanceof PolytopeShapeDescription)
+         {
+            ConvexPolytope polytope = ((PolytopeShapeDescription<?>) description).getPolytope();
+            for (int i = 0; i < polytope.getNumberOfVertices(); i++)
+            {
+               centerInShapeFrame.add(polytope.getVertex(i).getPosition());
+            }
+            centerInShapeFrame.scale(1.0 / polytope.getNumberOfVertices());
+
+            double maximumDistance = 0.0;
+            for (int i = 0; i < polytope.getNumberOfVertices(); i++)
+            {
+               maximumDistance = Math.max(maximumDistance, centerInShapeFrame.distance(polytope.getVertex(i).getPosition()));
+            }
+            radius = ((PolytopeShapeDescription<?>) description).getSmoothingRadius();
+            boundingRadius = maximumDistance + radius;
+
+            segment = null;
+            sphereCenter = null;
+            supportingVertexHolder = ((PolytopeShapeDescription<?>) collisionShape.getTransformedCollisionShapeDescription()).getPolytope();
+         }
+         else if (description instanceof SphereShapeDescription)
+         {
+            SphereShapeDescription<?> sphere = (SphereShapeDescription<?>) description;
+            sphere.getCenter(centerInShapeFrame);
+            radius = sphere.getRadius();
+            boundingRadius = radius;
+
+            segment = null;
+            sphereCenter = new Point3D();
+            supportingVertexHolder = supportDirection -> sphereCenter;
+         }
+         else
+         {
+            // Never separated by its bounding sphere, so every pair goes to the narrow phase of the collision detector
+            radius = 0.0;
+            boundingRadius = Double.POSITIVE_INFINITY;
+
+            segment = null;
+            sphereCenter = null;
+            supportingVertexHolder = null;
+         }
+      }
+
+      private boolean isSupported()
+      {
+         return supportingVertexHolder != null;
+      }
+
+      private void update()
+      {
+         collisionShape.getTransformToWorld(transformToWorld);
+         transformToWorld.transform(centerInShapeFrame, center);
+         isTransformedShapeUpToDate = false;
+      }
+
+      private void computeTransformedShape()
+      {
+         if (isTransformedShapeUpToDate)
+            return;
+
+         collisionShape.computeTransformedCollisionShape();
+         CollisionShapeDescription<?> transformedDescription = collisionShape.getTransformedCollisionShapeDescription();
+         if (segment != null)
+            ((CapsuleShapeDescription<?>) transformedDescription).getLineSegment(segment);
+         else if (sphereCenter != null)
+            ((SphereShapeDescription<?>) transformedDescription).getCenter(sphereCenter);
+
+         isTransformedShapeUpToDate = true;
+      }
+   }
+
+   private static class PairState
+   {
+      private boolean hasSeparation = false;
+      private double separation;
+      private final RigidBodyTransform transformOne = new RigidBodyTransform();
+      private final RigidBodyTransform transformTwo = new RigidBodyTransform();
+      private final Vector3D separatingVector = new Vector3D(0.0, 0.0, 1.0);
+
+      private void setSeparation(ShapeState shapeOne, ShapeState shapeTwo, double separation)
+      {
+         this.hasSeparation = true;
+         this.separation = separation;
+         transformOne.set(shapeOne.transformToWorld);
+         transformTwo.set(shapeTwo.transformToWorld);
+      }
+   }
+}
@@ -22,6 +22,8 @@ public class RobotCollisionModel
    private CollisionDetectionResult collisionDetectionResult = new CollisionDetectionResult();
 
    private SimpleCollisionShapeFactory shapeFactory;
+   private AllowedCollisionMatrix allowedCollisionMatrix;
+   private final RobotCollisionChecker collisionChecker = new RobotCollisionChecker(collisionDetector);
    
    private CollisionModelBox chestBody;
    private CollisionModelBox pelvisBody;
@@ -90,40 +92,10 @@ public class RobotCollisionModel
       if(Debug)
          PrintTools.info("setCollisionMaskAndGroup Started");
       
-      chestBody.getCollisionShape().setCollisionMask        (0b00000000000001);
-      pelvisBody.getCollisionShape().setCollisionMask       (0b00000000000010);
-      rightUpperArm.getCollisionShape().setCollisionMask    (0b00000000000100);
-      rightLowerArm.getCollisionShape().setCollisionMask    (0b00000000001000);
-      rightHand.getCollisionShape().setCollisionMask        (0b00000000010000);
-      leftUpperArm.getCollisionShape().setCollisionMask     (0b00000000100000);
-      leftLowerArm.getCollisionShape().setCollisionMask     (0b00000001000000);
-      leftHand.getCollisionShape().setCollisionMask         (0b00000010000000);
-      rightUpperLeg.getCollisionShape().setCollisionMask    (0b00000100000000);
-      rightLowerLeg.getCollisionShape().setCollisionMask    (0b00001000000000);
-      rightFoot.getCollisionShape().setCollisionMask        (0b00010000000000);
-      leftUpperLeg.getCollisionShape().setCollisionMask     (0b00100000000000);
-      leftLowerLeg.getCollisionShape().setCollisionMask     (0b01000000000000);
-      leftFoot.getCollisionShape().setCollisionMask         (0b10000000000000);
-      
-      chestBody.getCollisionShape().setCollisionGroup       (0b00000011011000);  // R lower arm, R hand, L lower arm, L hand                       3 4 6 7
-      pelvisBody.getCollisionShape().setCollisionGroup      (0b00000011011000);  // R lower arm, R hand, L lower arm, L hand                       3 4 6 7
-      rightUpperArm.getCollisionShape().setCollisionGroup   (0b00000011000000);  // L lower arm, L hand                                            6 7
-      rightLowerArm.getCollisionShape().setCollisionGroup   (0b00000011100011);  // L lower arm, L hand, chest, pelvis , L upper arm               6 7 0 1 5
-      rightHand.getCollisionShape().setCollisionGroup       (0b00000111100011);  // L lower arm, L hand, chest, pelvis, R upper Leg, L upper arm   6 7 0 1 8 5
-      leftUpperArm.getCollisionShape().setCollisionGroup    (0b00000000011000);  // R lower arm, R hand                                            3 4
-      leftLowerArm.getCollisionShape().setCollisionGroup    (0b00000000011111);  // R lower arm, R hand, chest, pelvis , R upper arm               3 4 0 1 2
-      leftHand.getCollisionShape().setCollisionGroup        (0b00100000011111);  // R lower arm, R hand, chest, pelvis, L upper Leg, R upper arm   3 4 0 1 11 2
-      
-      rightUpperLeg.getCollisionShape().setCollisionGroup   (0b11100000010000);  // R hand, L upper leg, L lower leg, L foot                       4 11 12 13
-      rightLowerLeg.getCollisionShape().setCollisionGroup   (0b11100000000000);  // L upper leg, L lower leg, L foot                               11 12 13
-      rightFoot.getCollisionShape().setCollisionGroup       (0b11100000000000);  // L upper leg, L lower leg, L foot                               11 12 13
-      leftUpperLeg.getCollisionShape().setCollisionGroup    (0b00011110000000);  // L hand, R upper leg, R lower leg, R foot                       7 8 9 10
-      leftLowerLeg.getCollisionShape().setCollisionGroup    (0b00011100000000);  // R upper leg, R lower leg, R foot                               8 9 10
-      leftFoot.getCollisionShape().setCollisionGroup        (0b00011100000000);  // R upper leg, R lower leg, R foot                               8 9 10
-      
-      
-      
-      
+      allowedCollisionMatrix = createAllowedCollisionMatrix(chestBody, pelvisBody, rightUpperArm, rightLowerArm, rightHand, leftUpperArm, leftLowerArm,
+                                                            leftHand, rightUpperLeg, rightLowerLeg, rightFoot, leftUpperLeg, leftLowerLeg, leftFoot);
+      allowedCollisionMatrix.applyCollisionMasksAndGroups();
+
       if(Debug)
       {
          PrintTools.info("chestBody Mask " + chestBody.getCollisionShape().getCollisionMask() +" Group "+chestBody.getCollisionShape().getCollisionGroup());
@@ -146,6 +118,58 @@ public class RobotCollisionModel
       
    }
    
+   /**
+    * The pairs of models that are checked for collisions. The order the models are added in sets the
+    * bits of their collision masks.
+    */
+   static AllowedCollisionMatrix createAllowedCollisionMatrix(AbstractCollisionModel chestBody, AbstractCollisionModel pelvisBody,
+                                                              AbstractCollisionModel rightUpperArm, AbstractCollisionModel rightLowerArm,
+                                                              AbstractCollisionModel rightHand, AbstractCollisionModel leftUpperArm,
+                                                              AbstractCollisionModel leftLowerArm, AbstractCollisionModel leftHand,
+                                                              AbstractCollisionModel rightUpperLeg, AbstractCollisionModel rightLowerLeg,
+                                                              AbstractCollisionModel rightFoot, AbstractCollisionModel leftUpperLeg,
+                                                              AbstractCollisionModel leftLowerLeg, AbstractCollisionModel leftFoot)
+   {
+      AllowedCollisionMatrix allowedCollisionMatrix = new AllowedCollisionMatrix(true);
+      allowedCollisionMatrix.addModel(chestBody);
+      allowedCollisionMatrix.addModel(pelvisBody);
+      allowedCollisionMatrix.addModel(rightUpperArm);
+      allowedCollisionMatrix.addModel(rightLowerArm);
+      allowedCollisionMatrix.addModel(rightHand);
+      allowedCollisionMatrix.addModel(leftUpperArm);
+      allowedCollisionMatrix.addModel(leftLowerArm);
+      allowedCollisionMatrix.addModel(leftHand);
+      allowedCollisionMatrix.addModel(rightUpperLeg);
+      allowedCollisionMatrix.addModel(rightLowerLeg);
+      allowedCollisionMatrix.addModel(rightFoot);
+      allowedCollisionMatrix.addModel(leftUpperLeg);
+      allowedCollisionMatrix.addModel(leftLowerLeg);
+      allowedCollisionMatrix.addModel(leftFoot);
+
+      allowedCollisionMatrix.addKinematicChain(chestBody, pelvisBody);
+      allowedCollisionMatrix.addKinematicChain(chestBody, rightUpperArm, rightLowerArm, rightHand);
+      allowedCollisionMatrix.addKinematicChain(chestBody, leftUpperArm, leftLowerArm, leftHand);
+      allowedCollisionMatrix.addKinematicChain(pelvisBody, rightUpperLeg, rightLowerLeg, rightFoot);
+      allowedCollisionMatrix.addKinematicChain(pelvisBody, leftUpperLeg, leftLowerLeg, leftFoot);
+
+      AbstractCollisionModel[] torso = {chestBody, pelvisBody};
+      AbstractCollisionModel[] rightForearmAndHand = {rightLowerArm, rightHand};
+      AbstractCollisionModel[] leftForearmAndHand = {leftLowerArm, leftHand};
+      AbstractCollisionModel[] rightLeg = {rightUpperLeg, rightLowerLeg, rightFoot};
+      AbstractCollisionModel[] leftLeg = {leftUpperLeg, leftLowerLeg, leftFoot};
+
+      allowedCollisionMatrix.setCollisionsAllowed(torso, rightForearmAndHand, false);
+      allowedCollisionMatrix.setCollisionsAllowed(torso, leftForearmAndHand, false);
+      allowedCollisionMatrix.setCollisionsAllowed(rightForearmAndHand, leftForearmAndHand, false);
+      allowedCollisionMatrix.setCollisionsAllowed(new AbstractCollisionModel[] {rightUpperArm}, leftForearmAndHand, false);
+      allowedCollisionMatrix.setCollisionsAllowed(new AbstractCollisionModel[] {leftUpperArm}, rightForearmAndHand, false);
+      allowedCollisionMatrix.setCollisionAllowed(rightHand, rightUpperLeg, false);
+      allowedCollisionMatrix.setCollisionAllowed(leftHand, leftUpperLeg, false);
+      allowedCollisionMatrix.setCollisionsAllowed(rightLeg, leftLeg, false);
+
+      return allowedCollisionMatrix;
+   }
+
    public void update()
    {
       if(Debug)
@@ -195,22 +219,21 @@ public class RobotCollisionModel
    
    public boolean getCollisionResult()
    {       
+      return collisionChecker.isCollisionFree();
+   }
+
+   /**
+    * Checks all pairs of shapes with the collision detector, including the pairs that are already
+    * colliding and the contact points of every collision.
+    */
+   public boolean getCollisionResultFromCollisionDetector()
+   {
       collisionDetectionResult.clear();
       collisionDetector.performCollisionDetection(collisionDetectionResult);
-      
-      if(collisionDetectionResult.getNumberOfCollisions() > 0)
-      {
-         for (int i = 0; i<collisionDetectionResult.getNumberOfCollisions();i++)
-         {
-//            PrintTools.info("collid A "+collisionDetectionResult.getCollision(i).getShapeA().getCollisionMask()+ " collid B "+ collisionDetectionResult.getCollision(i).getShapeB().getCollisionMask());
-            
-         }
-//         PrintTools.info("Collid! "+collisionDetectionResult.getNumberOfCollisions());
-         return false;
-      }
-      return true;
+
+      return collisionDetectionResult.getNumberOfCollisions() == 0;
    }
-   
+
    public ArrayList<Graphics3DObject> getCollisionGraphics()
    {
       ArrayList<Graphics3DObject> ret = new ArrayList<Graphics3DObject>();
@@ -239,5 +262,15 @@ public class RobotCollisionModel
    {
       return shapeFactory;
    }
+
+   public AllowedCollisionMatrix getAllowedCollisionMatrix()
+   {
+      return allowedCollisionMatrix;
+   }
+
+   public RobotCollisionChecker getCollisionChecker()
+   {
+      return collisionChecker;
+   }
    
 }
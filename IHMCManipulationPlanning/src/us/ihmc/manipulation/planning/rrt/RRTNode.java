@@ -85,6 +85,14 @@ public abstract class RRTNode implements RRTInterface
       childNode.setParentNode(this);
    }
 
+   public final void removeChildNode(RRTNode childNode)
+   {
+      if (childRRTNode.remove(childNode) && childNode.getParentNode() == this)
+      {
+         childNode.setParentNode(null);
+      }
+   }
+
    public final void setChildNode(int indexOfChild, RRTNode childNode)
    {
       childRRTNode.set(indexOfChild, childNode);
@@ -0,0 +1,298 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Incremental KD-tree over the node data of RRTNodes for nearest neighbor queries with the euclidean
+ * distance of {@link RRTNode#getDistance(RRTNode)}.
+ *
+ * Nodes are inserted one by one as the RRT grows. RRT nodes are usually added in the order they
+ * move away from the root, which makes a plain KD-tree degenerate. Like in a scapegoat tree, the
+ * smallest unbalanced subtree on the path of an insertion that went too deep is rebuilt balanced, so
+ * the depth stays logarithmic at an amortized cost of O(log^2 n) per insertion.
+ *
+ * Ties are broken by insertion order, so {@link #getNearestNode(RRTNode)} returns the same node as
+ * a linear scan over the nodes in insertion order that keeps the first closest node.
+ */
+public class RRTNodeKDTree
+{
+   /** A subtree is unbalanced if one of its children holds more than this fraction of its nodes */
+   private static final double ALPHA = 0.75;
+   private static final int MINIMUM_DEPTH_FOR_REBUILD = 8;
+
+   private final int dimension;
+
+   private Entry root;
+   private int size = 0;
+
+   private final ArrayList<Entry> insertionPath = new ArrayList<Entry>();
+   private final ArrayList<Entry> searchCandidates = new ArrayList<Entry>();
+
+   public RRTNodeKDTree(int dimension)
+   {
+      if (dimension < 1)
+      {
+         throw new RuntimeException("Dimension of the node data should be larger than 0");
+      }
+      this.dimension = dimension;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public void clear()
+   {
+      root = null;
+      size = 0;
+   }
+
+   public void add(RRTNode node)
+   {
+      Entry entry = new Entry(node, size);
+      size++;
+
+      if (root == null)
+      {
+         root = entry;
+         entry.axis = 0;
+         return;
+      }
+
+      insertionPath.clear();
+      Entry parent = root;
+      while (true)
+      {
+         insertionPath.add(parent);
+         parent.subtreeSize++;
+
+         // Equal coordinates go right, the searches only rely on left <= split <= right
+         boolean goLeft = node.getNodeData(parent.axis) < parent.node.getNodeData(parent.axis);
+         Entry child = goLeft ? parent.left : parent.right;
+         if (child == null)
+         {
+            if (goLeft)
+               parent.left = entry;
+            else
+               parent.right = entry;
+            break;
+         }
+         parent = child;
+      }
+
+      int depth = insertionPath.size();
+      entry.axis = depth % dimension;
+
+      if (depth > MINIMUM_DEPTH_FOR_REBUILD && depth > Math.log(size) / Math.log(1.0 / ALPHA))
+      {
+         rebuildScapegoat();
+      }
+      insertionPath.clear();
+   }
+
+   /**
+    * @return the closest node to the target node, or null if the tree is empty
+    */
+   public RRTNode getNearestNode(RRTNode targetNode)
+   {
+      if (root == null)
+         return null;
+
+      Entry[] best = new Entry[] {null};
+      double[] bestDistance = new double[] {Double.POSITIVE_INFINITY};
+      searchNearest(root, targetNode, best, bestDistance);
+      return best[0].node;
+   }
+
+   /**
+    * Packs the k closest nodes to the target node, closest first.
+    */
+   public void getNearestNodes(RRTNode targetNode, int k, List<RRTNode> nearestNodesToPack)
+   {
+      nearestNodesToPack.clear();
+      if (root == null || k < 1)
+         return;
+
+      // Farthest candidate on top so it can be replaced
+      PriorityQueue<Neighbor> neighbors = new PriorityQueue<Neighbor>(k, Comparator.reverseOrder());
+      searchNearest(root, targetNode, k, neighbors);
+
+      Neighbor[] sortedNeighbors = neighbors.toArray(new Neighbor[neighbors.size()]);
+      Arrays.sort(sortedNeighbors);
+      for (Neighbor neighbor : sortedNeighbors)
+      {
+         nearestNodesToPack.add(neighbor.entry.node);
+      }
+   }
+
+   /**
+    * Packs all nodes with a distance to the target node of at most the radius, in insertion order.
+    */
+   public void getNodesWithinRadius(RRTNode targetNode, double radius, List<RRTNode> nodesToPack)
+   {
+      nodesToPack.clear();
+      searchCandidates.clear();
+      if (root != null)
+      {
+         searchRadius(root, targetNode, radius, searchCandidates);
+      }
+
+      searchCandidates.sort((entryOne, entryTwo) -> Integer.compare(entryOne.index, entryTwo.index));
+      for (int i = 0; i < searchCandidates.size(); i++)
+      {
+         nodesToPack.add(searchCandidates.get(i).node);
+      }
+      searchCandidates.clear();
+   }
+
+   private void searchNearest(Entry entry, RRTNode targetNode, Entry[] best, double[] bestDistance)
+   {
+      double distance = entry.node.getDistance(targetNode);
+      if (distance < bestDistance[0] || (distance == bestDistance[0] && entry.index < best[0].index))
+      {
+         best[0] = entry;
+         bestDistance[0] = distance;
+      }
+
+      double axisDistance = targetNode.getNodeData(entry.axis) - entry.node.getNodeData(entry.axis);
+      Entry nearSide = axisDistance < 0.0 ? entry.left : entry.right;
+      Entry farSide = axisDistance < 0.0 ? entry.right : entry.left;
+
+      if (nearSide != null)
+         searchNearest(nearSide, targetNode, best, bestDistance);
+      // Equal distances still have to be visited for the tie breaking
+      if (farSide != null && Math.abs(axisDistance) <= bestDistance[0])
+         searchNearest(farSide, targetNode, best, bestDistance);
+   }
+
+   private void searchNearest(Entry entry, RRTNode targetNode, int k, PriorityQueue<Neighbor> neighbors)
+   {
+      Neighbor neighbor = new Neighbor(entry, entry.node.getDistance(targetNode));
+      if (neighbors.size() < k)
+      {
+         neighbors.add(neighbor);
+      }
+      else if (neighbor.compareTo(neighbors.peek()) < 0)
+      {
+         neighbors.poll();
+         neighbors.add(neighbor);
+      }
+
+      double axisDistance = targetNode.getNodeData(entry.axis) - entry.node.getNodeData(entry.axis);
+      Entry nearSide = axisDistance < 0.0 ? entry.left : entry.right;
+      Entry farSide = axisDistance < 0.0 ? entry.right : entry.left;
+
+      if (nearSide != null)
+         searchNearest(nearSide, targetNode, k, neighbors);
+      if (farSide != null && (neighbors.size() < k || Math.abs(axisDistance) <= neighbors.peek().distance))
+         searchNearest(farSide, targetNode, k, neighbors);
+   }
+
+   private void searchRadius(Entry entry, RRTNode targetNode, double radius, List<Entry> entriesToPack)
+   {
+      if (entry.node.getDistance(targetNode) <= radius)
+         entriesToPack.add(entry);
+
+      double axisDistance = targetNode.getNodeData(entry.axis) - entry.node.getNodeData(entry.axis);
+      if (entry.left != null && axisDistance - radius <= 0.0)
+         searchRadius(entry.left, targetNode, radius, entriesToPack);
+      if (entry.right != null && axisDistance + radius >= 0.0)
+         searchRadius(entry.right, targetNode, radius, entriesToPack);
+   }
+
+   private void rebuildScapegoat()
+   {
+      // The insertion went deeper than log_(1/ALPHA)(size), so one of the subtrees on its path is unbalanced
+      int childSize = 1;
+      for (int depth = insertionPath.size() - 1; depth >= 0; depth--)
+      {
+         Entry scapegoat = insertionPath.get(depth);
+         if (childSize > ALPHA * scapegoat.subtreeSize)
+         {
+            Entry[] entries = new Entry[scapegoat.subtreeSize];
+            collect(scapegoat, entries, new int[] {0});
+            Entry rebuiltSubtree = build(entries, 0, entries.length, depth);
+
+            if (depth == 0)
+               root = rebuiltSubtree;
+            else if (insertionPath.get(depth - 1).left == scapegoat)
+               insertionPath.get(depth - 1).left = rebuiltSubtree;
+            else
+               insertionPath.get(depth - 1).right = rebuiltSubtree;
+            return;
+         }
+         childSize = scapegoat.subtreeSize;
+      }
+   }
+
+   private void collect(Entry entry, Entry[] entriesToPack, int[] count)
+   {
+      if (entry == null)
+         return;
+
+      entriesToPack[count[0]++] = entry;
+      collect(entry.left, entriesToPack, count);
+      collect(entry.right, entriesToPack, count);
+   }
+
+   private Entry build(Entry[] entries, int from, int to, int depth)
+   {
+      if (from >= to)
+         return null;
+
+      int axis = depth % dimension;
+      Arrays.sort(entries, from, to, (entryOne, entryTwo) ->
+      {
+         int compare = Double.compare(entryOne.node.getNodeData(axis), entryTwo.node.getNodeData(axis));
+         return compare != 0 ? compare : Integer.compare(entryOne.index, entryTwo.index);
+      });
+
+      int median = (from + to) / 2;
+      Entry entry = entries[median];
+      entry.axis = axis;
+      entry.subtreeSize = to - from;
+      entry.left = build(entries, from, median, depth + 1);
+      entry.right = build(entries, median + 1, to, depth + 1);
+      return entry;
+   }
+
+   private static class Entry
+   {
+      private final RRTNode node;
+      private final int index;
+      private int axis;
+      private int subtreeSize = 1;
+      private Entry left;
+      private Entry right;
+
+      private Entry(RRTNode node, int index)
+      {
+         this.node = node;
+         this.index = index;
+      }
+   }
+
+   private static class Neighbor implements Comparable<Neighbor>
+   {
+      private final Entry entry;
+      private final double distance;
+
+      private Neighbor(Entry entry, double distance)
+      {
+         this.entry = entry;
+         this.distance = distance;
+      }
+
+      @Override
+      public int compareTo(Neighbor other)
+      {
+         int compare = Double.compare(distance, other.distance);
+         return compare != 0 ? compare : Integer.compare(entry.index, other.entry.index);
+      }
+   }
+}
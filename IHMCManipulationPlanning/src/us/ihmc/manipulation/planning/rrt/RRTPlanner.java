@@ -7,6 +7,9 @@ import us.ihmc.commons.PrintTools;
 /**
  * This class provides only expanding tree, expanding tree until reaching goal node and updating an optimal path.
  * The optimal path is just displacement minimizing straight-line shortcut.
+ * 
+ * With a rewiring radius the tree is expanded RRT* style, and expandTreeOptimalGoal() keeps expanding to improve the path to the goal.
+ * A validity checker with more than one thread checks the nodes of an expansion in parallel.
  *  
  * @author InhoLee 170224
  *
@@ -29,6 +32,16 @@ public class RRTPlanner
       rrtTree.setStepLength(stepLength);
    }
 
+   public void setRewiringRadius(double rewiringRadius)
+   {
+      rrtTree.setRewiringRadius(rewiringRadius);
+   }
+
+   public void setValidityChecker(RRTValidityChecker validityChecker)
+   {
+      rrtTree.setValidityChecker(validityChecker);
+   }
+
    public void expandTreeWhole(int numberOfExpanding)
    {
       for (int i = 0; i < numberOfExpanding; i++)
@@ -56,6 +69,47 @@ public class RRTPlanner
       return false;
    }
 
+   /**
+    * Expands the tree for all iterations instead of stopping at the first node that reaches the goal, then connects the goal to the node
+    * within the step length of the goal with the lowest cost from the root. Use with a rewiring radius, the costs of the nodes keep
+    * improving while the tree grows.
+    */
+   public boolean expandTreeOptimalGoal(int numberOfExpanding)
+   {
+      expandTreeWhole(numberOfExpanding);
+
+      ArrayList<RRTNode> nodesNearGoal = new ArrayList<RRTNode>();
+      rrtTree.getNearNodes(goalNode, rrtTree.getStepLength(), nodesNearGoal);
+
+      RRTNode bestNode = null;
+      double bestCost = Double.MAX_VALUE;
+      for (int i = 0; i < nodesNearGoal.size(); i++)
+      {
+         RRTNode node = nodesNearGoal.get(i);
+         double cost = rrtTree.getCostFromRoot(node) + rrtTree.getMatric(node, goalNode);
+         if (node.getDistance(goalNode) < rrtTree.getStepLength() && cost < bestCost)
+         {
+            bestNode = node;
+            bestCost = cost;
+         }
+      }
+
+      if (bestNode == null)
+      {
+         return false;
+      }
+
+      if (goalNode.getParentNode() != null)
+      {
+         goalNode.getParentNode().removeChildNode(goalNode);
+      }
+      bestNode.addChildNode(goalNode);
+      rrtTree.updatePathNode(goalNode);
+      optimalPath = rrtTree.pathNode;
+
+      return true;
+   }
+
    public void updateOptimalPath(int sizeOfPiecewisePath)
    {
       if (optimalPath.size() > 1)
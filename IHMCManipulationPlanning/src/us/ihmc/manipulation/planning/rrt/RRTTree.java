@@ -1,6 +1,10 @@
 package us.ihmc.manipulation.planning.rrt;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Random;
 
 import us.ihmc.commons.PrintTools;
@@ -23,6 +27,13 @@ import us.ihmc.commons.PrintTools;
  * <expandTree> find random node with uniform random value in boundary.
  * Voronoi diagram will be added in near future.
  * 
+ * The near node is found with a KD-tree over the node data if getMatric() is not overridden. Trees with their own matric search all nodes.
+ * 
+ * <setRewiringRadius> turns on RRT* style rewiring. The new node is connected to the node within the radius that reaches it at the lowest cost from the root,
+ * and the nodes within the radius that can be reached cheaper through the new node are reconnected to it.
+ * 
+ * <setValidityChecker> checks the new node and the nodes of its connections in batches, in parallel if the checker has more than one thread.
+ * 
  * @author InhoLee 170217
  *
  */
@@ -41,6 +52,15 @@ public class RRTTree
    public ArrayList<RRTNode> failNodes = new ArrayList<RRTNode>();
 
    protected RRTNode nodeCreator;
+
+   protected RRTValidityChecker validityChecker;
+   protected double rewiringRadius = 0.0;
+
+   private final RRTNodeKDTree nearestNeighborIndex;
+   private final IdentityHashMap<RRTNode, Double> costsFromRoot = new IdentityHashMap<RRTNode, Double>();
+   private final ArrayList<RRTNode> rewiringCandidates = new ArrayList<RRTNode>();
+   private final ArrayList<RRTNode> candidateNodes = new ArrayList<RRTNode>();
+   private final ArrayList<RRTValidConnection> candidateConnections = new ArrayList<RRTValidConnection>();
    
    // numberOfNodes, ArrayList<RRTNode> nodes. every node of the nodes has its parent node.
 
@@ -49,6 +69,12 @@ public class RRTTree
       this.rootNode = rootNode;
       nodeCreator = rootNode.createNode();
       wholeNodes.add(this.rootNode);
+
+      // The KD-tree only knows the euclidean distance of the node data
+      if (isMatricOverridden())
+         nearestNeighborIndex = null;
+      else
+         nearestNeighborIndex = new RRTNodeKDTree(rootNode.getDimensionOfNodeData());
    }
 
    public void setStepLength(double length)
@@ -71,6 +97,27 @@ public class RRTTree
       this.lowerBoundNode = lowerBoundNode;
    }
 
+   /*
+    * A radius of 0 turns rewiring off.
+    */
+   public void setRewiringRadius(double rewiringRadius)
+   {
+      this.rewiringRadius = rewiringRadius;
+   }
+
+   public double getRewiringRadius()
+   {
+      return rewiringRadius;
+   }
+
+   /*
+    * Null checks the nodes one by one on the calling thread.
+    */
+   public void setValidityChecker(RRTValidityChecker validityChecker)
+   {
+      this.validityChecker = validityChecker;
+   }
+
    // User can override
    public double getMatric(RRTNode nodeOne, RRTNode nodeTwo)
    {
@@ -109,6 +156,13 @@ public class RRTTree
 
    public void updateNearNodeForTargetNode(RRTNode targetNode)
    {
+      if (nearestNeighborIndex != null)
+      {
+         updateNearestNeighborIndex();
+         this.nearNode = nearestNeighborIndex.getNearestNode(targetNode);
+         return;
+      }
+
       RRTNode optNode = this.wholeNodes.get(0);
       RRTNode curNode;
 
@@ -150,13 +204,24 @@ public class RRTTree
 
    public boolean addNewNode()
    {
-      if (this.newNode.isValidNode() == true)
+      if (validityChecker != null)
+      {
+         // The new node and the nodes of its connection in one batch
+         candidateNodes.clear();
+         candidateNodes.add(this.newNode);
+         candidateNodes.addAll(new RRTValidConnection(this.nearNode, this.newNode).getNodesToCheck());
+         if (validityChecker.areValidNodes(candidateNodes))
+         {
+            addNewNodeToTree();
+            return true;
+         }
+      }
+      else if (this.newNode.isValidNode() == true)
       {
          RRTValidConnection rrtValidConnection = new RRTValidConnection(this.nearNode, this.newNode);
          if (rrtValidConnection.isValidConnection())
          {
-            nearNode.addChildNode(this.newNode);
-            wholeNodes.add(newNode);
+            addNewNodeToTree();
             return true;
          }
       }
@@ -167,6 +232,230 @@ public class RRTTree
       return false;
    }
 
+   private void addNewNodeToTree()
+   {
+      if (rewiringRadius <= 0.0)
+      {
+         nearNode.addChildNode(this.newNode);
+         wholeNodes.add(newNode);
+         return;
+      }
+
+      getNearNodes(newNode, rewiringRadius, rewiringCandidates);
+
+      // Choose the parent that reaches the new node at the lowest cost
+      RRTNode bestParent = nearNode;
+      double bestCost = getCostFromRoot(nearNode) + getMatric(nearNode, newNode);
+
+      candidateNodes.clear();
+      candidateConnections.clear();
+      for (int i = 0; i < rewiringCandidates.size(); i++)
+      {
+         RRTNode candidate = rewiringCandidates.get(i);
+         if (candidate != nearNode && getCostFromRoot(candidate) + getMatric(candidate, newNode) < bestCost)
+         {
+            candidateNodes.add(candidate);
+            candidateConnections.add(new RRTValidConnection(candidate, newNode));
+         }
+      }
+
+      boolean[] validConnections = areValidConnections(candidateConnections);
+      for (int i = 0; i < candidateNodes.size(); i++)
+      {
+         RRTNode candidate = candidateNodes.get(i);
+         double cost = getCostFromRoot(candidate) + getMatric(candidate, newNode);
+         if (validConnections[i] && cost < bestCost)
+         {
+            bestParent = candidate;
+            bestCost = cost;
+         }
+      }
+
+      this.nearNode = bestParent;
+      bestParent.addChildNode(newNode);
+      wholeNodes.add(newNode);
+      costsFromRoot.put(newNode, bestCost);
+
+      // Reconnect the nodes that are reached cheaper through the new node
+      candidateNodes.clear();
+      candidateConnections.clear();
+      for (int i = 0; i < rewiringCandidates.size(); i++)
+      {
+         RRTNode candidate = rewiringCandidates.get(i);
+         if (candidate != bestParent && candidate.getParentNode() != null && bestCost + getMatric(newNode, candidate) < getCostFromRoot(candidate))
+         {
+            candidateNodes.add(candidate);
+            candidateConnections.add(new RRTValidConnection(newNode, candidate));
+         }
+      }
+
+      validConnections = areValidConnections(candidateConnections);
+      for (int i = 0; i < candidateNodes.size(); i++)
+      {
+         RRTNode candidate = candidateNodes.get(i);
+         double cost = bestCost + getMatric(newNode, candidate);
+         // An earlier reconnection in this loop can already have made the candidate cheaper
+         if (validConnections[i] && cost < getCostFromRoot(candidate))
+         {
+            candidate.getParentNode().removeChildNode(candidate);
+            newNode.addChildNode(candidate);
+            updateCostsFromRoot(candidate, cost);
+         }
+      }
+
+      rewiringCandidates.clear();
+      candidateNodes.clear();
+      candidateConnections.clear();
+   }
+
+   private boolean[] areValidConnections(List<RRTValidConnection> connections)
+   {
+      if (validityChecker != null)
+      {
+         return validityChecker.areValidConnections(connections);
+      }
+
+      boolean[] validConnections = new boolean[connections.size()];
+      for (int i = 0; i < connections.size(); i++)
+      {
+         validConnections[i] = connections.get(i).isValidConnection();
+      }
+      return validConnections;
+   }
+
+   /**
+    * @return the sum of the matric along the branch from the root node to the node
+    */
+   public double getCostFromRoot(RRTNode node)
+   {
+      Double cost = costsFromRoot.get(node);
+      if (cost != null)
+      {
+         return cost;
+      }
+
+      // Walk up to the first node with a known cost, then down again
+      ArrayList<RRTNode> branch = new ArrayList<RRTNode>();
+      RRTNode singleNode = node;
+      double branchCost = 0.0;
+      while (singleNode != rootNode && singleNode.getParentNode() != null)
+      {
+         Double knownCost = costsFromRoot.get(singleNode);
+         if (knownCost != null)
+         {
+            branchCost = knownCost;
+            break;
+         }
+         branch.add(singleNode);
+         singleNode = singleNode.getParentNode();
+      }
+
+      for (int i = branch.size() - 1; i >= 0; i--)
+      {
+         RRTNode branchNode = branch.get(i);
+         branchCost = branchCost + getMatric(branchNode.getParentNode(), branchNode);
+         costsFromRoot.put(branchNode, branchCost);
+      }
+      return branchCost;
+   }
+
+   private void updateCostsFromRoot(RRTNode node, double cost)
+   {
+      costsFromRoot.put(node, cost);
+
+      ArrayDeque<RRTNode> nodesToUpdate = new ArrayDeque<RRTNode>();
+      nodesToUpdate.add(node);
+      while (!nodesToUpdate.isEmpty())
+      {
+         RRTNode parentNode = nodesToUpdate.poll();
+         double parentCost = costsFromRoot.get(parentNode);
+         for (int i = 0; i < parentNode.getNumberOfChild(); i++)
+         {
+            RRTNode childNode = parentNode.getChildNode(i);
+            costsFromRoot.put(childNode, parentCost + getMatric(parentNode, childNode));
+            nodesToUpdate.add(childNode);
+         }
+      }
+   }
+
+   /**
+    * Packs the nodes of the tree whose matric to the target node is at most the radius.
+    */
+   public void getNearNodes(RRTNode targetNode, double radius, List<RRTNode> nearNodesToPack)
+   {
+      if (nearestNeighborIndex != null)
+      {
+         updateNearestNeighborIndex();
+         nearestNeighborIndex.getNodesWithinRadius(targetNode, radius, nearNodesToPack);
+         return;
+      }
+
+      nearNodesToPack.clear();
+      for (int i = 0; i < this.wholeNodes.size(); i++)
+      {
+         if (getMatric(this.wholeNodes.get(i), targetNode) <= radius)
+         {
+            nearNodesToPack.add(this.wholeNodes.get(i));
+         }
+      }
+   }
+
+   /**
+    * Packs the k nodes of the tree with the lowest matric to the target node, closest first.
+    */
+   public void getNearestNodes(RRTNode targetNode, int k, List<RRTNode> nearestNodesToPack)
+   {
+      if (nearestNeighborIndex != null)
+      {
+         updateNearestNeighborIndex();
+         nearestNeighborIndex.getNearestNodes(targetNode, k, nearestNodesToPack);
+         return;
+      }
+
+      nearestNodesToPack.clear();
+      if (k < 1)
+         return;
+
+      // Farthest node on top, ties broken by the order in the tree like in updateNearNodeForTargetNode
+      PriorityQueue<Integer> nearestIndices = new PriorityQueue<Integer>(k, (indexOne, indexTwo) ->
+      {
+         int compare = Double.compare(getMatric(this.wholeNodes.get(indexTwo), targetNode), getMatric(this.wholeNodes.get(indexOne), targetNode));
+         return compare != 0 ? compare : Integer.compare(indexTwo, indexOne);
+      });
+      for (int i = 0; i < this.wholeNodes.size(); i++)
+      {
+         nearestIndices.add(i);
+         if (nearestIndices.size() > k)
+            nearestIndices.poll();
+      }
+
+      while (!nearestIndices.isEmpty())
+      {
+         nearestNodesToPack.add(0, this.wholeNodes.get(nearestIndices.poll()));
+      }
+   }
+
+   private void updateNearestNeighborIndex()
+   {
+      // Subclasses add to wholeNodes directly, so catch up with it instead of indexing in addNewNode()
+      for (int i = nearestNeighborIndex.size(); i < this.wholeNodes.size(); i++)
+      {
+         nearestNeighborIndex.add(this.wholeNodes.get(i));
+      }
+   }
+
+   private boolean isMatricOverridden()
+   {
+      try
+      {
+         return getClass().getMethod("getMatric", RRTNode.class, RRTNode.class).getDeclaringClass() != RRTTree.class;
+      }
+      catch (NoSuchMethodException e)
+      {
+         return true;
+      }
+   }
+
    public void updatePathNode(RRTNode endNodeOfPath)
    {
       this.pathNode.clear();
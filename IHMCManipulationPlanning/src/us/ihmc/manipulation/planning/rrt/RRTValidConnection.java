@@ -1,6 +1,8 @@
 package us.ihmc.manipulation.planning.rrt;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import us.ihmc.commons.PrintTools;
 
@@ -61,6 +63,19 @@ public class RRTValidConnection
       }
       return true;
    }
+
+   /**
+    * @return the intermediate nodes that isValidConnection() checks, to check them in a batch with an RRTValidityChecker
+    */
+   public List<RRTNode> getNodesToCheck()
+   {
+      if (nodes.size() < 3)
+      {
+         return Collections.emptyList();
+      }
+      return nodes.subList(1, nodes.size() - 1);
+   }
+
    /*
     * numberOfPiece should larger than 2
     */
@@ -0,0 +1,143 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks batches of nodes with {@link RRTNode#isValidNode()} on a fixed number of worker threads.
+ *
+ * The tree hands the node of an expansion together with the intermediate nodes of its connection to
+ * the checker as one batch, and so do the candidate connections of a rewiring. A batch stops early
+ * once one of its nodes is invalid.
+ *
+ * The nodes of a batch are checked concurrently, so isValidNode() has to be thread safe. Validity
+ * checks that share a robot model or a collision checker between the nodes are not. With a single
+ * thread the nodes are checked on the calling thread.
+ */
+public class RRTValidityChecker
+{
+   private final int numberOfThreads;
+   private final ExecutorService executor;
+
+   public RRTValidityChecker(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+      {
+         throw new RuntimeException("Need at least one thread to check nodes on");
+      }
+
+      this.numberOfThreads = numberOfThreads;
+      if (numberOfThreads == 1)
+      {
+         executor = null;
+      }
+      else
+      {
+         executor = Executors.newFixedThreadPool(numberOfThreads, runnable ->
+         {
+            Thread thread = new Thread(runnable, "RRTValidityChecker");
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+   }
+
+   /**
+    * @return true if every node is valid
+    */
+   public boolean areValidNodes(List<? extends RRTNode> nodes)
+   {
+      if (executor == null || nodes.size() < 2)
+      {
+         for (int i = 0; i < nodes.size(); i++)
+         {
+            if (!nodes.get(i).isValidNode())
+               return false;
+         }
+         return true;
+      }
+
+      AtomicBoolean allValid = new AtomicBoolean(true);
+      ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      int numberOfTasks = Math.min(numberOfThreads, nodes.size());
+      for (int task = 0; task < numberOfTasks; task++)
+      {
+         int firstNode = task;
+         tasks.add(() ->
+         {
+            // Interleaved, so the nodes along a connection are spread over the threads
+            for (int i = firstNode; i < nodes.size() && allValid.get(); i += numberOfTasks)
+            {
+               if (!nodes.get(i).isValidNode())
+                  allValid.set(false);
+            }
+            return null;
+         });
+      }
+
+      invokeAll(tasks);
+      return allValid.get();
+   }
+
+   /**
+    * @return for every connection whether it is valid
+    */
+   public boolean[] areValidConnections(List<RRTValidConnection> connections)
+   {
+      boolean[] valid = new boolean[connections.size()];
+
+      if (executor == null || connections.size() < 2)
+      {
+         for (int i = 0; i < connections.size(); i++)
+         {
+            valid[i] = connections.get(i).isValidConnection();
+         }
+         return valid;
+      }
+
+      ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for (int i = 0; i < connections.size(); i++)
+      {
+         int connection = i;
+         tasks.add(() ->
+         {
+            valid[connection] = connections.get(connection).isValidConnection();
+            return null;
+         });
+      }
+
+      invokeAll(tasks);
+      return valid;
+   }
+
+   /**
+    * Stops the worker threads. The checker cannot be used afterwards.
+    */
+   public void shutdown()
+   {
+      if (executor != null)
+         executor.shutdownNow();
+   }
+
+   private void invokeAll(List<Callable<Void>> tasks)
+   {
+      try
+      {
+         List<Future<Void>> results = executor.invokeAll(tasks);
+         for (Future<Void> result : results)
+         {
+            result.get();
+         }
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+}
@@ -0,0 +1,304 @@
+package us.ihmc.manipulation.planning.robotcollisionmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.LineSegment3D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+import us.ihmc.simulationconstructionset.physics.collision.simple.BoxShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CapsuleShapeDescription;
+import us.ihmc.simulationconstructionset.physics.collision.simple.CollisionBroadPhase;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleCollisionDetector;
+import us.ihmc.simulationconstructionset.physics.collision.simple.SimpleCollisionShapeFactory;
+
+public class RobotCollisionCheckerTest
+{
+   private static final int NUMBER_OF_CONFIGURATIONS = 3000;
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testAgainstCollisionDetectorOverRandomConfigurations()
+   {
+      Random random = new Random(4527L);
+      SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+      SimpleCollisionShapeFactory shapeFactory = (SimpleCollisionShapeFactory) collisionDetector.getShapeFactory();
+
+      List<CollisionShape> shapes = new ArrayList<CollisionShape>();
+      shapes.add(shapeFactory.addShape(shapeFactory.createCapsule(0.08, 0.5)));
+      shapes.add(shapeFactory.addShape(shapeFactory.createCapsule(0.05, 0.3)));
+      shapes.add(shapeFactory.addShape(shapeFactory.createBox(0.15, 0.1, 0.05)));
+      shapes.add(shapeFactory.addShape(shapeFactory.createBox(0.05, 0.05, 0.2)));
+      shapes.add(shapeFactory.addShape(shapeFactory.createSphere(0.1)));
+      // Cylinders go to the narrow phase of the collision detector
+      shapes.add(shapeFactory.addShape(shapeFactory.createCylinder(0.1, 0.3)));
+
+      // The last shape is only checked against the first one
+      int lastShape = shapes.size() - 1;
+      for (int i = 0; i < shapes.size(); i++)
+      {
+         shapes.get(i).setCollisionMask(1 << i);
+         if (i == lastShape)
+            shapes.get(i).setCollisionGroup(0b1);
+         else if (i == 0)
+            shapes.get(i).setCollisionGroup(0xFFFF);
+         else
+            shapes.get(i).setCollisionGroup(0xFFFF & ~(1 << lastShape));
+      }
+
+      RobotCollisionChecker collisionChecker = new RobotCollisionChecker(collisionDetector);
+      CollisionDetectionResult collisionDetectionResult = new CollisionDetectionResult();
+
+      double[][] poses = new double[shapes.size()][6];
+      for (int i = 0; i < shapes.size(); i++)
+      {
+         randomizePose(random, poses[i]);
+      }
+
+      int numberOfCollidingConfigurations = 0;
+      for (int configuration = 0; configuration < NUMBER_OF_CONFIGURATIONS; configuration++)
+      {
+         // Mostly small steps like a planner, so the remembered separations are used, and sometimes a jump
+         for (int i = 0; i < shapes.size(); i++)
+         {
+            if (random.nextInt(50) == 0)
+               randomizePose(random, poses[i]);
+            else
+               perturbPose(random, poses[i]);
+            shapes.get(i).setTransformToWorld(createTransform(poses[i]));
+         }
+
+         collisionDetectionResult.clear();
+         collisionDetector.performCollisionDetection(collisionDetectionResult);
+         boolean isCollisionFree = collisionDetectionResult.getNumberOfCollisions() == 0;
+
+         assertEquals("Configuration " + configuration, isCollisionFree, collisionChecker.isCollisionFree());
+         if (!isCollisionFree)
+            numberOfCollidingConfigurations++;
+      }
+
+      // Otherwise the test did not exercise both outcomes or the temporal coherence
+      assertTrue(numberOfCollidingConfigurations > NUMBER_OF_CONFIGURATIONS / 10);
+      assertTrue(numberOfCollidingConfigurations < NUMBER_OF_CONFIGURATIONS - NUMBER_OF_CONFIGURATIONS / 10);
+      assertTrue(collisionChecker.getNumberOfCoherentPairs() > 0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testTouchingShapes()
+   {
+      SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+      SimpleCollisionShapeFactory shapeFactory = (SimpleCollisionShapeFactory) collisionDetector.getShapeFactory();
+      RobotCollisionChecker collisionChecker = new RobotCollisionChecker(collisionDetector);
+
+      shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.6));
+      CollisionShape capsuleTwo = shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.6));
+
+      // The axes intersect, so the detector finds no contact normal and does not report the collision
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationRollAndZeroTranslation(0.5 * Math.PI);
+      capsuleTwo.setTransformToWorld(transform);
+      assertTrue(getCollisionResultFromCollisionDetector(collisionDetector));
+      assertTrue(collisionChecker.isCollisionFree());
+
+      // Parallel capsules at exactly the sum of their radii collide
+      transform.setTranslationAndIdentityRotation(0.0, 0.2, 0.0);
+      capsuleTwo.setTransformToWorld(transform);
+      assertFalse(getCollisionResultFromCollisionDetector(collisionDetector));
+      assertFalse(collisionChecker.isCollisionFree());
+
+      transform.setTranslationAndIdentityRotation(0.0, 0.2 + 1.0e-6, 0.0);
+      capsuleTwo.setTransformToWorld(transform);
+      assertTrue(getCollisionResultFromCollisionDetector(collisionDetector));
+      assertTrue(collisionChecker.isCollisionFree());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testShapesWithoutExactTest()
+   {
+      SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+      SimpleCollisionShapeFactory shapeFactory = (SimpleCollisionShapeFactory) collisionDetector.getShapeFactory();
+      RobotCollisionChecker collisionChecker = new RobotCollisionChecker(collisionDetector);
+
+      shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.6));
+      CollisionShape cylinder = shapeFactory.addShape(shapeFactory.createCylinder(0.1, 0.4));
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslation(0.15, 0.0, 0.0);
+      cylinder.setTransformToWorld(transform);
+      assertFalse(collisionChecker.isCollisionFree());
+
+      transform.setTranslation(0.5, 0.0, 0.0);
+      cylinder.setTransformToWorld(transform);
+      assertTrue(collisionChecker.isCollisionFree());
+
+      // The collision detector has no narrow phase for a box against a capsule, so they never collide
+      CollisionShape box = shapeFactory.addShape(new BoxShapeDescription(0.2, 0.2, 0.2));
+      box.setTransformToWorld(new RigidBodyTransform());
+      assertTrue(collisionChecker.isCollisionFree());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   public void testCoherenceCacheInvalidation()
+   {
+      SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+      SimpleCollisionShapeFactory shapeFactory = (SimpleCollisionShapeFactory) collisionDetector.getShapeFactory();
+      RobotCollisionChecker collisionChecker = new RobotCollisionChecker(collisionDetector);
+
+      CollisionShape capsuleOne = shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.5));
+      capsuleOne.setTransformToWorld(new RigidBodyTransform());
+      CollisionShape capsuleTwo = shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.5));
+      capsuleTwo.setTransformToWorld(createTranslation(1.0));
+
+      assertTrue(collisionChecker.isCollisionFree());
+      int numberOfCoherentPairs = collisionChecker.getNumberOfCoherentPairs();
+      assertTrue(collisionChecker.isCollisionFree());
+      assertEquals(numberOfCoherentPairs + 1, collisionChecker.getNumberOfCoherentPairs());
+
+      // Moving farther than the remembered separation gets the pair tested again
+      capsuleTwo.setTransformToWorld(createTranslation(0.15));
+      assertFalse(collisionChecker.isCollisionFree());
+      capsuleTwo.setTransformToWorld(createTranslation(1.0));
+      assertTrue(collisionChecker.isCollisionFree());
+      assertTrue(collisionChecker.isCollisionFree());
+
+      // Adding a shape
+      CollisionShape capsuleThree = shapeFactory.addShape(shapeFactory.createCapsule(0.1, 0.5));
+      capsuleThree.setTransformToWorld(createTranslation(0.05));
+      assertFalse(collisionChecker.isCollisionFree());
+
+      // Replacing a shape, so the number of shapes stays the same
+      List<CollisionShape> collisionObjects = collisionDetector.getCollisionObjects();
+      collisionObjects.remove(capsuleThree);
+      assertTrue(collisionChecker.isCollisionFree());
+      assertTrue(collisionChecker.isCollisionFree());
+      collisionObjects.set(collisionObjects.indexOf(capsuleTwo), capsuleThree);
+      assertFalse(collisionChecker.isCollisionFree());
+
+      // Changing the description of a shape needs the cache to be cleared
+      capsuleThree.setTransformToWorld(createTranslation(1.0));
+      assertTrue(collisionChecker.isCollisionFree());
+      assertTrue(collisionChecker.isCollisionFree());
+      LineSegment3D segment = new LineSegment3D(new Point3D(0.0, 0.0, -0.2), new Point3D(0.0, 0.0, 0.2));
+      ((CapsuleShapeDescription) capsuleThree.getCollisionShapeDescription()).setFrom(new CapsuleShapeDescription(0.95, segment));
+      collisionChecker.clearCache();
+      assertFalse(collisionChecker.isCollisionFree());
+
+      // Without temporal coherence every call tests the pairs again
+      ((CapsuleShapeDescription) capsuleThree.getCollisionShapeDescription()).setFrom(new CapsuleShapeDescription(0.1, segment));
+      collisionChecker.setUseTemporalCoherence(false);
+      numberOfCoherentPairs = collisionChecker.getNumberOfCoherentPairs();
+      assertTrue(collisionChecker.isCollisionFree());
+      assertTrue(collisionChecker.isCollisionFree());
+      assertEquals(numberOfCoherentPairs, collisionChecker.getNumberOfCoherentPairs());
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testAllowedCollisionMatrixMatchesCollisionMasksAndGroups()
+   {
+      SimpleCollisionDetector collisionDetector = new SimpleCollisionDetector();
+      SimpleCollisionShapeFactory shapeFactory = (SimpleCollisionShapeFactory) collisionDetector.getShapeFactory();
+
+      AbstractCollisionModel[] models = new AbstractCollisionModel[14];
+      for (int i = 0; i < models.length; i++)
+      {
+         models[i] = new CollisionModelBox(shapeFactory, new RigidBodyTransform(), 0.1, 0.1, 0.1);
+      }
+
+      AllowedCollisionMatrix allowedCollisionMatrix = RobotCollisionModel.createAllowedCollisionMatrix(models[0], models[1], models[2], models[3], models[4],
+                                                                                                       models[5], models[6], models[7], models[8], models[9],
+                                                                                                       models[10], models[11], models[12], models[13]);
+      allowedCollisionMatrix.applyCollisionMasksAndGroups();
+
+      // The bits RobotCollisionModel set by hand before the allowed collision matrix
+      int[] expectedMasks = {0b00000000000001, 0b00000000000010, 0b00000000000100, 0b00000000001000, 0b00000000010000, 0b00000000100000, 0b00000001000000,
+            0b00000010000000, 0b00000100000000, 0b00001000000000, 0b00010000000000, 0b00100000000000, 0b01000000000000, 0b10000000000000};
+      int[] expectedGroups = {0b00000011011000, // chest: R lower arm, R hand, L lower arm, L hand
+            0b00000011011000, // pelvis: R lower arm, R hand, L lower arm, L hand
+            0b00000011000000, // R upper arm: L lower arm, L hand
+            0b00000011100011, // R lower arm: L lower arm, L hand, chest, pelvis, L upper arm
+            0b00000111100011, // R hand: L lower arm, L hand, chest, pelvis, R upper leg, L upper arm
+            0b00000000011000, // L upper arm: R lower arm, R hand
+            0b00000000011111, // L lower arm: R lower arm, R hand, chest, pelvis, R upper arm
+            0b00100000011111, // L hand: R lower arm, R hand, chest, pelvis, L upper leg, R upper arm
+            0b11100000010000, // R upper leg: R hand, L upper leg, L lower leg, L foot
+            0b11100000000000, // R lower leg: L upper leg, L lower leg, L foot
+            0b11100000000000, // R foot: L upper leg, L lower leg, L foot
+            0b00011110000000, // L upper leg: L hand, R upper leg, R lower leg, R foot
+            0b00011100000000, // L lower leg: R upper leg, R lower leg, R foot
+            0b00011100000000}; // L foot: R upper leg, R lower leg, R foot
+
+      for (int i = 0; i < models.length; i++)
+      {
+         assertEquals("Mask of model " + i, expectedMasks[i], models[i].getCollisionShape().getCollisionMask());
+         assertEquals("Group of model " + i, expectedGroups[i], models[i].getCollisionShape().getCollisionGroup());
+      }
+
+      // Environment shapes that set all bits can collide with every model
+      CollisionShape environment = shapeFactory.addShape(shapeFactory.createSphere(0.1));
+      for (int i = 0; i < models.length; i++)
+      {
+         assertTrue(CollisionBroadPhase.canCollide(environment, models[i].getCollisionShape()));
+         for (int j = 0; j < models.length; j++)
+         {
+            assertEquals(!allowedCollisionMatrix.isCollisionAllowed(models[i], models[j]),
+                         CollisionBroadPhase.canCollide(models[i].getCollisionShape(), models[j].getCollisionShape()));
+         }
+      }
+   }
+
+   private static boolean getCollisionResultFromCollisionDetector(SimpleCollisionDetector collisionDetector)
+   {
+      CollisionDetectionResult collisionDetectionResult = new CollisionDetectionResult();
+      collisionDetector.performCollisionDetection(collisionDetectionResult);
+      return collisionDetectionResult.getNumberOfCollisions() == 0;
+   }
+
+   private static void randomizePose(Random random, double[] pose)
+   {
+      for (int i = 0; i < 3; i++)
+      {
+         pose[i] = RandomNumbers.nextDouble(random, 0.5);
+         pose[i + 3] = RandomNumbers.nextDouble(random, Math.PI);
+      }
+   }
+
+   private static void perturbPose(Random random, double[] pose)
+   {
+      for (int i = 0; i < 3; i++)
+      {
+         pose[i] = Math.max(-0.5, Math.min(0.5, pose[i] + RandomNumbers.nextDouble(random, 0.01)));
+         pose[i + 3] += RandomNumbers.nextDouble(random, 0.05);
+      }
+   }
+
+   private static RigidBodyTransform createTransform(double[] pose)
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationEulerAndZeroTranslation(pose[3], pose[4], pose[5]);
+      transform.setTranslation(pose[0], pose[1], pose[2]);
+      return transform;
+   }
+
+   private static RigidBodyTransform createTranslation(double x)
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setTranslation(x, 0.0, 0.0);
+      return transform;
+   }
+}
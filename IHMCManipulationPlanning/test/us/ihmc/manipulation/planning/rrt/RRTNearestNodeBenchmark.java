@@ -0,0 +1,57 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.Random;
+
+/**
+ * Measures the time to grow an RRTTree in 3D with the KD-tree nearest node search against the
+ * linear scan over all nodes, which RRTTree falls back to when getMatric() is overridden.
+ */
+public class RRTNearestNodeBenchmark
+{
+   private static final int DIMENSION = 3;
+   private static final int NUMBER_OF_NODES = 20000;
+   private static final int NUMBER_OF_RUNS = 3;
+
+   public static void main(String[] args)
+   {
+      for (int run = 0; run < NUMBER_OF_RUNS; run++)
+      {
+         double kdTreeTime = growTree(new RRTTree(createRootNode()), new Random(run));
+         double linearScanTime = growTree(new LinearScanRRTTree(createRootNode()), new Random(run));
+
+         System.out.println(NUMBER_OF_NODES + " nodes in " + DIMENSION + "D: KD-tree " + kdTreeTime + "s, linear scan " + linearScanTime + "s, speedup "
+               + linearScanTime / kdTreeTime);
+      }
+   }
+
+   private static double growTree(RRTTree tree, Random random)
+   {
+      tree.setStepLength(0.05);
+
+      long startTime = System.nanoTime();
+      while (tree.getWholeNode().size() < NUMBER_OF_NODES)
+      {
+         tree.expandTree(RRTTestNode.createRandomNode(random, DIMENSION, -1.0, 1.0, 0.0));
+      }
+      return (System.nanoTime() - startTime) * 1.0e-9;
+   }
+
+   private static RRTNode createRootNode()
+   {
+      return new RRTTestNode(DIMENSION);
+   }
+
+   private static class LinearScanRRTTree extends RRTTree
+   {
+      public LinearScanRRTTree(RRTNode rootNode)
+      {
+         super(rootNode);
+      }
+
+      @Override
+      public double getMatric(RRTNode nodeOne, RRTNode nodeTwo)
+      {
+         return nodeOne.getDistance(nodeTwo);
+      }
+   }
+}
@@ -0,0 +1,214 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class RRTNodeKDTreeTest
+{
+   private static final int NUMBER_OF_QUERIES = 200;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesAgainstLinearScan()
+   {
+      Random random = new Random(6134L);
+      for (int dimension : new int[] {1, 2, 3, 6})
+      {
+         RRTNodeKDTree kdTree = new RRTNodeKDTree(dimension);
+         List<RRTNode> nodes = new ArrayList<RRTNode>();
+         for (int i = 0; i < 1000; i++)
+         {
+            RRTNode node = RRTTestNode.createRandomNode(random, dimension, -1.0, 1.0, 0.0);
+            nodes.add(node);
+            kdTree.add(node);
+         }
+         assertEquals(nodes.size(), kdTree.size());
+
+         assertQueriesMatchLinearScan(random, kdTree, nodes, dimension, -1.2, 1.2);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testTieBreakingByInsertionOrder()
+   {
+      Random random = new Random(1098L);
+      for (int dimension : new int[] {1, 2, 3})
+      {
+         RRTNodeKDTree kdTree = new RRTNodeKDTree(dimension);
+         List<RRTNode> nodes = new ArrayList<RRTNode>();
+
+         // Coordinates on a coarse grid, so there are duplicates and many nodes at the same distance from the queries
+         for (int i = 0; i < 500; i++)
+         {
+            RRTNode node = new RRTTestNode(dimension);
+            for (int axis = 0; axis < dimension; axis++)
+            {
+               node.setNodeData(axis, random.nextInt(5) - 2);
+            }
+            nodes.add(node);
+            kdTree.add(node);
+         }
+
+         // Queries on and half way between the grid points
+         for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+         {
+            RRTNode query = new RRTTestNode(dimension);
+            for (int axis = 0; axis < dimension; axis++)
+            {
+               query.setNodeData(axis, 0.5 * (random.nextInt(11) - 5));
+            }
+            assertQueryMatchesLinearScan(random, kdTree, nodes, query);
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testScapegoatRebuilds()
+   {
+      Random random = new Random(7712L);
+      int dimension = 3;
+      RRTNodeKDTree kdTree = new RRTNodeKDTree(dimension);
+      List<RRTNode> nodes = new ArrayList<RRTNode>();
+
+      // Nodes moving away from the origin like a growing RRT degenerate a plain KD-tree and trigger rebuilds
+      for (int i = 0; i < 3000; i++)
+      {
+         RRTNode node = new RRTTestNode(dimension);
+         double radius = 0.001 * i;
+         for (int axis = 0; axis < dimension; axis++)
+         {
+            node.setNodeData(axis, radius + 0.01 * random.nextDouble());
+         }
+         nodes.add(node);
+         kdTree.add(node);
+
+         // Check while the tree is rebuilt, not only at the end
+         if (i % 500 == 0)
+         {
+            assertQueriesMatchLinearScan(random, kdTree, nodes, dimension, -0.5, 3.5);
+         }
+      }
+
+      // Strictly sorted along every axis
+      for (int i = 0; i < 2000; i++)
+      {
+         RRTNode node = new RRTTestNode(dimension);
+         for (int axis = 0; axis < dimension; axis++)
+         {
+            node.setNodeData(axis, -1.0 - 0.001 * i);
+         }
+         nodes.add(node);
+         kdTree.add(node);
+      }
+      assertEquals(nodes.size(), kdTree.size());
+      assertQueriesMatchLinearScan(random, kdTree, nodes, dimension, -3.5, 3.5);
+
+      kdTree.clear();
+      assertEquals(0, kdTree.size());
+      assertNull(kdTree.getNearestNode(nodes.get(0)));
+      List<RRTNode> result = new ArrayList<RRTNode>();
+      kdTree.getNearestNodes(nodes.get(0), 3, result);
+      assertEquals(0, result.size());
+      kdTree.getNodesWithinRadius(nodes.get(0), 1.0, result);
+      assertEquals(0, result.size());
+   }
+
+   private static void assertQueriesMatchLinearScan(Random random, RRTNodeKDTree kdTree, List<RRTNode> nodes, int dimension, double min, double max)
+   {
+      for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+      {
+         RRTNode query;
+         if (random.nextInt(4) == 0)
+            query = nodes.get(random.nextInt(nodes.size())); // distance 0 to a node of the tree
+         else
+            query = RRTTestNode.createRandomNode(random, dimension, min, max, 0.0);
+         assertQueryMatchesLinearScan(random, kdTree, nodes, query);
+      }
+   }
+
+   private static void assertQueryMatchesLinearScan(Random random, RRTNodeKDTree kdTree, List<RRTNode> nodes, RRTNode query)
+   {
+      assertSame(getNearestNode(nodes, query), kdTree.getNearestNode(query));
+
+      int k = 1 + random.nextInt(20);
+      List<RRTNode> nearestNodes = new ArrayList<RRTNode>();
+      kdTree.getNearestNodes(query, k, nearestNodes);
+      assertSameNodes(getNearestNodes(nodes, query, k), nearestNodes);
+
+      double radius = 0.5 * random.nextDouble();
+      List<RRTNode> nodesWithinRadius = new ArrayList<RRTNode>();
+      kdTree.getNodesWithinRadius(query, radius, nodesWithinRadius);
+      assertSameNodes(getNodesWithinRadius(nodes, query, radius), nodesWithinRadius);
+   }
+
+   private static void assertSameNodes(List<RRTNode> expected, List<RRTNode> actual)
+   {
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++)
+      {
+         assertSame(expected.get(i), actual.get(i));
+      }
+   }
+
+   /** The first closest node in insertion order, like RRTTree without the KD-tree */
+   private static RRTNode getNearestNode(List<RRTNode> nodes, RRTNode query)
+   {
+      RRTNode nearestNode = null;
+      double nearestDistance = Double.MAX_VALUE;
+      for (RRTNode node : nodes)
+      {
+         double distance = node.getDistance(query);
+         if (distance < nearestDistance)
+         {
+            nearestNode = node;
+            nearestDistance = distance;
+         }
+      }
+      return nearestNode;
+   }
+
+   /** Sorted by distance, then insertion order */
+   private static List<RRTNode> getNearestNodes(List<RRTNode> nodes, RRTNode query, int k)
+   {
+      List<Integer> indices = new ArrayList<Integer>();
+      for (int i = 0; i < nodes.size(); i++)
+      {
+         indices.add(i);
+      }
+      indices.sort((indexOne, indexTwo) ->
+      {
+         int compare = Double.compare(nodes.get(indexOne).getDistance(query), nodes.get(indexTwo).getDistance(query));
+         return compare != 0 ? compare : Integer.compare(indexOne, indexTwo);
+      });
+
+      List<RRTNode> nearestNodes = new ArrayList<RRTNode>();
+      for (int i = 0; i < Math.min(k, indices.size()); i++)
+      {
+         nearestNodes.add(nodes.get(indices.get(i)));
+      }
+      return nearestNodes;
+   }
+
+   /** In insertion order */
+   private static List<RRTNode> getNodesWithinRadius(List<RRTNode> nodes, RRTNode query, double radius)
+   {
+      List<RRTNode> nodesWithinRadius = new ArrayList<RRTNode>();
+      for (RRTNode node : nodes)
+      {
+         if (node.getDistance(query) <= radius)
+            nodesWithinRadius.add(node);
+      }
+      return nodesWithinRadius;
+   }
+}
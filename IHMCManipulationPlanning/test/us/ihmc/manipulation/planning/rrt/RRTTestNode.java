@@ -0,0 +1,52 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import java.util.Random;
+
+/**
+ * Node of any dimension for the RRT tests. Nodes inside the box obstacle around the origin of the
+ * first two dimensions are invalid.
+ */
+public class RRTTestNode extends RRTNode
+{
+   private final double obstacleHalfSize;
+
+   public RRTTestNode(int dimension)
+   {
+      this(dimension, 0.0);
+   }
+
+   public RRTTestNode(int dimension, double obstacleHalfSize)
+   {
+      super(dimension);
+      this.obstacleHalfSize = obstacleHalfSize;
+   }
+
+   public static RRTTestNode createRandomNode(Random random, int dimension, double min, double max, double obstacleHalfSize)
+   {
+      RRTTestNode node = new RRTTestNode(dimension, obstacleHalfSize);
+      for (int i = 0; i < dimension; i++)
+      {
+         node.setNodeData(i, min + (max - min) * random.nextDouble());
+      }
+      return node;
+   }
+
+   @Override
+   public boolean isValidNode()
+   {
+      if (obstacleHalfSize <= 0.0 || getDimensionOfNodeData() < 2)
+         return true;
+      return Math.abs(getNodeData(0)) > obstacleHalfSize || Math.abs(getNodeData(1)) > obstacleHalfSize;
+   }
+
+   @Override
+   public RRTNode createNode()
+   {
+      return new RRTTestNode(getDimensionOfNodeData(), obstacleHalfSize);
+   }
+
+   @Override
+   public void setRandomNodeData()
+   {
+   }
+}
@@ -0,0 +1,162 @@
+package us.ihmc.manipulation.planning.rrt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class RRTTreeRewiringTest
+{
+   private static final double EPSILON = 1.0e-9;
+   private static final double OBSTACLE_HALF_SIZE = 0.5;
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testRewiringNeverIncreasesCostsOrCreatesCycles()
+   {
+      Random random = new Random(2871L);
+      RRTTestNode rootNode = new RRTTestNode(2, OBSTACLE_HALF_SIZE);
+      rootNode.setNodeData(0, -2.0);
+      rootNode.setNodeData(1, -2.0);
+
+      RRTTree tree = new RRTTree(rootNode);
+      tree.setStepLength(0.3);
+      tree.setRewiringRadius(0.6);
+
+      IdentityHashMap<RRTNode, Double> previousCosts = new IdentityHashMap<RRTNode, Double>();
+      int numberOfRewiredNodes = 0;
+
+      for (int i = 0; i < 1500; i++)
+      {
+         tree.expandTree(RRTTestNode.createRandomNode(random, 2, -2.5, 2.5, OBSTACLE_HALF_SIZE));
+
+         List<RRTNode> nodes = tree.getWholeNode();
+         assertTreeIsConsistent(tree, nodes);
+
+         for (RRTNode node : nodes)
+         {
+            double cost = computeCostFromRoot(node, nodes.size());
+            assertEquals(cost, tree.getCostFromRoot(node), EPSILON);
+
+            Double previousCost = previousCosts.get(node);
+            if (previousCost != null)
+            {
+               assertTrue("Cost of a node increased from " + previousCost + " to " + cost, cost <= previousCost + EPSILON);
+               if (cost < previousCost - EPSILON)
+                  numberOfRewiredNodes++;
+            }
+            previousCosts.put(node, cost);
+         }
+      }
+
+      // Otherwise the test did not exercise the rewiring
+      assertTrue(numberOfRewiredNodes > 0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testOptimalGoalCostNeverIncreases()
+   {
+      RRTTestNode rootNode = new RRTTestNode(2, OBSTACLE_HALF_SIZE);
+      rootNode.setNodeData(0, -2.0);
+      rootNode.setNodeData(1, -2.0);
+      RRTTestNode goalNode = new RRTTestNode(2, OBSTACLE_HALF_SIZE);
+      goalNode.setNodeData(0, 2.0);
+      goalNode.setNodeData(1, 2.0);
+
+      RRTPlanner planner = new RRTPlanner(rootNode, goalNode, 0.3);
+      planner.setRewiringRadius(0.6);
+      planner.getRRTTree().setUpperBound(createNode(2.5, 2.5));
+      planner.getRRTTree().setLowerBound(createNode(-2.5, -2.5));
+
+      double previousCost = Double.POSITIVE_INFINITY;
+      boolean reachedGoal = false;
+      for (int i = 0; i < 30; i++)
+      {
+         if (!planner.expandTreeOptimalGoal(100))
+         {
+            continue;
+         }
+         reachedGoal = true;
+
+         List<RRTNode> path = planner.getOptimalPath();
+         assertSame(rootNode, path.get(0));
+         assertSame(goalNode, path.get(path.size() - 1));
+         double cost = 0.0;
+         for (int j = 1; j < path.size(); j++)
+         {
+            assertSame(path.get(j - 1), path.get(j).getParentNode());
+            cost += path.get(j - 1).getDistance(path.get(j));
+         }
+
+         assertTrue(cost <= previousCost + EPSILON);
+         previousCost = cost;
+      }
+
+      assertTrue(reachedGoal);
+   }
+
+   /**
+    * Every node reaches the root through its parents, and the parents and children agree.
+    */
+   private static void assertTreeIsConsistent(RRTTree tree, List<RRTNode> nodes)
+   {
+      for (RRTNode node : nodes)
+      {
+         // A cycle never reaches the root
+         RRTNode ancestor = node;
+         int depth = 0;
+         while (ancestor != tree.getRootNode())
+         {
+            ancestor = ancestor.getParentNode();
+            depth++;
+            assertTrue(ancestor != null);
+            assertTrue("Cycle in the tree", depth <= nodes.size());
+         }
+
+         int numberOfTimesChild = 0;
+         if (node.getParentNode() != null)
+         {
+            for (int i = 0; i < node.getParentNode().getNumberOfChild(); i++)
+            {
+               if (node.getParentNode().getChildNode(i) == node)
+                  numberOfTimesChild++;
+            }
+            assertEquals(1, numberOfTimesChild);
+         }
+
+         for (int i = 0; i < node.getNumberOfChild(); i++)
+         {
+            assertSame(node, node.getChildNode(i).getParentNode());
+         }
+      }
+   }
+
+   private static double computeCostFromRoot(RRTNode node, int numberOfNodes)
+   {
+      double cost = 0.0;
+      RRTNode child = node;
+      for (int i = 0; i < numberOfNodes && child.getParentNode() != null; i++)
+      {
+         cost += child.getParentNode().getDistance(child);
+         child = child.getParentNode();
+      }
+      return cost;
+   }
+
+   private static RRTNode createNode(double x, double y)
+   {
+      RRTNode node = new RRTTestNode(2, OBSTACLE_HALF_SIZE);
+      node.setNodeData(0, x);
+      node.setNodeData(1, y);
+      return node;
+   }
+}
@@ -18,6 +18,8 @@ import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple4D.Quaternion;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.DepthDataStateCommand;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.LidarPosePacket;
+import us.ihmc.humanoidRobotics.communication.packets.sensing.PackedPointCloudWorldPacket;
+import us.ihmc.humanoidRobotics.communication.packets.sensing.PointCloudPacker;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PointCloudWorldPacket;
 import us.ihmc.robotics.dataStructures.TimestampedPoint;
 import us.ihmc.tools.thread.ThreadTools;
@@ -33,6 +35,11 @@ public class PointCloudWorldPacketGenerator implements Runnable
    private PacketDestination packetDestination = PacketDestination.BROADCAST;
    private ScheduledFuture<?> scheduled = null;
 
+   private final ArrayList<Point3D> groundPoints = new ArrayList<>();
+   private final ArrayList<TimestampedPoint> nearScanPoints = new ArrayList<>();
+   private final PointCloudPacker pointCloudPacker = new PointCloudPacker();
+   private volatile boolean sendPackedPointClouds = false;
+
    public PointCloudWorldPacketGenerator(PacketCommunicator sensorSuitePacketCommunicator, ReadLock readLock, DepthDataStore depthDataFilter)
    {
       this.packetCommunicator = sensorSuitePacketCommunicator;
@@ -50,6 +57,7 @@ public class PointCloudWorldPacketGenerator implements Runnable
                {
                   PrintTools.info("Mutlisense scan destination = " + PacketDestination.BROADCAST.name());
                   packetDestination = PacketDestination.BROADCAST;
+                  pointCloudPacker.reset();
                }
             }
             else if (depthDataStateCommand.getLidarState() == DepthDataStateCommand.LidarState.ENABLE_BEHAVIOR_ONLY)
@@ -58,6 +66,7 @@ public class PointCloudWorldPacketGenerator implements Runnable
                {
                   PrintTools.info("Mutlisense scan destination = " + PacketDestination.BEHAVIOR_MODULE.name());
                   packetDestination = PacketDestination.BEHAVIOR_MODULE;
+                  pointCloudPacker.reset();
                }
             }
          }
@@ -71,27 +80,65 @@ public class PointCloudWorldPacketGenerator implements Runnable
       this.packetCommunicator = null;
    }
 
-   public PointCloudWorldPacket getPointCloudWorldPacket()
+   public synchronized PointCloudWorldPacket getPointCloudWorldPacket()
    {
       PointCloudWorldPacket packet = new PointCloudWorldPacket();
 
-      readLock.lock();
-      ArrayList<Point3D> groundPoints = new ArrayList<>();
-      ArrayList<TimestampedPoint> nearScanTimestampedPoints = depthDataFilter.getNearScan().getPointsCopy();
-      packet.defaultGroundHeight = (float) depthDataFilter.getQuadTree().getDefaultHeightWhenNoPoints();
-      depthDataFilter.getQuadTree().getCellAverageStoredPoints(groundPoints);
-      readLock.unlock();
+      packet.defaultGroundHeight = getPoints();
+      packet.setGroundQuadTreeSupport(groundPoints);
+      packet.setDecayingWorldScan(nearScanPoints);
+      packet.timestamp = System.nanoTime();
+      return packet;
+   }
+
+   /**
+    * Packs the points with the {@link #getPointCloudPacker() packer}. Unless delta encoding is
+    * switched off, every packet returned has to be sent, the next packet can be a delta of it.
+    */
+   public synchronized PackedPointCloudWorldPacket getPackedPointCloudWorldPacket()
+   {
+      PackedPointCloudWorldPacket packet = new PackedPointCloudWorldPacket();
 
-      packet.setGroundQuadTreeSupport(groundPoints.toArray(new Point3D[groundPoints.size()]));
+      float defaultGroundHeight = getPoints();
+      pointCloudPacker.pack(groundPoints, nearScanPoints, System.nanoTime(), defaultGroundHeight, packet);
+      return packet;
+   }
+
+   /**
+    * Copies the points into the lists that are reused from packet to packet.
+    *
+    * @return the default ground height
+    */
+   private float getPoints()
+   {
+      groundPoints.clear();
 
-      ArrayList<Point3D> nearScanPoints = new ArrayList<>();
-      for (TimestampedPoint point : nearScanTimestampedPoints)
+      readLock.lock();
+      try
       {
-         nearScanPoints.add(new Point3D(point.getX(), point.getY(), point.getZ()));
+         depthDataFilter.getNearScan().getPoints(nearScanPoints);
+         depthDataFilter.getQuadTree().getCellAverageStoredPoints(groundPoints);
+         return (float) depthDataFilter.getQuadTree().getDefaultHeightWhenNoPoints();
+      }
+      finally
+      {
+         readLock.unlock();
       }
-      packet.setDecayingWorldScan(nearScanPoints.toArray(new Point3D[nearScanPoints.size()]));
-      packet.timestamp = System.nanoTime();
-      return packet;
+   }
+
+   /**
+    * @param sendPackedPointClouds send PackedPointCloudWorldPackets instead of PointCloudWorldPackets
+    */
+   public void setSendPackedPointClouds(boolean sendPackedPointClouds)
+   {
+      if (sendPackedPointClouds && !this.sendPackedPointClouds)
+         pointCloudPacker.reset();
+      this.sendPackedPointClouds = sendPackedPointClouds;
+   }
+
+   public PointCloudPacker getPointCloudPacker()
+   {
+      return pointCloudPacker;
    }
 
    private final AtomicReference<LidarPosePacket> lidarPosePacketToSend = new AtomicReference<LidarPosePacket>(null);
@@ -124,9 +171,18 @@ public class PointCloudWorldPacketGenerator implements Runnable
    {
       try
       {
-         PointCloudWorldPacket pointCloudWorldPacket = getPointCloudWorldPacket();
-         pointCloudWorldPacket.setDestination(packetDestination);
-         packetCommunicator.send(pointCloudWorldPacket);
+         if (sendPackedPointClouds)
+         {
+            PackedPointCloudWorldPacket packedPointCloudWorldPacket = getPackedPointCloudWorldPacket();
+            packedPointCloudWorldPacket.setDestination(packetDestination);
+            packetCommunicator.send(packedPointCloudWorldPacket);
+         }
+         else
+         {
+            PointCloudWorldPacket pointCloudWorldPacket = getPointCloudWorldPacket();
+            pointCloudWorldPacket.setDestination(packetDestination);
+            packetCommunicator.send(pointCloudWorldPacket);
+         }
 
          LidarPosePacket lidarPosePacket = lidarPosePacketToSend.getAndSet(null);
          if (lidarPosePacket != null)
@@ -1,5 +1,7 @@
 package us.ihmc.ihmcPerception.depthData;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import us.ihmc.euclid.tuple3D.Point3D;
@@ -7,6 +9,7 @@ import us.ihmc.euclid.tuple3D.Point3D;
 import org.junit.Test;
 
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.humanoidRobotics.communication.packets.sensing.PackedPointCloudWorldPacket;
 import us.ihmc.humanoidRobotics.communication.packets.sensing.PointCloudWorldPacket;
 
 public class PointCloudWorldPacketGeneratorTest
@@ -34,6 +37,39 @@ public class PointCloudWorldPacketGeneratorTest
       assertTrue(packet.getGroundQuadTreeSupport().length > 0);
       assertTrue(packet.getDecayingWorldScan().length > 0);
 
+   }
+
+	@ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testGeneratePackedPointCloudWorldPacket()
+   {
+      DepthDataFilter depthDataFilter = new DepthDataFilter();
+      PointCloudWorldPacketGenerator generator = new PointCloudWorldPacketGenerator(depthDataFilter);
+
+      Point3D sensorOrigin = new Point3D(0, 0, 1.0);
+      for (double x = -2; x < 2; x += 0.01)
+      {
+         for (double y = -2; y < 2; y += 0.01)
+         {
+            Point3D point = new Point3D(x, y, Math.max(x + y, 0.0));
+            depthDataFilter.addPoint(point, sensorOrigin);
+         }
+      }
+
+      PointCloudWorldPacket packet = generator.getPointCloudWorldPacket();
+      PackedPointCloudWorldPacket packedPacket = generator.getPackedPointCloudWorldPacket();
+
+      assertTrue(packedPacket.isCompleteCloud());
+      int numberOfGroundPoints = PackedPointCloudWorldPacket.getNumberOfPoints(packedPacket.groundQuadTreeSupport);
+      int numberOfScanPoints = PackedPointCloudWorldPacket.getNumberOfPoints(packedPacket.decayingWorldScan);
+      assertTrue(numberOfGroundPoints > 0 && numberOfGroundPoints <= packet.getGroundQuadTreeSupport().length);
+      assertTrue(numberOfScanPoints > 0 && numberOfScanPoints <= packet.getDecayingWorldScan().length);
+
+      // No points were added, so the next packet is a delta without new points
+      packedPacket = generator.getPackedPointCloudWorldPacket();
+      assertFalse(packedPacket.isCompleteCloud());
+      assertEquals(0, PackedPointCloudWorldPacket.getNumberOfPoints(packedPacket.groundQuadTreeSupport));
+      assertEquals(0, PackedPointCloudWorldPacket.getNumberOfPoints(packedPacket.decayingWorldScan));
    }
 
 }
@@ -3,8 +3,7 @@ package us.ihmc.quadrupedRobotics.optimization.modelPredictiveControl;
 import org.ejml.data.DenseMatrix64F;
 import org.ejml.ops.CommonOps;
 
-import us.ihmc.convexOptimization.quadraticProgram.ConstrainedQPSolver;
-import us.ihmc.convexOptimization.quadraticProgram.QuadProgSolver;
+import us.ihmc.convexOptimization.quadraticProgram.GoldfarbIdnaniActiveSetQPSolver;
 import us.ihmc.graphicsDescription.appearance.YoAppearance;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicPosition;
 import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
@@ -14,15 +13,17 @@ import us.ihmc.quadrupedRobotics.planning.*;
 import us.ihmc.quadrupedRobotics.planning.trajectory.QuadrupedPiecewiseConstantCopTrajectory;
 import us.ihmc.quadrupedRobotics.util.PreallocatedList;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
+import us.ihmc.robotics.dataStructures.variable.LongYoVariable;
 import us.ihmc.robotics.geometry.Direction;
 import us.ihmc.robotics.geometry.FramePoint;
 import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.linearAlgebra.MatrixTools;
 import us.ihmc.robotics.math.frames.YoFramePoint;
 import us.ihmc.robotics.math.frames.YoFrameVector;
 import us.ihmc.robotics.referenceFrames.ReferenceFrame;
 import us.ihmc.robotics.robotSide.QuadrantDependentList;
 import us.ihmc.robotics.robotSide.RobotQuadrant;
-import us.ihmc.tools.exceptions.NoConvergenceException;
 
 public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements QuadrupedMpcOptimizationWithLaneChange
 {
@@ -34,21 +35,17 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
    private final QuadrupedTimedContactSequence timedContactSequence;
    private final QuadrupedPiecewiseConstantCopTrajectory piecewiseConstantCopTrajectory;
 
-   private final ConstrainedQPSolver qpSolver = new QuadProgSolver();
+   private final GoldfarbIdnaniActiveSetQPSolver qpSolver = new GoldfarbIdnaniActiveSetQPSolver();
    private final DenseMatrix64F qpSolutionVector = new DenseMatrix64F(6, 1);
-   private final DenseMatrix64F qpCostVector = new DenseMatrix64F(100, 1);
-   private final DenseMatrix64F qpCostMatrix = new DenseMatrix64F(100, 100);
-   private final DenseMatrix64F qpEqualityVector = new DenseMatrix64F(100, 1);
-   private final DenseMatrix64F qpEqualityMatrix = new DenseMatrix64F(100, 100);
-   private final DenseMatrix64F qpInequalityVector = new DenseMatrix64F(100, 1);
-   private final DenseMatrix64F qpInequalityMatrix = new DenseMatrix64F(100, 100);
-
-   private final DenseMatrix64F x0 = new DenseMatrix64F(100, 1);
-   private final DenseMatrix64F y0 = new DenseMatrix64F(2, 1);
-   private final DenseMatrix64F B = new DenseMatrix64F(100, 6);
-   private final DenseMatrix64F C = new DenseMatrix64F(2, 100);
-   private final DenseMatrix64F S = new DenseMatrix64F(2, 100);
-   private final DenseMatrix64F CmS = new DenseMatrix64F(2, 100);
+   private final DenseMatrix64F qpCostVector = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F qpCostMatrix = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F qpEqualityVector = new DenseMatrix64F(3, 1);
+   private final DenseMatrix64F qpEqualityMatrix = new DenseMatrix64F(3, 6);
+   private final DenseMatrix64F qpLowerBoundVector = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F qpUpperBoundVector = new DenseMatrix64F(6, 1);
+
+   // (C - S) is a single row per direction, with one weight per constant center of pressure interval.
+   private final double[] intervalWeights;
    private final DenseMatrix64F CmSB = new DenseMatrix64F(2, 6);
    private final DenseMatrix64F CmSx0py0 = new DenseMatrix64F(2, 1);
 
@@ -58,6 +55,8 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
 
    private YoFramePoint yoCmpPositionSetpoint = new YoFramePoint("cmpPositionSetpoint", ReferenceFrame.getWorldFrame(), registry);
    private YoFrameVector yoStepAdjustmentVector = new YoFrameVector("stepAdjustmentVector", ReferenceFrame.getWorldFrame(), registry);
+   private final LongYoVariable qpSolveTime = new LongYoVariable("qpSolveTime", registry);
+   private final IntegerYoVariable qpNumberOfIterations = new IntegerYoVariable("qpNumberOfIterations", registry);
 
    public QuadrupedDcmBasedMpcOptimizationWithLaneChange(DivergentComponentOfMotionEstimator dcmPositionEstimator, int maxPreviewSteps,
          YoVariableRegistry parentRegistry, YoGraphicsListRegistry graphicsListRegistry)
@@ -67,6 +66,10 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
       this.currentDcmEstimate = new FramePoint();
       this.timedContactSequence = new QuadrupedTimedContactSequence(0, 2 * maxPreviewSteps + 4);
       this.piecewiseConstantCopTrajectory = new QuadrupedPiecewiseConstantCopTrajectory(timedContactSequence.capacity());
+      this.intervalWeights = new double[timedContactSequence.capacity()];
+
+      // The problem only changes slightly between two control ticks, start from the previous active set.
+      qpSolver.setUseWarmStart(true);
 
       if (graphicsListRegistry != null)
       {
@@ -82,6 +85,7 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
    public void initialize()
    {
       timedContactSequence.initialize();
+      qpSolver.resetActiveConstraints();
    }
 
    @Override
@@ -94,13 +98,15 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
       // s.t
       // (C - S)Bu + (C - S)x0 + y0 = 0
       // u0 + u1 + u2 + u3 - 1 = 0
-      // u0 >= 0
-      // u1 >=0
-      // u2 >= 0
-      // u3 >= 0
+      // u0 >= umin
+      // u1 >= umin
+      // u2 >= umin
+      // u3 >= umin
       // where u = [u0, u1, u2, u3, u4, u5]',
       // u0, u1, u2, u3 are the normalized contact pressures for each quadrant and
-      // u4, u5 are the x and y step adjustment in meters
+      // u4, u5 are the x and y step adjustment in meters.
+      // The center of pressure is constant on each interval of the contact sequence, so (C - S)B and
+      // (C - S)x0 + y0 are accumulated interval by interval instead of building the whole preview.
 
       // Compute current divergent component of motion.
       dcmPositionEstimator.compute(currentDcmEstimate, currentComVelocity);
@@ -139,22 +145,28 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
       DenseMatrix64F b = qpCostVector;
       DenseMatrix64F Aeq = qpEqualityMatrix;
       DenseMatrix64F beq = qpEqualityVector;
-      DenseMatrix64F Ain = qpInequalityMatrix;
-      DenseMatrix64F bin = qpInequalityVector;
+      DenseMatrix64F lb = qpLowerBoundVector;
+      DenseMatrix64F ub = qpUpperBoundVector;
 
       initializeCostTerms(currentContactState, settings);
       initializeEqualityConstraints(currentContactState, currentSolePosition);
-      initializeInequalityConstraints(settings);
+      initializeVariableBounds(settings);
+
+      long solveStartTime = System.nanoTime();
+      qpSolver.clear();
+      qpSolver.setQuadraticCostFunction(A, b, 0.0);
+      qpSolver.setLinearEqualityConstraints(Aeq, beq);
+      qpSolver.setVariableBounds(lb, ub);
 
       DenseMatrix64F u = qpSolutionVector;
-      u.reshape(numberOfContacts + 2, 1);
-      try
-      {
-         qpSolver.solve(A, b, Aeq, beq, Ain, bin, u, false);
-      }
-      catch (NoConvergenceException e)
+      qpNumberOfIterations.set(qpSolver.solve(u));
+      qpSolveTime.set(System.nanoTime() - solveStartTime);
+
+      if (MatrixTools.containsNaN(u))
       {
-         System.err.println("NoConvergenceException: " + e.getMessage());
+         System.err.println(getClass().getSimpleName() + ": failed to solve the QP, using the nominal contact pressures.");
+         qpSolver.resetActiveConstraints();
+         initializeNominalSolution(currentContactState);
       }
 
       // Compute optimal centroidal moment pivot and step adjustment
@@ -213,65 +225,57 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
    private void initializeEqualityConstraints(QuadrantDependentList<ContactState> currentContactState, QuadrantDependentList<FramePoint> currentSolePosition)
    {
       // Initialize equality constraints. (Aeq u = beq)
-      x0.reshape(2 * numberOfIntervals, 1);                    // center of pressure offset
-      y0.reshape(2, 1);                                        // final divergent component of motion offset
-      B.reshape(2 * numberOfIntervals, numberOfContacts + 2);  // center of pressure map
-      C.reshape(2, 2 * numberOfIntervals);                     // final divergent component of motion map
-      S.reshape(2, 2 * numberOfIntervals);                     // final interval selection matrix
-      B.zero();
-      C.zero();
-      S.zero();
+      // The final divergent component of motion is y0 + C (x0 + B u) with one block of rows of x0 and B per
+      // interval, and S selects the last interval. Each row of (C - S) has a single weight per interval:
+      // w_i = exp(w (t_n - t_i+1)) (1 - exp(w (t_i+1 - t_i))) for i < n, and w_n = -1.
+      double naturalFrequency = linearInvertedPendulumModel.getNaturalFrequency();
+      double finalTime = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(numberOfIntervals - 1);
+      double expOfNextInterval = 1.0;
+      for (int i = numberOfIntervals - 2; i >= 0; i--)
+      {
+         double expOfInterval = Math.exp(naturalFrequency * (finalTime - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i)));
+         intervalWeights[i] = expOfNextInterval - expOfInterval;
+         expOfNextInterval = expOfInterval;
+      }
+      intervalWeights[numberOfIntervals - 1] = -1.0;
+      double expOfPreviewTime = expOfNextInterval;
+
+      double stepAdjustmentWeight = 0.0;
+      for (int i = 0; i < numberOfIntervals; i++)
+      {
+         stepAdjustmentWeight += intervalWeights[i] * piecewiseConstantCopTrajectory.getNormalizedPressureContributedByQueuedSteps(i);
+         piecewiseConstantCopTrajectory.getCopPositionAtStartOfInterval(i).changeFrame(ReferenceFrame.getWorldFrame());
+      }
+
+      CmSB.reshape(2, numberOfContacts + 2);
+      CmSB.zero();
+      CmSx0py0.reshape(2, 1);
 
       int rowOffset = 0;
-      int columnOffset = 0;
       for (Direction direction : Direction.values2D())
       {
-         columnOffset = 0;
+         // The center of pressure of the first interval is entirely given by the current contact pressures.
+         int columnOffset = 0;
          for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
          {
             if (currentContactState.get(robotQuadrant) == ContactState.IN_CONTACT)
             {
                currentSolePosition.get(robotQuadrant).changeFrame(ReferenceFrame.getWorldFrame());
-               B.set(rowOffset, columnOffset, currentSolePosition.get(robotQuadrant).get(direction));
+               CmSB.set(rowOffset, columnOffset, intervalWeights[0] * currentSolePosition.get(robotQuadrant).get(direction));
                columnOffset++;
             }
          }
+         CmSB.set(rowOffset, numberOfContacts + rowOffset, stepAdjustmentWeight);
 
-         for (int i = 0; i < numberOfIntervals; i++)
-         {
-            piecewiseConstantCopTrajectory.getCopPositionAtStartOfInterval(i).changeFrame(ReferenceFrame.getWorldFrame());
-            x0.set(i * 2 + rowOffset, 0, piecewiseConstantCopTrajectory.getCopPositionAtStartOfInterval(i).get(direction));
-            B.set(i * 2 + rowOffset, numberOfContacts + rowOffset, piecewiseConstantCopTrajectory.getNormalizedPressureContributedByQueuedSteps(i));
-         }
-         x0.set(rowOffset, 0, 0);
-
-         double naturalFrequency = linearInvertedPendulumModel.getNaturalFrequency();
-         for (int i = numberOfIntervals - 2; i >= 0; i--)
+         double finalDcmOffset = expOfPreviewTime * currentDcmEstimate.get(direction);
+         for (int i = 1; i < numberOfIntervals; i++)
          {
-            double tn = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(numberOfIntervals - 1) - piecewiseConstantCopTrajectory
-                  .getTimeAtStartOfInterval(i + 1);
-            double ti = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i + 1) - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i);
-            double expn = Math.exp(naturalFrequency * tn);
-            double expi = Math.exp(naturalFrequency * ti);
-            C.set(rowOffset, i * 2 + rowOffset, expn * (1 - expi));
+            finalDcmOffset += intervalWeights[i] * piecewiseConstantCopTrajectory.getCopPositionAtStartOfInterval(i).get(direction);
          }
-         C.set(rowOffset, 2 * numberOfIntervals - 2 + rowOffset, 0);
-         S.set(rowOffset, 2 * numberOfIntervals - 2 + rowOffset, 1);
-
-         double previewTime =
-               piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(numberOfIntervals - 1) - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(0);
-         y0.set(rowOffset, 0, Math.exp(naturalFrequency * previewTime) * currentDcmEstimate.get(direction));
+         CmSx0py0.set(rowOffset, 0, finalDcmOffset);
          rowOffset++;
       }
 
-      CmS.reshape(2, 2 * numberOfIntervals);
-      CmSB.reshape(2, numberOfContacts + 2);
-      CmSx0py0.reshape(2, 1);
-      CommonOps.subtract(C, S, CmS);
-      CommonOps.mult(CmS, B, CmSB);
-      CmSx0py0.set(y0);
-      CommonOps.multAdd(CmS, x0, CmSx0py0);
-
       DenseMatrix64F Aeq = qpEqualityMatrix;
       Aeq.reshape(3, numberOfContacts + 2);
       Aeq.zero();
@@ -307,26 +311,66 @@ public class QuadrupedDcmBasedMpcOptimizationWithLaneChange implements Quadruped
 
    }
 
-   private void initializeInequalityConstraints(QuadrupedMpcOptimizationWithLaneChangeSettings settings)
+   private void initializeVariableBounds(QuadrupedMpcOptimizationWithLaneChangeSettings settings)
    {
-      // Initialize inequality constraints. (Ain u <= bin)
-      DenseMatrix64F Ain = qpInequalityMatrix;
-      Ain.reshape(numberOfContacts, numberOfContacts + 2);
-      Ain.zero();
+      // Initialize variable bounds. (lb <= u <= ub)
+      DenseMatrix64F lb = qpLowerBoundVector;
+      DenseMatrix64F ub = qpUpperBoundVector;
+      lb.reshape(numberOfContacts + 2, 1);
+      ub.reshape(numberOfContacts + 2, 1);
+      CommonOps.fill(lb, Double.NEGATIVE_INFINITY);
+      CommonOps.fill(ub, Double.POSITIVE_INFINITY);
       for (int i = 0; i < numberOfContacts; i++)
       {
-         Ain.set(i, i, -1);
+         lb.set(i, 0, Math.min(Math.max(settings.getMinimumNormalizedContactPressure(), 0), 0.25));
       }
+   }
 
-      DenseMatrix64F bin = qpInequalityVector;
-      bin.reshape(numberOfContacts, 1);
-      bin.zero();
-      for (int i = 0; i < numberOfContacts; i++)
+   private void initializeNominalSolution(QuadrantDependentList<ContactState> currentContactState)
+   {
+      DenseMatrix64F u = qpSolutionVector;
+      u.reshape(numberOfContacts + 2, 1);
+      u.zero();
+
+      int rowOffset = 0;
+      for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
       {
-         bin.set(i, 0, -Math.min(Math.max(settings.getMinimumNormalizedContactPressure(), 0), 0.25));
+         if (currentContactState.get(robotQuadrant) == ContactState.IN_CONTACT)
+         {
+            u.set(rowOffset++, 0, piecewiseConstantCopTrajectory.getNormalizedPressureAtStartOfInterval(0).get(robotQuadrant).doubleValue());
+         }
       }
    }
 
+   /**
+    * Warm start is enabled by default.
+    */
+   void setUseWarmStart(boolean useWarmStart)
+   {
+      qpSolver.setUseWarmStart(useWarmStart);
+   }
+
+   QuadrupedPiecewiseConstantCopTrajectory getPiecewiseConstantCopTrajectory()
+   {
+      return piecewiseConstantCopTrajectory;
+   }
+
+   /**
+    * @return (C - S)B of the last call to compute, one row per direction
+    */
+   DenseMatrix64F getCmSB()
+   {
+      return CmSB;
+   }
+
+   /**
+    * @return (C - S)x0 + y0 of the last call to compute, one row per direction
+    */
+   DenseMatrix64F getCmSx0py0()
+   {
+      return CmSx0py0;
+   }
+
    private void addPointWithScaleFactor(FramePoint point, FramePoint pointToAdd, double scaleFactor)
    {
       point.checkReferenceFrameMatch(pointToAdd);
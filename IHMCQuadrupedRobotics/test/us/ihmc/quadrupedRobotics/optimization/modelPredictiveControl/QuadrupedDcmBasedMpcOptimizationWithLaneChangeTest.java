@@ -0,0 +1,354 @@
+package us.ihmc.quadrupedRobotics.optimization.modelPredictiveControl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.CommonOps;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationPlan;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.continuousIntegration.IntegrationCategory;
+import us.ihmc.graphicsDescription.yoGraphics.YoGraphicsListRegistry;
+import us.ihmc.quadrupedRobotics.controller.force.toolbox.DivergentComponentOfMotionEstimator;
+import us.ihmc.quadrupedRobotics.controller.force.toolbox.LinearInvertedPendulumModel;
+import us.ihmc.quadrupedRobotics.planning.ContactState;
+import us.ihmc.quadrupedRobotics.planning.QuadrupedTimedStep;
+import us.ihmc.quadrupedRobotics.planning.trajectory.QuadrupedPiecewiseConstantCopTrajectory;
+import us.ihmc.quadrupedRobotics.util.PreallocatedList;
+import us.ihmc.quadrupedRobotics.util.TimeInterval;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.geometry.Direction;
+import us.ihmc.robotics.geometry.FramePoint;
+import us.ihmc.robotics.geometry.FrameVector;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+import us.ihmc.robotics.robotSide.QuadrantDependentList;
+import us.ihmc.robotics.robotSide.RobotQuadrant;
+
+@ContinuousIntegrationPlan(categories = IntegrationCategory.FAST)
+public class QuadrupedDcmBasedMpcOptimizationWithLaneChangeTest
+{
+   private static final ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+   private static final int MAXIMUM_PREVIEW_STEPS = 4;
+   private static final double DT = 0.01;
+   private static final double EPSILON = 1.0e-5;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testCondensedConstraintsMatchDensePreview()
+   {
+      WalkingScenario scenario = new WalkingScenario();
+      QuadrupedDcmBasedMpcOptimizationWithLaneChange optimization = scenario.createOptimization();
+      QuadrupedMpcOptimizationWithLaneChangeSettings settings = createSettings();
+
+      DenseMatrix64F denseCmSB = new DenseMatrix64F(2, 6);
+      DenseMatrix64F denseCmSx0py0 = new DenseMatrix64F(2, 1);
+      int numberOfChecks = 0;
+      while (scenario.update())
+      {
+         scenario.compute(optimization, settings);
+
+         computeDenseConstraints(optimization.getPiecewiseConstantCopTrajectory(), scenario, denseCmSB, denseCmSx0py0);
+         assertMatricesEqual(denseCmSB, optimization.getCmSB());
+         assertMatricesEqual(denseCmSx0py0, optimization.getCmSx0py0());
+         numberOfChecks++;
+      }
+
+      assertTrue(numberOfChecks > 100);
+      assertTrue(scenario.numberOfContactsSeen.contains(2));
+      assertTrue(scenario.numberOfContactsSeen.contains(3));
+      assertTrue(scenario.numberOfContactsSeen.contains(4));
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testWarmStartAcrossContactChanges()
+   {
+      WalkingScenario scenario = new WalkingScenario();
+      QuadrupedDcmBasedMpcOptimizationWithLaneChange warmStartedOptimization = scenario.createOptimization();
+      QuadrupedDcmBasedMpcOptimizationWithLaneChange coldStartedOptimization = scenario.createOptimization();
+      coldStartedOptimization.setUseWarmStart(false);
+      QuadrupedMpcOptimizationWithLaneChangeSettings settings = createSettings();
+
+      FrameVector coldStartedStepAdjustment = new FrameVector(worldFrame);
+      FramePoint coldStartedCmpPosition = new FramePoint(worldFrame);
+      int previousNumberOfContacts = scenario.getNumberOfContacts();
+      int numberOfContactChanges = 0;
+      while (scenario.update())
+      {
+         // The number of variables changes with the number of contacts
+         if (scenario.getNumberOfContacts() != previousNumberOfContacts)
+         {
+            numberOfContactChanges++;
+            previousNumberOfContacts = scenario.getNumberOfContacts();
+         }
+
+         scenario.compute(warmStartedOptimization, settings);
+         scenario.compute(coldStartedOptimization, settings, coldStartedStepAdjustment, coldStartedCmpPosition);
+
+         assertFalse(scenario.stepAdjustment.containsNaN());
+         assertTrue(scenario.stepAdjustment.epsilonEquals(coldStartedStepAdjustment, EPSILON));
+         assertTrue(scenario.cmpPosition.epsilonEquals(coldStartedCmpPosition, EPSILON));
+      }
+
+      assertEquals(5, numberOfContactChanges);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testNominalSolutionWhenSolveFails()
+   {
+      WalkingScenario scenario = new WalkingScenario();
+      QuadrupedDcmBasedMpcOptimizationWithLaneChange optimization = scenario.createOptimization();
+      QuadrupedDcmBasedMpcOptimizationWithLaneChange referenceOptimization = scenario.createOptimization();
+      QuadrupedMpcOptimizationWithLaneChangeSettings settings = createSettings();
+      FrameVector referenceStepAdjustment = new FrameVector(worldFrame);
+      FramePoint referenceCmpPosition = new FramePoint(worldFrame);
+
+      // Solve a few ticks so there is an active set to warm start from. The reference goes through the same center of pressure plans, but never fails.
+      for (int i = 0; i < 30; i++)
+      {
+         assertTrue(scenario.update());
+         scenario.compute(optimization, settings);
+         scenario.compute(referenceOptimization, settings, referenceStepAdjustment, referenceCmpPosition);
+      }
+
+      // A cost that is not positive definite makes the solver fail
+      QuadrupedMpcOptimizationWithLaneChangeSettings failingSettings = createSettings();
+      failingSettings.setCopAdjustmentCost(-1.0);
+      assertTrue(scenario.update());
+      scenario.compute(optimization, failingSettings);
+      scenario.compute(referenceOptimization, settings, referenceStepAdjustment, referenceCmpPosition);
+
+      FramePoint nominalCmpPosition = new FramePoint(worldFrame);
+      QuadrupedPiecewiseConstantCopTrajectory piecewiseConstantCopTrajectory = optimization.getPiecewiseConstantCopTrajectory();
+      for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
+      {
+         if (scenario.contactStates.get(robotQuadrant) == ContactState.IN_CONTACT)
+         {
+            double normalizedPressure = piecewiseConstantCopTrajectory.getNormalizedPressureAtStartOfInterval(0).get(robotQuadrant).doubleValue();
+            FramePoint solePosition = scenario.solePositions.get(robotQuadrant);
+            nominalCmpPosition.add(normalizedPressure * solePosition.getX(), normalizedPressure * solePosition.getY(), normalizedPressure * solePosition.getZ());
+         }
+      }
+      assertTrue(scenario.cmpPosition.epsilonEquals(nominalCmpPosition, EPSILON));
+      assertTrue(scenario.stepAdjustment.epsilonEquals(new FrameVector(worldFrame), 0.0));
+
+      // The next solve starts from an empty active set and gives the same solution again
+      assertTrue(scenario.update());
+      scenario.compute(optimization, settings);
+      scenario.compute(referenceOptimization, settings, referenceStepAdjustment, referenceCmpPosition);
+      assertFalse(scenario.stepAdjustment.containsNaN());
+      assertTrue(scenario.stepAdjustment.epsilonEquals(referenceStepAdjustment, EPSILON));
+      assertTrue(scenario.cmpPosition.epsilonEquals(referenceCmpPosition, EPSILON));
+   }
+
+   private static QuadrupedMpcOptimizationWithLaneChangeSettings createSettings()
+   {
+      // A low step adjustment cost and a minimum contact pressure, so the step adjustment and the bounds are used
+      return new QuadrupedMpcOptimizationWithLaneChangeSettings(10.0, 100.0, 1.0, 0.1);
+   }
+
+   /**
+    * The preview as it was built before it was condensed: x0, B, C and S over all intervals of the
+    * piecewise constant center of pressure plan.
+    */
+   private static void computeDenseConstraints(QuadrupedPiecewiseConstantCopTrajectory piecewiseConstantCopTrajectory, WalkingScenario scenario,
+                                               DenseMatrix64F CmSBToPack, DenseMatrix64F CmSx0py0ToPack)
+   {
+      int numberOfContacts = scenario.getNumberOfContacts();
+      int numberOfIntervals = piecewiseConstantCopTrajectory.getNumberOfIntervals();
+      double naturalFrequency = scenario.linearInvertedPendulumModel.getNaturalFrequency();
+
+      DenseMatrix64F x0 = new DenseMatrix64F(2 * numberOfIntervals, 1);
+      DenseMatrix64F y0 = new DenseMatrix64F(2, 1);
+      DenseMatrix64F B = new DenseMatrix64F(2 * numberOfIntervals, numberOfContacts + 2);
+      DenseMatrix64F C = new DenseMatrix64F(2, 2 * numberOfIntervals);
+      DenseMatrix64F S = new DenseMatrix64F(2, 2 * numberOfIntervals);
+
+      int rowOffset = 0;
+      for (Direction direction : Direction.values2D())
+      {
+         int columnOffset = 0;
+         for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
+         {
+            if (scenario.contactStates.get(robotQuadrant) == ContactState.IN_CONTACT)
+            {
+               B.set(rowOffset, columnOffset, scenario.solePositions.get(robotQuadrant).get(direction));
+               columnOffset++;
+            }
+         }
+         for (int i = 0; i < numberOfIntervals; i++)
+         {
+            FramePoint copPosition = piecewiseConstantCopTrajectory.getCopPositionAtStartOfInterval(i);
+            copPosition.changeFrame(worldFrame);
+            x0.set(i * 2 + rowOffset, 0, copPosition.get(direction));
+            B.set(i * 2 + rowOffset, numberOfContacts + rowOffset, piecewiseConstantCopTrajectory.getNormalizedPressureContributedByQueuedSteps(i));
+         }
+         x0.set(rowOffset, 0, 0);
+
+         for (int i = numberOfIntervals - 2; i >= 0; i--)
+         {
+            double tn = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(numberOfIntervals - 1)
+                  - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i + 1);
+            double ti = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i + 1) - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(i);
+            C.set(rowOffset, i * 2 + rowOffset, Math.exp(naturalFrequency * tn) * (1 - Math.exp(naturalFrequency * ti)));
+         }
+         C.set(rowOffset, 2 * numberOfIntervals - 2 + rowOffset, 0);
+         S.set(rowOffset, 2 * numberOfIntervals - 2 + rowOffset, 1);
+
+         double previewTime = piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(numberOfIntervals - 1)
+               - piecewiseConstantCopTrajectory.getTimeAtStartOfInterval(0);
+         double dcmPosition = scenario.comVelocity.get(direction) / naturalFrequency;
+         y0.set(rowOffset, 0, Math.exp(naturalFrequency * previewTime) * dcmPosition);
+         rowOffset++;
+      }
+
+      DenseMatrix64F CmS = new DenseMatrix64F(2, 2 * numberOfIntervals);
+      CommonOps.subtract(C, S, CmS);
+      CmSBToPack.reshape(2, numberOfContacts + 2);
+      CommonOps.mult(CmS, B, CmSBToPack);
+      CmSx0py0ToPack.set(y0);
+      CommonOps.multAdd(CmS, x0, CmSx0py0ToPack);
+   }
+
+   private static void assertMatricesEqual(DenseMatrix64F expected, DenseMatrix64F actual)
+   {
+      assertEquals(expected.getNumRows(), actual.getNumRows());
+      assertEquals(expected.getNumCols(), actual.getNumCols());
+      for (int i = 0; i < expected.getNumElements(); i++)
+      {
+         // The weights grow exponentially with the preview time
+         double tolerance = 1.0e-9 * Math.max(1.0, Math.abs(expected.get(i)));
+         assertEquals(expected.get(i), actual.get(i), tolerance);
+      }
+   }
+
+   /**
+    * Walks forward with a trot followed by a crawl step, so the number of contacts goes through 4,
+    * 2 and 3. The steps that are done are removed from the queue, like the controller does.
+    */
+   private static class WalkingScenario
+   {
+      private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+      private final LinearInvertedPendulumModel linearInvertedPendulumModel = new LinearInvertedPendulumModel(worldFrame, 50.0, 9.81, 0.55, registry);
+      private final DivergentComponentOfMotionEstimator dcmPositionEstimator = new DivergentComponentOfMotionEstimator(worldFrame,
+                                                                                                                       linearInvertedPendulumModel,
+                                                                                                                       registry,
+                                                                                                                       new YoGraphicsListRegistry());
+
+      private final PreallocatedList<QuadrupedTimedStep> queuedSteps = new PreallocatedList<>(10, QuadrupedTimedStep.class);
+      private final QuadrantDependentList<FramePoint> solePositions = new QuadrantDependentList<>();
+      private final QuadrantDependentList<ContactState> contactStates = new QuadrantDependentList<>();
+      private final FramePoint comPosition = new FramePoint(worldFrame, 0.0, 0.0, 0.55);
+      private final FrameVector comVelocity = new FrameVector(worldFrame, 0.3, 0.05, 0.0);
+      private final FrameVector stepAdjustment = new FrameVector(worldFrame);
+      private final FramePoint cmpPosition = new FramePoint(worldFrame);
+      private final HashSet<Integer> numberOfContactsSeen = new HashSet<>();
+      private double time = -DT;
+      private int numberOfOptimizations = 0;
+
+      private WalkingScenario()
+      {
+         for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
+         {
+            double x = robotQuadrant.isQuadrantInFront() ? 0.5 : -0.5;
+            double y = robotQuadrant.isQuadrantOnLeftSide() ? 0.15 : -0.15;
+            solePositions.set(robotQuadrant, new FramePoint(worldFrame, x, y, 0.0));
+            contactStates.set(robotQuadrant, ContactState.IN_CONTACT);
+         }
+
+         addStep(RobotQuadrant.FRONT_RIGHT, 0.2, 0.5);
+         addStep(RobotQuadrant.HIND_LEFT, 0.2, 0.5);
+         addStep(RobotQuadrant.FRONT_LEFT, 0.7, 1.0);
+         addStep(RobotQuadrant.HIND_RIGHT, 0.7, 1.0);
+         addStep(RobotQuadrant.FRONT_RIGHT, 1.2, 1.5);
+      }
+
+      private void addStep(RobotQuadrant robotQuadrant, double startTime, double endTime)
+      {
+         FramePoint goalPosition = new FramePoint(solePositions.get(robotQuadrant));
+         goalPosition.add(0.1, 0.0, 0.0);
+         for (int i = 0; i < queuedSteps.size(); i++)
+         {
+            if (queuedSteps.get(i).getRobotQuadrant() == robotQuadrant)
+               goalPosition.add(0.1, 0.0, 0.0);
+         }
+         queuedSteps.add();
+         queuedSteps.get(queuedSteps.size() - 1).set(new QuadrupedTimedStep(robotQuadrant, goalPosition, 0.1, new TimeInterval(startTime, endTime)));
+      }
+
+      private QuadrupedDcmBasedMpcOptimizationWithLaneChange createOptimization()
+      {
+         QuadrupedDcmBasedMpcOptimizationWithLaneChange optimization = new QuadrupedDcmBasedMpcOptimizationWithLaneChange(dcmPositionEstimator,
+                                                                                                                          MAXIMUM_PREVIEW_STEPS,
+                                                                                                                          new YoVariableRegistry("optimization"
+                                                                                                                                + numberOfOptimizations++),
+                                                                                                                          null);
+         optimization.initialize();
+         return optimization;
+      }
+
+      /**
+       * Advances the time, lands and removes the steps that are done, and lifts off the feet of the
+       * steps that started.
+       *
+       * @return false when all steps are done
+       */
+      private boolean update()
+      {
+         time += DT;
+         comPosition.add(comVelocity.getX() * DT, comVelocity.getY() * DT, 0.0);
+
+         for (int i = queuedSteps.size() - 1; i >= 0; i--)
+         {
+            QuadrupedTimedStep step = queuedSteps.get(i);
+            if (step.getTimeInterval().getEndTime() <= time)
+            {
+               step.getGoalPosition(solePositions.get(step.getRobotQuadrant()));
+               queuedSteps.remove(i);
+            }
+         }
+
+         for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
+         {
+            contactStates.set(robotQuadrant, ContactState.IN_CONTACT);
+         }
+         for (int i = 0; i < queuedSteps.size(); i++)
+         {
+            QuadrupedTimedStep step = queuedSteps.get(i);
+            if (step.getTimeInterval().getStartTime() <= time)
+               contactStates.set(step.getRobotQuadrant(), ContactState.NO_CONTACT);
+         }
+
+         numberOfContactsSeen.add(getNumberOfContacts());
+         return !queuedSteps.isEmpty();
+      }
+
+      private void compute(QuadrupedDcmBasedMpcOptimizationWithLaneChange optimization, QuadrupedMpcOptimizationWithLaneChangeSettings settings)
+      {
+         compute(optimization, settings, stepAdjustment, cmpPosition);
+      }
+
+      private void compute(QuadrupedDcmBasedMpcOptimizationWithLaneChange optimization, QuadrupedMpcOptimizationWithLaneChangeSettings settings,
+                           FrameVector stepAdjustmentToPack, FramePoint cmpPositionToPack)
+      {
+         optimization.compute(stepAdjustmentToPack, cmpPositionToPack, queuedSteps, solePositions, contactStates, comPosition, comVelocity, time, settings);
+      }
+
+      private int getNumberOfContacts()
+      {
+         int numberOfContacts = 0;
+         for (RobotQuadrant robotQuadrant : RobotQuadrant.values)
+         {
+            if (contactStates.get(robotQuadrant) == ContactState.IN_CONTACT)
+               numberOfContacts++;
+         }
+         return numberOfContacts;
+      }
+   }
+}
@@ -38,6 +38,7 @@ public class Variables implements IDLStruct<Variables>
         	index_.append(other.index_);
         	timestamped_ = other.timestamped_;
         	compressed_ = other.compressed_;
+        	keyframeInterval_ = other.keyframeInterval_;
 
     }
 
@@ -142,6 +143,17 @@ public class Variables implements IDLStruct<Variables>
     }
 
         
+    public void setKeyframeInterval(int keyframeInterval)
+    {
+        keyframeInterval_ = keyframeInterval;
+    }
+
+    public int getKeyframeInterval()
+    {
+        return keyframeInterval_;
+    }
+
+        
 
 
 	public static int getMaxCdrSerializedSize()
@@ -167,6 +179,8 @@ public class Variables implements IDLStruct<Variables>
 
 	    current_alignment += 1 + CDR.alignment(current_alignment, 1);
 
+	    current_alignment += 4 + CDR.alignment(current_alignment, 4);
+
 	
 	    return current_alignment - initial_alignment;
 	}
@@ -195,6 +209,8 @@ public class Variables implements IDLStruct<Variables>
 
 	    current_alignment += 1 + CDR.alignment(current_alignment, 1);
 
+	    current_alignment += 4 + CDR.alignment(current_alignment, 4);
+
 	
 	    return current_alignment - initial_alignment;
 	}
@@ -226,6 +242,8 @@ public class Variables implements IDLStruct<Variables>
 	    cdr.write_type_7(timestamped_);
 
 	    cdr.write_type_7(compressed_);
+
+	    cdr.write_type_2(keyframeInterval_);
 	}
 	
 	@Override
@@ -246,6 +264,8 @@ public class Variables implements IDLStruct<Variables>
 	    	timestamped_ = cdr.read_type_7();	
 
 	    	compressed_ = cdr.read_type_7();	
+
+	    	keyframeInterval_ = cdr.read_type_2();	
 	}
 	
 	@Override
@@ -265,6 +285,8 @@ public class Variables implements IDLStruct<Variables>
 			    
 			    ser.write_type_7("compressed", compressed_);
 			    
+			    ser.write_type_2("keyframeInterval", keyframeInterval_);
+			    
 	}
 	
 	@Override
@@ -285,6 +307,8 @@ public class Variables implements IDLStruct<Variables>
 	    	    
 	    			compressed_ = ser.read_type_7("compressed");	
 	    	    
+	    			keyframeInterval_ = ser.read_type_2("keyframeInterval");	
+	    	    
 	}
 
     @Override
@@ -313,6 +337,9 @@ public class Variables implements IDLStruct<Variables>
         returnedValue &= this.compressed_ == otherMyClass.compressed_;
 
                 
+        returnedValue &= this.keyframeInterval_ == otherMyClass.keyframeInterval_;
+
+                
 
         return returnedValue;
     }
@@ -350,6 +377,10 @@ public class Variables implements IDLStruct<Variables>
         builder.append("compressed=");
         builder.append(this.compressed_);
 
+                builder.append(", ");
+        builder.append("keyframeInterval=");
+        builder.append(this.keyframeInterval_);
+
                 
         builder.append("}");
 		return builder.toString();
@@ -362,5 +393,6 @@ public class Variables implements IDLStruct<Variables>
     private StringBuilder index_; 
     private boolean timestamped_; 
     private boolean compressed_; 
+    private int keyframeInterval_; 
 
 }
\ No newline at end of file
@@ -3,8 +3,9 @@ package us.ihmc.robotDataLogger;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 public class LogIndex
 {
@@ -17,17 +18,16 @@ public class LogIndex
    {
       FileInputStream indexStream = new FileInputStream(indexData);
       FileChannel indexChannel = indexStream.getChannel();
-      timestamps = new long[(int) (indexChannel.size() / 16)];
-      dataOffsets = new long[(int) (indexChannel.size() / 16)];
+      int entries = (int) (indexChannel.size() / 16);
+      timestamps = new long[entries];
+      dataOffsets = new long[entries];
 
-      int index = 0;
-      ByteBuffer indexDataBuffer = ByteBuffer.allocateDirect(16);
-      while (indexChannel.read(indexDataBuffer) == 16)
+      // Map the index instead of reading it entry by entry, this is a lot faster for long logs.
+      LongBuffer indexDataBuffer = indexChannel.map(MapMode.READ_ONLY, 0, entries * 16L).asLongBuffer();
+      for (int index = 0; index < entries; index++)
       {
-         indexDataBuffer.clear();
-         timestamps[index] = indexDataBuffer.getLong(0);
-         dataOffsets[index] = indexDataBuffer.getLong(8);
-         index++;
+         timestamps[index] = indexDataBuffer.get();
+         dataOffsets[index] = indexDataBuffer.get();
       }
       indexChannel.close();
       indexStream.close();
@@ -0,0 +1,285 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+import us.ihmc.robotDataLogger.logger.converters.ColumnarLogConverter;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Reads the columnar copy of a YoVariable log written by {@link ColumnarLogConverter}.
+ *
+ * The entries of the log are split in chunks of consecutive entries. For every chunk the values of
+ * each variable are stored as a separate Snappy compressed column together with the minimum and
+ * maximum value of the variable in that chunk. Reading a few variables over a range of entries
+ * therefore only touches the columns of those variables in the chunks that overlap the range.
+ *
+ * Variables are addressed by their offset in a full state entry of the log: offset 0 is the
+ * timestamp, offset 1 + i the i-th variable of the handshake followed by the joint states.
+ *
+ * Layout of the column index file, all values big endian:
+ * <ul>
+ * <li>header: magic, format version, number of variables, number of entries, entries per chunk and
+ * number of chunks as ints
+ * <li>for every chunk: first and last timestamp as longs
+ * <li>for every chunk and every variable: data offset (long), compressed size (int), minimum and
+ * maximum (double)
+ * </ul>
+ *
+ * All methods only use positional reads and can be called from multiple threads.
+ */
+public class ColumnarLogReader
+{
+   public static final String columnDataFile = "robotData.columns";
+   public static final String columnIndexFile = "robotData.columnIndex";
+
+   public static final int MAGIC = 0x594F434C; // "YOCL"
+   public static final int FORMAT_VERSION = 1;
+   public static final int HEADER_SIZE = 6 * 4;
+   public static final int CHUNK_HEADER_SIZE = 2 * 8;
+   public static final int COLUMN_RECORD_SIZE = 8 + 4 + 8 + 8;
+
+   private final FileInputStream dataStream;
+   private final FileChannel dataChannel;
+   private final FileInputStream indexStream;
+   private final FileChannel indexChannel;
+
+   private final int numberOfVariables;
+   private final int numberOfEntries;
+   private final int entriesPerChunk;
+   private final int numberOfChunks;
+   private final long[] chunkFirstTimestamps;
+   private final long[] chunkLastTimestamps;
+
+   /**
+    * @return true if the log directory contains a columnar copy of the log
+    */
+   public static boolean hasColumnarLog(File logDirectory)
+   {
+      return new File(logDirectory, columnDataFile).exists() && new File(logDirectory, columnIndexFile).exists();
+   }
+
+   public ColumnarLogReader(File logDirectory) throws IOException
+   {
+      dataStream = new FileInputStream(new File(logDirectory, columnDataFile));
+      dataChannel = dataStream.getChannel();
+      indexStream = new FileInputStream(new File(logDirectory, columnIndexFile));
+      indexChannel = indexStream.getChannel();
+
+      ByteBuffer header = read(indexChannel, 0, HEADER_SIZE);
+      if (header.getInt() != MAGIC)
+      {
+         close();
+         throw new IOException(columnIndexFile + " is not a columnar log index");
+      }
+      int formatVersion = header.getInt();
+      if (formatVersion != FORMAT_VERSION)
+      {
+         close();
+         throw new IOException("Unsupported columnar log version " + formatVersion);
+      }
+      numberOfVariables = header.getInt();
+      numberOfEntries = header.getInt();
+      entriesPerChunk = header.getInt();
+      numberOfChunks = header.getInt();
+
+      chunkFirstTimestamps = new long[numberOfChunks];
+      chunkLastTimestamps = new long[numberOfChunks];
+      LongBuffer chunkHeaders = read(indexChannel, HEADER_SIZE, numberOfChunks * CHUNK_HEADER_SIZE).asLongBuffer();
+      for (int chunk = 0; chunk < numberOfChunks; chunk++)
+      {
+         chunkFirstTimestamps[chunk] = chunkHeaders.get();
+         chunkLastTimestamps[chunk] = chunkHeaders.get();
+      }
+   }
+
+   public int getNumberOfVariables()
+   {
+      return numberOfVariables;
+   }
+
+   public int getNumberOfEntries()
+   {
+      return numberOfEntries;
+   }
+
+   public int getEntriesPerChunk()
+   {
+      return entriesPerChunk;
+   }
+
+   public int getNumberOfChunks()
+   {
+      return numberOfChunks;
+   }
+
+   public int getChunk(int entry)
+   {
+      return entry / entriesPerChunk;
+   }
+
+   public long getChunkFirstTimestamp(int chunk)
+   {
+      return chunkFirstTimestamps[chunk];
+   }
+
+   public long getChunkLastTimestamp(int chunk)
+   {
+      return chunkLastTimestamps[chunk];
+   }
+
+   /**
+    * @return the smallest value of the variable in the chunk, NaN if unknown
+    */
+   public double getMinimum(int variable, int chunk) throws IOException
+   {
+      return readColumnRecord(variable, chunk).getDouble(12);
+   }
+
+   /**
+    * @return the largest value of the variable in the chunk, NaN if unknown
+    */
+   public double getMaximum(int variable, int chunk) throws IOException
+   {
+      return readColumnRecord(variable, chunk).getDouble(20);
+   }
+
+   /**
+    * Checks the statistics of a chunk to decide if it has to be read when looking for values of the
+    * variable in [lowerBound, upperBound]. Integer, enum and boolean variables are compared by their
+    * numeric value.
+    *
+    * @return false if no value of the variable in the chunk is within the bounds
+    */
+   public boolean mayContainValuesInRange(int variable, int chunk, double lowerBound, double upperBound) throws IOException
+   {
+      ByteBuffer record = readColumnRecord(variable, chunk);
+      double minimum = record.getDouble(12);
+      double maximum = record.getDouble(20);
+      if (Double.isNaN(minimum) || Double.isNaN(maximum))
+         return true;
+      return maximum >= lowerBound && minimum <= upperBound;
+   }
+
+   /**
+    * @return the index of the first entry with a timestamp equal or after the given timestamp, or
+    *         the number of entries if there is none
+    */
+   public int findEntry(long timestamp) throws IOException
+   {
+      int head = 0;
+      int tail = numberOfChunks;
+      while (head < tail)
+      {
+         int middle = (head + tail) >>> 1;
+         if (chunkLastTimestamps[middle] < timestamp)
+            head = middle + 1;
+         else
+            tail = middle;
+      }
+
+      int chunk = head;
+      if (chunk == numberOfChunks)
+         return numberOfEntries;
+
+      long[] timestamps = readChunkColumn(0, chunk);
+      int entry = 0;
+      while (timestamps[entry] < timestamp)
+         entry++;
+      return chunk * entriesPerChunk + entry;
+   }
+
+   /**
+    * Reads the values of one variable for the entries from firstEntry to lastEntry, both inclusive.
+    *
+    * @return the raw long bits of the values
+    */
+   public long[] readColumn(int variable, int firstEntry, int lastEntry) throws IOException
+   {
+      if (firstEntry < 0 || lastEntry >= numberOfEntries || firstEntry > lastEntry)
+      {
+         throw new IndexOutOfBoundsException("Cannot read entries " + firstEntry + " to " + lastEntry + " of " + numberOfEntries);
+      }
+
+      long[] values = new long[lastEntry - firstEntry + 1];
+      for (int chunk = getChunk(firstEntry); chunk <= getChunk(lastEntry); chunk++)
+      {
+         long[] chunkValues = readChunkColumn(variable, chunk);
+         int chunkStart = chunk * entriesPerChunk;
+         int from = Math.max(firstEntry, chunkStart);
+         int to = Math.min(lastEntry, chunkStart + chunkValues.length - 1);
+         System.arraycopy(chunkValues, from - chunkStart, values, from - firstEntry, to - from + 1);
+      }
+      return values;
+   }
+
+   /**
+    * Reads all values of one variable in one chunk.
+    *
+    * @return the raw long bits of the values
+    */
+   public long[] readChunkColumn(int variable, int chunk) throws IOException
+   {
+      ByteBuffer record = readColumnRecord(variable, chunk);
+      long offset = record.getLong(0);
+      int compressedSize = record.getInt(8);
+
+      int entriesInChunk = Math.min(entriesPerChunk, numberOfEntries - chunk * entriesPerChunk);
+      ByteBuffer uncompressed = ByteBuffer.allocate(entriesInChunk * 8);
+      SnappyUtils.uncompress(read(dataChannel, offset, compressedSize), uncompressed);
+      uncompressed.flip();
+
+      long[] values = new long[entriesInChunk];
+      uncompressed.asLongBuffer().get(values);
+      return values;
+   }
+
+   public void close()
+   {
+      try
+      {
+         dataChannel.close();
+         dataStream.close();
+         indexChannel.close();
+         indexStream.close();
+      }
+      catch (IOException e)
+      {
+         // Nothing to do here
+      }
+   }
+
+   private ByteBuffer readColumnRecord(int variable, int chunk) throws IOException
+   {
+      if (variable < 0 || variable >= numberOfVariables || chunk < 0 || chunk >= numberOfChunks)
+      {
+         throw new IndexOutOfBoundsException("No column for variable " + variable + " in chunk " + chunk);
+      }
+
+      long position = getColumnRecordPosition(numberOfChunks, numberOfVariables, variable, chunk);
+      return read(indexChannel, position, COLUMN_RECORD_SIZE);
+   }
+
+   public static long getColumnRecordPosition(int numberOfChunks, int numberOfVariables, int variable, int chunk)
+   {
+      return HEADER_SIZE + (long) numberOfChunks * CHUNK_HEADER_SIZE + ((long) chunk * numberOfVariables + variable) * COLUMN_RECORD_SIZE;
+   }
+
+   private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.allocate(size);
+      while (buffer.hasRemaining())
+      {
+         if (channel.read(buffer, position + buffer.position()) < 0)
+         {
+            throw new IOException("Unexpected end of file reading " + size + " bytes at " + position);
+         }
+      }
+      buffer.flip();
+      return buffer;
+   }
+}
@@ -0,0 +1,86 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Random access to the entries of a delta encoded log, see {@link DeltaFrameEncoding}.
+ *
+ * An entry is decoded by applying all deltas since its keyframe. The last decoded frame is kept, so
+ * reading the log forward only decodes a single delta per entry. Not thread safe.
+ */
+public class DeltaFrameDecoder
+{
+   public interface CompressedEntryReader
+   {
+      /**
+       * @return the compressed entry at position, from the position to the limit of the buffer
+       */
+      ByteBuffer readCompressedData(int position) throws IOException;
+   }
+
+   private final int keyframeInterval;
+   private final ByteBuffer frame;
+   private final ByteBuffer delta;
+   private int decodedPosition = -1;
+
+   /**
+    * @param bufferSize size of a full state buffer in bytes
+    * @param keyframeInterval number of entries between keyframes
+    * @param direct allocate direct buffers, faster when the compressed data is in a direct buffer
+    */
+   public DeltaFrameDecoder(int bufferSize, int keyframeInterval, boolean direct)
+   {
+      this.keyframeInterval = keyframeInterval;
+      int deltaSize = DeltaFrameEncoding.getMaximumEncodedSize(bufferSize);
+      if (direct)
+      {
+         frame = ByteBuffer.allocateDirect(bufferSize);
+         delta = ByteBuffer.allocateDirect(deltaSize);
+      }
+      else
+      {
+         frame = ByteBuffer.allocate(bufferSize);
+         delta = ByteBuffer.allocate(deltaSize);
+      }
+   }
+
+   /**
+    * @return the full state of the entry, from index 0 to the limit. The buffer is reused by the next
+    *         call to this decoder and its contents should not be modified.
+    */
+   public ByteBuffer decode(int position, CompressedEntryReader reader) throws IOException
+   {
+      int keyframe = DeltaFrameEncoding.getKeyframe(position, keyframeInterval);
+      int next = keyframe;
+      if (decodedPosition >= keyframe && decodedPosition <= position)
+      {
+         next = decodedPosition + 1;
+      }
+
+      // Invalidate the cached frame till decoding succeeded
+      decodedPosition = -1;
+      for (; next <= position; next++)
+      {
+         if (next == keyframe)
+         {
+            frame.clear();
+            SnappyUtils.uncompress(reader.readCompressedData(next), frame);
+         }
+         else
+         {
+            delta.clear();
+            SnappyUtils.uncompress(reader.readCompressedData(next), delta);
+            delta.flip();
+            frame.clear();
+            DeltaFrameEncoding.decode(delta, frame);
+         }
+      }
+      decodedPosition = position;
+
+      frame.clear();
+      return frame;
+   }
+}
@@ -0,0 +1,78 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns consecutive full state buffers into keyframes and deltas, see {@link DeltaFrameEncoding}.
+ *
+ * Every buffer passed to {@link #encode(ByteBuffer)} has to be written to the log, otherwise the
+ * following deltas cannot be decoded. Not thread safe.
+ */
+public class DeltaFrameEncoder
+{
+   private final int keyframeInterval;
+   private final ByteBuffer previousFrame;
+   private final ByteBuffer delta;
+   private int position = 0;
+
+   /**
+    * @param bufferSize size of a full state buffer in bytes
+    * @param keyframeInterval number of entries between keyframes, 0 to store every entry as a keyframe
+    */
+   public DeltaFrameEncoder(int bufferSize, int keyframeInterval)
+   {
+      this.keyframeInterval = keyframeInterval;
+      this.previousFrame = ByteBuffer.allocate(bufferSize);
+      this.delta = ByteBuffer.allocate(DeltaFrameEncoding.getMaximumEncodedSize(bufferSize));
+   }
+
+   /**
+    * @return the largest possible size in bytes of a buffer returned by {@link #encode(ByteBuffer)}
+    */
+   public int getMaximumEncodedSize()
+   {
+      return keyframeInterval > 0 ? delta.capacity() : previousFrame.capacity();
+   }
+
+   /**
+    * Encodes the next entry of the log. The frame is read from index 0 to its limit.
+    *
+    * @return the frame itself if the entry is a keyframe, otherwise the delta to the previous frame.
+    *         The delta is valid till the next call to this encoder.
+    */
+   public ByteBuffer encode(ByteBuffer frame)
+   {
+      boolean keyframe = DeltaFrameEncoding.isKeyframe(position, keyframeInterval);
+      position++;
+
+      if (keyframeInterval <= 0)
+      {
+         return frame;
+      }
+
+      ByteBuffer result = frame;
+      if (!keyframe)
+      {
+         delta.clear();
+         DeltaFrameEncoding.encode(previousFrame, frame, delta);
+         delta.flip();
+         result = delta;
+      }
+
+      ByteBuffer source = frame.duplicate();
+      source.position(0);
+      previousFrame.clear();
+      previousFrame.put(source);
+      previousFrame.flip();
+
+      return result;
+   }
+
+   /**
+    * Starts over with a keyframe, for example after the log is cleared.
+    */
+   public void reset()
+   {
+      position = 0;
+   }
+}
@@ -0,0 +1,138 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of full state log entries as keyframes and deltas.
+ *
+ * Every keyframeInterval-th entry, starting with the first, is a keyframe and stored as the full
+ * state buffer, exactly like an entry of a log without delta encoding. All other entries store the
+ * bitwise XOR of their long encoded values with the values of the previous entry. Runs of unchanged
+ * values, which XOR to zero, are skipped.
+ *
+ * A delta is a sequence of runs, each consisting of the number of unchanged values (int), the number
+ * of changed values (int) and the XOR of every changed value (long). Both keyframes and deltas are
+ * Snappy compressed before they are written.
+ *
+ * The index of the log still has an entry for every frame. Because keyframes are placed at a fixed
+ * interval, the keyframe to start decoding from follows directly from the entry position.
+ */
+public final class DeltaFrameEncoding
+{
+   /** One keyframe per second for a controller running at 1kHz */
+   public static final int DEFAULT_KEYFRAME_INTERVAL = 1000;
+
+   private static final int RUN_HEADER_SIZE = 8;
+
+   private DeltaFrameEncoding()
+   {
+   }
+
+   /**
+    * @param keyframeInterval number of entries between keyframes, 0 if the log is not delta encoded
+    */
+   public static boolean isKeyframe(int position, int keyframeInterval)
+   {
+      return keyframeInterval <= 0 || position % keyframeInterval == 0;
+   }
+
+   /**
+    * @return the position of the keyframe the entry at position is decoded from
+    */
+   public static int getKeyframe(int position, int keyframeInterval)
+   {
+      if (keyframeInterval <= 0)
+      {
+         return position;
+      }
+      return position - position % keyframeInterval;
+   }
+
+   /**
+    * @param bufferSize size of a full state buffer in bytes
+    * @return the largest possible size of a delta in bytes
+    */
+   public static int getMaximumEncodedSize(int bufferSize)
+   {
+      // Worst case every run has a single changed value
+      int numberOfValues = bufferSize / 8;
+      return bufferSize + numberOfValues * RUN_HEADER_SIZE;
+   }
+
+   /**
+    * Writes the delta between two frames to the position of target. The frames are read from index
+    * 0 to their limit and are not modified.
+    */
+   public static void encode(ByteBuffer previous, ByteBuffer current, ByteBuffer target)
+   {
+      int numberOfValues = current.limit() / 8;
+      if (previous.limit() / 8 != numberOfValues)
+      {
+         throw new RuntimeException("Cannot encode delta between frames of " + previous.limit() + " and " + current.limit() + " bytes");
+      }
+
+      int index = 0;
+      while (index < numberOfValues)
+      {
+         int unchanged = 0;
+         while (index < numberOfValues && current.getLong(8 * index) == previous.getLong(8 * index))
+         {
+            unchanged++;
+            index++;
+         }
+         if (index == numberOfValues)
+         {
+            // A trailing run of unchanged values does not need to be stored
+            break;
+         }
+
+         int headerPosition = target.position();
+         target.putInt(unchanged);
+         target.putInt(0);
+
+         int changed = 0;
+         long xor;
+         while (index < numberOfValues && (xor = current.getLong(8 * index) ^ previous.getLong(8 * index)) != 0)
+         {
+            target.putLong(xor);
+            changed++;
+            index++;
+         }
+         target.putInt(headerPosition + 4, changed);
+      }
+   }
+
+   /**
+    * Applies a delta, from its position to its limit, to the frame that holds the values of the
+    * previous entry. The frame is modified from index 0.
+    */
+   public static void decode(ByteBuffer delta, ByteBuffer frame) throws IOException
+   {
+      int numberOfValues = frame.limit() / 8;
+      int index = 0;
+      while (delta.remaining() >= RUN_HEADER_SIZE)
+      {
+         int unchanged = delta.getInt();
+         int changed = delta.getInt();
+         if (unchanged < 0 || changed < 0 || index + (long) unchanged + changed > numberOfValues || delta.remaining() < 8 * changed)
+         {
+            throw new IOException("Invalid delta frame, run of " + unchanged + " unchanged and " + changed + " changed values at value " + index + " of "
+                  + numberOfValues);
+         }
+
+         index += unchanged;
+         for (int i = 0; i < changed; i++)
+         {
+            int offset = 8 * index;
+            frame.putLong(offset, frame.getLong(offset) ^ delta.getLong());
+            index++;
+         }
+      }
+
+      if (delta.hasRemaining())
+      {
+         throw new IOException("Invalid delta frame, " + delta.remaining() + " trailing bytes");
+      }
+   }
+}
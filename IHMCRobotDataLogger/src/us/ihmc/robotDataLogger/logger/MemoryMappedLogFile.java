@@ -0,0 +1,193 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import us.ihmc.robotDataLogger.LogIndex;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Random access to the entries of a compressed YoVariable log through memory mapped files.
+ *
+ * The data file is mapped in segments of at most 2GB that each hold a whole number of entries, so
+ * logs of any length can be opened without reading them. Entries are decompressed straight from the
+ * mapped region into a direct buffer without intermediate copies.
+ *
+ * Delta encoded logs are decoded transparently, see {@link DeltaFrameEncoding}.
+ *
+ * This class is immutable once opened. Every thread that reads from the log has to create its own
+ * {@link Reader}.
+ */
+public class MemoryMappedLogFile
+{
+   private static final long MAXIMUM_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+   private final LogIndex logIndex;
+   private final int keyframeInterval;
+   private final MappedByteBuffer[] segments;
+   private final long[] segmentOffsets;
+   private final int[] segmentFirstEntries;
+
+   public MemoryMappedLogFile(File logData, File index) throws IOException
+   {
+      this(logData, index, 0);
+   }
+
+   /**
+    * @param keyframeInterval number of entries between keyframes if the log is delta encoded, 0 otherwise
+    */
+   public MemoryMappedLogFile(File logData, File index, int keyframeInterval) throws IOException
+   {
+      this.keyframeInterval = keyframeInterval;
+
+      FileInputStream logInputStream = new FileInputStream(logData);
+      FileChannel logChannel = logInputStream.getChannel();
+      try
+      {
+         logIndex = new LogIndex(index, logChannel.size());
+
+         int numberOfEntries = logIndex.getNumberOfEntries();
+         MappedByteBuffer[] segments = new MappedByteBuffer[1];
+         long[] segmentOffsets = new long[1];
+         int[] segmentFirstEntries = new int[1];
+         int numberOfSegments = 0;
+
+         int entry = 0;
+         while (entry < numberOfEntries)
+         {
+            long segmentOffset = logIndex.dataOffsets[entry];
+            int firstEntry = entry;
+            while (entry < numberOfEntries && logIndex.dataOffsets[entry] + logIndex.compressedSizes[entry] - segmentOffset <= MAXIMUM_SEGMENT_SIZE)
+            {
+               entry++;
+            }
+
+            if (entry == firstEntry)
+            {
+               throw new IOException("Entry " + entry + " of " + logData + " does not fit in a single mapping");
+            }
+
+            if (numberOfSegments == segments.length)
+            {
+               segments = Arrays.copyOf(segments, 2 * numberOfSegments);
+               segmentOffsets = Arrays.copyOf(segmentOffsets, 2 * numberOfSegments);
+               segmentFirstEntries = Arrays.copyOf(segmentFirstEntries, 2 * numberOfSegments);
+            }
+
+            long segmentEnd = logIndex.dataOffsets[entry - 1] + logIndex.compressedSizes[entry - 1];
+            segments[numberOfSegments] = logChannel.map(MapMode.READ_ONLY, segmentOffset, segmentEnd - segmentOffset);
+            segmentOffsets[numberOfSegments] = segmentOffset;
+            segmentFirstEntries[numberOfSegments] = firstEntry;
+            numberOfSegments++;
+         }
+
+         this.segments = Arrays.copyOf(segments, numberOfSegments);
+         this.segmentOffsets = Arrays.copyOf(segmentOffsets, numberOfSegments);
+         this.segmentFirstEntries = Arrays.copyOf(segmentFirstEntries, numberOfSegments);
+      }
+      finally
+      {
+         // The mappings stay valid after the channel is closed
+         logChannel.close();
+         logInputStream.close();
+      }
+   }
+
+   public LogIndex getLogIndex()
+   {
+      return logIndex;
+   }
+
+   public int getNumberOfEntries()
+   {
+      return logIndex.getNumberOfEntries();
+   }
+
+   /**
+    * Creates a reader with its own view of the mapped data and its own buffer for decompressed entries.
+    *
+    * @param uncompressedBufferSize size of a decompressed entry in bytes
+    */
+   public Reader createReader(int uncompressedBufferSize)
+   {
+      return new Reader(uncompressedBufferSize);
+   }
+
+   private int getSegment(int position)
+   {
+      int segment = Arrays.binarySearch(segmentFirstEntries, position);
+      return segment >= 0 ? segment : -segment - 2;
+   }
+
+   /**
+    * Reads entries of a {@link MemoryMappedLogFile}. Not thread safe, create one reader per thread.
+    */
+   public class Reader implements DeltaFrameDecoder.CompressedEntryReader
+   {
+      private final ByteBuffer[] segmentViews = new ByteBuffer[segments.length];
+      private final ByteBuffer uncompressedData;
+      private final DeltaFrameDecoder deltaFrameDecoder;
+
+      private Reader(int uncompressedBufferSize)
+      {
+         for (int i = 0; i < segments.length; i++)
+         {
+            segmentViews[i] = segments[i].duplicate();
+         }
+         uncompressedData = ByteBuffer.allocateDirect(uncompressedBufferSize);
+         deltaFrameDecoder = keyframeInterval > 0 ? new DeltaFrameDecoder(uncompressedBufferSize, keyframeInterval, true) : null;
+      }
+
+      /**
+       * @return a view of the compressed entry in the mapped file. It is valid till the next call to this reader.
+       */
+      @Override
+      public ByteBuffer readCompressedData(int position)
+      {
+         if (position < 0 || position >= logIndex.getNumberOfEntries())
+         {
+            throw new IndexOutOfBoundsException("Position " + position + " is out of bounds for " + logIndex.getNumberOfEntries() + " entries");
+         }
+
+         int segment = getSegment(position);
+         int start = (int) (logIndex.dataOffsets[position] - segmentOffsets[segment]);
+
+         ByteBuffer segmentView = segmentViews[segment];
+         segmentView.limit(start + logIndex.compressedSizes[position]);
+         segmentView.position(start);
+         return segmentView;
+      }
+
+      /**
+       * @return the decompressed entry. The buffer is reused by the next call to this reader.
+       */
+      public ByteBuffer readData(int position) throws IOException
+      {
+         uncompressedData.clear();
+         readData(position, uncompressedData);
+         uncompressedData.flip();
+         return uncompressedData;
+      }
+
+      /**
+       * Decompresses the entry to the position of the given buffer. No data is copied if the buffer is
+       * direct and the log is not delta encoded.
+       */
+      public void readData(int position, ByteBuffer uncompressedDataToPack) throws IOException
+      {
+         if (deltaFrameDecoder != null)
+         {
+            uncompressedDataToPack.put(deltaFrameDecoder.decode(position, this));
+            return;
+         }
+
+         SnappyUtils.uncompress(readCompressedData(position), uncompressedDataToPack);
+      }
+   }
+}
@@ -0,0 +1,604 @@
+package us.ihmc.robotDataLogger.logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import us.ihmc.commons.Conversions;
+import us.ihmc.commons.PrintTools;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.BooleanYoVariable;
+import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
+import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
+import us.ihmc.robotics.dataStructures.variable.LongYoVariable;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Writes compressed full state buffers and their index entries to disk off the receive thread.
+ *
+ * Incoming buffers are copied into a bounded ring of preallocated slots. A fixed set of compression
+ * threads claims the filled slots directly from the ring and a single writer thread appends them in
+ * the order they were received, batching all consecutive compressed slots in one gathering write. If
+ * the ring is full the incoming buffer is dropped and counted. Submitting a buffer does not allocate.
+ *
+ * The file format is identical to the synchronous writer in {@link YoVariableLoggerListener}. When
+ * delta encoding is enabled the deltas are computed on the calling thread, so a dropped buffer never
+ * breaks the chain of deltas.
+ *
+ * The first failure to write stops the writer. Later buffers are dropped and {@link #flush()},
+ * {@link #clear()} and {@link #close()} rethrow the failure. A buffer that cannot be compressed is
+ * dropped without an index entry, unless the log is delta encoded in which case the chain of deltas
+ * is broken and the failure stops the writer as well.
+ *
+ * The ring statistics are published as YoVariables in {@link #getYoVariableRegistry()}.
+ */
+public class PipelinedLogWriter
+{
+   public static final int DEFAULT_RING_SIZE = 1024;
+   public static final int DEFAULT_NUMBER_OF_COMPRESSION_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+   private static final int MAXIMUM_BATCH_SIZE = 64;
+   private static final long FORCE_PERIOD_NANOSECONDS = Conversions.secondsToNanoseconds(1.0);
+   private static final long STATISTICS_PERIOD_NANOSECONDS = Conversions.secondsToNanoseconds(10.0);
+
+   private enum SlotState
+   {
+      FREE, FILLED, COMPRESSED
+   }
+
+   private static class Slot
+   {
+      private final ByteBuffer data;
+      private final ByteBuffer compressedData;
+      private long timestamp;
+      private long receiveTime;
+      private boolean compressionFailed;
+      private volatile SlotState state = SlotState.FREE;
+
+      private Slot(int maximumDataSize)
+      {
+         data = ByteBuffer.allocate(maximumDataSize);
+         compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(maximumDataSize));
+      }
+   }
+
+   private final FileChannel dataChannel;
+   private final FileChannel indexChannel;
+   private final boolean forcePeriodically;
+   private final boolean isDeltaEncoded;
+   private final DeltaFrameEncoder deltaFrameEncoder;
+
+   private final Slot[] slots;
+   private final Thread[] compressionThreads;
+   private final Thread writerThread;
+   private final Object writeSignal = new Object();
+   private final Object flushSignal = new Object();
+   private final Object channelLock = new Object();
+
+   /** Sequence number of the next received buffer, only changed by the receive thread */
+   private final AtomicLong head = new AtomicLong();
+   /** Sequence number of the next buffer to compress, claimed by the compression threads */
+   private final AtomicLong nextToCompress = new AtomicLong();
+   /** Number of compression threads that are about to park or parked */
+   private final AtomicInteger idleCompressionThreads = new AtomicInteger();
+   /** Sequence number of the next buffer to write, only changed by the writer thread */
+   private final AtomicLong tail = new AtomicLong();
+   private volatile boolean running = true;
+   /** First failure of the writer thread or a compression thread */
+   private final AtomicReference<IOException> writeException = new AtomicReference<>();
+
+   private final ByteBuffer[] dataBatch = new ByteBuffer[MAXIMUM_BATCH_SIZE];
+   private final ByteBuffer indexBatch = ByteBuffer.allocate(16 * MAXIMUM_BATCH_SIZE);
+
+   private final AtomicLong droppedBuffers = new AtomicLong();
+   private volatile int maximumOccupancy = 0;
+   private volatile long maximumWriteLatency = 0;
+   private volatile long totalWriteLatency = 0;
+   private volatile long writtenBuffers = 0;
+
+   private final YoVariableRegistry registry = new YoVariableRegistry(getClass().getSimpleName());
+   private final LongYoVariable yoWrittenBuffers = new LongYoVariable("writtenBuffers", registry);
+   private final LongYoVariable yoDroppedBuffers = new LongYoVariable("droppedBuffers", registry);
+   private final IntegerYoVariable yoRingOccupancy = new IntegerYoVariable("ringOccupancy", registry);
+   private final IntegerYoVariable yoMaximumRingOccupancy = new IntegerYoVariable("maximumRingOccupancy", registry);
+   private final DoubleYoVariable yoAverageWriteLatency = new DoubleYoVariable("averageWriteLatency", registry);
+   private final DoubleYoVariable yoMaximumWriteLatency = new DoubleYoVariable("maximumWriteLatency", registry);
+   private final BooleanYoVariable yoWriteFailed = new BooleanYoVariable("writeFailed", registry);
+
+   /**
+    * @param keyframeInterval number of buffers between keyframes, 0 to disable delta encoding
+    */
+   public PipelinedLogWriter(FileChannel dataChannel, FileChannel indexChannel, int bufferSize, int keyframeInterval, int ringSize,
+                             int numberOfCompressionThreads, boolean forcePeriodically)
+   {
+      this(dataChannel, indexChannel, bufferSize, keyframeInterval, ringSize, numberOfCompressionThreads, forcePeriodically, null);
+   }
+
+   /**
+    * @param keyframeInterval number of buffers between keyframes, 0 to disable delta encoding
+    * @param parentRegistry registry to add the ring statistics to, can be null
+    */
+   public PipelinedLogWriter(FileChannel dataChannel, FileChannel indexChannel, int bufferSize, int keyframeInterval, int ringSize,
+                             int numberOfCompressionThreads, boolean forcePeriodically, YoVariableRegistry parentRegistry)
+   {
+      if (ringSize < 1 || numberOfCompressionThreads < 1)
+      {
+         throw new RuntimeException("Need at least one slot and one compression thread");
+      }
+
+      this.dataChannel = dataChannel;
+      this.indexChannel = indexChannel;
+      this.forcePeriodically = forcePeriodically;
+      this.isDeltaEncoded = keyframeInterval > 0;
+      this.deltaFrameEncoder = new DeltaFrameEncoder(bufferSize, keyframeInterval);
+
+      slots = new Slot[ringSize];
+      for (int i = 0; i < ringSize; i++)
+      {
+         slots[i] = new Slot(deltaFrameEncoder.getMaximumEncodedSize());
+      }
+
+      compressionThreads = new Thread[numberOfCompressionThreads];
+      for (int i = 0; i < numberOfCompressionThreads; i++)
+      {
+         compressionThreads[i] = new Thread(this::compress, "LogCompression-" + i);
+         compressionThreads[i].start();
+      }
+      writerThread = new Thread(this::write, "LogWriter");
+      writerThread.start();
+
+      if (parentRegistry != null)
+      {
+         parentRegistry.addChild(registry);
+      }
+   }
+
+   /**
+    * Copies the buffer into the ring. Does not block.
+    *
+    * @return false if the ring was full or writing failed and the buffer is dropped
+    */
+   public boolean submit(long timestamp, ByteBuffer buffer)
+   {
+      long sequence = head.get();
+      int occupancy = (int) (sequence - tail.get());
+      if (occupancy >= slots.length || writeException.get() != null)
+      {
+         droppedBuffers.incrementAndGet();
+         return false;
+      }
+      if (occupancy + 1 > maximumOccupancy)
+      {
+         maximumOccupancy = occupancy + 1;
+      }
+
+      Slot slot = slots[(int) (sequence % slots.length)];
+      slot.timestamp = timestamp;
+      slot.receiveTime = System.nanoTime();
+      slot.data.clear();
+      buffer.clear();
+      slot.data.put(deltaFrameEncoder.encode(buffer));
+      slot.data.flip();
+      slot.state = SlotState.FILLED;
+      head.set(sequence + 1);
+
+      if (idleCompressionThreads.get() > 0)
+      {
+         unparkCompressionThreads();
+      }
+      return true;
+   }
+
+   /**
+    * Blocks until all submitted buffers are written.
+    *
+    * @throws IOException if writing failed, submitted buffers may not have been written
+    */
+   public void flush() throws IOException
+   {
+      synchronized (flushSignal)
+      {
+         while (tail.get() < head.get() && writerThread.isAlive() && writeException.get() == null)
+         {
+            signalWriter();
+            try
+            {
+               flushSignal.wait();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               break;
+            }
+         }
+      }
+      throwWriteException();
+   }
+
+   /**
+    * Writes all submitted buffers and truncates both files. Should not be called concurrently with
+    * {@link #submit(long, ByteBuffer)}.
+    */
+   public void clear() throws IOException
+   {
+      flush();
+      synchronized (channelLock)
+      {
+         dataChannel.truncate(0);
+         indexChannel.truncate(0);
+      }
+      deltaFrameEncoder.reset();
+   }
+
+   /**
+    * Writes all submitted buffers and stops the worker threads. Does not close the channels. The
+    * threads are stopped even if writing failed.
+    *
+    * @throws IOException if writing failed, submitted buffers may not have been written
+    */
+   public void close() throws IOException
+   {
+      try
+      {
+         flush();
+      }
+      finally
+      {
+         running = false;
+         signalWriter();
+         unparkCompressionThreads();
+         try
+         {
+            writerThread.join();
+            for (Thread compressionThread : compressionThreads)
+            {
+               compressionThread.join();
+            }
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+         updateYoVariables();
+         printStatistics();
+      }
+   }
+
+   public YoVariableRegistry getYoVariableRegistry()
+   {
+      return registry;
+   }
+
+   /**
+    * @return the first failure writing the log, null if writing did not fail
+    */
+   public IOException getWriteException()
+   {
+      return writeException.get();
+   }
+
+   public int getRingSize()
+   {
+      return slots.length;
+   }
+
+   public int getOccupancy()
+   {
+      return (int) (head.get() - tail.get());
+   }
+
+   public int getMaximumOccupancy()
+   {
+      return maximumOccupancy;
+   }
+
+   public long getNumberOfDroppedBuffers()
+   {
+      return droppedBuffers.get();
+   }
+
+   public long getNumberOfWrittenBuffers()
+   {
+      return writtenBuffers;
+   }
+
+   /**
+    * @return the average time from receiving a buffer to writing it in seconds
+    */
+   public double getAverageWriteLatency()
+   {
+      long written = writtenBuffers;
+      return written == 0 ? 0.0 : Conversions.nanosecondsToSeconds(totalWriteLatency / written);
+   }
+
+   /**
+    * @return the maximum time from receiving a buffer to writing it in seconds
+    */
+   public double getMaximumWriteLatency()
+   {
+      return Conversions.nanosecondsToSeconds(maximumWriteLatency);
+   }
+
+   /**
+    * Loop of a compression thread. Claims the next filled slot, or parks until
+    * {@link #submit(long, ByteBuffer)} fills one.
+    */
+   private void compress()
+   {
+      while (true)
+      {
+         long sequence = nextToCompress.get();
+         if (sequence < head.get())
+         {
+            if (nextToCompress.compareAndSet(sequence, sequence + 1))
+            {
+               compress(slots[(int) (sequence % slots.length)]);
+            }
+            continue;
+         }
+         if (!running)
+         {
+            return;
+         }
+
+         // Announce parking before checking the ring again, so a buffer submitted in between unparks this thread
+         idleCompressionThreads.incrementAndGet();
+         if (nextToCompress.get() >= head.get() && running)
+         {
+            LockSupport.park(this);
+         }
+         idleCompressionThreads.decrementAndGet();
+      }
+   }
+
+   private void unparkCompressionThreads()
+   {
+      for (Thread compressionThread : compressionThreads)
+      {
+         LockSupport.unpark(compressionThread);
+      }
+   }
+
+   private void compress(Slot slot)
+   {
+      try
+      {
+         slot.compressionFailed = false;
+         slot.compressedData.clear();
+         SnappyUtils.compress(slot.data, slot.compressedData);
+         slot.compressedData.flip();
+      }
+      catch (IOException e)
+      {
+         slot.compressionFailed = true;
+         slot.compressedData.clear();
+         slot.compressedData.limit(0);
+         if (isDeltaEncoded)
+         {
+            recordWriteException(e);
+         }
+         else
+         {
+            PrintTools.error(this, "Dropping buffer that cannot be compressed: " + e.getMessage());
+         }
+      }
+      slot.state = SlotState.COMPRESSED;
+      signalWriter();
+   }
+
+   private void signalWriter()
+   {
+      synchronized (writeSignal)
+      {
+         writeSignal.notifyAll();
+      }
+   }
+
+   private void signalFlush()
+   {
+      synchronized (flushSignal)
+      {
+         flushSignal.notifyAll();
+      }
+   }
+
+   private void write()
+   {
+      long lastForceTime = System.nanoTime();
+      long lastStatisticsTime = lastForceTime;
+      long droppedAtLastStatistics = 0;
+
+      while ((running || tail.get() < head.get()) && writeException.get() == null)
+      {
+         int batchSize = collectBatch();
+         if (batchSize == 0)
+         {
+            synchronized (writeSignal)
+            {
+               try
+               {
+                  writeSignal.wait(1);
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+            }
+            continue;
+         }
+
+         try
+         {
+            writeBatch(batchSize);
+         }
+         catch (IOException e)
+         {
+            // The batch stays in the ring, retrying would most likely fail again
+            recordWriteException(e);
+            break;
+         }
+         signalFlush();
+         updateYoVariables();
+
+         long now = System.nanoTime();
+         if (forcePeriodically && now - lastForceTime > FORCE_PERIOD_NANOSECONDS)
+         {
+            force();
+            lastForceTime = now;
+         }
+         if (now - lastStatisticsTime > STATISTICS_PERIOD_NANOSECONDS)
+         {
+            long dropped = droppedBuffers.get();
+            if (dropped != droppedAtLastStatistics)
+            {
+               printStatistics();
+               droppedAtLastStatistics = dropped;
+            }
+            lastStatisticsTime = now;
+         }
+      }
+
+      if (writeException.get() == null)
+      {
+         force();
+      }
+      updateYoVariables();
+      signalFlush();
+   }
+
+   private int collectBatch()
+   {
+      long sequence = tail.get();
+      long available = head.get() - sequence;
+      int batchSize = 0;
+      while (batchSize < MAXIMUM_BATCH_SIZE && batchSize < available)
+      {
+         Slot slot = slots[(int) ((sequence + batchSize) % slots.length)];
+         if (slot.state != SlotState.COMPRESSED)
+         {
+            break;
+         }
+         dataBatch[batchSize] = slot.compressedData;
+         batchSize++;
+      }
+      return batchSize;
+   }
+
+   private void writeBatch(int batchSize) throws IOException
+   {
+      long sequence = tail.get();
+
+      synchronized (channelLock)
+      {
+         long position = dataChannel.position();
+         indexBatch.clear();
+         for (int i = 0; i < batchSize; i++)
+         {
+            Slot slot = slots[(int) ((sequence + i) % slots.length)];
+            if (slot.compressionFailed)
+            {
+               continue;
+            }
+            indexBatch.putLong(slot.timestamp);
+            indexBatch.putLong(position);
+            position += slot.compressedData.remaining();
+         }
+         indexBatch.flip();
+
+         long bytesToWrite = position - dataChannel.position();
+         long written = 0;
+         while (written < bytesToWrite)
+         {
+            written += dataChannel.write(dataBatch, 0, batchSize);
+         }
+         while (indexBatch.hasRemaining())
+         {
+            indexChannel.write(indexBatch);
+         }
+      }
+
+      long now = System.nanoTime();
+      int numberOfFailedSlots = 0;
+      for (int i = 0; i < batchSize; i++)
+      {
+         Slot slot = slots[(int) ((sequence + i) % slots.length)];
+         dataBatch[i] = null;
+         if (slot.compressionFailed)
+         {
+            numberOfFailedSlots++;
+            slot.state = SlotState.FREE;
+            continue;
+         }
+         long latency = now - slot.receiveTime;
+         totalWriteLatency += latency;
+         if (latency > maximumWriteLatency)
+         {
+            maximumWriteLatency = latency;
+         }
+         slot.state = SlotState.FREE;
+      }
+      droppedBuffers.addAndGet(numberOfFailedSlots);
+      writtenBuffers += batchSize - numberOfFailedSlots;
+      tail.set(sequence + batchSize);
+   }
+
+   private void force()
+   {
+      try
+      {
+         synchronized (channelLock)
+         {
+            dataChannel.force(false);
+            indexChannel.force(false);
+         }
+      }
+      catch (IOException e)
+      {
+         recordWriteException(e);
+      }
+   }
+
+   private void recordWriteException(IOException e)
+   {
+      if (writeException.compareAndSet(null, e))
+      {
+         PrintTools.error(this, "Writing log data failed, stopping the writer: " + e.getMessage());
+         signalFlush();
+      }
+   }
+
+   private void throwWriteException() throws IOException
+   {
+      IOException exception = writeException.get();
+      if (exception != null)
+      {
+         throw new IOException("Writing log data failed", exception);
+      }
+   }
+
+   private void updateYoVariables()
+   {
+      yoWrittenBuffers.set(writtenBuffers);
+      yoDroppedBuffers.set(droppedBuffers.get());
+      yoRingOccupancy.set(getOccupancy());
+      yoMaximumRingOccupancy.set(maximumOccupancy);
+      yoAverageWriteLatency.set(getAverageWriteLatency());
+      yoMaximumWriteLatency.set(getMaximumWriteLatency());
+      yoWriteFailed.set(writeException.get() != null);
+   }
+
+   private void printStatistics()
+   {
+      PrintTools.info(this, "Written: " + writtenBuffers + ", dropped: " + droppedBuffers.get() + ", ring occupancy: " + getOccupancy() + "/"
+            + slots.length + " (max " + maximumOccupancy + "), write latency: " + getAverageWriteLatency() + "s (max " + getMaximumWriteLatency() + "s)");
+      IOException exception = writeException.get();
+      if (exception != null)
+      {
+         PrintTools.error(this, "Writing log data failed: " + exception.getMessage());
+      }
+   }
+}
@@ -32,6 +32,11 @@ public class YoVariableLogReader
    private ByteBuffer compressedData;
    private ByteBuffer uncompressedData;
    private FileInputStream logInputStream;
+   private DeltaFrameDecoder deltaFrameDecoder;
+
+   private boolean useMemoryMappedFiles = false;
+   private MemoryMappedLogFile memoryMappedLogFile;
+   private MemoryMappedLogFile.Reader memoryMappedLogReader;
    
    protected final File properties;
    private final File model;
@@ -82,6 +87,20 @@ public class YoVariableLogReader
 
    }
 
+   /**
+    * Reads the log through memory mapped files instead of file channel reads. This makes opening long
+    * logs and seeking in them fast and allows reading from multiple threads with
+    * {@link #createConcurrentReader()}. Has to be set before the reader is initialized.
+    */
+   public void setUseMemoryMappedFiles(boolean useMemoryMappedFiles)
+   {
+      if (initialized)
+      {
+         throw new RuntimeException("Cannot change the read mode after the reader is initialized");
+      }
+      this.useMemoryMappedFiles = useMemoryMappedFiles;
+   }
+
    protected boolean initialize()
    {
       if (!initialized)
@@ -106,13 +125,27 @@ public class YoVariableLogReader
                throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
             }
 
-            logInputStream = new FileInputStream(logdata);
-            logChannel = logInputStream.getChannel();
-
-            logIndex = new LogIndex(index, logChannel.size());
             int bufferSize = logLineLength * 8;
-            compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
-            uncompressedData = ByteBuffer.allocate(bufferSize);
+            int keyframeInterval = logProperties.getVariables().getKeyframeInterval();
+            if (useMemoryMappedFiles)
+            {
+               memoryMappedLogFile = new MemoryMappedLogFile(logdata, index, keyframeInterval);
+               memoryMappedLogReader = memoryMappedLogFile.createReader(bufferSize);
+               logIndex = memoryMappedLogFile.getLogIndex();
+            }
+            else
+            {
+               logInputStream = new FileInputStream(logdata);
+               logChannel = logInputStream.getChannel();
+
+               logIndex = new LogIndex(index, logChannel.size());
+               compressedData = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+               uncompressedData = ByteBuffer.allocate(bufferSize);
+               if (keyframeInterval > 0)
+               {
+                  deltaFrameDecoder = new DeltaFrameDecoder(bufferSize, keyframeInterval, false);
+               }
+            }
             
             numberOfEntries = logIndex.getNumberOfEntries();
             initialized = true;
@@ -134,9 +167,29 @@ public class YoVariableLogReader
    {
       return numberOfEntries;
    }
+
+   /**
+    * Creates an additional reader for the log that can be used on another thread. Only available
+    * when reading through memory mapped files.
+    */
+   public MemoryMappedLogFile.Reader createConcurrentReader()
+   {
+      if (!useMemoryMappedFiles || !initialize())
+      {
+         throw new RuntimeException("Concurrent readers need an initialized reader using memory mapped files");
+      }
+      return memoryMappedLogFile.createReader(logLineLength * 8);
+   }
    
    public void close()
    {
+      if (useMemoryMappedFiles)
+      {
+         memoryMappedLogReader = null;
+         memoryMappedLogFile = null;
+         return;
+      }
+
       try
       {
          logChannel.close();
@@ -168,8 +221,17 @@ public class YoVariableLogReader
       return logIndex.timestamps[position];
    }
    
+   /**
+    * @return the entry as stored in the log. For delta encoded logs this is either a keyframe or a
+    *         delta, see {@link DeltaFrameEncoding}.
+    */
    protected ByteBuffer readCompressedData(int position) throws IOException
    {
+      if (useMemoryMappedFiles)
+      {
+         return memoryMappedLogReader.readCompressedData(position);
+      }
+
       int size = getCompressedSize(position);
       long startOffset = getDataOffset(position);
       logChannel.position(startOffset);
@@ -184,6 +246,16 @@ public class YoVariableLogReader
    
    protected ByteBuffer readData(int position) throws IOException
    {
+      if (useMemoryMappedFiles)
+      {
+         return memoryMappedLogReader.readData(position);
+      }
+
+      if (deltaFrameDecoder != null)
+      {
+         return deltaFrameDecoder.decode(position, this::readCompressedData);
+      }
+
       ByteBuffer compressedData = readCompressedData(position);
       uncompressedData.clear();
       SnappyUtils.uncompress(compressedData, uncompressedData);
@@ -48,6 +48,8 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
    private final ByteBuffer indexBuffer = ByteBuffer.allocate(16);
    private ByteBuffer compressedBuffer;
+   private DeltaFrameEncoder deltaFrameEncoder;
+   private PipelinedLogWriter pipelinedLogWriter;
 
    private YoVariableClient yoVariableClient;
    private volatile boolean connected = false;
@@ -78,6 +80,7 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       logProperties.getVariables().setCompressed(true);
       logProperties.getVariables().setTimestamped(true);
       logProperties.getVariables().setIndex(indexFilename);
+      logProperties.getVariables().setKeyframeInterval(options.getKeyframeInterval());
       logProperties.getVariables().setHandshakeFileType(HandshakeFileType.IDL_YAML);
 
       logProperties.setName(request.getNameAsString());
@@ -169,9 +172,21 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
                {
                   yoVariableSummarizer.setBuffer(buffer);
                }
+
+               if (pipelinedLogWriter != null)
+               {
+                  pipelinedLogWriter.submit(timestamp, buffer);
+                  if(yoVariableSummarizer != null)
+                  {
+                     yoVariableSummarizer.update();
+                  }
+                  return;
+               }
+
                buffer.clear();
+               ByteBuffer frame = deltaFrameEncoder.encode(buffer);
                compressedBuffer.clear();
-               SnappyUtils.compress(buffer, compressedBuffer);
+               SnappyUtils.compress(frame, compressedBuffer);
                compressedBuffer.flip();
 
                indexBuffer.clear();
@@ -206,6 +221,18 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
 
    public void disconnected()
    {
+      if (pipelinedLogWriter != null)
+      {
+         try
+         {
+            pipelinedLogWriter.close();
+         }
+         catch (IOException e)
+         {
+            e.printStackTrace();
+         }
+      }
+
       try
       {
          dataChannel.close();
@@ -331,7 +358,8 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       logHandshake(handshake, handshakeParser);
 
       int bufferSize = handshakeParser.getBufferSize();
-      this.compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+      this.deltaFrameEncoder = new DeltaFrameEncoder(bufferSize, options.getKeyframeInterval());
+      this.compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(deltaFrameEncoder.getMaximumEncodedSize()));
 
       File dataFile = new File(tempDirectory, dataFilename);
       File indexFile = new File(tempDirectory, indexFilename);
@@ -342,7 +370,13 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
          {
             dataChannel = new FileOutputStream(dataFile, false).getChannel();
             indexChannel = new FileOutputStream(indexFile, false).getChannel();
-            
+
+            if (options.isPipelinedWriter())
+            {
+               pipelinedLogWriter = new PipelinedLogWriter(dataChannel, indexChannel, bufferSize, options.getKeyframeInterval(),
+                                                           options.getPipelineRingSize(), PipelinedLogWriter.DEFAULT_NUMBER_OF_COMPRESSION_THREADS,
+                                                           flushAggressivelyToDisk, handshakeParser.getRootRegistry());
+            }
          }
          catch (FileNotFoundException e)
          {
@@ -413,8 +447,16 @@ public class YoVariableLoggerListener implements YoVariablesUpdatedListener
       try
       {
          System.out.println("Clearing log.");
-         dataChannel.truncate(0);
-         indexChannel.truncate(0);
+         if (pipelinedLogWriter != null)
+         {
+            pipelinedLogWriter.clear();
+         }
+         else
+         {
+            dataChannel.truncate(0);
+            indexChannel.truncate(0);
+            deltaFrameEncoder.reset();
+         }
          for (VideoDataLoggerInterface videoDataLogger : videoDataLoggers)
          {
             videoDataLogger.restart();
@@ -20,6 +20,11 @@ public class YoVariableLoggerOptions
    
    private boolean flushAggressivelyToDisk = false;
 
+   private boolean pipelinedWriter = false;
+   private int pipelineRingSize = PipelinedLogWriter.DEFAULT_RING_SIZE;
+
+   private int keyframeInterval = 0;
+
    public static YoVariableLoggerOptions parse(String[] args) throws JSAPException
    {
       SimpleJSAP jsap = new SimpleJSAP("YoVariabeLogger", "Logs YoVariables and video from a robot", new Parameter[] {
@@ -28,7 +33,13 @@ public class YoVariableLoggerOptions
                   "Directory where to save log files"),
             new FlaggedOption("videoQuality", JSAP.DOUBLE_PARSER, String.valueOf(YoVariableLoggerOptions.defaultVideoQuality), JSAP.NOT_REQUIRED, 'q',
                   "quality", "Video quality"),
-            new Switch("flushAggressivelyToDisk", 's', "sync", "Aggressively flush data to disk. Reduces change of data loss but doesn't work on slow platters.") });
+            new Switch("flushAggressivelyToDisk", 's', "sync", "Aggressively flush data to disk. Reduces change of data loss but doesn't work on slow platters."),
+            new Switch("pipelinedWriter", 'p', "pipelined", "Compress and write data on background threads instead of the receive thread."),
+            new FlaggedOption("pipelineRingSize", JSAP.INTEGER_PARSER, String.valueOf(PipelinedLogWriter.DEFAULT_RING_SIZE), JSAP.NOT_REQUIRED, 'r',
+                  "ringSize", "Number of buffers the pipelined writer can hold before dropping data"),
+            new FlaggedOption("keyframeInterval", JSAP.INTEGER_PARSER, "0", JSAP.NOT_REQUIRED, 'k', "keyframeInterval",
+                  "Store only the changes between consecutive buffers, with a full buffer every N buffers. 0 disables delta encoding. Try "
+                        + DeltaFrameEncoding.DEFAULT_KEYFRAME_INTERVAL + ".") });
       JSAPResult config = jsap.parse(args);
       if (jsap.messagePrinted())
       {
@@ -42,6 +53,9 @@ public class YoVariableLoggerOptions
       options.setVideoQuality(config.getDouble("videoQuality"));
       options.setDisableVideo(config.getBoolean("disableVideo"));
       options.setFlushAggressivelyToDisk(config.getBoolean("flushAggressivelyToDisk"));
+      options.setPipelinedWriter(config.getBoolean("pipelinedWriter"));
+      options.setPipelineRingSize(config.getInt("pipelineRingSize"));
+      options.setKeyframeInterval(config.getInt("keyframeInterval"));
 
       return options;
    }
@@ -85,6 +99,36 @@ public class YoVariableLoggerOptions
    {
       this.flushAggressivelyToDisk = flushAggressivelyToDisk;
    }
+
+   public boolean isPipelinedWriter()
+   {
+      return pipelinedWriter;
+   }
+
+   public void setPipelinedWriter(boolean pipelinedWriter)
+   {
+      this.pipelinedWriter = pipelinedWriter;
+   }
+
+   public int getPipelineRingSize()
+   {
+      return pipelineRingSize;
+   }
+
+   public void setPipelineRingSize(int pipelineRingSize)
+   {
+      this.pipelineRingSize = pipelineRingSize;
+   }
+
+   public int getKeyframeInterval()
+   {
+      return keyframeInterval;
+   }
+
+   public void setKeyframeInterval(int keyframeInterval)
+   {
+      this.keyframeInterval = keyframeInterval;
+   }
    
    
 }
@@ -0,0 +1,254 @@
+package us.ihmc.robotDataLogger.logger.converters;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.ColumnarLogReader;
+import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
+import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
+import us.ihmc.robotics.dataStructures.variable.YoVariable;
+import us.ihmc.tools.compression.SnappyUtils;
+
+/**
+ * Writes a columnar copy of a compressed YoVariable log next to the original log, see
+ * {@link ColumnarLogReader} for the layout.
+ *
+ * The log is transposed one chunk at a time. The number of entries per chunk is limited so a chunk
+ * of all variables fits in {@link #MAXIMUM_CHUNK_BYTES}.
+ */
+public class ColumnarLogConverter extends YoVariableLogReader
+{
+   public static final int MAXIMUM_ENTRIES_PER_CHUNK = 4096;
+   public static final int MAXIMUM_CHUNK_BYTES = 64 * 1024 * 1024;
+
+   public static void main(String[] args) throws IOException
+   {
+      Path root;
+      if (args.length < 1)
+      {
+         System.out.println("Enter directory to convert");
+         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+         String path = br.readLine();
+         br.close();
+         root = Paths.get(path);
+      }
+      else
+      {
+         root = Paths.get(args[0]);
+      }
+
+      if (!Files.exists(root) || !Files.isDirectory(root))
+      {
+         throw new RuntimeException(root + " is not a directory");
+      }
+
+      PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + YoVariableLoggerListener.propertyFile);
+      Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+      {
+         @Override
+         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+         {
+            if (matcher.matches(file.getFileName()))
+            {
+               try
+               {
+                  File directory = file.getParent().toFile();
+                  convert(directory, new LogPropertiesReader(file.toFile()));
+               }
+               catch (IOException e)
+               {
+                  e.printStackTrace();
+               }
+            }
+            return FileVisitResult.CONTINUE;
+         }
+      });
+   }
+
+   /**
+    * Writes the columnar copy of the log in the given directory, unless it already exists.
+    */
+   public static void convert(File directory, LogProperties properties) throws IOException
+   {
+      if (!properties.getVariables().getCompressed())
+      {
+         System.err.println("Skipping " + directory + ", only compressed logs can be converted. Run LogCompressor first.");
+         return;
+      }
+      if (ColumnarLogReader.hasColumnarLog(directory))
+      {
+         System.out.println("Skipping " + directory + ", columnar log already exists.");
+         return;
+      }
+
+      System.out.println("Converting " + directory);
+      ColumnarLogConverter converter = new ColumnarLogConverter(directory, properties);
+      try
+      {
+         converter.convert();
+      }
+      finally
+      {
+         converter.close();
+      }
+   }
+
+   private ColumnarLogConverter(File logDirectory, LogProperties logProperties)
+   {
+      super(logDirectory, logProperties);
+      setUseMemoryMappedFiles(true);
+   }
+
+   private void convert() throws IOException
+   {
+      if (!initialize())
+      {
+         throw new IOException("Cannot read log in " + logDirectory);
+      }
+
+      boolean[] isDouble = getDoubleVariables();
+      int numberOfVariables = getNumberOfVariables();
+      int numberOfEntries = getNumberOfEntries();
+      int entriesPerChunk = Math.max(1, Math.min(MAXIMUM_ENTRIES_PER_CHUNK, MAXIMUM_CHUNK_BYTES / (8 * numberOfVariables)));
+      int numberOfChunks = (numberOfEntries + entriesPerChunk - 1) / entriesPerChunk;
+
+      // Write to temporary files first so an interrupted conversion is not mistaken for a columnar log
+      File dataFile = new File(logDirectory, ColumnarLogReader.columnDataFile + ".tmp");
+      File indexFile = new File(logDirectory, ColumnarLogReader.columnIndexFile + ".tmp");
+      FileOutputStream dataStream = new FileOutputStream(dataFile);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(indexFile);
+      FileChannel indexChannel = indexStream.getChannel();
+
+      ByteBuffer header = ByteBuffer.allocate(ColumnarLogReader.HEADER_SIZE + numberOfChunks * ColumnarLogReader.CHUNK_HEADER_SIZE);
+      header.putInt(ColumnarLogReader.MAGIC);
+      header.putInt(ColumnarLogReader.FORMAT_VERSION);
+      header.putInt(numberOfVariables);
+      header.putInt(numberOfEntries);
+      header.putInt(entriesPerChunk);
+      header.putInt(numberOfChunks);
+      for (int chunk = 0; chunk < numberOfChunks; chunk++)
+      {
+         header.putLong(getTimestamp(chunk * entriesPerChunk));
+         header.putLong(getTimestamp(Math.min(numberOfEntries, (chunk + 1) * entriesPerChunk) - 1));
+      }
+      header.flip();
+      writeFully(indexChannel, header);
+
+      // Values of a chunk ordered by variable so every column is contiguous
+      long[] values = new long[numberOfVariables * entriesPerChunk];
+      ByteBuffer column = ByteBuffer.allocate(entriesPerChunk * 8);
+      ByteBuffer compressedColumn = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(entriesPerChunk * 8));
+      ByteBuffer records = ByteBuffer.allocate(numberOfVariables * ColumnarLogReader.COLUMN_RECORD_SIZE);
+
+      for (int chunk = 0; chunk < numberOfChunks; chunk++)
+      {
+         int firstEntry = chunk * entriesPerChunk;
+         int entriesInChunk = Math.min(entriesPerChunk, numberOfEntries - firstEntry);
+
+         for (int entry = 0; entry < entriesInChunk; entry++)
+         {
+            LongBuffer data = readData(firstEntry + entry).asLongBuffer();
+            for (int variable = 0; variable < numberOfVariables; variable++)
+            {
+               values[variable * entriesPerChunk + entry] = data.get(variable);
+            }
+         }
+
+         records.clear();
+         for (int variable = 0; variable < numberOfVariables; variable++)
+         {
+            double minimum = Double.NaN;
+            double maximum = Double.NaN;
+
+            column.clear();
+            for (int entry = 0; entry < entriesInChunk; entry++)
+            {
+               long value = values[variable * entriesPerChunk + entry];
+               column.putLong(value);
+
+               double numericValue = isDouble[variable] ? Double.longBitsToDouble(value) : (double) value;
+               if (!Double.isNaN(numericValue))
+               {
+                  minimum = Double.isNaN(minimum) ? numericValue : Math.min(minimum, numericValue);
+                  maximum = Double.isNaN(maximum) ? numericValue : Math.max(maximum, numericValue);
+               }
+            }
+            column.flip();
+
+            compressedColumn.clear();
+            SnappyUtils.compress(column, compressedColumn);
+            compressedColumn.flip();
+
+            records.putLong(dataChannel.position());
+            records.putInt(compressedColumn.remaining());
+            records.putDouble(minimum);
+            records.putDouble(maximum);
+            writeFully(dataChannel, compressedColumn);
+         }
+         records.flip();
+         writeFully(indexChannel, records);
+
+         if (chunk % Math.max(1, numberOfChunks / 10) == 0)
+         {
+            System.out.print((100 * chunk / numberOfChunks) + "%... ");
+         }
+      }
+      System.out.println("100%");
+
+      dataChannel.force(true);
+      indexChannel.force(true);
+      dataChannel.close();
+      dataStream.close();
+      indexChannel.close();
+      indexStream.close();
+
+      Files.move(dataFile.toPath(), new File(logDirectory, ColumnarLogReader.columnDataFile).toPath());
+      Files.move(indexFile.toPath(), new File(logDirectory, ColumnarLogReader.columnIndexFile).toPath());
+   }
+
+   /**
+    * Variables whose long bits are a double. The timestamp and all integer, boolean and enum
+    * variables are stored as plain longs, joint states are always doubles.
+    */
+   private boolean[] getDoubleVariables() throws IOException
+   {
+      YoVariableHandshakeParser parser = ConverterUtil.getHandshake(logProperties.getVariables().getHandshakeFileType(), handshake);
+      List<YoVariable<?>> variables = parser.getYoVariablesList();
+
+      boolean[] isDouble = new boolean[getNumberOfVariables()];
+      for (int i = 1; i < isDouble.length; i++)
+      {
+         int variableIndex = i - 1;
+         isDouble[i] = variableIndex >= variables.size() || variables.get(variableIndex) instanceof DoubleYoVariable;
+      }
+      return isDouble;
+   }
+
+   private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+   }
+}
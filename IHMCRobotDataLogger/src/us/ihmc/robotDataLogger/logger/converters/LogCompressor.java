@@ -15,19 +15,38 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 
 import us.ihmc.idl.serializers.extra.PropertiesSerializer;
 import us.ihmc.robotDataLogger.LogProperties;
 import us.ihmc.robotDataLogger.LogPropertiesPubSubType;
 import us.ihmc.robotDataLogger.handshake.YoVariableHandshakeParser;
+import us.ihmc.robotDataLogger.logger.DeltaFrameEncoder;
+import us.ihmc.robotDataLogger.logger.DeltaFrameEncoding;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
 import us.ihmc.robotDataLogger.logger.YoVariableLoggerListener;
 import us.ihmc.tools.compression.SnappyUtils;
 
+/**
+ * Compresses logs and optionally delta encodes them, see {@link DeltaFrameEncoding}.
+ *
+ * Usage: LogCompressor [directory] [keyframeInterval]. With a keyframe interval logs that are
+ * already compressed are delta encoded as well.
+ */
 public class LogCompressor extends SimpleFileVisitor<Path>
 {
+   private static final String deltaEncodedDataFilename = "robotData.delta.bsz";
+   private static final String deltaEncodedIndexFilename = "robotData.delta.dat";
+
    private final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:robotData.log");
+   private final int keyframeInterval;
+
+   public LogCompressor(int keyframeInterval)
+   {
+      this.keyframeInterval = keyframeInterval;
+   }
 
    public static void main(String[] args) throws IOException
    {
@@ -49,7 +68,8 @@ public class LogCompressor extends SimpleFileVisitor<Path>
       {
          throw new RuntimeException(root + " is not a directory");
       }
-      Files.walkFileTree(root, new LogCompressor());
+      int keyframeInterval = args.length < 2 ? 0 : Integer.parseInt(args[1]);
+      Files.walkFileTree(root, new LogCompressor(keyframeInterval));
    }
 
    @Override
@@ -62,7 +82,7 @@ public class LogCompressor extends SimpleFileVisitor<Path>
             File directory = file.getParent().toFile();
             File log = new File(directory, YoVariableLoggerListener.propertyFile);
             LogProperties properties = new LogPropertiesReader(log);
-            compress(directory, properties);
+            compress(directory, properties, keyframeInterval);
          }
          catch (IOException e)
          {
@@ -82,7 +102,20 @@ public class LogCompressor extends SimpleFileVisitor<Path>
 
    public static void compress(File directory, LogProperties properties) throws IOException
    {
-      if (!properties.getVariables().getCompressed())
+      compress(directory, properties, 0);
+   }
+
+   /**
+    * Compresses the log in directory. If keyframeInterval is larger than zero the log is delta
+    * encoded, also when it was compressed before.
+    */
+   public static void compress(File directory, LogProperties properties, int keyframeInterval) throws IOException
+   {
+      if (properties.getVariables().getCompressed() && keyframeInterval > 0)
+      {
+         deltaEncode(directory, properties, keyframeInterval);
+      }
+      else if (!properties.getVariables().getCompressed())
       {
          System.out.println("Compressing " + directory);
 
@@ -99,11 +132,13 @@ public class LogCompressor extends SimpleFileVisitor<Path>
          properties.getVariables().setData("robotData.bsz");
          properties.getVariables().setIndex("robotData.dat");
          properties.getVariables().setTimestamped(true);
+         properties.getVariables().setKeyframeInterval(keyframeInterval);
          File compressedData = new File(directory, properties.getVariables().getDataAsString());
          File indexData = new File(directory, properties.getVariables().getIndexAsString());
 
          ByteBuffer indexBuffer = ByteBuffer.allocate(16);
-         ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+         DeltaFrameEncoder deltaFrameEncoder = new DeltaFrameEncoder(bufferSize, keyframeInterval);
+         ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(deltaFrameEncoder.getMaximumEncodedSize()));
          ByteBuffer uncompressed = ByteBuffer.allocate(bufferSize);
          FileChannel logChannel = new FileInputStream(logdata).getChannel();
 
@@ -130,7 +165,7 @@ public class LogCompressor extends SimpleFileVisitor<Path>
             }
 
             uncompressed.flip();
-            SnappyUtils.compress(uncompressed, compressed);
+            SnappyUtils.compress(deltaFrameEncoder.encode(uncompressed), compressed);
             compressed.flip();
 
             indexBuffer.putLong(uncompressed.getLong(0));
@@ -152,9 +187,7 @@ public class LogCompressor extends SimpleFileVisitor<Path>
          compressedChannel.close();
          logChannel.close();
 
-         File log = new File(directory, "robotData.log");
-         PropertiesSerializer<LogProperties> writer = new PropertiesSerializer<>(new LogPropertiesPubSubType());
-         writer.serialize(log, properties);
+         writeProperties(directory, properties);
          
          logdata.delete();
          System.out.println("Compressed " + directory);
@@ -164,4 +197,123 @@ public class LogCompressor extends SimpleFileVisitor<Path>
          System.err.println("Log file is already compressed: " + directory);
       }
    }
+
+   /**
+    * Writes the delta encoded log to new files and switches the properties over to them once they
+    * are complete. The original files are only deleted after the properties are written, so an
+    * interrupted run leaves the original log untouched.
+    */
+   private static void deltaEncode(File directory, LogProperties properties, int keyframeInterval) throws IOException
+   {
+      if (properties.getVariables().getKeyframeInterval() > 0)
+      {
+         System.err.println("Log file is already delta encoded: " + directory);
+         return;
+      }
+
+      System.out.println("Delta encoding " + directory);
+
+      File compressedData = new File(directory, properties.getVariables().getDataAsString());
+      File indexData = new File(directory, properties.getVariables().getIndexAsString());
+      File encodedData = new File(directory, deltaEncodedDataFilename);
+      File encodedIndex = new File(directory, deltaEncodedIndexFilename);
+
+      EntryReader reader = new EntryReader(directory, properties);
+      try
+      {
+         int bufferSize = reader.getNumberOfVariables() * 8;
+         DeltaFrameEncoder deltaFrameEncoder = new DeltaFrameEncoder(bufferSize, keyframeInterval);
+         ByteBuffer indexBuffer = ByteBuffer.allocate(16);
+         ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(deltaFrameEncoder.getMaximumEncodedSize()));
+
+         FileOutputStream dataStream = new FileOutputStream(encodedData);
+         FileChannel dataChannel = dataStream.getChannel();
+         FileOutputStream indexStream = new FileOutputStream(encodedIndex);
+         FileChannel indexChannel = indexStream.getChannel();
+
+         int elements = reader.getNumberOfEntries();
+         for (int i = 0; i < elements; i++)
+         {
+            if (i % Math.max(1, elements / 10) == 0)
+            {
+               System.out.print((100L * i / elements) + "%... ");
+            }
+
+            compressed.clear();
+            SnappyUtils.compress(deltaFrameEncoder.encode(reader.readEntry(i)), compressed);
+            compressed.flip();
+
+            indexBuffer.clear();
+            indexBuffer.putLong(reader.getEntryTimestamp(i));
+            indexBuffer.putLong(dataChannel.position());
+            indexBuffer.flip();
+            indexChannel.write(indexBuffer);
+
+            while (compressed.hasRemaining())
+            {
+               dataChannel.write(compressed);
+            }
+         }
+         System.out.println("100%");
+
+         dataChannel.force(true);
+         indexChannel.force(true);
+         dataChannel.close();
+         dataStream.close();
+         indexChannel.close();
+         indexStream.close();
+      }
+      finally
+      {
+         reader.close();
+      }
+
+      properties.getVariables().setData(deltaEncodedDataFilename);
+      properties.getVariables().setIndex(deltaEncodedIndexFilename);
+      properties.getVariables().setKeyframeInterval(keyframeInterval);
+      writeProperties(directory, properties);
+
+      long originalSize = compressedData.length();
+      Files.delete(compressedData.toPath());
+      Files.delete(indexData.toPath());
+
+      System.out.println("Delta encoded " + directory + ", size " + originalSize + " -> " + encodedData.length() + " bytes");
+   }
+
+   /**
+    * Replaces the properties file in one step, so it either describes the old or the new log.
+    */
+   private static void writeProperties(File directory, LogProperties properties) throws IOException
+   {
+      File log = new File(directory, YoVariableLoggerListener.propertyFile);
+      File temporaryLog = new File(directory, YoVariableLoggerListener.propertyFile + ".tmp");
+      PropertiesSerializer<LogProperties> writer = new PropertiesSerializer<>(new LogPropertiesPubSubType());
+      writer.serialize(temporaryLog, properties);
+      Files.move(temporaryLog.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   /**
+    * Gives access to the entries of a compressed log.
+    */
+   private static class EntryReader extends YoVariableLogReader
+   {
+      private EntryReader(File logDirectory, LogProperties logProperties) throws IOException
+      {
+         super(logDirectory, logProperties);
+         if (!initialize())
+         {
+            throw new IOException("Cannot read log in " + logDirectory);
+         }
+      }
+
+      private ByteBuffer readEntry(int position) throws IOException
+      {
+         return readData(position);
+      }
+
+      private long getEntryTimestamp(int position)
+      {
+         return getTimestamp(position);
+      }
+   }
 }
@@ -0,0 +1,234 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.idl.serializers.extra.YAMLSerializer;
+import us.ihmc.robotDataLogger.Handshake;
+import us.ihmc.robotDataLogger.HandshakeFileType;
+import us.ihmc.robotDataLogger.HandshakePubSubType;
+import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.handshake.YoVariableHandShakeBuilder;
+import us.ihmc.robotDataLogger.logger.converters.ColumnarLogConverter;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
+import us.ihmc.robotics.dataStructures.variable.IntegerYoVariable;
+import us.ihmc.robotics.dataStructures.variable.YoVariable;
+
+public class ColumnarLogReaderTest
+{
+   /** Timestamp, one double and one integer variable */
+   private static final int NUMBER_OF_VARIABLES = 3;
+   private static final int DOUBLE_VARIABLE = 1;
+   private static final int INTEGER_VARIABLE = 2;
+   private static final int NUMBER_OF_ENTRIES = 2 * ColumnarLogConverter.MAXIMUM_ENTRIES_PER_CHUNK + 123;
+   private static final int KEYFRAME_INTERVAL = 100;
+
+   @Test(timeout = 30000)
+   public void testRoundTrip() throws Exception
+   {
+      testRoundTrip(new Random(4312), 0);
+   }
+
+   @Test(timeout = 30000)
+   public void testRoundTripFromDeltaEncodedLog() throws Exception
+   {
+      testRoundTrip(new Random(9876), KEYFRAME_INTERVAL);
+   }
+
+   private static void testRoundTrip(Random random, int keyframeInterval) throws Exception
+   {
+      long[][] entries = generateEntries(random);
+      File directory = writeLog(entries, keyframeInterval);
+
+      assertFalse(ColumnarLogReader.hasColumnarLog(directory));
+      ColumnarLogConverter.convert(directory, createProperties(keyframeInterval));
+      assertTrue(ColumnarLogReader.hasColumnarLog(directory));
+
+      ColumnarLogReader reader = new ColumnarLogReader(directory);
+      try
+      {
+         assertEquals(NUMBER_OF_VARIABLES, reader.getNumberOfVariables());
+         assertEquals(NUMBER_OF_ENTRIES, reader.getNumberOfEntries());
+         int entriesPerChunk = reader.getEntriesPerChunk();
+         assertEquals(ColumnarLogConverter.MAXIMUM_ENTRIES_PER_CHUNK, entriesPerChunk);
+         assertEquals(3, reader.getNumberOfChunks());
+
+         // Whole columns, ranges crossing chunk boundaries and single entries
+         for (int variable = 0; variable < NUMBER_OF_VARIABLES; variable++)
+         {
+            assertColumn(entries, reader, variable, 0, NUMBER_OF_ENTRIES - 1);
+            assertColumn(entries, reader, variable, entriesPerChunk - 10, entriesPerChunk + 10);
+            assertColumn(entries, reader, variable, 1, 2 * entriesPerChunk + 5);
+            assertColumn(entries, reader, variable, entriesPerChunk, entriesPerChunk);
+            assertColumn(entries, reader, variable, NUMBER_OF_ENTRIES - 1, NUMBER_OF_ENTRIES - 1);
+         }
+
+         for (int chunk = 0; chunk < reader.getNumberOfChunks(); chunk++)
+         {
+            int firstEntry = chunk * entriesPerChunk;
+            int lastEntry = Math.min(NUMBER_OF_ENTRIES, firstEntry + entriesPerChunk) - 1;
+            assertEquals(entries[firstEntry][0], reader.getChunkFirstTimestamp(chunk));
+            assertEquals(entries[lastEntry][0], reader.getChunkLastTimestamp(chunk));
+            assertEquals(chunk, reader.getChunk(firstEntry));
+            assertEquals(chunk, reader.getChunk(lastEntry));
+
+            double doubleMinimum = Double.POSITIVE_INFINITY;
+            double doubleMaximum = Double.NEGATIVE_INFINITY;
+            long integerMinimum = Long.MAX_VALUE;
+            long integerMaximum = Long.MIN_VALUE;
+            for (int entry = firstEntry; entry <= lastEntry; entry++)
+            {
+               double doubleValue = Double.longBitsToDouble(entries[entry][DOUBLE_VARIABLE]);
+               if (!Double.isNaN(doubleValue))
+               {
+                  doubleMinimum = Math.min(doubleMinimum, doubleValue);
+                  doubleMaximum = Math.max(doubleMaximum, doubleValue);
+               }
+               integerMinimum = Math.min(integerMinimum, entries[entry][INTEGER_VARIABLE]);
+               integerMaximum = Math.max(integerMaximum, entries[entry][INTEGER_VARIABLE]);
+            }
+
+            // NaN values are ignored by the statistics
+            assertEquals(doubleMinimum, reader.getMinimum(DOUBLE_VARIABLE, chunk), 0.0);
+            assertEquals(doubleMaximum, reader.getMaximum(DOUBLE_VARIABLE, chunk), 0.0);
+            assertEquals(integerMinimum, reader.getMinimum(INTEGER_VARIABLE, chunk), 0.0);
+            assertEquals(integerMaximum, reader.getMaximum(INTEGER_VARIABLE, chunk), 0.0);
+            assertEquals(entries[firstEntry][0], reader.getMinimum(0, chunk), 0.0);
+            assertEquals(entries[lastEntry][0], reader.getMaximum(0, chunk), 0.0);
+
+            assertTrue(reader.mayContainValuesInRange(INTEGER_VARIABLE, chunk, integerMinimum, integerMinimum));
+            assertTrue(reader.mayContainValuesInRange(INTEGER_VARIABLE, chunk, integerMaximum - 0.5, integerMaximum + 100.0));
+            assertFalse(reader.mayContainValuesInRange(INTEGER_VARIABLE, chunk, integerMaximum + 0.5, integerMaximum + 100.0));
+            assertFalse(reader.mayContainValuesInRange(DOUBLE_VARIABLE, chunk, doubleMinimum - 10.0, doubleMinimum - 1.0));
+         }
+
+         // Exact timestamps, timestamps in between entries and around chunk boundaries
+         for (int entry : new int[] {0, 1, entriesPerChunk - 1, entriesPerChunk, entriesPerChunk + 1, 2 * entriesPerChunk, NUMBER_OF_ENTRIES - 1})
+         {
+            assertEquals(entry, reader.findEntry(entries[entry][0]));
+            assertEquals(entry + 1, reader.findEntry(entries[entry][0] + 1));
+         }
+         for (int i = 0; i < 100; i++)
+         {
+            int entry = random.nextInt(NUMBER_OF_ENTRIES);
+            assertEquals(entry, reader.findEntry(entries[entry][0]));
+         }
+         assertEquals(0, reader.findEntry(Long.MIN_VALUE));
+         assertEquals(NUMBER_OF_ENTRIES, reader.findEntry(entries[NUMBER_OF_ENTRIES - 1][0] + 1));
+      }
+      finally
+      {
+         reader.close();
+      }
+
+      // A second conversion keeps the existing columnar log
+      File dataFile = new File(directory, ColumnarLogReader.columnDataFile);
+      long lastModified = dataFile.lastModified();
+      ColumnarLogConverter.convert(directory, createProperties(keyframeInterval));
+      assertEquals(lastModified, dataFile.lastModified());
+   }
+
+   private static void assertColumn(long[][] entries, ColumnarLogReader reader, int variable, int firstEntry, int lastEntry) throws Exception
+   {
+      long[] expected = new long[lastEntry - firstEntry + 1];
+      for (int entry = firstEntry; entry <= lastEntry; entry++)
+      {
+         expected[entry - firstEntry] = entries[entry][variable];
+      }
+      assertArrayEquals(expected, reader.readColumn(variable, firstEntry, lastEntry));
+   }
+
+   private static long[][] generateEntries(Random random)
+   {
+      long[][] entries = new long[NUMBER_OF_ENTRIES][NUMBER_OF_VARIABLES];
+      long timestamp = 1000;
+      for (int entry = 0; entry < NUMBER_OF_ENTRIES; entry++)
+      {
+         // Unevenly spaced timestamps so timestamps between entries exist
+         timestamp += 10 + random.nextInt(10);
+         entries[entry][0] = timestamp;
+
+         double doubleValue = random.nextInt(50) == 0 ? Double.NaN : 100.0 * (random.nextDouble() - 0.5) + entry / 100.0;
+         entries[entry][DOUBLE_VARIABLE] = Double.doubleToLongBits(doubleValue);
+
+         // Mostly unchanged values, like a controller state
+         if (entry == 0 || random.nextInt(20) == 0)
+            entries[entry][INTEGER_VARIABLE] = random.nextInt(2000) - 1000;
+         else
+            entries[entry][INTEGER_VARIABLE] = entries[entry - 1][INTEGER_VARIABLE];
+      }
+      return entries;
+   }
+
+   private static File writeLog(long[][] entries, int keyframeInterval) throws Exception
+   {
+      File directory = Files.createTempDirectory("columnarLog").toFile();
+      directory.deleteOnExit();
+
+      YoVariableRegistry registry = new YoVariableRegistry("test");
+      new DoubleYoVariable("doubleVariable", registry);
+      new IntegerYoVariable("integerVariable", registry);
+      YoVariableHandShakeBuilder handshakeBuilder = new YoVariableHandShakeBuilder(null, 0.001);
+      handshakeBuilder.addRegistry(registry, new ArrayList<YoVariable<?>>());
+
+      LogProperties properties = createProperties(keyframeInterval);
+      File handshakeFile = new File(directory, properties.getVariables().getHandshakeAsString());
+      handshakeFile.deleteOnExit();
+      YAMLSerializer<Handshake> serializer = new YAMLSerializer<>(new HandshakePubSubType());
+      serializer.serialize(handshakeFile, handshakeBuilder.getHandShake());
+
+      File logData = new File(directory, properties.getVariables().getDataAsString());
+      File index = new File(directory, properties.getVariables().getIndexAsString());
+      logData.deleteOnExit();
+      index.deleteOnExit();
+      new File(directory, ColumnarLogReader.columnDataFile).deleteOnExit();
+      new File(directory, ColumnarLogReader.columnIndexFile).deleteOnExit();
+
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(index);
+      FileChannel indexChannel = indexStream.getChannel();
+
+      PipelinedLogWriter writer = new PipelinedLogWriter(dataChannel, indexChannel, NUMBER_OF_VARIABLES * 8, keyframeInterval, NUMBER_OF_ENTRIES, 2, false);
+      ByteBuffer buffer = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      for (int entry = 0; entry < NUMBER_OF_ENTRIES; entry++)
+      {
+         buffer.clear();
+         buffer.asLongBuffer().put(entries[entry]);
+         assertTrue(writer.submit(entries[entry][0], buffer));
+      }
+      writer.close();
+      dataChannel.close();
+      dataStream.close();
+      indexChannel.close();
+      indexStream.close();
+
+      return directory;
+   }
+
+   private static LogProperties createProperties(int keyframeInterval)
+   {
+      LogProperties properties = new LogProperties();
+      properties.getVariables().setHandshake("handshake.yaml");
+      properties.getVariables().setHandshakeFileType(HandshakeFileType.IDL_YAML);
+      properties.getVariables().setData("robotData.bsz");
+      properties.getVariables().setIndex("robotData.dat");
+      properties.getVariables().setCompressed(true);
+      properties.getVariables().setTimestamped(true);
+      properties.getVariables().setKeyframeInterval(keyframeInterval);
+      return properties;
+   }
+}
@@ -0,0 +1,124 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DeltaFrameEncodingTest
+{
+   private static final int NUMBER_OF_VARIABLES = 500;
+   private static final int NUMBER_OF_ENTRIES = 300;
+   private static final int KEYFRAME_INTERVAL = 7;
+
+   @Test(timeout = 30000)
+   public void testEncodeDecode() throws Exception
+   {
+      Random random = new Random(1234);
+      long[][] frames = generateFrames(random);
+
+      DeltaFrameEncoder encoder = new DeltaFrameEncoder(NUMBER_OF_VARIABLES * 8, KEYFRAME_INTERVAL);
+      ByteBuffer frame = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      ByteBuffer decoded = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      int encodedSize = 0;
+      for (int entry = 0; entry < NUMBER_OF_ENTRIES; entry++)
+      {
+         frame.clear();
+         frame.asLongBuffer().put(frames[entry]);
+
+         ByteBuffer encoded = encoder.encode(frame);
+         assertTrue(encoded.remaining() <= encoder.getMaximumEncodedSize());
+         encodedSize += encoded.remaining();
+
+         if (DeltaFrameEncoding.isKeyframe(entry, KEYFRAME_INTERVAL))
+         {
+            decoded.clear();
+            decoded.put(encoded);
+         }
+         else
+         {
+            decoded.clear();
+            DeltaFrameEncoding.decode(encoded, decoded);
+         }
+
+         for (int i = 0; i < NUMBER_OF_VARIABLES; i++)
+         {
+            assertEquals(frames[entry][i], decoded.getLong(8 * i));
+         }
+      }
+
+      // Only a tenth of the values change between frames
+      assertTrue(encodedSize < NUMBER_OF_ENTRIES * NUMBER_OF_VARIABLES * 8 / 2);
+   }
+
+   @Test(timeout = 30000)
+   public void testRandomAccessInDeltaEncodedLog() throws Exception
+   {
+      Random random = new Random(4321);
+      long[][] frames = generateFrames(random);
+
+      File logData = File.createTempFile("robotData", ".bsz");
+      File index = File.createTempFile("robotData", ".dat");
+      logData.deleteOnExit();
+      index.deleteOnExit();
+
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(index);
+      FileChannel indexChannel = indexStream.getChannel();
+
+      PipelinedLogWriter writer = new PipelinedLogWriter(dataChannel, indexChannel, NUMBER_OF_VARIABLES * 8, KEYFRAME_INTERVAL, NUMBER_OF_ENTRIES, 2, false);
+      ByteBuffer buffer = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      for (int entry = 0; entry < NUMBER_OF_ENTRIES; entry++)
+      {
+         buffer.clear();
+         buffer.asLongBuffer().put(frames[entry]);
+         writer.submit(frames[entry][0], buffer);
+      }
+      writer.close();
+      dataChannel.close();
+      dataStream.close();
+      indexChannel.close();
+      indexStream.close();
+
+      MemoryMappedLogFile logFile = new MemoryMappedLogFile(logData, index, KEYFRAME_INTERVAL);
+      MemoryMappedLogFile.Reader reader = logFile.createReader(NUMBER_OF_VARIABLES * 8);
+      for (int i = 0; i < 1000; i++)
+      {
+         // Mostly forward reads with occasional jumps, like playback with seeking
+         int entry = random.nextInt(4) == 0 ? random.nextInt(NUMBER_OF_ENTRIES) : i % NUMBER_OF_ENTRIES;
+         ByteBuffer data = reader.readData(entry);
+         for (int variable = 0; variable < NUMBER_OF_VARIABLES; variable++)
+         {
+            assertEquals(frames[entry][variable], data.getLong(8 * variable));
+         }
+      }
+   }
+
+   private static long[][] generateFrames(Random random)
+   {
+      long[][] frames = new long[NUMBER_OF_ENTRIES][NUMBER_OF_VARIABLES];
+      for (int entry = 0; entry < NUMBER_OF_ENTRIES; entry++)
+      {
+         for (int variable = 0; variable < NUMBER_OF_VARIABLES; variable++)
+         {
+            if (entry == 0 || random.nextInt(10) == 0)
+            {
+               frames[entry][variable] = Double.doubleToLongBits(random.nextDouble());
+            }
+            else
+            {
+               frames[entry][variable] = frames[entry - 1][variable];
+            }
+         }
+         frames[entry][0] = 1000L * entry;
+      }
+      return frames;
+   }
+}
@@ -0,0 +1,119 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.tools.compression.SnappyUtils;
+
+public class MemoryMappedLogFileTest
+{
+   private static final int NUMBER_OF_VARIABLES = 100;
+   private static final int NUMBER_OF_ENTRIES = 500;
+
+   @Test(timeout = 30000)
+   public void testRandomAccessFromMultipleThreads() throws Exception
+   {
+      File logData = File.createTempFile("robotData", ".bsz");
+      File index = File.createTempFile("robotData", ".dat");
+      logData.deleteOnExit();
+      index.deleteOnExit();
+      writeLog(logData, index);
+
+      MemoryMappedLogFile logFile = new MemoryMappedLogFile(logData, index);
+      assertEquals(NUMBER_OF_ENTRIES, logFile.getNumberOfEntries());
+
+      Thread[] threads = new Thread[4];
+      Throwable[] errors = new Throwable[threads.length];
+      for (int i = 0; i < threads.length; i++)
+      {
+         int threadIndex = i;
+         MemoryMappedLogFile.Reader reader = logFile.createReader(NUMBER_OF_VARIABLES * 8);
+         threads[i] = new Thread(() -> {
+            try
+            {
+               Random random = new Random(threadIndex);
+               for (int j = 0; j < 2000; j++)
+               {
+                  int position = random.nextInt(NUMBER_OF_ENTRIES);
+                  assertEntry(position, reader.readData(position));
+               }
+            }
+            catch (Throwable e)
+            {
+               errors[threadIndex] = e;
+            }
+         });
+         threads[i].start();
+      }
+
+      for (int i = 0; i < threads.length; i++)
+      {
+         threads[i].join();
+         if (errors[i] != null)
+            throw new AssertionError(errors[i]);
+      }
+
+      // Decompressing into a heap buffer gives the same result
+      MemoryMappedLogFile.Reader reader = logFile.createReader(NUMBER_OF_VARIABLES * 8);
+      ByteBuffer heapBuffer = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      reader.readData(NUMBER_OF_ENTRIES - 1, heapBuffer);
+      heapBuffer.flip();
+      assertEntry(NUMBER_OF_ENTRIES - 1, heapBuffer);
+   }
+
+   private static void assertEntry(int position, ByteBuffer data)
+   {
+      assertEquals(NUMBER_OF_VARIABLES * 8, data.remaining());
+      assertEquals(1000L * position, data.getLong(0));
+      for (int i = 1; i < NUMBER_OF_VARIABLES; i++)
+      {
+         assertEquals(position % 7 + i, data.getLong(8 * i));
+      }
+   }
+
+   private static void writeLog(File logData, File index) throws IOException
+   {
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(index);
+      FileChannel indexChannel = indexStream.getChannel();
+
+      ByteBuffer uncompressed = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      ByteBuffer compressed = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(NUMBER_OF_VARIABLES * 8));
+      ByteBuffer indexEntry = ByteBuffer.allocate(16);
+      for (int position = 0; position < NUMBER_OF_ENTRIES; position++)
+      {
+         uncompressed.clear();
+         uncompressed.putLong(1000L * position);
+         for (int i = 1; i < NUMBER_OF_VARIABLES; i++)
+         {
+            uncompressed.putLong(position % 7 + i);
+         }
+         uncompressed.flip();
+
+         compressed.clear();
+         SnappyUtils.compress(uncompressed, compressed);
+         compressed.flip();
+
+         indexEntry.clear();
+         indexEntry.putLong(1000L * position);
+         indexEntry.putLong(dataChannel.position());
+         indexEntry.flip();
+         indexChannel.write(indexEntry);
+         dataChannel.write(compressed);
+      }
+
+      dataChannel.close();
+      dataStream.close();
+      indexChannel.close();
+      indexStream.close();
+   }
+}
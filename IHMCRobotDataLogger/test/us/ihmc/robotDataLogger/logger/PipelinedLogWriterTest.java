@@ -0,0 +1,166 @@
+package us.ihmc.robotDataLogger.logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import us.ihmc.robotDataLogger.LogIndex;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.tools.compression.SnappyUtils;
+
+public class PipelinedLogWriterTest
+{
+   private static final int NUMBER_OF_VARIABLES = 200;
+   private static final int NUMBER_OF_BUFFERS = 5000;
+
+   @Test(timeout = 30000)
+   public void testBuffersAreWrittenInOrder() throws Exception
+   {
+      File logData = File.createTempFile("robotData", ".bsz");
+      File index = File.createTempFile("robotData", ".dat");
+      logData.deleteOnExit();
+      index.deleteOnExit();
+
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileChannel dataChannel = dataStream.getChannel();
+      FileOutputStream indexStream = new FileOutputStream(index);
+      FileChannel indexChannel = indexStream.getChannel();
+
+      // A ring as large as the number of buffers so nothing is dropped
+      PipelinedLogWriter writer = new PipelinedLogWriter(dataChannel, indexChannel, NUMBER_OF_VARIABLES * 8, 0, NUMBER_OF_BUFFERS, 3, true);
+      ByteBuffer buffer = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      for (int i = 0; i < NUMBER_OF_BUFFERS; i++)
+      {
+         buffer.clear();
+         for (int j = 0; j < NUMBER_OF_VARIABLES; j++)
+         {
+            buffer.putLong(i + j);
+         }
+         writer.submit(1000L * i, buffer);
+      }
+      writer.close();
+      dataChannel.close();
+      dataStream.close();
+      indexChannel.close();
+      indexStream.close();
+
+      assertEquals(0, writer.getNumberOfDroppedBuffers());
+      assertEquals(NUMBER_OF_BUFFERS, writer.getNumberOfWrittenBuffers());
+
+      YoVariableRegistry registry = writer.getYoVariableRegistry();
+      assertEquals(NUMBER_OF_BUFFERS, registry.getVariable("writtenBuffers").getValueAsDouble(), 0.0);
+      assertEquals(0.0, registry.getVariable("droppedBuffers").getValueAsDouble(), 0.0);
+      assertEquals(0.0, registry.getVariable("ringOccupancy").getValueAsDouble(), 0.0);
+      assertEquals(writer.getMaximumOccupancy(), registry.getVariable("maximumRingOccupancy").getValueAsDouble(), 0.0);
+      assertEquals(0.0, registry.getVariable("writeFailed").getValueAsDouble(), 0.0);
+
+      MemoryMappedLogFile logFile = new MemoryMappedLogFile(logData, index);
+      LogIndex logIndex = logFile.getLogIndex();
+      MemoryMappedLogFile.Reader reader = logFile.createReader(NUMBER_OF_VARIABLES * 8);
+      assertEquals(NUMBER_OF_BUFFERS, logIndex.getNumberOfEntries());
+      for (int i = 0; i < NUMBER_OF_BUFFERS; i++)
+      {
+         assertEquals(1000L * i, logIndex.timestamps[i]);
+         ByteBuffer data = reader.readData(i);
+         for (int j = 0; j < NUMBER_OF_VARIABLES; j++)
+         {
+            assertEquals(i + j, data.getLong(8 * j));
+         }
+      }
+   }
+
+   @Test(timeout = 30000)
+   public void testFullRingDropsBuffers() throws Exception
+   {
+      File logData = File.createTempFile("robotData", ".bsz");
+      File index = File.createTempFile("robotData", ".dat");
+      logData.deleteOnExit();
+      index.deleteOnExit();
+
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileOutputStream indexStream = new FileOutputStream(index);
+
+      int ringSize = 4;
+      int bufferSize = SnappyUtils.maxCompressedLength(8);
+      PipelinedLogWriter writer = new PipelinedLogWriter(dataStream.getChannel(), indexStream.getChannel(), bufferSize, 0, ringSize, 1, false);
+      ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+      int submitted = 0;
+      for (int i = 0; i < 1000; i++)
+      {
+         if (writer.submit(i, buffer))
+            submitted++;
+      }
+      writer.close();
+      dataStream.close();
+      indexStream.close();
+
+      assertEquals(1000, submitted + writer.getNumberOfDroppedBuffers());
+      assertEquals(submitted, writer.getNumberOfWrittenBuffers());
+      assertEquals(16L * submitted, index.length());
+   }
+
+   @Test(timeout = 30000)
+   public void testWriteFailureStopsWriter() throws Exception
+   {
+      File logData = File.createTempFile("robotData", ".bsz");
+      File index = File.createTempFile("robotData", ".dat");
+      logData.deleteOnExit();
+      index.deleteOnExit();
+
+      FileOutputStream dataStream = new FileOutputStream(logData);
+      FileOutputStream indexStream = new FileOutputStream(index);
+      FileChannel dataChannel = dataStream.getChannel();
+      // Every write to a closed channel fails
+      dataChannel.close();
+
+      YoVariableRegistry parentRegistry = new YoVariableRegistry("parent");
+      PipelinedLogWriter writer = new PipelinedLogWriter(dataChannel, indexStream.getChannel(), NUMBER_OF_VARIABLES * 8, 0, 16, 2, false,
+                                                         parentRegistry);
+      ByteBuffer buffer = ByteBuffer.allocate(NUMBER_OF_VARIABLES * 8);
+      for (int i = 0; i < 8; i++)
+      {
+         writer.submit(i, buffer);
+      }
+
+      try
+      {
+         writer.flush();
+         fail("Flush should rethrow the write failure");
+      }
+      catch (IOException e)
+      {
+         assertNotNull(e.getCause());
+      }
+      assertNotNull(writer.getWriteException());
+
+      // Buffers submitted after the failure are dropped instead of filling the ring
+      long dropped = writer.getNumberOfDroppedBuffers();
+      assertFalse(writer.submit(8, buffer));
+      assertEquals(dropped + 1, writer.getNumberOfDroppedBuffers());
+
+      try
+      {
+         writer.close();
+         fail("Close should rethrow the write failure");
+      }
+      catch (IOException e)
+      {
+         assertEquals(writer.getWriteException(), e.getCause());
+      }
+      assertEquals(0, writer.getNumberOfWrittenBuffers());
+      assertEquals(0L, index.length());
+      assertEquals(1.0, parentRegistry.getVariable("writeFailed").getValueAsDouble(), 0.0);
+
+      dataStream.close();
+      indexStream.close();
+   }
+}
@@ -45,6 +45,7 @@ import us.ihmc.simulationconstructionset.gui.tools.SimulationOverheadPlotterFact
 public class LogVisualizer
 {
    private static final boolean PRINT_OUT_YOVARIABLE_NAMES = false;
+   private static final boolean USE_MEMORY_MAPPED_LOG = true;
 
    private final SimulationConstructionSet scs;
    private YoVariableLogPlaybackRobot robot;
@@ -163,7 +164,8 @@ public class LogVisualizer
          robotDescription.addRootJoint(rootJoint);
       }
 
-      robot = new YoVariableLogPlaybackRobot(selectedFile, robotDescription, jointStates, parser.getYoVariablesList(), logProperties ,scs);
+      robot = new YoVariableLogPlaybackRobot(selectedFile, robotDescription, jointStates, parser.getYoVariablesList(), logProperties, scs,
+            USE_MEMORY_MAPPED_LOG);
       scs.setTimeVariableName(robot.getRobotsYoVariableRegistry().getName() + ".robotTime");
 
       double dt = parser.getDt();
@@ -17,6 +17,7 @@ import com.jmatio.types.MLNumericArray;
 import us.ihmc.commons.Conversions;
 import us.ihmc.graphicsDescription.dataBuffer.DataEntry;
 import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.logger.ColumnarLogReader;
 import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
 import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
 import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
@@ -41,6 +42,9 @@ public class YoVariableExporter extends YoVariableLogReader
       super(logDirectory, logProperties);
       this.gui = scs.getGUI();
       this.variables = variables;
+
+      // Exports seek to arbitrary positions in logs that are possibly too large to read
+      setUseMemoryMappedFiles(true);
    }
 
    public void exportGraphs(File file, long start, long end)
@@ -102,37 +106,15 @@ public class YoVariableExporter extends YoVariableLogReader
          
          
          
-         int step = elements / 90;
-         
-         long firstTimestamp = -1;
-         for (int i = startPosition; i <= endPosition; i++)
+         if (ColumnarLogReader.hasColumnarLog(logDirectory))
          {
-            if((i - startPosition) % step == 0) 
-            {
-               monitor.setProgress((i - startPosition) / step);
-            }
-            
-            ByteBuffer data = readData(i);
-            LongBuffer dataAsLong = data.asLongBuffer();
-
-            
-            long entryTimestamp = dataAsLong.get();
-            
-            if(firstTimestamp == -1)
-            {
-               firstTimestamp = entryTimestamp;
-            }
-            
-            timestamp.setReal(entryTimestamp, i - startPosition);
-            robotTime.setReal(Conversions.nanosecondsToSeconds(entryTimestamp - firstTimestamp), i - startPosition);
-            
-            for (int dh = 0; dh < dataHolders.size(); dh++)
-            {
-               DataHolder<?> dataHolder = dataHolders.get(dh);
-               dataHolder.addEntry(dataAsLong);
-            }
+            exportFromColumnarLog(startPosition, endPosition, timestamp, robotTime, dataHolders, monitor);
          }
-         
+         else
+         {
+            exportFromLog(startPosition, endPosition, timestamp, robotTime, dataHolders, monitor);
+         }
+
          monitor.setNote("Writing data to disk");
          ArrayList<MLArray>  matlabData = new ArrayList<>();
          
@@ -154,6 +136,76 @@ public class YoVariableExporter extends YoVariableLogReader
       }
    }
 
+   private void exportFromLog(int startPosition, int endPosition, MLInt64 timestamp, MLDouble robotTime, ArrayList<DataHolder<?>> dataHolders,
+                              ProgressMonitorInterface monitor) throws IOException
+   {
+      int elements = endPosition - startPosition + 1;
+      int step = Math.max(1, elements / 90);
+      
+      long firstTimestamp = -1;
+      for (int i = startPosition; i <= endPosition; i++)
+      {
+         if((i - startPosition) % step == 0) 
+         {
+            monitor.setProgress((i - startPosition) / step);
+         }
+         
+         ByteBuffer data = readData(i);
+         LongBuffer dataAsLong = data.asLongBuffer();
+
+         
+         long entryTimestamp = dataAsLong.get();
+         
+         if(firstTimestamp == -1)
+         {
+            firstTimestamp = entryTimestamp;
+         }
+         
+         timestamp.setReal(entryTimestamp, i - startPosition);
+         robotTime.setReal(Conversions.nanosecondsToSeconds(entryTimestamp - firstTimestamp), i - startPosition);
+         
+         for (int dh = 0; dh < dataHolders.size(); dh++)
+         {
+            DataHolder<?> dataHolder = dataHolders.get(dh);
+            dataHolder.addEntry(dataAsLong);
+         }
+      }
+   }
+
+   /**
+    * Reads only the columns of the exported variables in the chunks covering the exported range.
+    */
+   private void exportFromColumnarLog(int startPosition, int endPosition, MLInt64 timestamp, MLDouble robotTime, ArrayList<DataHolder<?>> dataHolders,
+                                      ProgressMonitorInterface monitor) throws IOException
+   {
+      ColumnarLogReader columnarLogReader = new ColumnarLogReader(logDirectory);
+      try
+      {
+         long[] timestamps = columnarLogReader.readColumn(0, startPosition, endPosition);
+         for (int i = 0; i < timestamps.length; i++)
+         {
+            timestamp.setReal(timestamps[i], i);
+            robotTime.setReal(Conversions.nanosecondsToSeconds(timestamps[i] - timestamps[0]), i);
+         }
+
+         for (int dh = 0; dh < dataHolders.size(); dh++)
+         {
+            monitor.setProgress(90 * dh / dataHolders.size());
+
+            DataHolder<?> dataHolder = dataHolders.get(dh);
+            long[] values = columnarLogReader.readColumn(dataHolder.offset, startPosition, endPosition);
+            for (int i = 0; i < values.length; i++)
+            {
+               dataHolder.addEntry(values[i]);
+            }
+         }
+      }
+      finally
+      {
+         columnarLogReader.close();
+      }
+   }
+
    private DataHolder<?> createDataHolder(int offset, int elements, YoVariable<?> variable)
    {
       int[] dims = { elements, 1 };
@@ -244,7 +296,11 @@ public class YoVariableExporter extends YoVariableLogReader
 
       public void addEntry(LongBuffer dataAsLong)
       {
-         long entryAsLong = dataAsLong.get(offset);
+         addEntry(dataAsLong.get(offset));
+      }
+
+      public void addEntry(long entryAsLong)
+      {
          set(entryAsLong);
          index++;
       }
@@ -7,6 +7,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 import us.ihmc.robotDataLogger.LogProperties;
+import us.ihmc.robotDataLogger.logger.DeltaFrameEncoding;
 import us.ihmc.robotDataLogger.logger.YoVariableLogReader;
 import us.ihmc.robotDataVisualizer.logger.util.CustomProgressMonitor;
 import us.ihmc.robotDataVisualizer.logger.util.ProgressMonitorInterface;
@@ -76,7 +77,9 @@ public class YoVariableLogCropper extends YoVariableLogReader
          FileOutputStream indexStream = new FileOutputStream(indexFile);
          FileChannel indexChannel = indexStream.getChannel();
 
-         int startPosition = getPosition(inStamp);
+         // Delta encoded entries can only be decoded from their keyframe, so the cropped log has to start at one
+         int keyframeInterval = logProperties.getVariables().getKeyframeInterval();
+         int startPosition = DeltaFrameEncoding.getKeyframe(getPosition(inStamp), keyframeInterval);
          int endPosition = getPosition(outStamp);
 
          monitor.setNote("Writing variable data");
@@ -12,7 +12,9 @@ import java.util.List;
 import us.ihmc.commons.Conversions;
 import us.ihmc.robotDataLogger.LogIndex;
 import us.ihmc.robotDataLogger.jointState.JointState;
+import us.ihmc.robotDataLogger.logger.ColumnarLogReader;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
+import us.ihmc.robotDataLogger.logger.MemoryMappedLogFile;
 import us.ihmc.robotDataVisualizer.VisualizerRobot;
 import us.ihmc.robotDataVisualizer.visualizer.JointUpdater;
 import us.ihmc.robotics.dataStructures.listener.RewoundListener;
@@ -38,8 +40,15 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
    private final boolean compressed;
    private final LogIndex logIndex;
    private final ByteBuffer compressedBuffer;
+   private final MemoryMappedLogFile.Reader memoryMappedLogReader;
    private int index = 0;
 
+   // Columnar log helpers, all columns of the current chunk are kept in memory
+   private final ColumnarLogReader columnarLogReader;
+   private final long[] columnarTimestamps;
+   private final long[][] chunkColumns;
+   private int loadedChunk = -1;
+
    private final List<JointState> jointStates;
    private final ArrayList<JointUpdater> jointUpdaters = new ArrayList<JointUpdater>();
 
@@ -59,6 +68,21 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
    public YoVariableLogPlaybackRobot(File selectedFile, RobotDescription robotDescription,
          List<JointState> jointStates, List<YoVariable<?>> variables, LogPropertiesReader logProperties, SimulationConstructionSet scs)
          throws IOException
+   {
+      this(selectedFile, robotDescription, jointStates, variables, logProperties, scs, false);
+   }
+
+   /**
+    * @param useMemoryMappedFile read compressed logs through a {@link MemoryMappedLogFile}, which
+    *           opens long logs a lot faster and makes seeking cheap. Ignored for uncompressed logs.
+    *           Delta encoded logs are always read through a {@link MemoryMappedLogFile}.
+    *           If the log data has been removed and only the columnar copy written by the
+    *           ColumnarLogConverter is left, the log is played back from the columnar copy.
+    */
+   public YoVariableLogPlaybackRobot(File selectedFile, RobotDescription robotDescription,
+         List<JointState> jointStates, List<YoVariable<?>> variables, LogPropertiesReader logProperties, SimulationConstructionSet scs,
+         boolean useMemoryMappedFile)
+         throws IOException
    {
       super(robotDescription);
 
@@ -76,41 +100,86 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       int bufferSize = (1 + jointStateOffset + numberOfJointStates) * 8;
 
       File logdata = new File(selectedFile, logProperties.getVariables().getDataAsString());
-      if (!logdata.exists())
+      boolean columnar = !logdata.exists() && ColumnarLogReader.hasColumnarLog(selectedFile);
+      if (!logdata.exists() && !columnar)
       {
          throw new RuntimeException("Cannot find " + logProperties.getVariables().getDataAsString());
       }
-      this.logChannel = new FileInputStream(logdata).getChannel();
 
       this.compressed = logProperties.getVariables().getCompressed();
-      if (this.compressed)
+      int keyframeInterval = logProperties.getVariables().getKeyframeInterval();
+      boolean memoryMapped = !columnar && compressed && (useMemoryMappedFile || keyframeInterval > 0);
+      if (columnar)
+      {
+         columnarLogReader = new ColumnarLogReader(selectedFile);
+         if (columnarLogReader.getNumberOfVariables() != bufferSize / 8)
+         {
+            throw new RuntimeException("Columnar log has " + columnarLogReader.getNumberOfVariables() + " columns, expected " + bufferSize / 8);
+         }
+         numberOfEntries = columnarLogReader.getNumberOfEntries();
+         columnarTimestamps = numberOfEntries > 0 ? columnarLogReader.readColumn(0, 0, numberOfEntries - 1) : new long[0];
+         chunkColumns = new long[columnarLogReader.getNumberOfVariables()][];
+         logChannel = null;
+         logIndex = null;
+         memoryMappedLogReader = null;
+         compressedBuffer = null;
+      }
+      else if (this.compressed)
       {
          File indexData = new File(selectedFile, logProperties.getVariables().getIndexAsString());
          if (!indexData.exists())
          {
             throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
          }
-         logIndex = new LogIndex(indexData, logChannel.size());
-         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+
+         if (memoryMapped)
+         {
+            MemoryMappedLogFile memoryMappedLogFile = new MemoryMappedLogFile(logdata, indexData, keyframeInterval);
+            logChannel = null;
+            logIndex = memoryMappedLogFile.getLogIndex();
+            memoryMappedLogReader = memoryMappedLogFile.createReader(bufferSize);
+            compressedBuffer = null;
+         }
+         else
+         {
+            logChannel = new FileInputStream(logdata).getChannel();
+            logIndex = new LogIndex(indexData, logChannel.size());
+            memoryMappedLogReader = null;
+            compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+         }
          numberOfEntries = logIndex.getNumberOfEntries();
+         columnarLogReader = null;
+         columnarTimestamps = null;
+         chunkColumns = null;
       }
       else
       {
+         logChannel = new FileInputStream(logdata).getChannel();
          numberOfEntries = (int) (logChannel.size() / bufferSize) - 1;
          logIndex = null;
+         memoryMappedLogReader = null;
          compressedBuffer = null;
+         columnarLogReader = null;
+         columnarTimestamps = null;
+         chunkColumns = null;
       }
 
       JointUpdater.getJointUpdaterList(getRootJoints(), jointStates, jointUpdaters);
 
-      logLine = ByteBuffer.allocate(bufferSize);
+      // A direct buffer lets the memory mapped reader decompress without copies
+      logLine = memoryMapped ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
       logLongArray = logLine.asLongBuffer();
 
       currentRecordTick = new IntegerYoVariable("currentRecordTick", getRobotsYoVariableRegistry());
 
       try
       {
-      	if(this.compressed)
+         if (columnarLogReader != null)
+         {
+            initialTimestamp = numberOfEntries > 0 ? columnarTimestamps[0] : 0;
+            positionChannel(0);
+         }
+         else if(this.compressed)
       	{
          	initialTimestamp = logIndex.getInitialTimestamp();
          	positionChannel(0);
@@ -238,10 +307,14 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
    private void positionChannel(int position) throws IOException
    {
-      if (compressed)
+      if (columnarLogReader != null)
+      {
+         index = position;
+      }
+      else if (compressed)
       {
          index = position;
-         if(index < logIndex.dataOffsets.length)
+         if(memoryMappedLogReader == null && index < logIndex.dataOffsets.length)
          {
             logChannel.position(logIndex.dataOffsets[position]);
          }
@@ -254,6 +327,11 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
 
    public long getTimestamp(int position)
    {
+      if (columnarLogReader != null)
+      {
+         return columnarTimestamps[position];
+      }
+
       if(!compressed)
       {
          throw new RuntimeException("Cannot get timestamp for non-compressed logs");
@@ -267,12 +345,24 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       logLine.clear();
       logLongArray.clear();
 
-      if (compressed)
+      if (columnarLogReader != null)
+      {
+         return readColumnarLogLine();
+      }
+      else if (compressed)
       {
          if(index >= logIndex.getNumberOfEntries())
          {
             return false;
          }
+
+         if (memoryMappedLogReader != null)
+         {
+            memoryMappedLogReader.readData(index, logLine);
+            ++index;
+            return true;
+         }
+
          int size = logIndex.compressedSizes[index];
          compressedBuffer.clear();
          compressedBuffer.limit(size);
@@ -309,6 +399,36 @@ public class YoVariableLogPlaybackRobot extends VisualizerRobot implements Rewou
       }
    }
 
+   /**
+    * Copies the values of the current entry from the columns of its chunk into the log line. All
+    * columns of a chunk are read when playback enters it.
+    */
+   private boolean readColumnarLogLine() throws IOException
+   {
+      if (index >= numberOfEntries)
+      {
+         return false;
+      }
+
+      int chunk = columnarLogReader.getChunk(index);
+      if (chunk != loadedChunk)
+      {
+         for (int variable = 0; variable < chunkColumns.length; variable++)
+         {
+            chunkColumns[variable] = columnarLogReader.readChunkColumn(variable, chunk);
+         }
+         loadedChunk = chunk;
+      }
+
+      int entry = index - chunk * columnarLogReader.getEntriesPerChunk();
+      for (int variable = 0; variable < chunkColumns.length; variable++)
+      {
+         logLongArray.put(variable, chunkColumns[variable][entry]);
+      }
+      ++index;
+      return true;
+   }
+
    public void addCurrentRecordTickListener(VariableChangedListener listener)
    {
       currentRecordTick.addVariableChangedListener(listener);
@@ -59,7 +59,9 @@ public class YoVariableLogVisualizerGUI extends JPanel
       
       if(properties.getVariables().getCompressed())
       {
-         yoVariableLogCropper = new YoVariableLogCropper(player, directory, properties);         
+         // The cropper copies the row data, which is gone when only the columnar copy of the log is left
+         boolean hasRowData = new File(directory, properties.getVariables().getDataAsString()).exists();
+         yoVariableLogCropper = hasRowData ? new YoVariableLogCropper(player, directory, properties) : null;
          exporter = new YoVariableExporter(scs, directory, properties, parser.getYoVariablesList());
       }
       else
@@ -245,7 +247,7 @@ public class YoVariableLogVisualizerGUI extends JPanel
       else
       {
          JOptionPane.showMessageDialog(null,
-               "Cannot crop this data file. Only compressed log files are supported. Use LogCompressor to compress this log file.", "Cannot crop",
+               "Cannot crop this data file. Only compressed log files with row data are supported. Use LogCompressor to compress this log file.", "Cannot crop",
                JOptionPane.ERROR_MESSAGE);
       }
    }
@@ -13,6 +13,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import us.ihmc.commons.Conversions;
 import us.ihmc.robotDataLogger.LogIndex;
 import us.ihmc.robotDataLogger.jointState.JointState;
+import us.ihmc.robotDataLogger.logger.ColumnarLogReader;
+import us.ihmc.robotDataLogger.logger.DeltaFrameEncoding;
 import us.ihmc.robotDataLogger.logger.LogPropertiesReader;
 import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
 import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
@@ -34,8 +36,16 @@ public class SpecificLogVariableUpdater
    private final boolean compressed;
    private final LogIndex logIndex;
    private final ByteBuffer compressedBuffer;
+   private final int keyframeInterval;
+   private final ByteBuffer deltaBuffer;
    private int index = 0;
 
+   // Columnar log helpers, only the columns of the variables to update are read
+   private final ColumnarLogReader columnarLogReader;
+   private int loadedChunk = -1;
+   private long[] timestampColumn;
+   private long[][] variableColumns;
+
    private final ByteBuffer logLine;
    private final LongBuffer logLongArray;
 
@@ -76,12 +86,27 @@ public class SpecificLogVariableUpdater
             throw new RuntimeException("Cannot find " + logProperties.getVariables().getIndexAsString());
          }
          logIndex = new LogIndex(indexData, logChannel.size());
-         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(bufferSize));
+         keyframeInterval = logProperties.getVariables().getKeyframeInterval();
+         int maximumEntrySize = keyframeInterval > 0 ? DeltaFrameEncoding.getMaximumEncodedSize(bufferSize) : bufferSize;
+         compressedBuffer = ByteBuffer.allocate(SnappyUtils.maxCompressedLength(maximumEntrySize));
+         deltaBuffer = keyframeInterval > 0 ? ByteBuffer.allocate(maximumEntrySize) : null;
       }
       else
       {
          logIndex = null;
          compressedBuffer = null;
+         keyframeInterval = 0;
+         deltaBuffer = null;
+      }
+
+      if (compressed && ColumnarLogReader.hasColumnarLog(selectedFile))
+      {
+         columnarLogReader = new ColumnarLogReader(selectedFile);
+         variableColumns = new long[variablesToUpdate.length][];
+      }
+      else
+      {
+         columnarLogReader = null;
       }
 
       logLine = ByteBuffer.allocate(bufferSize);
@@ -130,6 +155,11 @@ public class SpecificLogVariableUpdater
    {
       try
       {
+         if (columnarLogReader != null)
+         {
+            return readAndProcessAColumnarEntryReturnTrueIfDone();
+         }
+
          if (!readLogLine())
          {
             return true;
@@ -154,6 +184,37 @@ public class SpecificLogVariableUpdater
       return false;
    }
 
+   private boolean readAndProcessAColumnarEntryReturnTrueIfDone() throws IOException
+   {
+      if (index >= columnarLogReader.getNumberOfEntries())
+      {
+         return true;
+      }
+
+      int chunk = columnarLogReader.getChunk(index);
+      if (chunk != loadedChunk)
+      {
+         timestampColumn = columnarLogReader.readChunkColumn(0, chunk);
+         for (int i = 0; i < variablesToUpdate.length; i++)
+         {
+            variableColumns[i] = columnarLogReader.readChunkColumn(indexes.get(variablesToUpdate[i]).get(), chunk);
+         }
+         loadedChunk = chunk;
+      }
+
+      int entry = index - chunk * columnarLogReader.getEntriesPerChunk();
+      timestamp.set(timestampColumn[entry]);
+      robotTime.set(Conversions.nanosecondsToSeconds(timestamp.getLongValue() - initialTimestamp));
+
+      for (int i = 0; i < variablesToUpdate.length; i++)
+      {
+         variablesToUpdate[i].setValueFromLongBits(variableColumns[i][entry], false);
+      }
+
+      ++index;
+      return false;
+   }
+
    private void positionChannel(int position) throws IOException
    {
       if (compressed)
@@ -193,7 +254,19 @@ public class SpecificLogVariableUpdater
          }
          compressedBuffer.flip();
 
-         SnappyUtils.uncompress(compressedBuffer, logLine);
+         if (DeltaFrameEncoding.isKeyframe(index, keyframeInterval))
+         {
+            SnappyUtils.uncompress(compressedBuffer, logLine);
+         }
+         else
+         {
+            // The log is read forward from the start, so logLine still holds the previous entry
+            deltaBuffer.clear();
+            SnappyUtils.uncompress(compressedBuffer, deltaBuffer);
+            deltaBuffer.flip();
+            DeltaFrameEncoding.decode(deltaBuffer, logLine);
+            logLine.position(logLine.limit());
+         }
          ++index;
 
          return true;
@@ -222,6 +295,10 @@ public class SpecificLogVariableUpdater
       try
       {
          logChannel.close();
+         if (columnarLogReader != null)
+         {
+            columnarLogReader.close();
+         }
       }
       catch (IOException e)
       {
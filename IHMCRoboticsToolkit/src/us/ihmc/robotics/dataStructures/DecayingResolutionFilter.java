@@ -193,6 +193,23 @@ public class DecayingResolutionFilter
       return copy;
    }
 
+   /**
+    * Thread-safely copies the points into the given list, so the list can be reused.
+    */
+   public void getPoints(ArrayList<TimestampedPoint> pointsToPack)
+   {
+      pointsToPack.clear();
+
+      synchronized (list)
+      {
+         pointsToPack.ensureCapacity(list.size());
+         for (TimestampedPoint point : list)
+         {
+            pointsToPack.add(point);
+         }
+      }
+   }
+
    public Point3D32 getNearestIntersection(Point3D32 origin, Vector3D32 direction)
    {
       ArrayList<TimestampedPoint> points = getPointsCopy();
@@ -1,8 +1,10 @@
 package us.ihmc.robotics.geometry;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
+import us.ihmc.euclid.geometry.BoundingBox2D;
 import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.geometry.LineSegment2D;
@@ -11,9 +13,23 @@ import us.ihmc.euclid.tuple2D.Point2D;
 import us.ihmc.euclid.tuple2D.interfaces.Point2DReadOnly;
 import us.ihmc.euclid.tuple3D.Point3D;
 
+/**
+ * List of planar regions with region queries that are accelerated by a lazily built grid index.
+ * <p>
+ * Region queries can be run from multiple threads at the same time, they do not lock once the
+ * index is up to date. Modifying the list must not happen concurrently with queries.
+ * </p>
+ */
 public class PlanarRegionsList
 {
+   /** Margin added to point queries against the spatial index to be robust to round-off in the region frames. */
+   private static final double QUERY_EPSILON = 1.0e-7;
+
    private final List<PlanarRegion> regions;
+   private volatile long version = 0;
+   private final PlanarRegionsListSpatialIndex spatialIndex = new PlanarRegionsListSpatialIndex();
+   /** Candidates of the spatial index, one per querying thread. */
+   private final ThreadLocal<BitSet> candidates = ThreadLocal.withInitial(BitSet::new);
 
    public PlanarRegionsList(PlanarRegion... planarRegions)
    {
@@ -36,6 +52,29 @@ public class PlanarRegionsList
    public void addPlanarRegion(PlanarRegion region)
    {
       regions.add(region);
+      version++;
+      spatialIndex.lastRegionAdded(regions, version);
+   }
+
+   /**
+    * Returns a counter that is incremented every time this list is modified through its own methods.
+    * Caches of query results can compare it to detect that their results are outdated.
+    * @return the current version of this list.
+    */
+   public long getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * Increments the version of this list. Needs to be called after the list passed to the
+    * constructor or one of the planar regions of this list was modified directly, otherwise the
+    * region queries of this list and the caches depending on {@link #getVersion()} may miss the
+    * modified regions.
+    */
+   public void incrementVersion()
+   {
+      version++;
    }
 
    /**
@@ -48,7 +87,12 @@ public class PlanarRegionsList
    {
       List<PlanarRegion> containers = null;
 
-      for (int i = 0; i < regions.size(); i++)
+      BoundingBox2D polygonBoundingBox = convexPolygon.getBoundingBox();
+      BitSet candidates = this.candidates.get();
+      spatialIndex.findCandidates(regions, version, polygonBoundingBox.getMinPoint().getX(), polygonBoundingBox.getMinPoint().getY(),
+                                  polygonBoundingBox.getMaxPoint().getX(), polygonBoundingBox.getMaxPoint().getY(), 0.0, candidates);
+
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
       {
          PlanarRegion candidateRegion = regions.get(i);
          if (candidateRegion.isVertical()) continue;
@@ -123,7 +167,12 @@ public class PlanarRegionsList
    {
       List<PlanarRegion> containers = null;
 
-      for (int i = 0; i < regions.size(); i++)
+      // The projection of the point onto a containing region is at most maximumOrthogonalDistance away.
+      BitSet candidates = this.candidates.get();
+      spatialIndex.findCandidates(regions, version, point.getX(), point.getY(), point.getX(), point.getY(),
+                                  Math.abs(maximumOrthogonalDistance) + QUERY_EPSILON, candidates);
+
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
       {
          PlanarRegion candidateRegion = regions.get(i);
          if (candidateRegion.isPointInside(point, maximumOrthogonalDistance))
@@ -159,7 +208,10 @@ public class PlanarRegionsList
    {
       List<PlanarRegion> containers = null;
 
-      for (int i = 0; i < regions.size(); i++)
+      BitSet candidates = this.candidates.get();
+      spatialIndex.findCandidates(regions, version, x, y, x, y, QUERY_EPSILON, candidates);
+
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
       {
          PlanarRegion candidateRegion = regions.get(i);
          if (candidateRegion.isPointInsideByProjectionOntoXYPlane(x, y))
@@ -206,6 +258,7 @@ public class PlanarRegionsList
    /** Retrieves the i<sup>th</sup> planar region of this list and removes it from this list. */
    public PlanarRegion pollPlanarRegion(int index)
    {
+      version++;
       return regions.remove(index);
    }
 
@@ -244,5 +297,6 @@ public class PlanarRegionsList
       {
          regions.get(i).transform(rigidBodyTransform);
       }
+      version++;
    }
 }
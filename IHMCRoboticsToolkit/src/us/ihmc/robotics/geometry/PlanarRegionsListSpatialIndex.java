@@ -0,0 +1,233 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.BitSet;
+import java.util.List;
+
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import us.ihmc.euclid.geometry.BoundingBox3D;
+
+/**
+ * Uniform grid over the XY bounding boxes of the regions of a {@link PlanarRegionsList}.
+ *
+ * Every region is registered in all cells its bounding box overlaps. Regions that would cover too
+ * many cells, or that have no valid bounding box, are kept in a separate list and are returned
+ * as candidates for every query. The cell size is the average size of the regions at the time the
+ * grid is built.
+ *
+ * The grid is built lazily by the first query after the list changed and is only extended in
+ * place when regions are appended. A built grid is published through a volatile field and only
+ * read by queries, so concurrent queries do not lock unless the grid has to be rebuilt. Appending
+ * regions must not happen concurrently with queries, as for the list itself.
+ */
+class PlanarRegionsListSpatialIndex
+{
+   /** Below this number of regions queries just test every region. */
+   static final int MINIMUM_NUMBER_OF_REGIONS = 16;
+
+   private static final int MAXIMUM_NUMBER_OF_CELLS_PER_REGION = 64;
+   private static final double MINIMUM_CELL_SIZE = 0.05;
+   private static final double DEFAULT_CELL_SIZE = 1.0;
+
+   private volatile Grid grid = null;
+
+   /**
+    * Packs the indices of all regions whose XY bounding box, grown by the given margin, may overlap
+    * the query rectangle. Regions that are not candidates are guaranteed to be outside of it.
+    */
+   void findCandidates(List<PlanarRegion> regions, long version, double minX, double minY, double maxX, double maxY, double margin, BitSet candidatesToPack)
+   {
+      candidatesToPack.clear();
+
+      if (regions.size() < MINIMUM_NUMBER_OF_REGIONS || Double.isNaN(minX + minY + maxX + maxY))
+      {
+         candidatesToPack.set(0, regions.size());
+         return;
+      }
+
+      Grid grid = this.grid;
+      if (grid == null || !grid.isUpToDate(regions, version))
+         grid = build(regions, version);
+
+      grid.findCandidates(minX, minY, maxX, maxY, margin, candidatesToPack);
+   }
+
+   /**
+    * Registers the last region of the list if the grid was up to date before it was appended.
+    * Otherwise the grid is left as is and rebuilt by the next query.
+    */
+   void lastRegionAdded(List<PlanarRegion> regions, long version)
+   {
+      Grid grid = this.grid;
+      if (grid == null || grid.indexedVersion != version - 1 || grid.numberOfIndexedRegions != regions.size() - 1)
+         return;
+      if (regions.size() > 2 * grid.numberOfRegionsAtBuild)
+         return; // Let the next query rebuild with a cell size that fits the new regions.
+
+      int index = regions.size() - 1;
+      grid.insert(index, regions.get(index));
+      grid.numberOfIndexedRegions = regions.size();
+      grid.indexedVersion = version;
+   }
+
+   double getCellSize()
+   {
+      Grid grid = this.grid;
+      return grid == null ? DEFAULT_CELL_SIZE : grid.cellSize;
+   }
+
+   /**
+    * Only one thread builds the grid, the others wait for it and use the same grid.
+    */
+   private synchronized Grid build(List<PlanarRegion> regions, long version)
+   {
+      Grid grid = this.grid;
+      if (grid != null && grid.isUpToDate(regions, version))
+         return grid;
+
+      double sizeSum = 0.0;
+      int numberOfBoundedRegions = 0;
+      for (int i = 0; i < regions.size(); i++)
+      {
+         BoundingBox3D boundingBox = regions.get(i).getBoundingBox3dInWorld();
+         double size = Math.max(boundingBox.getMaxX() - boundingBox.getMinX(), boundingBox.getMaxY() - boundingBox.getMinY());
+         if (Double.isFinite(size))
+         {
+            sizeSum += size;
+            numberOfBoundedRegions++;
+         }
+      }
+
+      grid = new Grid(numberOfBoundedRegions == 0 ? DEFAULT_CELL_SIZE : Math.max(MINIMUM_CELL_SIZE, sizeSum / numberOfBoundedRegions));
+      for (int i = 0; i < regions.size(); i++)
+         grid.insert(i, regions.get(i));
+
+      grid.indexedVersion = version;
+      grid.numberOfIndexedRegions = regions.size();
+      grid.numberOfRegionsAtBuild = regions.size();
+      this.grid = grid;
+      return grid;
+   }
+
+   private static class Grid
+   {
+      private final TLongObjectHashMap<TIntArrayList> cells = new TLongObjectHashMap<>();
+      private final TIntArrayList unboundedRegions = new TIntArrayList();
+      private final double cellSize;
+
+      private long indexedVersion = -1;
+      private int numberOfIndexedRegions = 0;
+      private int numberOfRegionsAtBuild = 0;
+
+      private Grid(double cellSize)
+      {
+         this.cellSize = cellSize;
+      }
+
+      private boolean isUpToDate(List<PlanarRegion> regions, long version)
+      {
+         return indexedVersion == version && numberOfIndexedRegions == regions.size();
+      }
+
+      private void findCandidates(double minX, double minY, double maxX, double maxY, double margin, BitSet candidatesToPack)
+      {
+         for (int i = 0; i < unboundedRegions.size(); i++)
+            candidatesToPack.set(unboundedRegions.get(i));
+
+         long minXIndex = toCellIndex(minX - margin);
+         long minYIndex = toCellIndex(minY - margin);
+         long maxXIndex = toCellIndex(maxX + margin);
+         long maxYIndex = toCellIndex(maxY + margin);
+
+         if ((double) (maxXIndex - minXIndex + 1) * (maxYIndex - minYIndex + 1) > cells.size())
+         {
+            // Query covers more cells than there are occupied ones.
+            TLongObjectIterator<TIntArrayList> iterator = cells.iterator();
+            while (iterator.hasNext())
+            {
+               iterator.advance();
+               if (isKeyInRange(iterator.key(), minXIndex, minYIndex, maxXIndex, maxYIndex))
+                  addAll(iterator.value(), candidatesToPack);
+            }
+            return;
+         }
+
+         for (long xIndex = minXIndex; xIndex <= maxXIndex; xIndex++)
+         {
+            for (long yIndex = minYIndex; yIndex <= maxYIndex; yIndex++)
+            {
+               TIntArrayList cell = cells.get(packCellKey((int) xIndex, (int) yIndex));
+               if (cell != null)
+                  addAll(cell, candidatesToPack);
+            }
+         }
+      }
+
+      private void insert(int index, PlanarRegion region)
+      {
+         BoundingBox3D boundingBox = region.getBoundingBox3dInWorld();
+         double margin = region.getBoundingBoxEpsilon();
+         double minX = boundingBox.getMinX() - margin;
+         double minY = boundingBox.getMinY() - margin;
+         double maxX = boundingBox.getMaxX() + margin;
+         double maxY = boundingBox.getMaxY() + margin;
+
+         if (!Double.isFinite(minX + minY + maxX + maxY))
+         {
+            unboundedRegions.add(index);
+            return;
+         }
+
+         long minXIndex = toCellIndex(minX);
+         long minYIndex = toCellIndex(minY);
+         long maxXIndex = toCellIndex(maxX);
+         long maxYIndex = toCellIndex(maxY);
+
+         if ((double) (maxXIndex - minXIndex + 1) * (maxYIndex - minYIndex + 1) > MAXIMUM_NUMBER_OF_CELLS_PER_REGION)
+         {
+            unboundedRegions.add(index);
+            return;
+         }
+
+         for (long xIndex = minXIndex; xIndex <= maxXIndex; xIndex++)
+         {
+            for (long yIndex = minYIndex; yIndex <= maxYIndex; yIndex++)
+            {
+               long key = packCellKey((int) xIndex, (int) yIndex);
+               TIntArrayList cell = cells.get(key);
+               if (cell == null)
+               {
+                  cell = new TIntArrayList(4);
+                  cells.put(key, cell);
+               }
+               cell.add(index);
+            }
+         }
+      }
+
+      private long toCellIndex(double coordinate)
+      {
+         double index = Math.floor(coordinate / cellSize);
+         return (long) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, index));
+      }
+   }
+
+   private static long packCellKey(int xIndex, int yIndex)
+   {
+      return ((long) xIndex << 32) | (yIndex & 0xFFFFFFFFL);
+   }
+
+   private static boolean isKeyInRange(long key, long minXIndex, long minYIndex, long maxXIndex, long maxYIndex)
+   {
+      int xIndex = (int) (key >> 32);
+      int yIndex = (int) key;
+      return xIndex >= minXIndex && xIndex <= maxXIndex && yIndex >= minYIndex && yIndex <= maxYIndex;
+   }
+
+   private static void addAll(TIntArrayList cell, BitSet candidatesToPack)
+   {
+      for (int i = 0; i < cell.size(); i++)
+         candidatesToPack.set(cell.get(i));
+   }
+}
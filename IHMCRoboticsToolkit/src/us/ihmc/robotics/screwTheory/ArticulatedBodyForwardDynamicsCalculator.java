@@ -0,0 +1,436 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.LinearSolverFactory;
+import org.ejml.interfaces.linsol.LinearSolver;
+import org.ejml.ops.CommonOps;
+
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+/**
+ * Computes the joint accelerations resulting from the joint torques, the external wrenches, and the
+ * current state of a rigid-body system in O(n), using the articulated-body algorithm as described
+ * in Featherstone - Rigid Body Dynamics Algorithms (2008).
+ * <p>
+ * This is the alternative to computing the mass matrix with the
+ * {@link CompositeRigidBodyMassMatrixCalculator}, the bias forces with the
+ * {@link InverseDynamicsCalculator}, and solving the resulting dense linear system, which is
+ * O(n<sup>3</sup>).
+ * </p>
+ * <p>
+ * All the spatial quantities are expressed in the inertial frame, such that they do not have to be
+ * transformed from a body to its parent. The joints are assumed to have a motion subspace that is
+ * constant in the frame of their successor, which is the case for all the joints of the toolkit.
+ * The frames of the system have to be updated before calling {@link #compute()}.
+ * </p>
+ */
+public class ArticulatedBodyForwardDynamicsCalculator
+{
+   private final RigidBody rootBody;
+   private final ReferenceFrame inertialFrame;
+   private final DenseMatrix64F rootAcceleration = new DenseMatrix64F(6, 1);
+
+   /** All the joints of the system, a parent joint is always before its children. */
+   private final InverseDynamicsJoint[] jointsInOrder;
+   /** The index of the parent joint of each joint, {@code -1} when its predecessor is the root body. */
+   private final int[] parentIndices;
+   /** The index of the first row in the joint acceleration and torque vectors of each joint. */
+   private final int[] jointVectorIndices;
+   private final int numberOfDoFs;
+
+   private final DenseMatrix64F[] motionSubspaces;
+   private final DenseMatrix64F[] articulatedInertias;
+   private final DenseMatrix64F[] biasForces;
+   private final DenseMatrix64F[] velocityProductAccelerations;
+   private final DenseMatrix64F[] accelerations;
+   private final DenseMatrix64F[] U;
+   private final DenseMatrix64F[] inverseD;
+   private final DenseMatrix64F[] u;
+   private final LinearSolver<DenseMatrix64F>[] dSolvers;
+   private final Wrench[] externalWrenches;
+
+   private final DenseMatrix64F jointTorques;
+   private final DenseMatrix64F jointAccelerations;
+
+   private final DenseMatrix64F bodyInertia = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F bodyVelocity = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F bodyMomentum = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F jointVelocity = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F jointVelocityTwist = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F jointTau = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F externalWrench = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F jointWrench = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F D = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F DCopy = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F UTimesInverseD = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F Ia = new DenseMatrix64F(6, 6);
+   private final DenseMatrix64F pa = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F parentAcceleration = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F tempVector = new DenseMatrix64F(6, 1);
+   private final DenseMatrix64F tempJointVector = new DenseMatrix64F(6, 1);
+
+   private final CompositeRigidBodyInertia tempInertia = new CompositeRigidBodyInertia();
+   private final Twist tempTwist = new Twist();
+   private final SpatialAccelerationVector tempAcceleration = new SpatialAccelerationVector();
+   private final Wrench tempWrench = new Wrench();
+
+   public ArticulatedBodyForwardDynamicsCalculator(RigidBody body, double gravity)
+   {
+      this(body, ScrewTools.createGravitationalSpatialAcceleration(ScrewTools.getRootBody(body), gravity), new ArrayList<InverseDynamicsJoint>());
+   }
+
+   /**
+    * @param body a body of the system to compute the forward dynamics of.
+    * @param rootAcceleration the spatial acceleration of the root body, usually the opposite of the
+    *           gravitational acceleration.
+    * @param jointsToIgnore joints which, along with their subtree, are excluded from the
+    *           computation.
+    */
+   @SuppressWarnings("unchecked")
+   public ArticulatedBodyForwardDynamicsCalculator(RigidBody body, SpatialAccelerationVector rootAcceleration, List<InverseDynamicsJoint> jointsToIgnore)
+   {
+      rootBody = ScrewTools.getRootBody(body);
+      inertialFrame = rootAcceleration.getBaseFrame();
+      setRootAcceleration(rootAcceleration);
+
+      FlattenedRigidBodyTree tree = new FlattenedRigidBodyTree(rootBody, jointsToIgnore);
+      jointsInOrder = tree.getJoints();
+      parentIndices = tree.getParentIndices();
+
+      int numberOfJoints = tree.getNumberOfJoints();
+      jointVectorIndices = new int[numberOfJoints];
+      motionSubspaces = new DenseMatrix64F[numberOfJoints];
+      articulatedInertias = new DenseMatrix64F[numberOfJoints];
+      biasForces = new DenseMatrix64F[numberOfJoints];
+      velocityProductAccelerations = new DenseMatrix64F[numberOfJoints];
+      accelerations = new DenseMatrix64F[numberOfJoints];
+      U = new DenseMatrix64F[numberOfJoints];
+      inverseD = new DenseMatrix64F[numberOfJoints];
+      u = new DenseMatrix64F[numberOfJoints];
+      dSolvers = new LinearSolver[numberOfJoints];
+      externalWrenches = new Wrench[numberOfJoints];
+
+      int vectorIndex = 0;
+
+      for (int i = 0; i < numberOfJoints; i++)
+      {
+         InverseDynamicsJoint joint = jointsInOrder[i];
+         int nDoFs = joint.getDegreesOfFreedom();
+         jointVectorIndices[i] = vectorIndex;
+         vectorIndex += nDoFs;
+
+         motionSubspaces[i] = new DenseMatrix64F(6, nDoFs);
+         articulatedInertias[i] = new DenseMatrix64F(6, 6);
+         biasForces[i] = new DenseMatrix64F(6, 1);
+         velocityProductAccelerations[i] = new DenseMatrix64F(6, 1);
+         accelerations[i] = new DenseMatrix64F(6, 1);
+         U[i] = new DenseMatrix64F(6, nDoFs);
+         inverseD[i] = new DenseMatrix64F(nDoFs, nDoFs);
+         u[i] = new DenseMatrix64F(nDoFs, 1);
+         if (nDoFs > 1)
+            dSolvers[i] = LinearSolverFactory.symmPosDef(nDoFs);
+
+         ReferenceFrame bodyFixedFrame = joint.getSuccessor().getBodyFixedFrame();
+         externalWrenches[i] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+      }
+
+      numberOfDoFs = vectorIndex;
+      jointTorques = new DenseMatrix64F(numberOfDoFs, 1);
+      jointAccelerations = new DenseMatrix64F(numberOfDoFs, 1);
+   }
+
+   public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
+   {
+      ReferenceFrame rootBodyFrame = rootBody.getBodyFixedFrame();
+      newRootAcceleration.checkReferenceFramesMatch(rootBodyFrame, inertialFrame, rootBodyFrame);
+      tempAcceleration.set(newRootAcceleration);
+      // The root body is not moving with respect to the inertial frame.
+      tempAcceleration.changeFrameNoRelativeMotion(inertialFrame);
+      tempAcceleration.getMatrix(rootAcceleration, 0);
+   }
+
+   /**
+    * Sets all the external wrenches to zero.
+    */
+   public void reset()
+   {
+      for (int i = 0; i < externalWrenches.length; i++)
+      {
+         ReferenceFrame bodyFixedFrame = jointsInOrder[i].getSuccessor().getBodyFixedFrame();
+         externalWrenches[i].setToZero(bodyFixedFrame, bodyFixedFrame);
+      }
+   }
+
+   /**
+    * Sets the wrench exerted on a rigid-body by the environment.
+    *
+    * @param bodyIndex the index of the rigid-body, which is the index of its parent joint in
+    *           {@link #getJointsInOrder()}.
+    * @param externalWrench the external wrench. Not modified.
+    */
+   public void setExternalWrench(int bodyIndex, Wrench externalWrench)
+   {
+      externalWrenches[bodyIndex].set(externalWrench);
+   }
+
+   /**
+    * Searches the index of the given body, which is the index of its parent joint in
+    * {@link #getJointsInOrder()}. This is a linear search meant to be done once when setting up the
+    * user of this calculator.
+    *
+    * @param body the rigid-body to get the index of.
+    * @return the index of the body, or {@code -1} if it is the root body or is not part of the
+    *         computation.
+    */
+   public int getBodyIndex(RigidBody body)
+   {
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         if (jointsInOrder[i].getSuccessor() == body)
+            return i;
+      }
+      return -1;
+   }
+
+   /**
+    * Computes the joint accelerations from the torques currently stored in the joints. The wrench
+    * of a floating joint is projected onto its motion subspace.
+    */
+   public void compute()
+   {
+      computeVelocityTermsAndBodyInertias();
+
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         InverseDynamicsJoint joint = jointsInOrder[i];
+         jointTau.reshape(joint.getDegreesOfFreedom(), 1);
+
+         if (joint instanceof FloatingInverseDynamicsJoint)
+         {
+            ((FloatingInverseDynamicsJoint) joint).getWrench(tempWrench);
+            tempWrench.changeFrame(inertialFrame);
+            tempWrench.getMatrix(jointWrench);
+            CommonOps.multTransA(motionSubspaces[i], jointWrench, jointTau);
+         }
+         else
+         {
+            joint.getTauMatrix(jointTau);
+         }
+
+         CommonOps.insert(jointTau, jointTorques, jointVectorIndices[i], 0);
+      }
+
+      computeArticulatedInertias(jointTorques);
+      computeJointAccelerations();
+   }
+
+   /**
+    * Computes the joint accelerations resulting from the given joint torques.
+    *
+    * @param jointTorques the generalized forces of all the joints, ordered as
+    *           {@link #getJointsInOrder()}. The generalized force of a joint is the projection of
+    *           its wrench onto its unit twists. Not modified.
+    */
+   public void compute(DenseMatrix64F jointTorques)
+   {
+      computeVelocityTermsAndBodyInertias();
+      computeArticulatedInertias(jointTorques);
+      computeJointAccelerations();
+   }
+
+   /**
+    * First pass, from the root to the leaves: motion subspaces, velocity-product accelerations, and
+    * the inertia and bias force of each body alone.
+    */
+   private void computeVelocityTermsAndBodyInertias()
+   {
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         InverseDynamicsJoint joint = jointsInOrder[i];
+         RigidBody body = joint.getSuccessor();
+         DenseMatrix64F S = motionSubspaces[i];
+
+         for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+         {
+            joint.getUnitTwist(dofIndex, tempTwist);
+            tempTwist.changeFrame(inertialFrame);
+            tempTwist.getMatrix(S, 0, dofIndex);
+         }
+
+         body.getBodyFixedFrame().getTwistOfFrame(tempTwist);
+         tempTwist.changeFrame(inertialFrame);
+         tempTwist.getMatrix(bodyVelocity, 0);
+
+         // c = v x (S qd), the motion subspace being constant in the successor frame.
+         jointVelocity.reshape(joint.getDegreesOfFreedom(), 1);
+         joint.getVelocityMatrix(jointVelocity, 0);
+         CommonOps.mult(S, jointVelocity, jointVelocityTwist);
+         crossMotion(bodyVelocity, jointVelocityTwist, velocityProductAccelerations[i]);
+
+         tempInertia.set(body.getInertia());
+         tempInertia.changeFrame(inertialFrame);
+         bodyInertia.zero();
+         tempInertia.getMatrix(bodyInertia);
+         articulatedInertias[i].set(bodyInertia);
+
+         // pA = v x* (I v) - f_ext
+         CommonOps.mult(bodyInertia, bodyVelocity, bodyMomentum);
+         crossForce(bodyVelocity, bodyMomentum, biasForces[i]);
+
+         tempWrench.set(externalWrenches[i]);
+         tempWrench.changeFrame(inertialFrame);
+         tempWrench.getMatrix(externalWrench);
+         CommonOps.subtractEquals(biasForces[i], externalWrench);
+      }
+   }
+
+   /**
+    * Second pass, from the leaves to the root: articulated-body inertias and bias forces, each body
+    * passing to its parent the part of its inertia and bias force that is transmitted through its
+    * parent joint.
+    */
+   private void computeArticulatedInertias(DenseMatrix64F jointTorques)
+   {
+      for (int i = jointsInOrder.length - 1; i >= 0; i--)
+      {
+         int nDoFs = jointsInOrder[i].getDegreesOfFreedom();
+         DenseMatrix64F S = motionSubspaces[i];
+         DenseMatrix64F IA = articulatedInertias[i];
+         DenseMatrix64F pA = biasForces[i];
+
+         // U = IA S, D = S^T U, u = tau - S^T pA
+         CommonOps.mult(IA, S, U[i]);
+         D.reshape(nDoFs, nDoFs);
+         CommonOps.multTransA(S, U[i], D);
+         invertD(i, D);
+
+         CommonOps.extract(jointTorques, jointVectorIndices[i], jointVectorIndices[i] + nDoFs, 0, 1, u[i], 0, 0);
+         CommonOps.multAddTransA(-1.0, S, pA, u[i]);
+
+         int parentIndex = parentIndices[i];
+         if (parentIndex == -1)
+            continue;
+
+         // Ia = IA - U D^-1 U^T
+         UTimesInverseD.reshape(6, nDoFs);
+         CommonOps.mult(U[i], inverseD[i], UTimesInverseD);
+         Ia.set(IA);
+         CommonOps.multAddTransB(-1.0, UTimesInverseD, U[i], Ia);
+
+         // pa = pA + Ia c + U D^-1 u
+         pa.set(pA);
+         CommonOps.multAdd(Ia, velocityProductAccelerations[i], pa);
+         CommonOps.multAdd(UTimesInverseD, u[i], pa);
+
+         CommonOps.addEquals(articulatedInertias[parentIndex], Ia);
+         CommonOps.addEquals(biasForces[parentIndex], pa);
+      }
+   }
+
+   /**
+    * Third pass, from the root to the leaves: joint and body accelerations.
+    */
+   private void computeJointAccelerations()
+   {
+      for (int i = 0; i < jointsInOrder.length; i++)
+      {
+         int nDoFs = jointsInOrder[i].getDegreesOfFreedom();
+         int parentIndex = parentIndices[i];
+
+         // a' = a_parent + c
+         parentAcceleration.set(parentIndex == -1 ? rootAcceleration : accelerations[parentIndex]);
+         CommonOps.addEquals(parentAcceleration, velocityProductAccelerations[i]);
+
+         // qdd = D^-1 (u - U^T a')
+         tempJointVector.reshape(nDoFs, 1);
+         tempJointVector.set(u[i]);
+         CommonOps.multAddTransA(-1.0, U[i], parentAcceleration, tempJointVector);
+         tempVector.reshape(nDoFs, 1);
+         CommonOps.mult(inverseD[i], tempJointVector, tempVector);
+         CommonOps.insert(tempVector, jointAccelerations, jointVectorIndices[i], 0);
+
+         // a = a' + S qdd
+         accelerations[i].set(parentAcceleration);
+         CommonOps.multAdd(motionSubspaces[i], tempVector, accelerations[i]);
+      }
+   }
+
+   private void invertD(int jointIndex, DenseMatrix64F D)
+   {
+      if (D.getNumRows() == 1)
+      {
+         inverseD[jointIndex].set(0, 0, 1.0 / D.get(0, 0));
+      }
+      else
+      {
+         DCopy.reshape(D.getNumRows(), D.getNumCols());
+         DCopy.set(D);
+         if (!dSolvers[jointIndex].setA(DCopy))
+            throw new RuntimeException("The articulated inertia of the joint " + jointsInOrder[jointIndex].getName() + " is not positive definite.");
+         dSolvers[jointIndex].invert(inverseD[jointIndex]);
+      }
+   }
+
+   /**
+    * Spatial cross product for motion vectors: result = v x m.
+    */
+   private static void crossMotion(DenseMatrix64F v, DenseMatrix64F m, DenseMatrix64F result)
+   {
+      double wx = v.get(0), wy = v.get(1), wz = v.get(2);
+      double vx = v.get(3), vy = v.get(4), vz = v.get(5);
+      double max = m.get(0), may = m.get(1), maz = m.get(2);
+      double mlx = m.get(3), mly = m.get(4), mlz = m.get(5);
+
+      result.set(0, wy * maz - wz * may);
+      result.set(1, wz * max - wx * maz);
+      result.set(2, wx * may - wy * max);
+      result.set(3, wy * mlz - wz * mly + vy * maz - vz * may);
+      result.set(4, wz * mlx - wx * mlz + vz * max - vx * maz);
+      result.set(5, wx * mly - wy * mlx + vx * may - vy * max);
+   }
+
+   /**
+    * Spatial cross product for force vectors: result = v x* f.
+    */
+   private static void crossForce(DenseMatrix64F v, DenseMatrix64F f, DenseMatrix64F result)
+   {
+      double wx = v.get(0), wy = v.get(1), wz = v.get(2);
+      double vx = v.get(3), vy = v.get(4), vz = v.get(5);
+      double fax = f.get(0), fay = f.get(1), faz = f.get(2);
+      double flx = f.get(3), fly = f.get(4), flz = f.get(5);
+
+      result.set(0, wy * faz - wz * fay + vy * flz - vz * fly);
+      result.set(1, wz * fax - wx * faz + vz * flx - vx * flz);
+      result.set(2, wx * fay - wy * fax + vx * fly - vy * flx);
+      result.set(3, wy * flz - wz * fly);
+      result.set(4, wz * flx - wx * flz);
+      result.set(5, wx * fly - wy * flx);
+   }
+
+   /**
+    * @return the joint accelerations computed during the last call to {@link #compute()}, ordered
+    *         as {@link #getJointsInOrder()}.
+    */
+   public DenseMatrix64F getJointAccelerations()
+   {
+      return jointAccelerations;
+   }
+
+   public InverseDynamicsJoint[] getJointsInOrder()
+   {
+      return jointsInOrder;
+   }
+
+   public int getNumberOfDoFs()
+   {
+      return numberOfDoFs;
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+}
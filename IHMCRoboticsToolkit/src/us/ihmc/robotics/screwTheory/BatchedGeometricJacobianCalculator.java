@@ -0,0 +1,179 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ejml.data.DenseMatrix64F;
+
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+/**
+ * Computes in one pass the Jacobians of several end-effectors with respect to the same base, all
+ * expressed in the same frame.
+ * <p>
+ * The column of a joint in a geometric Jacobian is its unit twist expressed in the Jacobian frame,
+ * which does not depend on the end-effector. The end-effectors of a robot usually share a large part
+ * of their kinematic chain, for instance the legs of a quadruped from the world to the pelvis. The
+ * unit twists of all the joints involved are computed once, and then copied into the Jacobian of
+ * every end-effector they belong to.
+ * </p>
+ * <p>
+ * The Jacobian of each end-effector is equal to the one of a {@link GeometricJacobian} created with
+ * {@link GeometricJacobian#GeometricJacobian(RigidBody, RigidBody, ReferenceFrame)}.
+ * </p>
+ */
+public class BatchedGeometricJacobianCalculator
+{
+   private final RigidBody base;
+   private final RigidBody[] endEffectors;
+   private final ReferenceFrame jacobianFrame;
+
+   /** All the joints between the base and the end-effectors, each joint only once. */
+   private final InverseDynamicsJoint[] allJoints;
+   /** The unit twists of all the joints, in the same order as {@code allJoints}. */
+   private final DenseMatrix64F allJointsJacobian;
+
+   private final InverseDynamicsJoint[][] jointPaths;
+   /** For each end-effector, the column in {@code allJointsJacobian} of each column of its Jacobian. */
+   private final int[][] columnIndices;
+   private final DenseMatrix64F[] jacobians;
+
+   private final Twist tempTwist = new Twist();
+
+   /**
+    * @param base the predecessor of the first joint of all the Jacobians.
+    * @param endEffectors the successors of the last joint of each Jacobian.
+    * @param jacobianFrame the frame in which the Jacobians are expressed.
+    * @throws RuntimeException if an end-effector is not a descendant of the base.
+    */
+   public BatchedGeometricJacobianCalculator(RigidBody base, RigidBody[] endEffectors, ReferenceFrame jacobianFrame)
+   {
+      this.base = base;
+      this.endEffectors = endEffectors.clone();
+      this.jacobianFrame = jacobianFrame;
+
+      List<InverseDynamicsJoint> allJointList = new ArrayList<>();
+      List<Integer> allJointColumns = new ArrayList<>();
+      int numberOfColumns = 0;
+
+      jointPaths = new InverseDynamicsJoint[endEffectors.length][];
+      columnIndices = new int[endEffectors.length][];
+      jacobians = new DenseMatrix64F[endEffectors.length];
+
+      for (int endEffectorIndex = 0; endEffectorIndex < endEffectors.length; endEffectorIndex++)
+      {
+         if (ScrewTools.computeDistanceToAncestor(endEffectors[endEffectorIndex], base) < 0)
+            throw new RuntimeException(endEffectors[endEffectorIndex].getName() + " is not a descendant of " + base.getName());
+
+         InverseDynamicsJoint[] jointPath = ScrewTools.createJointPath(base, endEffectors[endEffectorIndex]);
+         int numberOfDoFs = ScrewTools.computeDegreesOfFreedom(jointPath);
+         jointPaths[endEffectorIndex] = jointPath;
+         columnIndices[endEffectorIndex] = new int[numberOfDoFs];
+         jacobians[endEffectorIndex] = new DenseMatrix64F(SpatialMotionVector.SIZE, numberOfDoFs);
+
+         int column = 0;
+
+         for (InverseDynamicsJoint joint : jointPath)
+         {
+            int index = allJointList.indexOf(joint);
+
+            if (index == -1)
+            {
+               index = allJointList.size();
+               allJointList.add(joint);
+               allJointColumns.add(numberOfColumns);
+               numberOfColumns += joint.getDegreesOfFreedom();
+            }
+
+            for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+               columnIndices[endEffectorIndex][column++] = allJointColumns.get(index) + dofIndex;
+         }
+      }
+
+      allJoints = allJointList.toArray(new InverseDynamicsJoint[allJointList.size()]);
+      allJointsJacobian = new DenseMatrix64F(SpatialMotionVector.SIZE, numberOfColumns);
+   }
+
+   /**
+    * Computes the Jacobians of all the end-effectors.
+    */
+   public void compute()
+   {
+      int column = 0;
+
+      for (int jointIndex = 0; jointIndex < allJoints.length; jointIndex++)
+      {
+         InverseDynamicsJoint joint = allJoints[jointIndex];
+
+         for (int dofIndex = 0; dofIndex < joint.getDegreesOfFreedom(); dofIndex++)
+         {
+            joint.getUnitTwist(dofIndex, tempTwist);
+            tempTwist.changeFrame(jacobianFrame);
+            tempTwist.getMatrix(allJointsJacobian, 0, column++);
+         }
+      }
+
+      for (int endEffectorIndex = 0; endEffectorIndex < endEffectors.length; endEffectorIndex++)
+      {
+         DenseMatrix64F jacobian = jacobians[endEffectorIndex];
+         int[] columns = columnIndices[endEffectorIndex];
+
+         for (int row = 0; row < SpatialMotionVector.SIZE; row++)
+         {
+            for (int i = 0; i < columns.length; i++)
+               jacobian.unsafe_set(row, i, allJointsJacobian.unsafe_get(row, columns[i]));
+         }
+      }
+   }
+
+   /**
+    * @return the Jacobian of the end-effector computed during the last call to {@link #compute()}.
+    *         Its columns are ordered as {@link #getJointPath(int)}.
+    */
+   public DenseMatrix64F getJacobianMatrix(int endEffectorIndex)
+   {
+      return jacobians[endEffectorIndex];
+   }
+
+   /**
+    * @return the joints from the base to the end-effector.
+    */
+   public InverseDynamicsJoint[] getJointPath(int endEffectorIndex)
+   {
+      return jointPaths[endEffectorIndex];
+   }
+
+   /**
+    * @return the columns of all the joints between the base and the end-effectors computed during
+    *         the last call to {@link #compute()}, ordered as {@link #getAllJoints()}.
+    */
+   public DenseMatrix64F getAllJointsJacobianMatrix()
+   {
+      return allJointsJacobian;
+   }
+
+   public InverseDynamicsJoint[] getAllJoints()
+   {
+      return allJoints;
+   }
+
+   public int getNumberOfEndEffectors()
+   {
+      return endEffectors.length;
+   }
+
+   public RigidBody getEndEffector(int endEffectorIndex)
+   {
+      return endEffectors[endEffectorIndex];
+   }
+
+   public RigidBody getBase()
+   {
+      return base;
+   }
+
+   public ReferenceFrame getJacobianFrame()
+   {
+      return jacobianFrame;
+   }
+}
@@ -0,0 +1,110 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The joints of a kinematic tree flattened into arrays ordered such that a parent joint always comes
+ * before its children, as used by the recursive algorithms that loop over the joints instead of
+ * walking the tree.
+ * <p>
+ * Each joint and its successor share the same index. The arrays are shared with the calculators and
+ * must not be modified.
+ * </p>
+ */
+final class FlattenedRigidBodyTree
+{
+   /** All the joints of the tree, a parent joint is always before its children. */
+   private final InverseDynamicsJoint[] joints;
+   /** The successor of each joint. */
+   private final RigidBody[] bodies;
+   /** The index of the parent joint of each joint, {@code -1} when its predecessor is the root body. */
+   private final int[] parentIndices;
+   /** The indices of the children joints of each joint. */
+   private final int[][] childrenIndices;
+
+   /**
+    * @param rootBody the root body of the tree.
+    * @param jointsToIgnore joints which, along with their subtree, are excluded from the tree.
+    */
+   FlattenedRigidBodyTree(RigidBody rootBody, List<InverseDynamicsJoint> jointsToIgnore)
+   {
+      // Breadth-first traversal, such that the parent joint is always visited before its children.
+      List<InverseDynamicsJoint> jointList = new ArrayList<>();
+      List<RigidBody> bodyList = new ArrayList<>();
+      List<RigidBody> bodiesToVisit = new ArrayList<>();
+      bodiesToVisit.add(rootBody);
+
+      for (int visitIndex = 0; visitIndex < bodiesToVisit.size(); visitIndex++)
+      {
+         RigidBody currentBody = bodiesToVisit.get(visitIndex);
+
+         if (!currentBody.hasChildrenJoints())
+            continue;
+
+         for (InverseDynamicsJoint joint : currentBody.getChildrenJoints())
+         {
+            if (jointsToIgnore.contains(joint))
+               continue;
+
+            RigidBody successor = joint.getSuccessor();
+            if (successor == null)
+               continue;
+            if (bodyList.contains(successor))
+               throw new RuntimeException("This algorithm doesn't do loops.");
+
+            jointList.add(joint);
+            bodyList.add(successor);
+            bodiesToVisit.add(successor);
+         }
+      }
+
+      int numberOfJoints = jointList.size();
+      joints = jointList.toArray(new InverseDynamicsJoint[numberOfJoints]);
+      bodies = bodyList.toArray(new RigidBody[numberOfJoints]);
+      parentIndices = new int[numberOfJoints];
+      childrenIndices = new int[numberOfJoints][];
+
+      for (int i = 0; i < numberOfJoints; i++)
+      {
+         parentIndices[i] = bodyList.indexOf(joints[i].getPredecessor());
+
+         List<InverseDynamicsJoint> childrenJoints = bodies[i].getChildrenJoints();
+         int numberOfChildren = 0;
+         int[] children = new int[childrenJoints.size()];
+         for (int childIndex = 0; childIndex < childrenJoints.size(); childIndex++)
+         {
+            int index = jointList.indexOf(childrenJoints.get(childIndex));
+            if (index != -1)
+               children[numberOfChildren++] = index;
+         }
+         childrenIndices[i] = new int[numberOfChildren];
+         System.arraycopy(children, 0, childrenIndices[i], 0, numberOfChildren);
+      }
+   }
+
+   int getNumberOfJoints()
+   {
+      return joints.length;
+   }
+
+   InverseDynamicsJoint[] getJoints()
+   {
+      return joints;
+   }
+
+   RigidBody[] getBodies()
+   {
+      return bodies;
+   }
+
+   int[] getParentIndices()
+   {
+      return parentIndices;
+   }
+
+   int[][] getChildrenIndices()
+   {
+      return childrenIndices;
+   }
+}
@@ -0,0 +1,294 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+/**
+ * Computes joint torques based on desired joint accelerations, using the same recursive
+ * Newton-Euler algorithm as {@link InverseDynamicsCalculator}.
+ * <p>
+ * The kinematic tree is flattened at construction into a {@link FlattenedRigidBodyTree}, and all
+ * the spatial vectors needed for the computation are allocated at construction. The two passes of
+ * the algorithm are then loops over arrays that do not use any map or allocate any memory, which
+ * makes this calculator suitable for a real-time thread.
+ * </p>
+ * <p>
+ * Each joint and its successor share the same index. The indices can be obtained once with
+ * {@link #getJointIndex(InverseDynamicsJoint)} and {@link #getBodyIndex(RigidBody)} and then used to
+ * set the external wrenches and get the results.
+ * </p>
+ */
+public class PrecompiledInverseDynamicsCalculator
+{
+   private final RigidBody rootBody;
+   private final ReferenceFrame inertialFrame;
+   private final SpatialAccelerationVector rootAcceleration;
+   private final boolean doVelocityTerms;
+
+   /** All the joints of the tree, a parent joint is always before its children. */
+   private final InverseDynamicsJoint[] joints;
+   /** The successor of each joint. */
+   private final RigidBody[] bodies;
+   /** The index of the parent joint of each joint, {@code -1} when its predecessor is the root body. */
+   private final int[] parentIndices;
+   /** The indices of the children joints of each joint. */
+   private final int[][] childrenIndices;
+
+   private final SpatialAccelerationVector[] accelerations;
+   private final Wrench[] netWrenches;
+   private final Wrench[] externalWrenches;
+   private final Wrench[] jointWrenches;
+
+   private final Twist jointTwist = new Twist();
+   private final Twist predecessorTwist = new Twist();
+   private final Twist bodyTwist = new Twist();
+   private final SpatialAccelerationVector jointAcceleration = new SpatialAccelerationVector();
+   private final Wrench wrenchExertedByChild = new Wrench();
+   private final Wrench tempWrench = new Wrench();
+
+   public PrecompiledInverseDynamicsCalculator(RigidBody body, double gravity)
+   {
+      this(body, gravity, new ArrayList<InverseDynamicsJoint>());
+   }
+
+   public PrecompiledInverseDynamicsCalculator(RigidBody body, double gravity, List<InverseDynamicsJoint> jointsToIgnore)
+   {
+      this(body, ScrewTools.createGravitationalSpatialAcceleration(ScrewTools.getRootBody(body), gravity), jointsToIgnore, true);
+   }
+
+   /**
+    * @param body a body of the system to compute the inverse dynamics of.
+    * @param rootAcceleration the spatial acceleration of the root body, usually the opposite of the
+    *           gravitational acceleration.
+    * @param jointsToIgnore joints which, along with their subtree, are excluded from the
+    *           computation.
+    * @param doVelocityTerms whether the centrifugal and Coriolis effects are considered.
+    */
+   public PrecompiledInverseDynamicsCalculator(RigidBody body, SpatialAccelerationVector rootAcceleration, List<InverseDynamicsJoint> jointsToIgnore,
+                                               boolean doVelocityTerms)
+   {
+      this.rootBody = ScrewTools.getRootBody(body);
+      this.inertialFrame = rootAcceleration.getBaseFrame();
+      this.rootAcceleration = new SpatialAccelerationVector(rootBody.getBodyFixedFrame(), inertialFrame, rootBody.getBodyFixedFrame());
+      setRootAcceleration(rootAcceleration);
+      this.doVelocityTerms = doVelocityTerms;
+
+      FlattenedRigidBodyTree tree = new FlattenedRigidBodyTree(rootBody, jointsToIgnore);
+      joints = tree.getJoints();
+      bodies = tree.getBodies();
+      parentIndices = tree.getParentIndices();
+      childrenIndices = tree.getChildrenIndices();
+
+      int numberOfJoints = tree.getNumberOfJoints();
+      accelerations = new SpatialAccelerationVector[numberOfJoints];
+      netWrenches = new Wrench[numberOfJoints];
+      externalWrenches = new Wrench[numberOfJoints];
+      jointWrenches = new Wrench[numberOfJoints];
+
+      for (int i = 0; i < numberOfJoints; i++)
+      {
+         ReferenceFrame bodyFixedFrame = bodies[i].getBodyFixedFrame();
+         accelerations[i] = new SpatialAccelerationVector(bodyFixedFrame, inertialFrame, bodyFixedFrame);
+         netWrenches[i] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+         externalWrenches[i] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+         jointWrenches[i] = new Wrench(bodyFixedFrame, bodyFixedFrame);
+      }
+   }
+
+   public void setRootAcceleration(SpatialAccelerationVector newRootAcceleration)
+   {
+      ReferenceFrame rootBodyFrame = rootBody.getBodyFixedFrame();
+      newRootAcceleration.checkReferenceFramesMatch(rootBodyFrame, inertialFrame, rootBodyFrame);
+      rootAcceleration.set(newRootAcceleration);
+   }
+
+   /**
+    * Computes the joint wrenches from the current state and desired accelerations of the joints and
+    * the external wrenches, and sets the resulting torques to the joints.
+    */
+   public void compute()
+   {
+      computeAccelerationsAndNetWrenches();
+      computeJointWrenchesAndTorques();
+   }
+
+   /**
+    * Sets all the external wrenches to zero.
+    */
+   public void reset()
+   {
+      for (int i = 0; i < externalWrenches.length; i++)
+      {
+         ReferenceFrame bodyFixedFrame = bodies[i].getBodyFixedFrame();
+         externalWrenches[i].setToZero(bodyFixedFrame, bodyFixedFrame);
+      }
+   }
+
+   private void computeAccelerationsAndNetWrenches()
+   {
+      ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+      for (int i = 0; i < joints.length; i++)
+      {
+         InverseDynamicsJoint joint = joints[i];
+         RigidBody body = bodies[i];
+         MovingReferenceFrame bodyFrame = body.getBodyFixedFrame();
+         MovingReferenceFrame predecessorFrame = joint.getPredecessor().getBodyFixedFrame();
+
+         if (doVelocityTerms)
+         {
+            joint.getPredecessorTwist(jointTwist);
+            predecessorFrame.getTwistOfFrame(predecessorTwist);
+            bodyFrame.getTwistOfFrame(bodyTwist);
+         }
+         else
+         {
+            jointTwist.setToZero(predecessorFrame, bodyFrame, predecessorFrame);
+            predecessorTwist.setToZero(predecessorFrame, inertialFrame, predecessorFrame);
+            bodyTwist.setToZero(bodyFrame, worldFrame, bodyFrame);
+         }
+
+         joint.getDesiredSuccessorAcceleration(jointAcceleration);
+
+         // The acceleration of the body is the acceleration of its predecessor plus the joint acceleration.
+         int parentIndex = parentIndices[i];
+         SpatialAccelerationVector acceleration = accelerations[i];
+         acceleration.set(parentIndex == -1 ? rootAcceleration : accelerations[parentIndex]);
+         acceleration.changeFrame(bodyFrame, jointTwist, predecessorTwist);
+         acceleration.add(jointAcceleration);
+
+         body.getInertia().computeDynamicWrenchInBodyCoordinates(acceleration, bodyTwist, netWrenches[i]);
+      }
+   }
+
+   private void computeJointWrenchesAndTorques()
+   {
+      for (int i = joints.length - 1; i >= 0; i--)
+      {
+         Wrench jointWrench = jointWrenches[i];
+         jointWrench.set(netWrenches[i]);
+         jointWrench.sub(externalWrenches[i]);
+
+         ReferenceFrame successorFrame = bodies[i].getBodyFixedFrame();
+         int[] children = childrenIndices[i];
+
+         for (int childIndex = 0; childIndex < children.length; childIndex++)
+         {
+            wrenchExertedByChild.set(jointWrenches[children[childIndex]]);
+            wrenchExertedByChild.changeBodyFrameAttachedToSameBody(successorFrame);
+            wrenchExertedByChild.scale(-1.0); // Action = -reaction
+            wrenchExertedByChild.changeFrame(jointWrench.getExpressedInFrame());
+            jointWrench.sub(wrenchExertedByChild);
+         }
+
+         joints[i].setTorqueFromWrench(jointWrench);
+      }
+   }
+
+   /**
+    * Searches the index of the given joint. This is a linear search meant to be done once when
+    * setting up the user of this calculator.
+    *
+    * @param joint the joint to get the index of.
+    * @return the index of the joint, or {@code -1} if it is not part of the computation.
+    */
+   public int getJointIndex(InverseDynamicsJoint joint)
+   {
+      for (int i = 0; i < joints.length; i++)
+      {
+         if (joints[i] == joint)
+            return i;
+      }
+      return -1;
+   }
+
+   /**
+    * Searches the index of the given body, which is the index of its parent joint. This is a linear
+    * search meant to be done once when setting up the user of this calculator.
+    *
+    * @param body the rigid-body to get the index of.
+    * @return the index of the body, or {@code -1} if it is the root body or is not part of the
+    *         computation.
+    */
+   public int getBodyIndex(RigidBody body)
+   {
+      for (int i = 0; i < bodies.length; i++)
+      {
+         if (bodies[i] == body)
+            return i;
+      }
+      return -1;
+   }
+
+   public int getNumberOfJoints()
+   {
+      return joints.length;
+   }
+
+   public InverseDynamicsJoint getJoint(int jointIndex)
+   {
+      return joints[jointIndex];
+   }
+
+   public RigidBody getBody(int bodyIndex)
+   {
+      return bodies[bodyIndex];
+   }
+
+   /**
+    * @return the index of the parent joint of the given joint, or {@code -1} if its predecessor is
+    *         the root body.
+    */
+   public int getParentIndex(int jointIndex)
+   {
+      return parentIndices[jointIndex];
+   }
+
+   public RigidBody getRootBody()
+   {
+      return rootBody;
+   }
+
+   public void setExternalWrench(int bodyIndex, Wrench externalWrench)
+   {
+      externalWrenches[bodyIndex].set(externalWrench);
+   }
+
+   public void getExternalWrench(int bodyIndex, Wrench externalWrenchToPack)
+   {
+      externalWrenchToPack.set(externalWrenches[bodyIndex]);
+   }
+
+   /**
+    * Packs the acceleration computed during the last call to {@link #compute()} of the body with
+    * respect to the inertial frame, expressed in its body-fixed frame.
+    */
+   public void getAccelerationOfBody(int bodyIndex, SpatialAccelerationVector accelerationToPack)
+   {
+      accelerationToPack.set(accelerations[bodyIndex]);
+   }
+
+   /**
+    * Packs the wrench computed during the last call to {@link #compute()} that the predecessor of
+    * the joint exerts on its successor.
+    */
+   public void getJointWrench(int jointIndex, Wrench wrenchToPack)
+   {
+      wrenchToPack.set(jointWrenches[jointIndex]);
+   }
+
+   public void computeTotalExternalWrench(ReferenceFrame referenceFrame, Wrench totalExternalWrenchToPack)
+   {
+      totalExternalWrenchToPack.setToZero(referenceFrame, referenceFrame);
+
+      for (int i = 0; i < externalWrenches.length; i++)
+      {
+         tempWrench.set(externalWrenches[i]);
+         tempWrench.changeFrame(referenceFrame);
+         tempWrench.changeBodyFrameAttachedToSameBody(referenceFrame);
+         totalExternalWrenchToPack.add(tempWrench);
+      }
+   }
+}
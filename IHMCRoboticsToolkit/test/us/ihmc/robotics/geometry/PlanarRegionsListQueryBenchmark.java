@@ -0,0 +1,108 @@
+package us.ihmc.robotics.geometry;
+
+import java.util.List;
+import java.util.Random;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+/**
+ * Measures the cost of the region queries of {@link PlanarRegionsList} for an increasing number of
+ * regions spread over a fixed area and compares it to testing every region.
+ */
+public class PlanarRegionsListQueryBenchmark
+{
+   private static final int NUMBER_OF_QUERIES = 20000;
+   private static final double SIZE = 20.0;
+
+   public static void main(String[] args)
+   {
+      Random random = new Random(1876L);
+      int[] numberOfRegionsToTest = {10, 50, 100, 250, 500, 1000, 2000};
+
+      for (int numberOfRegions : numberOfRegionsToTest)
+      {
+         PlanarRegionsList planarRegionsList = PlanarRegionsListSpatialIndexTest.generateRandomPlanarRegionsList(random, numberOfRegions, SIZE);
+
+         double[] xs = new double[NUMBER_OF_QUERIES];
+         double[] ys = new double[NUMBER_OF_QUERIES];
+         for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+         {
+            xs[i] = RandomNumbers.nextDouble(random, SIZE);
+            ys[i] = RandomNumbers.nextDouble(random, SIZE);
+         }
+
+         // warm up and build the index
+         runIndexedQueries(planarRegionsList, xs, ys);
+         runLinearQueries(planarRegionsList, xs, ys);
+
+         long startTime = System.nanoTime();
+         int indexedHits = runIndexedQueries(planarRegionsList, xs, ys);
+         double indexedTime = (System.nanoTime() - startTime) / (3.0 * NUMBER_OF_QUERIES);
+
+         startTime = System.nanoTime();
+         int linearHits = runLinearQueries(planarRegionsList, xs, ys);
+         double linearTime = (System.nanoTime() - startTime) / (3.0 * NUMBER_OF_QUERIES);
+
+         if (indexedHits != linearHits)
+            throw new RuntimeException("Indexed queries found " + indexedHits + " regions, linear scan found " + linearHits);
+
+         System.out.println(numberOfRegions + " regions: indexed " + indexedTime + "ns/query, linear " + linearTime + "ns/query, speedup "
+               + linearTime / indexedTime);
+      }
+   }
+
+   private static int runIndexedQueries(PlanarRegionsList planarRegionsList, double[] xs, double[] ys)
+   {
+      int hits = 0;
+      Point3D point = new Point3D();
+      for (int i = 0; i < xs.length; i++)
+      {
+         hits += size(planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(xs[i], ys[i]));
+         point.set(xs[i], ys[i], 0.5);
+         hits += size(planarRegionsList.findPlanarRegionsContainingPoint(point, 0.2));
+         hits += size(planarRegionsList.findPlanarRegionsIntersectingPolygon(createFootPolygon(xs[i], ys[i])));
+      }
+      return hits;
+   }
+
+   private static int runLinearQueries(PlanarRegionsList planarRegionsList, double[] xs, double[] ys)
+   {
+      int hits = 0;
+      Point3D point = new Point3D();
+      for (int i = 0; i < xs.length; i++)
+      {
+         point.set(xs[i], ys[i], 0.5);
+         ConvexPolygon2D footPolygon = createFootPolygon(xs[i], ys[i]);
+
+         for (int j = 0; j < planarRegionsList.getNumberOfPlanarRegions(); j++)
+         {
+            PlanarRegion region = planarRegionsList.getPlanarRegion(j);
+            if (region.isPointInsideByProjectionOntoXYPlane(xs[i], ys[i]))
+               hits++;
+            if (region.isPointInside(point, 0.2))
+               hits++;
+            if (!region.isVertical() && region.isPolygonIntersecting(footPolygon))
+               hits++;
+         }
+      }
+      return hits;
+   }
+
+   private static ConvexPolygon2D createFootPolygon(double x, double y)
+   {
+      ConvexPolygon2D footPolygon = new ConvexPolygon2D();
+      footPolygon.addVertex(x + 0.1, y + 0.05);
+      footPolygon.addVertex(x + 0.1, y - 0.05);
+      footPolygon.addVertex(x - 0.1, y - 0.05);
+      footPolygon.addVertex(x - 0.1, y + 0.05);
+      footPolygon.update();
+      return footPolygon;
+   }
+
+   private static int size(List<PlanarRegion> regions)
+   {
+      return regions == null ? 0 : regions.size();
+   }
+}
@@ -0,0 +1,227 @@
+package us.ihmc.robotics.geometry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import us.ihmc.commons.RandomNumbers;
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.geometry.ConvexPolygon2D;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+
+public class PlanarRegionsListSpatialIndexTest
+{
+   private static final int NUMBER_OF_QUERIES = 500;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesMatchLinearScan()
+   {
+      Random random = new Random(2349L);
+      PlanarRegionsList planarRegionsList = generateRandomPlanarRegionsList(random, 300, 10.0);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 10.0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesAfterModifications()
+   {
+      Random random = new Random(5923L);
+      PlanarRegionsList planarRegionsList = generateRandomPlanarRegionsList(random, 100, 5.0);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      // appended regions are added to the existing index, including one much bigger than the others
+      for (int i = 0; i < 20; i++)
+         planarRegionsList.addPlanarRegion(generateRandomPlanarRegion(random, 5.0));
+      planarRegionsList.addPlanarRegion(createSquareRegion(new RigidBodyTransform(), 20.0));
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      planarRegionsList.pollPlanarRegion(3);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationYawAndZeroTranslation(0.7);
+      transform.setTranslation(1.0, -2.0, 0.5);
+      planarRegionsList.transform(transform);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      // regions that are modified directly are picked up after incrementing the version
+      planarRegionsList.getPlanarRegion(0).transform(transform);
+      planarRegionsList.incrementVersion();
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesAfterExternalModifications()
+   {
+      Random random = new Random(8371L);
+      List<PlanarRegion> regions = new ArrayList<>();
+      for (int i = 0; i < 100; i++)
+         regions.add(generateRandomPlanarRegion(random, 5.0));
+      PlanarRegionsList planarRegionsList = new PlanarRegionsList(regions);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationYawAndZeroTranslation(-0.4);
+      transform.setTranslation(2.0, 1.5, 0.0);
+
+      // queries do not change the version, only the modifications made through the list do
+      long version = planarRegionsList.getVersion();
+      assertEquals(version, planarRegionsList.getVersion());
+      planarRegionsList.addPlanarRegion(generateRandomPlanarRegion(random, 5.0));
+      assertTrue(planarRegionsList.getVersion() > version);
+      version = planarRegionsList.getVersion();
+      planarRegionsList.pollPlanarRegion(0);
+      assertTrue(planarRegionsList.getVersion() > version);
+      version = planarRegionsList.getVersion();
+      planarRegionsList.transform(transform);
+      assertTrue(planarRegionsList.getVersion() > version);
+
+      // regions modified directly or through the backing list are picked up after incrementing the version
+      planarRegionsList.getPlanarRegion(5).transform(transform);
+      planarRegionsList.getPlanarRegion(7).set(generateRandomPlanarRegion(random, 5.0));
+      regions.set(11, generateRandomPlanarRegion(random, 5.0));
+      version = planarRegionsList.getVersion();
+      planarRegionsList.incrementVersion();
+      assertTrue(planarRegionsList.getVersion() > version);
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+
+      // appending or removing regions through the backing list changes the size, which is always checked
+      regions.add(generateRandomPlanarRegion(random, 5.0));
+      assertQueriesMatchLinearScan(random, planarRegionsList, 5.0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testConcurrentQueriesMatchLinearScan() throws Exception
+   {
+      int numberOfThreads = 8;
+      PlanarRegionsList planarRegionsList = generateRandomPlanarRegionsList(new Random(6602L), 300, 10.0);
+      // the index is built by whichever query comes first after this
+      planarRegionsList.incrementVersion();
+
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+      try
+      {
+         CountDownLatch startLatch = new CountDownLatch(1);
+         List<Future<?>> futures = new ArrayList<>();
+         for (int i = 0; i < numberOfThreads; i++)
+         {
+            Random random = new Random(1000L + i);
+            futures.add(executor.submit(() ->
+            {
+               startLatch.await();
+               assertQueriesMatchLinearScan(random, planarRegionsList, 10.0);
+               return null;
+            }));
+         }
+
+         startLatch.countDown();
+         for (Future<?> future : futures)
+            future.get();
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   private static void assertQueriesMatchLinearScan(Random random, PlanarRegionsList planarRegionsList, double size)
+   {
+      for (int i = 0; i < NUMBER_OF_QUERIES; i++)
+      {
+         double x = RandomNumbers.nextDouble(random, size);
+         double y = RandomNumbers.nextDouble(random, size);
+
+         List<PlanarRegion> expected = new ArrayList<>();
+         for (int j = 0; j < planarRegionsList.getNumberOfPlanarRegions(); j++)
+         {
+            PlanarRegion region = planarRegionsList.getPlanarRegion(j);
+            if (region.isPointInsideByProjectionOntoXYPlane(x, y))
+               expected.add(region);
+         }
+         assertSameRegions(expected, planarRegionsList.findPlanarRegionsContainingPointByProjectionOntoXYPlane(x, y));
+
+         Point3D point = new Point3D(x, y, RandomNumbers.nextDouble(random, 1.0));
+         double maximumOrthogonalDistance = RandomNumbers.nextDouble(random, 0.0, 0.5);
+         expected.clear();
+         for (int j = 0; j < planarRegionsList.getNumberOfPlanarRegions(); j++)
+         {
+            PlanarRegion region = planarRegionsList.getPlanarRegion(j);
+            if (region.isPointInside(point, maximumOrthogonalDistance))
+               expected.add(region);
+         }
+         assertSameRegions(expected, planarRegionsList.findPlanarRegionsContainingPoint(point, maximumOrthogonalDistance));
+
+         ConvexPolygon2D polygon = new ConvexPolygon2D();
+         double polygonSize = RandomNumbers.nextDouble(random, 0.01, 1.0);
+         polygon.addVertex(x, y);
+         polygon.addVertex(x + polygonSize, y);
+         polygon.addVertex(x, y + polygonSize);
+         polygon.update();
+         expected.clear();
+         for (int j = 0; j < planarRegionsList.getNumberOfPlanarRegions(); j++)
+         {
+            PlanarRegion region = planarRegionsList.getPlanarRegion(j);
+            if (!region.isVertical() && region.isPolygonIntersecting(polygon))
+               expected.add(region);
+         }
+         assertSameRegions(expected, planarRegionsList.findPlanarRegionsIntersectingPolygon(polygon));
+      }
+   }
+
+   private static void assertSameRegions(List<PlanarRegion> expected, List<PlanarRegion> actual)
+   {
+      if (expected.isEmpty())
+      {
+         assertEquals(null, actual);
+         return;
+      }
+
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++)
+         assertEquals(expected.get(i), actual.get(i));
+   }
+
+   static PlanarRegionsList generateRandomPlanarRegionsList(Random random, int numberOfRegions, double size)
+   {
+      PlanarRegionsList planarRegionsList = new PlanarRegionsList();
+      for (int i = 0; i < numberOfRegions; i++)
+         planarRegionsList.addPlanarRegion(generateRandomPlanarRegion(random, size));
+      return planarRegionsList;
+   }
+
+   private static PlanarRegion generateRandomPlanarRegion(Random random, double size)
+   {
+      RigidBodyTransform transform = new RigidBodyTransform();
+      transform.setRotationEulerAndZeroTranslation(RandomNumbers.nextDouble(random, 0.5), RandomNumbers.nextDouble(random, 0.5),
+                                                   RandomNumbers.nextDouble(random, Math.PI));
+      transform.setTranslation(RandomNumbers.nextDouble(random, size), RandomNumbers.nextDouble(random, size), RandomNumbers.nextDouble(random, 1.0));
+      return createSquareRegion(transform, RandomNumbers.nextDouble(random, 0.1, 1.0));
+   }
+
+   private static PlanarRegion createSquareRegion(RigidBodyTransform transform, double sideLength)
+   {
+      ConvexPolygon2D polygon = new ConvexPolygon2D();
+      polygon.addVertex(0.5 * sideLength, 0.5 * sideLength);
+      polygon.addVertex(0.5 * sideLength, -0.5 * sideLength);
+      polygon.addVertex(-0.5 * sideLength, -0.5 * sideLength);
+      polygon.addVertex(-0.5 * sideLength, 0.5 * sideLength);
+      polygon.update();
+
+      List<ConvexPolygon2D> polygons = new ArrayList<>();
+      polygons.add(polygon);
+      return new PlanarRegion(transform, polygons);
+   }
+}
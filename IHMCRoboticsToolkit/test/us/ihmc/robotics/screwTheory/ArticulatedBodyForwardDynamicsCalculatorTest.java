@@ -0,0 +1,135 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.LinearSolverFactory;
+import org.ejml.interfaces.linsol.LinearSolver;
+import org.ejml.ops.CommonOps;
+import org.ejml.ops.MatrixFeatures;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.random.RandomGeometry;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+public class ArticulatedBodyForwardDynamicsCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-7;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsWithFloatingTree()
+   {
+      Random random = new Random(76L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody rootBody = ScrewTestTools.addRandomRigidBody("rootBody", random, rootJoint);
+      List<RevoluteJoint> revoluteJoints = ScrewTestTools.createRandomTreeRobot(rootBody, 30, random);
+      List<InverseDynamicsJoint> allJoints = new ArrayList<>();
+      allJoints.add(rootJoint);
+      allJoints.addAll(revoluteJoints);
+
+      ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator = new ArticulatedBodyForwardDynamicsCalculator(elevator, 9.81);
+      InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(elevator, 9.81);
+      InverseDynamicsJoint[] jointsInOrder = forwardDynamicsCalculator.getJointsInOrder();
+      assertEquals(allJoints.size(), jointsInOrder.length);
+      assertEquals(ScrewTools.computeDegreesOfFreedom(allJoints), forwardDynamicsCalculator.getNumberOfDoFs());
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomVelocity(rootJoint, random);
+         ScrewTestTools.setRandomPositions(revoluteJoints, random);
+         ScrewTestTools.setRandomVelocities(revoluteJoints, random);
+         ScrewTestTools.setRandomTorques(revoluteJoints, random);
+         ReferenceFrame rootBodyFrame = rootBody.getBodyFixedFrame();
+         Wrench rootJointWrench = new Wrench(rootBodyFrame, rootBodyFrame, RandomGeometry.nextVector3D(random), RandomGeometry.nextVector3D(random));
+         rootJoint.setWrench(rootJointWrench);
+         elevator.updateFramesRecursively();
+
+         double[] taus = new double[revoluteJoints.size()];
+         for (int i = 0; i < revoluteJoints.size(); i++)
+            taus[i] = revoluteJoints.get(i).getTau();
+
+         forwardDynamicsCalculator.reset();
+         inverseDynamicsCalculator.reset();
+
+         for (int i = 0; i < 3; i++)
+         {
+            RigidBody body = allJoints.get(random.nextInt(allJoints.size())).getSuccessor();
+            ReferenceFrame bodyFrame = body.getBodyFixedFrame();
+            Wrench externalWrench = new Wrench(bodyFrame, bodyFrame, RandomGeometry.nextVector3D(random), RandomGeometry.nextVector3D(random));
+            forwardDynamicsCalculator.setExternalWrench(forwardDynamicsCalculator.getBodyIndex(body), externalWrench);
+            inverseDynamicsCalculator.setExternalWrench(body, externalWrench);
+         }
+
+         forwardDynamicsCalculator.compute();
+
+         // The inverse dynamics of the computed accelerations has to give back the joint torques.
+         ScrewTools.setDesiredAccelerations(jointsInOrder, forwardDynamicsCalculator.getJointAccelerations());
+         inverseDynamicsCalculator.compute();
+
+         for (int i = 0; i < revoluteJoints.size(); i++)
+            assertEquals(taus[i], revoluteJoints.get(i).getTau(), EPSILON);
+
+         Wrench actualRootJointWrench = new Wrench();
+         rootJoint.getWrench(actualRootJointWrench);
+         DenseMatrix64F expected = new DenseMatrix64F(Wrench.SIZE, 1);
+         DenseMatrix64F actual = new DenseMatrix64F(Wrench.SIZE, 1);
+         rootJointWrench.getMatrix(expected);
+         actualRootJointWrench.getMatrix(actual);
+         assertTrue(MatrixFeatures.isEquals(expected, actual, EPSILON));
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testAgainstMassMatrixAndBiasForces()
+   {
+      Random random = new Random(4534L);
+      List<RevoluteJoint> revoluteJoints = ScrewTestTools.createRandomChainRobot(20, random);
+      RigidBody rootBody = ScrewTools.getRootBody(revoluteJoints.get(0).getPredecessor());
+
+      ArticulatedBodyForwardDynamicsCalculator forwardDynamicsCalculator = new ArticulatedBodyForwardDynamicsCalculator(rootBody, 9.81);
+      CompositeRigidBodyMassMatrixCalculator massMatrixCalculator = new CompositeRigidBodyMassMatrixCalculator(rootBody);
+      InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(rootBody, 9.81);
+      InverseDynamicsJoint[] jointsInOrder = massMatrixCalculator.getJointsInOrder();
+      assertArrayEquals(jointsInOrder, forwardDynamicsCalculator.getJointsInOrder());
+
+      int numberOfDoFs = forwardDynamicsCalculator.getNumberOfDoFs();
+      DenseMatrix64F jointTorques = new DenseMatrix64F(numberOfDoFs, 1);
+      DenseMatrix64F biasForces = new DenseMatrix64F(numberOfDoFs, 1);
+      DenseMatrix64F expectedAccelerations = new DenseMatrix64F(numberOfDoFs, 1);
+      LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.symmPosDef(numberOfDoFs);
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         ScrewTestTools.setRandomPositions(revoluteJoints, random);
+         ScrewTestTools.setRandomVelocities(revoluteJoints, random);
+         rootBody.updateFramesRecursively();
+
+         // M qdd + b = tau, where b is given by the inverse dynamics with zero accelerations.
+         jointTorques.set(RandomGeometry.nextDenseMatrix64F(random, numberOfDoFs, 1, 10.0));
+         for (InverseDynamicsJoint joint : jointsInOrder)
+            joint.setDesiredAccelerationToZero();
+         inverseDynamicsCalculator.compute();
+         for (int i = 0; i < numberOfDoFs; i++)
+            biasForces.set(i, 0, revoluteJoints.get(i).getTau());
+
+         massMatrixCalculator.compute();
+         assertTrue(solver.setA(massMatrixCalculator.getMassMatrix()));
+         CommonOps.subtract(jointTorques, biasForces, biasForces);
+         solver.solve(biasForces, expectedAccelerations);
+
+         forwardDynamicsCalculator.compute(jointTorques);
+
+         assertTrue(MatrixFeatures.isEquals(expectedAccelerations, forwardDynamicsCalculator.getJointAccelerations(), EPSILON));
+      }
+   }
+}
@@ -0,0 +1,74 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.ops.MatrixFeatures;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+public class BatchedGeometricJacobianCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testAgainstGeometricJacobian()
+   {
+      Random random = new Random(9823L);
+      List<RevoluteJoint> joints = ScrewTestTools.createRandomTreeRobot(40, random);
+      RigidBody rootBody = ScrewTools.getRootBody(joints.get(0).getPredecessor());
+      ReferenceFrame worldFrame = ReferenceFrame.getWorldFrame();
+
+      int numberOfEndEffectors = 6;
+      RigidBody[] endEffectors = new RigidBody[numberOfEndEffectors];
+      GeometricJacobian[] expectedJacobians = new GeometricJacobian[numberOfEndEffectors];
+      for (int i = 0; i < numberOfEndEffectors; i++)
+      {
+         endEffectors[i] = joints.get(random.nextInt(joints.size())).getSuccessor();
+         expectedJacobians[i] = new GeometricJacobian(rootBody, endEffectors[i], worldFrame);
+      }
+
+      BatchedGeometricJacobianCalculator calculator = new BatchedGeometricJacobianCalculator(rootBody, endEffectors, worldFrame);
+      assertEquals(numberOfEndEffectors, calculator.getNumberOfEndEffectors());
+
+      // Each joint is computed once even when shared by several end-effectors.
+      InverseDynamicsJoint[] allJoints = calculator.getAllJoints();
+      for (int i = 0; i < allJoints.length; i++)
+      {
+         for (int j = i + 1; j < allJoints.length; j++)
+            assertTrue(allJoints[i] != allJoints[j]);
+      }
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         ScrewTestTools.setRandomPositions(joints, random);
+         rootBody.updateFramesRecursively();
+
+         calculator.compute();
+
+         for (int i = 0; i < numberOfEndEffectors; i++)
+         {
+            expectedJacobians[i].compute();
+            assertArrayEquals(expectedJacobians[i].getJointsInOrder(), calculator.getJointPath(i));
+            assertTrue(MatrixFeatures.isIdentical(expectedJacobians[i].getJacobianMatrix(), calculator.getJacobianMatrix(i), 0.0));
+         }
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.0)
+   @Test(timeout = 30000, expected = RuntimeException.class)
+   public void testEndEffectorNotDescendantOfBase()
+   {
+      Random random = new Random(34L);
+      List<RevoluteJoint> joints = ScrewTestTools.createRandomChainRobot(5, random);
+      RigidBody base = joints.get(3).getSuccessor();
+      RigidBody endEffector = joints.get(1).getSuccessor();
+
+      new BatchedGeometricJacobianCalculator(base, new RigidBody[] {endEffector}, ReferenceFrame.getWorldFrame());
+   }
+}
@@ -0,0 +1,127 @@
+package us.ihmc.robotics.screwTheory;
+
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.factory.LinearSolverFactory;
+import org.ejml.interfaces.linsol.LinearSolver;
+import org.ejml.ops.CommonOps;
+
+import us.ihmc.robotics.random.RandomGeometry;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+/**
+ * Measures the cost of the forward dynamics for an increasing number of joints, comparing
+ * {@link ArticulatedBodyForwardDynamicsCalculator} to the mass matrix and bias forces followed by a
+ * Cholesky solve. Also compares {@link BatchedGeometricJacobianCalculator} to one
+ * {@link GeometricJacobian} per end-effector.
+ */
+public class ForwardDynamicsBenchmark
+{
+   private static final int NUMBER_OF_CALLS = 5000;
+   private static final int NUMBER_OF_END_EFFECTORS = 4;
+
+   public static void main(String[] args)
+   {
+      Random random = new Random(4351L);
+      int[] numberOfJointsToTest = {5, 10, 20, 40, 80};
+
+      for (int numberOfJoints : numberOfJointsToTest)
+      {
+         List<RevoluteJoint> joints = ScrewTestTools.createRandomTreeRobot(numberOfJoints, random);
+         RigidBody rootBody = ScrewTools.getRootBody(joints.get(0).getPredecessor());
+         ScrewTestTools.setRandomPositions(joints, random);
+         ScrewTestTools.setRandomVelocities(joints, random);
+         rootBody.updateFramesRecursively();
+
+         ArticulatedBodyForwardDynamicsCalculator articulatedBodyCalculator = new ArticulatedBodyForwardDynamicsCalculator(rootBody, 9.81);
+         CompositeRigidBodyMassMatrixCalculator massMatrixCalculator = new CompositeRigidBodyMassMatrixCalculator(rootBody);
+         InverseDynamicsCalculator inverseDynamicsCalculator = new InverseDynamicsCalculator(rootBody, 9.81);
+         InverseDynamicsJoint[] jointsInOrder = massMatrixCalculator.getJointsInOrder();
+         DenseMatrix64F jointTorques = RandomGeometry.nextDenseMatrix64F(random, numberOfJoints, 1, 10.0);
+         DenseMatrix64F biasForces = new DenseMatrix64F(numberOfJoints, 1);
+         DenseMatrix64F jointAccelerations = new DenseMatrix64F(numberOfJoints, 1);
+         LinearSolver<DenseMatrix64F> solver = LinearSolverFactory.symmPosDef(numberOfJoints);
+
+         // warm up
+         runArticulatedBody(articulatedBodyCalculator, jointTorques);
+         runMassMatrixAndSolve(massMatrixCalculator, inverseDynamicsCalculator, jointsInOrder, solver, jointTorques, biasForces, jointAccelerations);
+
+         long startTime = System.nanoTime();
+         runArticulatedBody(articulatedBodyCalculator, jointTorques);
+         double articulatedBodyTime = (System.nanoTime() - startTime) / (1000.0 * NUMBER_OF_CALLS);
+
+         startTime = System.nanoTime();
+         runMassMatrixAndSolve(massMatrixCalculator, inverseDynamicsCalculator, jointsInOrder, solver, jointTorques, biasForces, jointAccelerations);
+         double massMatrixTime = (System.nanoTime() - startTime) / (1000.0 * NUMBER_OF_CALLS);
+
+         RigidBody[] endEffectors = new RigidBody[NUMBER_OF_END_EFFECTORS];
+         GeometricJacobian[] jacobians = new GeometricJacobian[NUMBER_OF_END_EFFECTORS];
+         for (int i = 0; i < NUMBER_OF_END_EFFECTORS; i++)
+         {
+            endEffectors[i] = joints.get(numberOfJoints - 1 - i).getSuccessor();
+            jacobians[i] = new GeometricJacobian(rootBody, endEffectors[i], ReferenceFrame.getWorldFrame());
+         }
+         BatchedGeometricJacobianCalculator batchedJacobianCalculator = new BatchedGeometricJacobianCalculator(rootBody, endEffectors,
+                                                                                                              ReferenceFrame.getWorldFrame());
+
+         // warm up
+         runBatchedJacobians(batchedJacobianCalculator);
+         runJacobians(jacobians);
+
+         startTime = System.nanoTime();
+         runBatchedJacobians(batchedJacobianCalculator);
+         double batchedJacobianTime = (System.nanoTime() - startTime) / (1000.0 * NUMBER_OF_CALLS);
+
+         startTime = System.nanoTime();
+         runJacobians(jacobians);
+         double jacobianTime = (System.nanoTime() - startTime) / (1000.0 * NUMBER_OF_CALLS);
+
+         System.out.println(numberOfJoints + " joints: articulated body " + articulatedBodyTime + "us, mass matrix and solve " + massMatrixTime
+               + "us, speedup " + massMatrixTime / articulatedBodyTime);
+         System.out.println(numberOfJoints + " joints: batched Jacobians " + batchedJacobianTime + "us, separate Jacobians " + jacobianTime
+               + "us, speedup " + jacobianTime / batchedJacobianTime);
+      }
+   }
+
+   private static void runArticulatedBody(ArticulatedBodyForwardDynamicsCalculator calculator, DenseMatrix64F jointTorques)
+   {
+      for (int i = 0; i < NUMBER_OF_CALLS; i++)
+         calculator.compute(jointTorques);
+   }
+
+   private static void runMassMatrixAndSolve(CompositeRigidBodyMassMatrixCalculator massMatrixCalculator, InverseDynamicsCalculator inverseDynamicsCalculator,
+                                             InverseDynamicsJoint[] jointsInOrder, LinearSolver<DenseMatrix64F> solver, DenseMatrix64F jointTorques,
+                                             DenseMatrix64F biasForces, DenseMatrix64F jointAccelerations)
+   {
+      for (int i = 0; i < NUMBER_OF_CALLS; i++)
+      {
+         for (InverseDynamicsJoint joint : jointsInOrder)
+            joint.setDesiredAccelerationToZero();
+         inverseDynamicsCalculator.compute();
+         for (int j = 0; j < jointsInOrder.length; j++)
+            biasForces.set(j, 0, ((RevoluteJoint) jointsInOrder[j]).getTau());
+
+         massMatrixCalculator.compute();
+         solver.setA(massMatrixCalculator.getMassMatrix());
+         CommonOps.subtract(jointTorques, biasForces, biasForces);
+         solver.solve(biasForces, jointAccelerations);
+      }
+   }
+
+   private static void runBatchedJacobians(BatchedGeometricJacobianCalculator calculator)
+   {
+      for (int i = 0; i < NUMBER_OF_CALLS; i++)
+         calculator.compute();
+   }
+
+   private static void runJacobians(GeometricJacobian[] jacobians)
+   {
+      for (int i = 0; i < NUMBER_OF_CALLS; i++)
+      {
+         for (GeometricJacobian jacobian : jacobians)
+            jacobian.compute();
+      }
+   }
+}
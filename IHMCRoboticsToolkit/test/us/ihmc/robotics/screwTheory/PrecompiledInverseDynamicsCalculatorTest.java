@@ -0,0 +1,154 @@
+package us.ihmc.robotics.screwTheory;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ejml.data.DenseMatrix64F;
+import org.ejml.ops.MatrixFeatures;
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.robotics.random.RandomGeometry;
+import us.ihmc.robotics.referenceFrames.ReferenceFrame;
+
+public class PrecompiledInverseDynamicsCalculatorTest
+{
+   private static final int ITERATIONS = 100;
+   private static final double EPSILON = 1.0e-9;
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.3)
+   @Test(timeout = 30000)
+   public void testAgainstInverseDynamicsCalculatorWithFloatingTree()
+   {
+      Random random = new Random(65416L);
+      RigidBody elevator = new RigidBody("elevator", ReferenceFrame.getWorldFrame());
+      SixDoFJoint rootJoint = new SixDoFJoint("rootJoint", elevator);
+      RigidBody rootBody = ScrewTestTools.addRandomRigidBody("rootBody", random, rootJoint);
+      List<RevoluteJoint> revoluteJoints = ScrewTestTools.createRandomTreeRobot(rootBody, 40, random);
+
+      InverseDynamicsCalculator expectedCalculator = new InverseDynamicsCalculator(elevator, 9.81);
+      PrecompiledInverseDynamicsCalculator calculator = new PrecompiledInverseDynamicsCalculator(elevator, 9.81);
+
+      List<InverseDynamicsJoint> allJoints = new ArrayList<>();
+      allJoints.add(rootJoint);
+      allJoints.addAll(revoluteJoints);
+      assertEquals(allJoints.size(), calculator.getNumberOfJoints());
+
+      for (int i = 0; i < calculator.getNumberOfJoints(); i++)
+      {
+         InverseDynamicsJoint joint = calculator.getJoint(i);
+         int parentIndex = calculator.getParentIndex(i);
+         assertEquals(i, calculator.getJointIndex(joint));
+         assertEquals(i, calculator.getBodyIndex(joint.getSuccessor()));
+         if (parentIndex == -1)
+            assertTrue(joint.getPredecessor() == elevator);
+         else
+            assertTrue(parentIndex < i && joint.getPredecessor() == calculator.getBody(parentIndex));
+      }
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         ScrewTestTools.setRandomPositionAndOrientation(rootJoint, random);
+         ScrewTestTools.setRandomVelocity(rootJoint, random);
+         rootJoint.setDesiredAcceleration(RandomGeometry.nextDenseMatrix64F(random, 6, 1), 0);
+         ScrewTestTools.setRandomPositions(revoluteJoints, random);
+         ScrewTestTools.setRandomVelocities(revoluteJoints, random);
+         ScrewTestTools.setRandomDesiredAccelerations(revoluteJoints, random);
+         elevator.updateFramesRecursively();
+
+         expectedCalculator.reset();
+         calculator.reset();
+
+         for (int i = 0; i < 5; i++)
+         {
+            RigidBody body = allJoints.get(random.nextInt(allJoints.size())).getSuccessor();
+            ReferenceFrame bodyFrame = body.getBodyFixedFrame();
+            Wrench externalWrench = new Wrench(bodyFrame, bodyFrame, RandomGeometry.nextVector3D(random), RandomGeometry.nextVector3D(random));
+            expectedCalculator.setExternalWrench(body, externalWrench);
+            calculator.setExternalWrench(calculator.getBodyIndex(body), externalWrench);
+         }
+
+         expectedCalculator.compute();
+         double[] expectedTaus = new double[revoluteJoints.size()];
+         for (int i = 0; i < revoluteJoints.size(); i++)
+            expectedTaus[i] = revoluteJoints.get(i).getTau();
+
+         calculator.compute();
+
+         Wrench expectedWrench = new Wrench();
+         Wrench actualWrench = new Wrench();
+
+         for (int i = 0; i < allJoints.size(); i++)
+         {
+            InverseDynamicsJoint joint = allJoints.get(i);
+            expectedCalculator.getJointWrench(joint, expectedWrench);
+            calculator.getJointWrench(calculator.getJointIndex(joint), actualWrench);
+            assertWrenchEquals(expectedWrench, actualWrench, EPSILON);
+         }
+
+         for (int i = 0; i < revoluteJoints.size(); i++)
+            assertEquals(expectedTaus[i], revoluteJoints.get(i).getTau(), EPSILON);
+
+         Wrench actualTotalExternalWrench = new Wrench();
+         calculator.computeTotalExternalWrench(rootBody.getBodyFixedFrame(), actualTotalExternalWrench);
+         assertWrenchEquals(expectedCalculator.computeTotalExternalWrench(rootBody.getBodyFixedFrame()), actualTotalExternalWrench, EPSILON);
+      }
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testJointsToIgnore()
+   {
+      Random random = new Random(3453L);
+      List<RevoluteJoint> revoluteJoints = ScrewTestTools.createRandomTreeRobot(30, random);
+      RigidBody rootBody = ScrewTools.getRootBody(revoluteJoints.get(0).getPredecessor());
+
+      List<InverseDynamicsJoint> jointsToIgnore = new ArrayList<>();
+      jointsToIgnore.add(revoluteJoints.get(1 + random.nextInt(revoluteJoints.size() - 1)));
+
+      InverseDynamicsCalculator expectedCalculator = new InverseDynamicsCalculator(rootBody, 9.81, jointsToIgnore);
+      PrecompiledInverseDynamicsCalculator calculator = new PrecompiledInverseDynamicsCalculator(rootBody, 9.81, jointsToIgnore);
+
+      InverseDynamicsJoint[] ignoredSubtree = ScrewTools.computeSubtreeJoints(jointsToIgnore.get(0).getSuccessor());
+      assertEquals(-1, calculator.getJointIndex(jointsToIgnore.get(0)));
+      for (InverseDynamicsJoint ignoredJoint : ignoredSubtree)
+         assertEquals(-1, calculator.getJointIndex(ignoredJoint));
+      assertEquals(revoluteJoints.size() - 1 - ignoredSubtree.length, calculator.getNumberOfJoints());
+
+      for (int iteration = 0; iteration < ITERATIONS; iteration++)
+      {
+         ScrewTestTools.setRandomPositions(revoluteJoints, random);
+         ScrewTestTools.setRandomVelocities(revoluteJoints, random);
+         ScrewTestTools.setRandomDesiredAccelerations(revoluteJoints, random);
+         rootBody.updateFramesRecursively();
+
+         expectedCalculator.compute();
+         calculator.compute();
+
+         Wrench expectedWrench = new Wrench();
+         Wrench actualWrench = new Wrench();
+
+         for (int i = 0; i < calculator.getNumberOfJoints(); i++)
+         {
+            expectedCalculator.getJointWrench(calculator.getJoint(i), expectedWrench);
+            calculator.getJointWrench(i, actualWrench);
+            assertWrenchEquals(expectedWrench, actualWrench, EPSILON);
+         }
+      }
+   }
+
+   private static void assertWrenchEquals(Wrench expected, Wrench actual, double epsilon)
+   {
+      assertTrue(expected.getBodyFrame() == actual.getBodyFrame());
+      assertTrue(expected.getExpressedInFrame() == actual.getExpressedInFrame());
+
+      DenseMatrix64F expectedMatrix = new DenseMatrix64F(Wrench.SIZE, 1);
+      DenseMatrix64F actualMatrix = new DenseMatrix64F(Wrench.SIZE, 1);
+      expected.getMatrix(expectedMatrix);
+      actual.getMatrix(actualMatrix);
+      assertTrue(MatrixFeatures.isEquals(expectedMatrix, actualMatrix, epsilon));
+   }
+}
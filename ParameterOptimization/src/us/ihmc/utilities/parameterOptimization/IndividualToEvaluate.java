@@ -5,6 +5,7 @@ public abstract class IndividualToEvaluate
    private boolean fitnessAlreadyComputed = false;
    private double cachedFitness = -1.0;
    private String name = "notNamed";
+   private final Object evaluationDoneLock = new Object();
    
    public abstract IndividualToEvaluate createNewIndividual();
    
@@ -60,9 +61,40 @@ public abstract class IndividualToEvaluate
       return cachedFitness;
    }
    
-   protected synchronized void setFitness(double fitness)
+   public synchronized void setFitness(double fitness)
    {
       fitnessAlreadyComputed = true;
       cachedFitness = fitness;
    }
+
+   /**
+    * Blocks until {@link #isEvaluationDone()} returns true. Implementations that evaluate
+    * asynchronously should call {@link #notifyEvaluationDone()} when they finish so the waiting thread
+    * wakes up immediately, otherwise isEvaluationDone() is polled with a growing interval of at most
+    * 100 ms.
+    */
+   public void waitForEvaluationDone() throws InterruptedException
+   {
+      long waitMillis = 1;
+      synchronized (evaluationDoneLock)
+      {
+         while (!isEvaluationDone())
+         {
+            evaluationDoneLock.wait(waitMillis);
+            waitMillis = Math.min(2 * waitMillis, 100);
+         }
+      }
+   }
+
+   /**
+    * Wakes up the threads in {@link #waitForEvaluationDone()}. Call after isEvaluationDone() starts
+    * returning true.
+    */
+   protected void notifyEvaluationDone()
+   {
+      synchronized (evaluationDoneLock)
+      {
+         evaluationDoneLock.notifyAll();
+      }
+   }
 }
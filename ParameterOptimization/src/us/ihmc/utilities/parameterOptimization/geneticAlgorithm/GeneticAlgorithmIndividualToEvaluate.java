@@ -57,11 +57,21 @@ public class GeneticAlgorithmIndividualToEvaluate
       individualToEvaluate.startEvaluation();
    }
    
+   public void waitForEvaluationDone() throws InterruptedException
+   {
+      individualToEvaluate.waitForEvaluationDone();
+   }
+   
    public double getFitness()
    {
       return individualToEvaluate.getFitness();
    }
    
+   public void setFitness(double fitness)
+   {
+      individualToEvaluate.setFitness(fitness);
+   }
+   
    
    public String toString()
    {
@@ -0,0 +1,86 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the fitness of every Genotype that was evaluated, so individuals that come out of
+ * breeding with a Genotype that was seen before do not have to be evaluated again.
+ *
+ * Only use this if the fitness of an individual is a deterministic function of its Genotype. A cache
+ * can be shared by several populations, for example by the islands of an
+ * {@link IslandGeneticAlgorithm}.
+ */
+public class GenotypeFitnessCache
+{
+   private final ConcurrentHashMap<GenotypeKey, Double> fitnesses = new ConcurrentHashMap<>();
+   private int hits = 0;
+
+   /**
+    * @return the fitness of the Genotype, or null if it was not evaluated yet
+    */
+   public Double get(Genotype genotype)
+   {
+      Double fitness = fitnesses.get(new GenotypeKey(genotype));
+      if (fitness != null)
+      {
+         hits++;
+      }
+      return fitness;
+   }
+
+   public void put(Genotype genotype, double fitness)
+   {
+      fitnesses.put(new GenotypeKey(genotype), fitness);
+   }
+
+   public int size()
+   {
+      return fitnesses.size();
+   }
+
+   /**
+    * @return the number of evaluations that were saved by this cache
+    */
+   public int getNumberOfHits()
+   {
+      return hits;
+   }
+
+   public void clear()
+   {
+      fitnesses.clear();
+      hits = 0;
+   }
+
+   private static class GenotypeKey
+   {
+      private final int[] bitsPerGene;
+      private final int[] bits;
+      private final int hashCode;
+
+      private GenotypeKey(Genotype genotype)
+      {
+         // Copy, the Genotype can still be mutated after it was cached
+         bitsPerGene = genotype.getBitsPerGene().clone();
+         bits = genotype.getBits().clone();
+         hashCode = 31 * Arrays.hashCode(bitsPerGene) + Arrays.hashCode(bits);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return hashCode;
+      }
+
+      @Override
+      public boolean equals(Object object)
+      {
+         if (!(object instanceof GenotypeKey))
+            return false;
+
+         GenotypeKey other = (GenotypeKey) object;
+         return hashCode == other.hashCode && Arrays.equals(bits, other.bits) && Arrays.equals(bitsPerGene, other.bitsPerGene);
+      }
+   }
+}
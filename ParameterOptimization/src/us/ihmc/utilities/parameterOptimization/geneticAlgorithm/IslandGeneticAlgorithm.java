@@ -0,0 +1,187 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Island model genetic algorithm: a number of GeneticAlgorithms that evolve independently and
+ * every few generations send their fittest individuals to the next island in a ring, where they
+ * replace the least fit individuals.
+ *
+ * The latest populations of all islands are handed to the PopulationEvaluator of the
+ * PopulationParameters together, so the worker threads stay busy while the islands are bred. Every
+ * island gets its own Random, seeded from the Random of the PopulationParameters, so the evolution
+ * does not depend on the order the evaluations finish in.
+ */
+public class IslandGeneticAlgorithm
+{
+   private final GeneticAlgorithm[] islands;
+   private final Comparator<GeneticAlgorithmIndividualToEvaluate> comparator;
+   private final PopulationEvaluator populationEvaluator;
+
+   private int migrationInterval = 5;
+   private int numberOfMigrants = 2;
+   private int generationsSinceMigration = 0;
+
+   /**
+    * @param populationParameters parameters of every island, needs a seed individual and a
+    *           comparator. The population size is the size of a single island.
+    */
+   public IslandGeneticAlgorithm(PopulationParameters populationParameters, int numberOfIslands, double crossoverRate, double mutationRate)
+   {
+      if (numberOfIslands < 1)
+      {
+         throw new RuntimeException("Need at least one island");
+      }
+      if (populationParameters.getSeedIndividualToEvaluate() == null || populationParameters.getComparator() == null)
+      {
+         throw new RuntimeException("Need a seed individual and a comparator to create the islands");
+      }
+
+      this.comparator = populationParameters.getComparator();
+      this.populationEvaluator = populationParameters.getPopulationEvaluator();
+
+      islands = new GeneticAlgorithm[numberOfIslands];
+      for (int i = 0; i < numberOfIslands; i++)
+      {
+         Random islandRandom = new Random(populationParameters.getRandom().nextLong());
+         PopulationParameters islandParameters = new PopulationParameters(populationParameters.getName() + "Island" + i, islandRandom,
+                                                                          populationParameters.getPopulationSize());
+         islandParameters.setComparator(populationParameters.getComparator());
+         islandParameters.setSeedIndividualToEvaluate(populationParameters.getSeedIndividualToEvaluate());
+         islandParameters.setSeedIndividualsToCopyIntoFirstPopulation(populationParameters.getNumberOfSeedIndividualsToCopyIntoFirstPopulation(),
+                                                                      populationParameters.getMutationRateForCopiedIndividuals());
+         islandParameters.setPopulationEvaluator(populationParameters.getPopulationEvaluator());
+         islandParameters.setFitnessCache(populationParameters.getFitnessCache());
+
+         islands[i] = new GeneticAlgorithm(islandParameters, crossoverRate, mutationRate);
+      }
+   }
+
+   /**
+    * @param migrationInterval number of generations between two migrations, 0 to never migrate
+    * @param numberOfMigrants number of fittest individuals every island sends to the next one
+    */
+   public void setMigration(int migrationInterval, int numberOfMigrants)
+   {
+      this.migrationInterval = migrationInterval;
+      this.numberOfMigrants = numberOfMigrants;
+   }
+
+   public int getNumberOfIslands()
+   {
+      return islands.length;
+   }
+
+   public GeneticAlgorithm getIsland(int index)
+   {
+      return islands[index];
+   }
+
+   public int getNumberOfIndividuals()
+   {
+      int numberOfIndividuals = 0;
+      for (GeneticAlgorithm island : islands)
+      {
+         numberOfIndividuals += island.getNumberOfIndividuals();
+      }
+      return numberOfIndividuals;
+   }
+
+   public void evolve(int generations)
+   {
+      for (int i = 0; i < generations; i++)
+      {
+         evolveOneGeneration();
+      }
+   }
+
+   public void evolveToFitness(boolean maximize, double fitnessCutoff, int maximumNumberOfIndividualsToEvaluate)
+   {
+      double peakFitness = getFittestIndividual().getFitness();
+
+      while (((maximize && (peakFitness < fitnessCutoff)) || (!maximize && (peakFitness > fitnessCutoff)))
+            && (getNumberOfIndividuals() < maximumNumberOfIndividualsToEvaluate))
+      {
+         evolveOneGeneration();
+         peakFitness = getFittestIndividual().getFitness();
+      }
+   }
+
+   public void evolveOneGeneration()
+   {
+      evaluateLatestPopulations();
+
+      generationsSinceMigration++;
+      if (migrationInterval > 0 && generationsSinceMigration >= migrationInterval && islands.length > 1)
+      {
+         migrate();
+         generationsSinceMigration = 0;
+      }
+
+      for (GeneticAlgorithm island : islands)
+      {
+         island.evolveOneGeneration();
+      }
+   }
+
+   public GeneticAlgorithmIndividualToEvaluate getFittestIndividual()
+   {
+      evaluateLatestPopulations();
+
+      GeneticAlgorithmIndividualToEvaluate fittestIndividual = null;
+      for (GeneticAlgorithm island : islands)
+      {
+         GeneticAlgorithmIndividualToEvaluate candidate = island.getFittestIndividual();
+         if (fittestIndividual == null || comparator.compare(candidate, fittestIndividual) < 0)
+         {
+            fittestIndividual = candidate;
+         }
+      }
+      return fittestIndividual;
+   }
+
+   private void evaluateLatestPopulations()
+   {
+      Population[] latestPopulations = new Population[islands.length];
+      for (int i = 0; i < islands.length; i++)
+      {
+         latestPopulations[i] = islands[i].getPopulation(islands[i].getNumberOfPopulations() - 1);
+      }
+
+      if (populationEvaluator != null)
+      {
+         populationEvaluator.evaluate(latestPopulations);
+      }
+      else
+      {
+         for (Population population : latestPopulations)
+         {
+            population.evaluateAndSortByFitness();
+         }
+      }
+   }
+
+   private void migrate()
+   {
+      // Collect all migrants before any island is changed, so every island sends its own individuals
+      GeneticAlgorithmIndividualToEvaluate[][] migrants = new GeneticAlgorithmIndividualToEvaluate[islands.length][];
+      for (int i = 0; i < islands.length; i++)
+      {
+         Population population = islands[i].getPopulation(islands[i].getNumberOfPopulations() - 1);
+         population.evaluateAndSortByFitness();
+
+         migrants[i] = new GeneticAlgorithmIndividualToEvaluate[Math.min(numberOfMigrants, population.getNumberOfIndividuals())];
+         for (int j = 0; j < migrants[i].length; j++)
+         {
+            migrants[i][j] = population.getIndividual(j);
+         }
+      }
+
+      for (int i = 0; i < islands.length; i++)
+      {
+         GeneticAlgorithm destination = islands[(i + 1) % islands.length];
+         destination.getPopulation(destination.getNumberOfPopulations() - 1).replaceLeastFitIndividuals(migrants[i]);
+      }
+   }
+}
@@ -34,6 +34,8 @@ public class Population
    private final int popNumber;
 
    private final Comparator<GeneticAlgorithmIndividualToEvaluate> comparator;
+   private final PopulationEvaluator populationEvaluator;
+   private final GenotypeFitnessCache fitnessCache;
    
    private boolean allIndividualsEvaluated = false;
 
@@ -57,6 +59,8 @@ public class Population
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+      this.populationEvaluator = populationParameters.getPopulationEvaluator();
+      this.fitnessCache = populationParameters.getFitnessCache();
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numIndividuals];
 
@@ -112,13 +116,16 @@ public class Population
 //      // evaluateAllIndividuals();
 //   }
 
-   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber)
+   private Population(Random random, int numberOfIndividuals, Comparator<GeneticAlgorithmIndividualToEvaluate> comparator, String name, int popNumber,
+                      PopulationEvaluator populationEvaluator, GenotypeFitnessCache fitnessCache)
    {
       this.random = random;
       
       this.popName = name;
       this.popNumber = popNumber;
       this.comparator = comparator;
+      this.populationEvaluator = populationEvaluator;
+      this.fitnessCache = fitnessCache;
       
       generation = new GeneticAlgorithmIndividualToEvaluate[numberOfIndividuals];
 
@@ -147,33 +154,98 @@ public class Population
       if (allIndividualsEvaluated)
          return;
 
+      if (populationEvaluator != null)
+      {
+         populationEvaluator.evaluate(this);
+         return;
+      }
+
+      ArrayList<GeneticAlgorithmIndividualToEvaluate> individualsToEvaluate = startEvaluation();
+
       // System.out.println("Starting the Evals");
-      for (int i = 0; i < generation.length; i++)
+      for (int i = 0; i < individualsToEvaluate.size(); i++)
       {
-         if (!generation[i].isEvaluationDone())
-            generation[i].startEvaluation();
+         if (!individualsToEvaluate.get(i).isEvaluationDone())
+            individualsToEvaluate.get(i).startEvaluation();
       }
 
       // System.out.println("Waiting for the Evals to finish");
-      for (int i = 0; i < generation.length; i++)
+      for (int i = 0; i < individualsToEvaluate.size(); i++)
       {
-         while (!generation[i].isEvaluationDone())
+         try
          {
-            try
-            {
-               Thread.sleep(1000);
-            }
-            catch (InterruptedException e)
-            {
-            }
+            individualsToEvaluate.get(i).waitForEvaluationDone();
+         }
+         catch (InterruptedException e)
+         {
+            throw new RuntimeException(e);
          }
          
-         
-         notifyEvaluatedIndividualListeners(generation[i].getIndividualToEvaluate());  
+         individualEvaluated(individualsToEvaluate.get(i));
+      }
+
+      finishEvaluation();
+   }
+
+   /**
+    * Gives the individuals whose Genotype is in the fitness cache their cached fitness.
+    *
+    * @return the individuals that still have to be evaluated
+    */
+   ArrayList<GeneticAlgorithmIndividualToEvaluate> startEvaluation()
+   {
+      ArrayList<GeneticAlgorithmIndividualToEvaluate> individualsToEvaluate = new ArrayList<GeneticAlgorithmIndividualToEvaluate>();
+
+      for (int i = 0; i < generation.length; i++)
+      {
+         Genotype genotype = generation[i].getGenotype();
+         Double cachedFitness = (fitnessCache == null || genotype == null) ? null : fitnessCache.get(genotype);
+
+         if (cachedFitness != null)
+         {
+            generation[i].setFitness(cachedFitness);
+            notifyEvaluatedIndividualListeners(generation[i].getIndividualToEvaluate());
+         }
+         else
+         {
+            individualsToEvaluate.add(generation[i]);
+         }
       }
 
+      return individualsToEvaluate;
+   }
+
+   void individualEvaluated(GeneticAlgorithmIndividualToEvaluate individual)
+   {
+      if (fitnessCache != null && individual.getGenotype() != null)
+      {
+         fitnessCache.put(individual.getGenotype(), individual.getFitness());
+      }
+
+      notifyEvaluatedIndividualListeners(individual.getIndividualToEvaluate());
+   }
+
+   void finishEvaluation()
+   {
       allIndividualsEvaluated = true;
    }
+
+   /**
+    * Replaces the least fit individuals of this population, for example with the fittest individuals
+    * of another island. The migrants have to be evaluated already.
+    */
+   void replaceLeastFitIndividuals(GeneticAlgorithmIndividualToEvaluate[] migrants)
+   {
+      evaluateAndSortByFitness();
+
+      int numberOfMigrants = Math.min(migrants.length, generation.length);
+      for (int i = 0; i < numberOfMigrants; i++)
+      {
+         generation[generation.length - 1 - i] = migrants[i];
+      }
+
+      Arrays.sort(generation, this.comparator);
+   }
    
 
    public int getNumberOfIndividuals()
@@ -199,7 +271,8 @@ public class Population
 
    public Population breed(double crossoverRate, double mutationRate)
    {
-      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1);
+      Population retPop = new Population(this.random, generation.length, this.comparator, this.popName, this.popNumber + 1, this.populationEvaluator,
+                                         this.fitnessCache);
 
       GeneticAlgorithmIndividualToEvaluate parent1, parent2;
       GeneticAlgorithmIndividualToEvaluate[] children = new GeneticAlgorithmIndividualToEvaluate[2];
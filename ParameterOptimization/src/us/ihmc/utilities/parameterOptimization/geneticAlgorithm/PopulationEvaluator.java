@@ -0,0 +1,141 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Evaluates the individuals of one or more populations on a fixed number of worker threads.
+ *
+ * A worker starts the evaluation of an individual, waits till it is done and computes its fitness.
+ * The calling thread blocks until all individuals are evaluated and is woken up by every finished
+ * evaluation, so the EvaluatedIndividualListeners of the populations are called on the calling
+ * thread, in the order the evaluations finish. Since the evaluations run concurrently, individuals
+ * must not share mutable state.
+ *
+ * Set an evaluator on the PopulationParameters to use it for all generations of a GeneticAlgorithm.
+ * One evaluator can be shared between several genetic algorithms.
+ */
+public class PopulationEvaluator
+{
+   private final ExecutorService executor;
+
+   /**
+    * @param numberOfThreads number of individuals that are evaluated at the same time
+    */
+   public PopulationEvaluator(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+      {
+         throw new RuntimeException("Need at least one thread to evaluate individuals on");
+      }
+
+      executor = Executors.newFixedThreadPool(numberOfThreads, runnable ->
+      {
+         Thread thread = new Thread(runnable, "PopulationEvaluator");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Evaluates all individuals of the populations that are not evaluated yet and returns when they
+    * are done. If an evaluation throws, the remaining evaluations are finished first and the first
+    * failure is rethrown.
+    */
+   public void evaluate(Population... populations)
+   {
+      ExecutorCompletionService<Evaluation> completionService = new ExecutorCompletionService<>(executor);
+      ArrayList<Population> populationsToFinish = new ArrayList<>();
+
+      int numberOfEvaluations = 0;
+      for (Population population : populations)
+      {
+         if (population.allIndividualsEvaluated() || populationsToFinish.contains(population))
+            continue;
+
+         populationsToFinish.add(population);
+         for (GeneticAlgorithmIndividualToEvaluate individual : population.startEvaluation())
+         {
+            completionService.submit(() -> evaluate(population, individual));
+            numberOfEvaluations++;
+         }
+      }
+
+      RuntimeException failure = null;
+      for (int i = 0; i < numberOfEvaluations; i++)
+      {
+         Evaluation evaluation;
+         try
+         {
+            evaluation = completionService.take().get();
+         }
+         catch (InterruptedException | ExecutionException e)
+         {
+            throw new RuntimeException(e);
+         }
+
+         if (evaluation.failure != null)
+         {
+            if (failure == null)
+               failure = new RuntimeException("Evaluation of " + evaluation.individual.getName() + " failed", evaluation.failure);
+         }
+         else
+         {
+            evaluation.population.individualEvaluated(evaluation.individual);
+         }
+      }
+
+      if (failure != null)
+      {
+         throw failure;
+      }
+
+      for (int i = 0; i < populationsToFinish.size(); i++)
+      {
+         populationsToFinish.get(i).finishEvaluation();
+      }
+   }
+
+   /**
+    * Stops the worker threads. The evaluator cannot be used afterwards.
+    */
+   public void shutdown()
+   {
+      executor.shutdownNow();
+   }
+
+   private static Evaluation evaluate(Population population, GeneticAlgorithmIndividualToEvaluate individual)
+   {
+      Evaluation evaluation = new Evaluation(population, individual);
+      try
+      {
+         if (!individual.isEvaluationDone())
+            individual.startEvaluation();
+         individual.waitForEvaluationDone();
+
+         // Compute the fitness here too, for a lot of individuals that is where the work is done
+         individual.getFitness();
+      }
+      catch (Throwable e)
+      {
+         evaluation.failure = e;
+      }
+      return evaluation;
+   }
+
+   private static class Evaluation
+   {
+      private final Population population;
+      private final GeneticAlgorithmIndividualToEvaluate individual;
+      private Throwable failure;
+
+      private Evaluation(Population population, GeneticAlgorithmIndividualToEvaluate individual)
+      {
+         this.population = population;
+         this.individual = individual;
+      }
+   }
+}
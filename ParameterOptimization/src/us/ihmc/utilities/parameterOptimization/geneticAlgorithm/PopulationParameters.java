@@ -18,6 +18,9 @@ public class PopulationParameters
    private int numberOfSeedIndividualsToCopyIntoFirstPopulation = 0;
    private double mutationRateForCopiedIndividuals = 0.0;
    
+   private PopulationEvaluator populationEvaluator;
+   private GenotypeFitnessCache fitnessCache;
+   
    public PopulationParameters(String name, Random random, int populationSize)
    {
       this.name = name;
@@ -75,6 +78,34 @@ public class PopulationParameters
    {
       return random;
    }
+
+   public PopulationEvaluator getPopulationEvaluator()
+   {
+      return populationEvaluator;
+   }
+
+   /**
+    * @param populationEvaluator evaluates the individuals of every generation in parallel, or null to
+    *           evaluate them one after the other on the calling thread
+    */
+   public void setPopulationEvaluator(PopulationEvaluator populationEvaluator)
+   {
+      this.populationEvaluator = populationEvaluator;
+   }
+
+   public GenotypeFitnessCache getFitnessCache()
+   {
+      return fitnessCache;
+   }
+
+   /**
+    * @param fitnessCache reuses the fitness of Genotypes that were already evaluated, or null to
+    *           evaluate every individual
+    */
+   public void setFitnessCache(GenotypeFitnessCache fitnessCache)
+   {
+      this.fitnessCache = fitnessCache;
+   }
   
 
 }
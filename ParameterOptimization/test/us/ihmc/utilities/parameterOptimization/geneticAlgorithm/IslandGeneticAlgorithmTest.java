@@ -0,0 +1,64 @@
+package us.ihmc.utilities.parameterOptimization.geneticAlgorithm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+
+public class IslandGeneticAlgorithmTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testIslandsOptimizeExampleIndividualOne()
+   {
+      PopulationEvaluator populationEvaluator = new PopulationEvaluator(4);
+
+      IslandGeneticAlgorithm islandGeneticAlgorithm = new IslandGeneticAlgorithm(createPopulationParameters(populationEvaluator), 4, 0.8, 0.01);
+      islandGeneticAlgorithm.setMigration(5, 2);
+      islandGeneticAlgorithm.evolveToFitness(true, 15.0, 400000);
+
+      assertTrue(islandGeneticAlgorithm.getFittestIndividual().getFitness() >= 15.0);
+
+      populationEvaluator.shutdown();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testEvolutionDoesNotDependOnTheEvaluator()
+   {
+      PopulationEvaluator populationEvaluator = new PopulationEvaluator(3);
+
+      IslandGeneticAlgorithm sequential = new IslandGeneticAlgorithm(createPopulationParameters(null), 3, 0.6, 0.01);
+      IslandGeneticAlgorithm parallel = new IslandGeneticAlgorithm(createPopulationParameters(populationEvaluator), 3, 0.6, 0.01);
+      sequential.setMigration(3, 1);
+      parallel.setMigration(3, 1);
+
+      sequential.evolve(20);
+      parallel.evolve(20);
+
+      assertEquals(sequential.getNumberOfIndividuals(), parallel.getNumberOfIndividuals());
+      for (int i = 0; i < sequential.getNumberOfIslands(); i++)
+      {
+         GeneticAlgorithmIndividualToEvaluate sequentialFittest = sequential.getIsland(i).getFittestIndividual();
+         GeneticAlgorithmIndividualToEvaluate parallelFittest = parallel.getIsland(i).getFittestIndividual();
+         assertEquals(sequentialFittest.getName(), parallelFittest.getName());
+         assertEquals(sequentialFittest.getFitness(), parallelFittest.getFitness(), 0.0);
+      }
+
+      populationEvaluator.shutdown();
+   }
+
+   private static PopulationParameters createPopulationParameters(PopulationEvaluator populationEvaluator)
+   {
+      PopulationParameters populationParameters = new PopulationParameters("islands", new Random(1776L), 100);
+      populationParameters.setComparator(new MaximizationIndividualComparator());
+      populationParameters.setSeedIndividualToEvaluate(new ExampleIndividualToEvaluateOne());
+      populationParameters.setPopulationEvaluator(populationEvaluator);
+      populationParameters.setFitnessCache(new GenotypeFitnessCache());
+      return populationParameters;
+   }
+}
@@ -6,10 +6,13 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Comparator;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.utilities.parameterOptimization.EvaluatedIndividualListener;
+import us.ihmc.utilities.parameterOptimization.IndividualToEvaluate;
 
 public class PopulationTest
 {
@@ -92,4 +95,77 @@ public class PopulationTest
       assertTrue("bestFitness = " + bestFitness, bestFitness > 13.0);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testParallelEvaluationMatchesSequentialEvaluation()
+   {
+      PopulationEvaluator populationEvaluator = new PopulationEvaluator(4);
+
+      Population sequentialPopulation = new Population(createPopulationParameters(null, null), 0);
+      Population parallelPopulation = new Population(createPopulationParameters(populationEvaluator, null), 0);
+
+      AtomicInteger numberOfEvaluatedIndividuals = new AtomicInteger();
+      parallelPopulation.attachEvaluatedIndividualListener(individual -> numberOfEvaluatedIndividuals.incrementAndGet());
+      parallelPopulation.evaluateAndSortByFitness();
+      assertTrue(parallelPopulation.allIndividualsEvaluated());
+      assertEquals(parallelPopulation.getNumberOfIndividuals(), numberOfEvaluatedIndividuals.get());
+
+      for (int i = 0; i < 50; i++)
+      {
+         sequentialPopulation = sequentialPopulation.breed(0.6, 0.01);
+         parallelPopulation = parallelPopulation.breed(0.6, 0.01);
+      }
+
+      sequentialPopulation.evaluateAndSortByFitness();
+      parallelPopulation.evaluateAndSortByFitness();
+      for (int i = 0; i < sequentialPopulation.getNumberOfIndividuals(); i++)
+      {
+         assertEquals(sequentialPopulation.getIndividual(i).getName(), parallelPopulation.getIndividual(i).getName());
+         assertEquals(sequentialPopulation.getIndividual(i).getFitness(), parallelPopulation.getIndividual(i).getFitness(), 0.0);
+      }
+
+      populationEvaluator.shutdown();
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testFitnessCache()
+   {
+      GenotypeFitnessCache fitnessCache = new GenotypeFitnessCache();
+      Population population = new Population(createPopulationParameters(null, fitnessCache), 0);
+
+      AtomicInteger numberOfEvaluatedIndividuals = new AtomicInteger();
+      EvaluatedIndividualListener listener = individual -> numberOfEvaluatedIndividuals.incrementAndGet();
+
+      for (int i = 0; i < 50; i++)
+      {
+         population.attachEvaluatedIndividualListener(listener);
+         population.evaluateAndSortByFitness();
+         population = population.breed(0.6, 0.01);
+      }
+
+      // Converged populations are mostly made of Genotypes that were seen before
+      assertEquals(50 * population.getNumberOfIndividuals(), numberOfEvaluatedIndividuals.get());
+      assertTrue(fitnessCache.getNumberOfHits() > 0);
+      assertTrue(fitnessCache.size() < 50 * population.getNumberOfIndividuals());
+
+      population.evaluateAndSortByFitness();
+      for (int i = 0; i < population.getNumberOfIndividuals(); i++)
+      {
+         GeneticAlgorithmIndividualToEvaluate individual = population.getIndividual(i);
+         IndividualToEvaluate reference = individual.getIndividualToEvaluate().createNewIndividual();
+         reference.getAllParametersToOptimize().setCurrentValuesGivenZeroToOnes(individual.getGenotype().getDoublePhenotype());
+         assertEquals(reference.getFitness(), individual.getFitness(), 0.0);
+      }
+   }
+
+   private static PopulationParameters createPopulationParameters(PopulationEvaluator populationEvaluator, GenotypeFitnessCache fitnessCache)
+   {
+      PopulationParameters populationParameters = new PopulationParameters("test", new Random(1984L), 100);
+      populationParameters.setComparator(new MaximizationIndividualComparator());
+      populationParameters.setSeedIndividualToEvaluate(new ExampleIndividualToEvaluateOne());
+      populationParameters.setPopulationEvaluator(populationEvaluator);
+      populationParameters.setFitnessCache(fitnessCache);
+      return populationParameters;
+   }
 }
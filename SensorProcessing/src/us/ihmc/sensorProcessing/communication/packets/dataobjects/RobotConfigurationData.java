@@ -106,6 +106,92 @@ public class RobotConfigurationData extends Packet<RobotConfigurationData>
       this.auxiliaryRobotData = auxiliaryRobotData;
    }
 
+   /**
+    * Sets this data to {@code other}. The arrays and tuples of this data are reused when their sizes
+    * match, so this data does not share them with {@code other}. The auxiliary robot data is shared.
+    *
+    * @param other the data to copy. parameter will not be modified.
+    */
+   public void set(RobotConfigurationData other)
+   {
+      setUniqueId(other.getUniqueId());
+      setDestination(other.getDestination());
+      timestamp = other.timestamp;
+      sensorHeadPPSTimestamp = other.sensorHeadPPSTimestamp;
+      jointNameHash = other.jointNameHash;
+      jointAngles = copyArray(other.jointAngles, jointAngles);
+      jointVelocities = copyArray(other.jointVelocities, jointVelocities);
+      jointTorques = copyArray(other.jointTorques, jointTorques);
+
+      rootTranslation.set(other.rootTranslation);
+      pelvisLinearVelocity.set(other.pelvisLinearVelocity);
+      pelvisAngularVelocity.set(other.pelvisAngularVelocity);
+      rootOrientation.set(other.rootOrientation);
+      pelvisLinearAcceleration.set(other.pelvisLinearAcceleration);
+
+      if (other.momentAndForceDataAllForceSensors == null)
+      {
+         momentAndForceDataAllForceSensors = null;
+      }
+      else
+      {
+         if (momentAndForceDataAllForceSensors == null || momentAndForceDataAllForceSensors.length != other.momentAndForceDataAllForceSensors.length)
+         {
+            momentAndForceDataAllForceSensors = new float[other.momentAndForceDataAllForceSensors.length][];
+         }
+         for (int i = 0; i < momentAndForceDataAllForceSensors.length; i++)
+         {
+            momentAndForceDataAllForceSensors[i] = copyArray(other.momentAndForceDataAllForceSensors[i], momentAndForceDataAllForceSensors[i]);
+         }
+      }
+
+      if (other.imuSensorData == null)
+      {
+         imuSensorData = null;
+      }
+      else
+      {
+         if (imuSensorData == null || imuSensorData.length != other.imuSensorData.length)
+         {
+            imuSensorData = new IMUPacket[other.imuSensorData.length];
+         }
+         for (int i = 0; i < imuSensorData.length; i++)
+         {
+            IMUPacket otherImuPacket = other.imuSensorData[i];
+            if (otherImuPacket == null)
+            {
+               imuSensorData[i] = null;
+               continue;
+            }
+            if (imuSensorData[i] == null)
+            {
+               imuSensorData[i] = new IMUPacket();
+            }
+            imuSensorData[i].set(otherImuPacket.linearAcceleration, otherImuPacket.orientation, otherImuPacket.angularVelocity, otherImuPacket.time);
+         }
+      }
+
+      robotMotionStatus = other.robotMotionStatus;
+      auxiliaryRobotData = other.auxiliaryRobotData;
+      lastReceivedPacketTypeID = other.lastReceivedPacketTypeID;
+      lastReceivedPacketUniqueId = other.lastReceivedPacketUniqueId;
+      lastReceivedPacketRobotTimestamp = other.lastReceivedPacketRobotTimestamp;
+   }
+
+   private static float[] copyArray(float[] source, float[] destination)
+   {
+      if (source == null)
+      {
+         return null;
+      }
+      if (destination == null || destination.length != source.length)
+      {
+         destination = new float[source.length];
+      }
+      System.arraycopy(source, 0, destination, 0, source.length);
+      return destination;
+   }
+
    public void setJointState(ArrayList<OneDoFJoint> newJointData)
    {
       if (newJointData.size() != jointAngles.length)
@@ -19,6 +19,9 @@ import us.ihmc.sensorProcessing.communication.packets.dataobjects.RobotConfigura
 /**
  * Buffer for RobotConfigurationData. Allows updating a fullrobotmodel based on timestamps. Make sure not to share fullrobotmodels between thread
  * 
+ * The received data is copied into the buffer, so the packets can be recycled by the communicator. The copies are reused when the buffer wraps around,
+ * they are locked while they are written or read.
+ * 
  * @author jesper
  *
  */
@@ -53,7 +56,21 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       {
          index = 0;
       }
-      configurationBuffer[index] = data;
+
+      RobotConfigurationData bufferedData = configurationBuffer[index];
+      if (bufferedData == null)
+      {
+         bufferedData = new RobotConfigurationData();
+         bufferedData.set(data);
+         configurationBuffer[index] = bufferedData;
+      }
+      else
+      {
+         synchronized (bufferedData)
+         {
+            bufferedData.set(data);
+         }
+      }
 
       currentIndex.set(index);
 
@@ -139,8 +156,17 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
       {
          return -1;
       }
-      updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
-      return robotConfigurationData.getTimestamp();
+
+      synchronized (robotConfigurationData)
+      {
+         // Overwritten with newer data since it was found
+         if (robotConfigurationData.getTimestamp() > timestamp)
+         {
+            return -1;
+         }
+         updateFullRobotModel(robotConfigurationData, model, forceSensorDataHolder);
+         return robotConfigurationData.getTimestamp();
+      }
    }
 
    public boolean updateFullRobotModelWithNewestData(FullRobotModel fullRobotModel, ForceSensorDataHolder forceSensorDataHolder)
@@ -158,7 +184,10 @@ public class RobotConfigurationDataBuffer implements PacketConsumer<RobotConfigu
          return false;
       }
 
-      updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
+      synchronized (robotConfigurationData)
+      {
+         updateFullRobotModel(robotConfigurationData, fullRobotModel, forceSensorDataHolder);
+      }
       return true;
    }
 
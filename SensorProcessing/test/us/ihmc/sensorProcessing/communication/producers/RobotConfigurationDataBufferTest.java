@@ -54,6 +54,37 @@ public abstract class RobotConfigurationDataBufferTest
       }
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testPacketsAreCopied()
+   {
+      RobotConfigurationDataBuffer buffer = new RobotConfigurationDataBuffer();
+      FullHumanoidRobotModel setterFullRobotModel = getFullRobotModel();
+      FullHumanoidRobotModel getterFullRobotModel = getFullRobotModel();
+
+      OneDoFJoint[] setterJoints = FullRobotModelUtils.getAllJointsExcludingHands(setterFullRobotModel);
+      OneDoFJoint[] getterJoints = FullRobotModelUtils.getAllJointsExcludingHands(getterFullRobotModel);
+      ForceSensorDefinition[] forceSensorDefinitions = setterFullRobotModel.getForceSensorDefinitions();
+      IMUDefinition[] imuDefinitions = setterFullRobotModel.getIMUDefinitions();
+
+      // A recycling communicator fills the same packet again once the buffer returns
+      RobotConfigurationData packet = new RobotConfigurationData(setterJoints, forceSensorDefinitions, null, imuDefinitions);
+      for (int i = 1; i <= 3; i++)
+      {
+         packet.timestamp = i * 10;
+         packet.jointAngles[0] = i;
+         packet.rootTranslation.set(i, 0.0f, 0.0f);
+         buffer.receivedPacket(packet);
+      }
+
+      for (int i = 1; i <= 3; i++)
+      {
+         assertEquals(i * 10, buffer.updateFullRobotModel(false, i * 10 + 5, getterFullRobotModel, null));
+         assertEquals(i, getterJoints[0].getQ(), 1e-7);
+         assertEquals(i, getterFullRobotModel.getRootJoint().getTranslationForReading().getX(), 1e-7);
+      }
+   }
+
 	@ContinuousIntegrationTest(estimatedDuration = 100.0)
    @Test(timeout = 300000)
    public void waitForTimestampTest()
@@ -0,0 +1,274 @@
+package us.ihmc.simulationconstructionset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeWithLink;
+import us.ihmc.simulationconstructionset.physics.Contacts;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+
+/**
+ * Runs the controllers and the dynamics of independent robots in parallel.
+ *
+ * Every tick the robots of a simulation are partitioned into islands. Two robots are in the same
+ * island if they are in collision with each other in the collision detection result of the tick, or
+ * if they were coupled with {@link #coupleRobots(Robot, Robot)}. The robots of an island are stepped
+ * in order on a single thread, different islands are stepped on a pool of worker threads. The
+ * simulator waits for all islands to finish before it moves on, so every tick ends at the same point
+ * as a sequential tick.
+ *
+ * Ground contact, scripts and collision handling stay sequential, as ground profiles and scripts
+ * are usually shared between robots. The controllers of robots in different islands must not share
+ * state, robots whose controllers do have to be coupled explicitly. Under that condition the result
+ * of a tick does not depend on the number of threads, so simulations stay deterministic and
+ * rewindable.
+ */
+public class ParallelRobotStepper
+{
+   interface RobotTask
+   {
+      public void run(Robot robot) throws UnreasonableAccelerationException;
+   }
+
+   private final ExecutorService executor;
+   private final ArrayList<Robot[]> couplings = new ArrayList<>();
+
+   private Robot[] robots = new Robot[0];
+   private final IdentityHashMap<Robot, Integer> robotIndices = new IdentityHashMap<>();
+   private int[] parents = new int[0];
+   private final ArrayList<int[]> islands = new ArrayList<>();
+   private final ArrayList<Callable<Throwable>> islandTasks = new ArrayList<>();
+
+   /**
+    * @param numberOfThreads number of worker threads the islands are distributed over
+    */
+   public ParallelRobotStepper(int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+      {
+         throw new RuntimeException("Need at least one thread to step robots on");
+      }
+
+      executor = Executors.newFixedThreadPool(numberOfThreads, runnable ->
+      {
+         Thread thread = new Thread(runnable, "ParallelRobotStepper");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   /**
+    * Always steps the two robots in the same island, for example because their controllers
+    * communicate or an external force point of one robot follows the other.
+    */
+   public synchronized void coupleRobots(Robot robotOne, Robot robotTwo)
+   {
+      couplings.add(new Robot[] {robotOne, robotTwo});
+   }
+
+   /**
+    * @return the number of islands of the last tick
+    */
+   public synchronized int getNumberOfIslands()
+   {
+      return islands.size();
+   }
+
+   /**
+    * Partitions the robots into islands. Islands are ordered by their first robot, and the robots of
+    * an island are in the order of the robots array.
+    *
+    * @param collisions the collisions of this tick, or null if there is no collision detection
+    */
+   synchronized void updateIslands(Robot[] robots, CollisionDetectionResult collisions)
+   {
+      if (!Arrays.equals(this.robots, robots))
+      {
+         this.robots = robots.clone();
+         robotIndices.clear();
+         for (int i = 0; i < robots.length; i++)
+         {
+            robotIndices.put(robots[i], i);
+         }
+         parents = new int[robots.length];
+      }
+
+      for (int i = 0; i < parents.length; i++)
+      {
+         parents[i] = i;
+      }
+
+      for (int i = 0; i < couplings.size(); i++)
+      {
+         Robot[] coupling = couplings.get(i);
+         union(robotIndices.get(coupling[0]), robotIndices.get(coupling[1]));
+      }
+
+      if (collisions != null)
+      {
+         for (int i = 0; i < collisions.getNumberOfCollisions(); i++)
+         {
+            Contacts contacts = collisions.getCollision(i);
+            union(robotIndices.get(getRobot(contacts.getShapeA())), robotIndices.get(getRobot(contacts.getShapeB())));
+         }
+      }
+
+      islands.clear();
+      int[] islandOfRoot = new int[parents.length];
+      int[] islandSizes = new int[parents.length];
+      Arrays.fill(islandOfRoot, -1);
+      for (int i = 0; i < parents.length; i++)
+      {
+         int root = find(i);
+         if (islandOfRoot[root] == -1)
+         {
+            islandOfRoot[root] = islands.size();
+            islands.add(null);
+         }
+         islandSizes[islandOfRoot[root]]++;
+      }
+
+      for (int island = 0; island < islands.size(); island++)
+      {
+         islands.set(island, new int[islandSizes[island]]);
+         islandSizes[island] = 0;
+      }
+
+      for (int i = 0; i < parents.length; i++)
+      {
+         int island = islandOfRoot[find(i)];
+         islands.get(island)[islandSizes[island]++] = i;
+      }
+   }
+
+   /**
+    * Runs the task for every robot and returns when all robots are done. If the task fails in
+    * several islands, the failure of the island that comes first is thrown. The
+    * robots are stepped sequentially if the islands were not computed for these robots.
+    */
+   synchronized void forEachRobot(Robot[] robots, RobotTask task) throws UnreasonableAccelerationException
+   {
+      if (islands.size() <= 1 || !Arrays.equals(this.robots, robots))
+      {
+         for (Robot robot : robots)
+         {
+            task.run(robot);
+         }
+         return;
+      }
+
+      islandTasks.clear();
+      for (int island = 0; island < islands.size(); island++)
+      {
+         int[] robotsInIsland = islands.get(island);
+         islandTasks.add(() -> runIsland(robotsInIsland, task));
+      }
+
+      Throwable failure = null;
+      try
+      {
+         List<Future<Throwable>> results = executor.invokeAll(islandTasks);
+         for (int island = 0; island < results.size() && failure == null; island++)
+         {
+            failure = results.get(island).get();
+         }
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new RuntimeException(e);
+      }
+
+      if (failure instanceof UnreasonableAccelerationException)
+      {
+         throw (UnreasonableAccelerationException) failure;
+      }
+      else if (failure instanceof RuntimeException)
+      {
+         throw (RuntimeException) failure;
+      }
+      else if (failure instanceof Error)
+      {
+         throw (Error) failure;
+      }
+      else if (failure != null)
+      {
+         throw new RuntimeException(failure);
+      }
+   }
+
+   /**
+    * Stops the worker threads. The stepper cannot be used afterwards.
+    */
+   public void shutdown()
+   {
+      executor.shutdownNow();
+   }
+
+   private Throwable runIsland(int[] robotsInIsland, RobotTask task)
+   {
+      for (int i = 0; i < robotsInIsland.length; i++)
+      {
+         try
+         {
+            task.run(robots[robotsInIsland[i]]);
+         }
+         catch (Throwable e)
+         {
+            // Robots after the failing one are skipped, like in a sequential tick
+            return e;
+         }
+      }
+      return null;
+   }
+
+   private static Robot getRobot(CollisionShape shape)
+   {
+      if (!(shape instanceof CollisionShapeWithLink))
+      {
+         return null;
+      }
+
+      Link link = ((CollisionShapeWithLink) shape).getLink();
+      if (link == null || link.getParentJoint() == null)
+      {
+         return null;
+      }
+
+      return link.getParentJoint().getRobot();
+   }
+
+   private void union(Integer robotOne, Integer robotTwo)
+   {
+      // Shapes and couplings of robots that are not simulated, or of the environment, do not couple anything
+      if (robotOne == null || robotTwo == null)
+      {
+         return;
+      }
+
+      int rootOne = find(robotOne);
+      int rootTwo = find(robotTwo);
+      if (rootOne != rootTwo)
+      {
+         // Keep the smallest index as root so the partition does not depend on the order of the unions
+         parents[Math.max(rootOne, rootTwo)] = Math.min(rootOne, rootTwo);
+      }
+   }
+
+   private int find(int robot)
+   {
+      while (parents[robot] != robot)
+      {
+         parents[robot] = parents[parents[robot]];
+         robot = parents[robot];
+      }
+      return robot;
+   }
+}
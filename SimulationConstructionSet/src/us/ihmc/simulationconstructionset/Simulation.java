@@ -45,6 +45,7 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
 
    // private final YoVariable time;
    private Simulator mySimulator;
+   private transient ParallelRobotStepper parallelRobotStepper = null;
    private DataBuffer myDataBuffer;
 
    private YoVariableList myCombinedVarList = new YoVariableList("Combined");
@@ -66,6 +67,18 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
       }
    }
 
+   /**
+    * Steps independent robots in parallel, see {@link ParallelRobotStepper}. Off by default.
+    *
+    * @param parallelRobotStepper null to step all robots sequentially
+    */
+   public void setParallelRobotStepper(ParallelRobotStepper parallelRobotStepper)
+   {
+      this.parallelRobotStepper = parallelRobotStepper;
+      if (mySimulator != null)
+         mySimulator.setParallelRobotStepper(parallelRobotStepper);
+   }
+
    public double getDT()
    {
       if (mySimulator != null)
@@ -220,12 +233,16 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
 
       myDataBuffer = null;
       mySimulator = null;
+
+      if (parallelRobotStepper != null)
+         parallelRobotStepper.shutdown();
    }
 
    public void setRobots(Robot[] robots)
    {
       this.robots = robots;
       mySimulator = new Simulator(simulationSynchronizer, robots, SIMULATION_DT);
+      mySimulator.setParallelRobotStepper(parallelRobotStepper);
       this.setDT(SIMULATION_DT, RECORD_FREQ);
 
       if (robots != null)
@@ -263,6 +280,7 @@ public class Simulation implements YoVariableHolder, Serializable // Runnable,
       if (mySimulator == null)
       {
          mySimulator = new Simulator(simulationSynchronizer, robots, SIMULATION_DT);
+         mySimulator.setParallelRobotStepper(parallelRobotStepper);
       }
       else
       {
@@ -4492,6 +4492,18 @@ public class SimulationConstructionSet implements Runnable, YoVariableHolder, Ru
       mySimulation.initPhysics(physics);
    }
 
+   /**
+    * Steps the controllers and dynamics of robots that are not in contact with each other in
+    * parallel. Robots with controllers that share state have to be coupled using
+    * {@link ParallelRobotStepper#coupleRobots(Robot, Robot)}.
+    *
+    * @param parallelRobotStepper null to step all robots sequentially, which is the default
+    */
+   public void setParallelRobotStepper(ParallelRobotStepper parallelRobotStepper)
+   {
+      mySimulation.setParallelRobotStepper(parallelRobotStepper);
+   }
+
    public void repaintWindows()
    {
       if (myGUI != null)
@@ -25,6 +25,8 @@ public class Simulator implements java.io.Serializable
    private CollisionHandler collisionHandler;
    private DefaultCollisionVisualizer collisionVisualizer;
 
+   private transient ParallelRobotStepper parallelRobotStepper = null;
+
    // private final YoVariable time;
 
    public Simulator(SimulationSynchronizer simulationSynchronizer, Robot[] robots, double dt)
@@ -41,6 +43,16 @@ public class Simulator implements java.io.Serializable
       this.robots = robots;
    }
 
+   /**
+    * Steps independent robots in parallel, see {@link ParallelRobotStepper}.
+    *
+    * @param parallelRobotStepper null to step all robots sequentially
+    */
+   public void setParallelRobotStepper(ParallelRobotStepper parallelRobotStepper)
+   {
+      this.parallelRobotStepper = parallelRobotStepper;
+   }
+
    public void setDT(double simulateDT)
    {
       DT = simulateDT;
@@ -58,7 +70,11 @@ public class Simulator implements java.io.Serializable
       scripts.add(script);
    }
 
-   protected void simulate() throws UnreasonableAccelerationException
+   /**
+    * Does a single simulation tick: ground contact and collisions, control, dynamics and integration.
+    * Nothing is recorded, so this can be used to run simulations without a {@link Simulation}.
+    */
+   public void simulate() throws UnreasonableAccelerationException
    {
       updateState();
       doControl();
@@ -111,12 +127,33 @@ public class Simulator implements java.io.Serializable
             CollisionDetectionResult cachedCollisions = collisionArbiter.getCollisions();
 
             collisionHandler.handleCollisions(cachedCollisions);
+
+            if (parallelRobotStepper != null)
+               parallelRobotStepper.updateIslands(robots, cachedCollisions);
+         }
+         else if (parallelRobotStepper != null)
+         {
+            parallelRobotStepper.updateIslands(robots, null);
          }
       }
    }
 
    protected void doControl()
    {
+      if (parallelRobotStepper != null)
+      {
+         try
+         {
+            parallelRobotStepper.forEachRobot(robots, robot -> robot.doControllers());
+         }
+         catch (UnreasonableAccelerationException e)
+         {
+            // Controllers do not integrate
+            throw new RuntimeException(e);
+         }
+         return;
+      }
+
       for (Robot robot : robots)
       {
          // +++JEP 7/18/2005. Needed to take doControl out of the synchronized block in case the controller is trying
@@ -131,6 +168,16 @@ public class Simulator implements java.io.Serializable
    {
       synchronized (simulationSynchronizer)
       {
+         if (parallelRobotStepper != null)
+         {
+            parallelRobotStepper.forEachRobot(robots, robot ->
+            {
+               robot.doDynamicsAndIntegrate(DT);
+               robot.updateIMUMountAccelerations();
+            });
+            return;
+         }
+
          for (int i = 0; i < robots.length; i++)
          {
             Robot robot = robots[i];
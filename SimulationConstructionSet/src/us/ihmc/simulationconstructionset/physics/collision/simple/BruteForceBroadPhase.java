@@ -0,0 +1,73 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Checks the bounding boxes of every pair of shapes. Quadratic in the number of shapes, but has no
+ * overhead for scenes with only a few shapes.
+ */
+public class BruteForceBroadPhase implements CollisionBroadPhase
+{
+   private final BoundingBox3D boundingBoxOne = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+   private final BoundingBox3D boundingBoxTwo = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+   private int[] pairs = new int[64];
+   private int numberOfPairs = 0;
+
+   @Override
+   public int findCandidatePairs(List<CollisionShape> shapes)
+   {
+      numberOfPairs = 0;
+      int numberOfObjects = shapes.size();
+
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         CollisionShape objectOne = shapes.get(i);
+         objectOne.getBoundingBox(boundingBoxOne);
+
+         for (int j = i + 1; j < numberOfObjects; j++)
+         {
+            CollisionShape objectTwo = shapes.get(j);
+            if (!CollisionBroadPhase.canCollide(objectOne, objectTwo))
+            {
+               continue;
+            }
+
+            objectTwo.getBoundingBox(boundingBoxTwo);
+            if (boundingBoxOne.intersectsInclusive(boundingBoxTwo))
+            {
+               addPair(i, j);
+            }
+         }
+      }
+
+      return numberOfPairs;
+   }
+
+   private void addPair(int i, int j)
+   {
+      if (2 * numberOfPairs + 2 > pairs.length)
+      {
+         pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+      }
+      pairs[2 * numberOfPairs] = i;
+      pairs[2 * numberOfPairs + 1] = j;
+      numberOfPairs++;
+   }
+
+   @Override
+   public int getFirstShapeIndex(int pair)
+   {
+      return pairs[2 * pair];
+   }
+
+   @Override
+   public int getSecondShapeIndex(int pair)
+   {
+      return pairs[2 * pair + 1];
+   }
+}
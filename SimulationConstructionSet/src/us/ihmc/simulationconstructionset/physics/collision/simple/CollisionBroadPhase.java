@@ -0,0 +1,44 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.List;
+
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * First stage of the collision detection. Finds the pairs of shapes whose bounding boxes overlap,
+ * only those are passed on to the exact (narrow phase) collision checks.
+ *
+ * A candidate pair is only reported if the group of each shape is in the mask of the other shape,
+ * see {@link #canCollide(CollisionShape, CollisionShape)}. Pairs are reported as indices into the
+ * list of shapes, with the first index smaller than the second, sorted by first and then second
+ * index.
+ */
+public interface CollisionBroadPhase
+{
+   /**
+    * Finds the candidate pairs. The transformed collision shapes have to be computed before calling
+    * this method.
+    *
+    * @return the number of candidate pairs, valid till the next call
+    */
+   public int findCandidatePairs(List<CollisionShape> shapes);
+
+   public int getFirstShapeIndex(int pair);
+
+   public int getSecondShapeIndex(int pair);
+
+   public static boolean canCollide(CollisionShape objectOne, CollisionShape objectTwo)
+   {
+      if ((objectOne.getCollisionGroup() & objectTwo.getCollisionMask()) == 0x00)
+      {
+         return false;
+      }
+
+      if ((objectTwo.getCollisionGroup() & objectOne.getCollisionMask()) == 0x00)
+      {
+         return false;
+      }
+
+      return true;
+   }
+}
@@ -3,7 +3,6 @@ package us.ihmc.simulationconstructionset.physics.collision.simple;
 import java.util.ArrayList;
 import java.util.Random;
 
-import us.ihmc.euclid.geometry.BoundingBox3D;
 import us.ihmc.euclid.geometry.LineSegment3D;
 import us.ihmc.euclid.transform.RigidBodyTransform;
 import us.ihmc.euclid.tuple3D.Point3D;
@@ -51,7 +50,6 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
 
    private boolean useSimpleSpeedupMethod = false;
 
-   //TODO: Get rid of the need for this by first phase collision detection.
    private double percentChanceCheckCollision = 0.9;
 
 
@@ -60,13 +58,20 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
       this.useSimpleSpeedupMethod = true;
    }
 
-   private final BoundingBox3D boundingBoxOne = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
-   private final BoundingBox3D boundingBoxTwo = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+   private CollisionBroadPhase broadPhase = new SweepAndPruneBroadPhase();
+
+   /**
+    * Sets the method used to find the pairs of shapes that are checked for collisions. Defaults to
+    * {@link SweepAndPruneBroadPhase}.
+    */
+   public void setBroadPhase(CollisionBroadPhase broadPhase)
+   {
+      this.broadPhase = broadPhase;
+   }
 
    @Override
    public void performCollisionDetection(CollisionDetectionResult result)
    {      
-      int boundingBoxChecks = 0;
       int collisionChecks = 0;
       int numberOfCollisions = 0;
       
@@ -83,163 +88,160 @@ public class SimpleCollisionDetector implements ScsCollisionDetector
          collisionShape.computeTransformedCollisionShape();
       }
 
-      for (int i = 0; i < numberOfObjects; i++)
-      {
-         CollisionShape objectOne = collisionObjects.get(i);
-         CollisionShapeDescription<?> descriptionOne = objectOne.getTransformedCollisionShapeDescription();
+      int numberOfCandidatePairs = broadPhase.findCandidatePairs(collisionObjects);
 
-         for (int j = i + 1; j < numberOfObjects; j++)
-         {
-            if ((useSimpleSpeedupMethod) && (!haveCollided[i][j]) && (random.nextDouble() < percentChanceCheckCollision ))
-               continue;
+      for (int pair = 0; pair < numberOfCandidatePairs; pair++)
+      {
+         int i = broadPhase.getFirstShapeIndex(pair);
+         int j = broadPhase.getSecondShapeIndex(pair);
 
-            CollisionShape objectTwo = collisionObjects.get(j);
-            CollisionShapeDescription<?> descriptionTwo = objectTwo.getTransformedCollisionShapeDescription();
+         if ((useSimpleSpeedupMethod) && (!haveCollided[i][j]) && (random.nextDouble() < percentChanceCheckCollision ))
+            continue;
 
-            if ((objectOne.getCollisionGroup() & objectTwo.getCollisionMask()) == 0x00)
-            {
-               continue;
-            }
-            
-            if ((objectTwo.getCollisionGroup() & objectOne.getCollisionMask()) == 0x00)
-            {
-               continue;
-            }
+         CollisionShape objectOne = collisionObjects.get(i);
+         CollisionShape objectTwo = collisionObjects.get(j);
 
-            objectOne.getBoundingBox(boundingBoxOne);
-            objectTwo.getBoundingBox(boundingBoxTwo);
+         collisionChecks++;
+         boolean areColliding = performCollisionDetection(objectOne, objectTwo, result);
 
-            boundingBoxChecks++;
-            if (!boundingBoxOne.intersectsInclusive(boundingBoxTwo))
-            {
-               continue;
-            }
-            
-            collisionChecks++;
-            boolean areColliding = false;
+         if (areColliding)
+         {
+            numberOfCollisions++;
+
+            if (useSimpleSpeedupMethod) haveCollided[i][j] = true;
+            //               ArrayList<CollisionShape> arrayList = collidingPairs.get(objectOne);
+            //               if (arrayList == null)
+            //               {
+            //                  arrayList = new ArrayList<>();
+            //                  collidingPairs.put(objectOne, arrayList);
+            //               }
+            //
+            //               if (!arrayList.contains(objectTwo))
+            //               {
+            //                  arrayList.add(objectTwo);
+            //               }
+         }
+      }
+      
+      if (VERBOSE)
+      {
+         System.out.println("\ncandidatePairs = " + numberOfCandidatePairs);
+         System.out.println("collisionChecks = " + collisionChecks);
+         System.out.println("numberOfCollisions = " + numberOfCollisions);
+      }
+   }
 
-            //TODO: Make this shorter and more efficient...
-            //TODO: Add Plane
-            if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSphereSphereCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
-                     (SphereShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleCapsuleCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
-                     (CapsuleShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doPolytopePolytopeCollisionDetection(objectOne, (PolytopeShapeDescription<?>) descriptionOne, objectTwo,
-                     (PolytopeShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCylinderCylinderCollisionDetection(objectOne, (CylinderShapeDescription<?>) descriptionOne, objectTwo,
-                     (CylinderShapeDescription<?>) descriptionTwo, result);
-            }
+   /**
+    * Runs the narrow phase on one pair of shapes. The transformed collision shapes of both have to be
+    * up to date. The pair is only added to the result if a contact normal could be computed, so
+    * shapes that barely touch can collide without adding a contact.
+    *
+    * @return whether the shapes collide
+    */
+   public boolean performCollisionDetection(CollisionShape objectOne, CollisionShape objectTwo, CollisionDetectionResult result)
+   {
+      CollisionShapeDescription<?> descriptionOne = objectOne.getTransformedCollisionShapeDescription();
+      CollisionShapeDescription<?> descriptionTwo = objectTwo.getTransformedCollisionShapeDescription();
 
+      boolean areColliding = false;
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleSphereCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
-                     (SphereShapeDescription<?>) descriptionOne, result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doCapsuleSphereCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
-                     (SphereShapeDescription<?>) descriptionTwo, result);
-            }
+      //TODO: Make this shorter and more efficient...
+      //TODO: Add Plane
+      if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
+      {
+         areColliding = doSphereSphereCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
+               (SphereShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
+      {
+         areColliding = doCapsuleCapsuleCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
+               (CapsuleShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
+      {
+         areColliding = doPolytopePolytopeCollisionDetection(objectOne, (PolytopeShapeDescription<?>) descriptionOne, objectTwo,
+               (PolytopeShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
+      {
+         areColliding = doCylinderCylinderCollisionDetection(objectOne, (CylinderShapeDescription<?>) descriptionOne, objectTwo,
+               (CylinderShapeDescription<?>) descriptionTwo, result);
+      }
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doSpherePolytopeCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
-                     (PolytopeShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSpherePolytopeCollisionDetection(objectTwo, (SphereShapeDescription<?>) descriptionTwo, objectOne,
-                     (PolytopeShapeDescription<?>) descriptionOne, result);
-            }
 
-            else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doSphereCylinderCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
-                     (CylinderShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
-            {
-               areColliding = doSphereCylinderCollisionDetection(objectTwo, (SphereShapeDescription<?>) descriptionTwo, objectOne,
-                     (CylinderShapeDescription<?>) descriptionOne, result);
-            }
+      else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
+      {
+         areColliding = doCapsuleSphereCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
+               (SphereShapeDescription<?>) descriptionOne, result);
+      }
+      else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
+      {
+         areColliding = doCapsuleSphereCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
+               (SphereShapeDescription<?>) descriptionTwo, result);
+      }
 
+      else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
+      {
+         areColliding = doSpherePolytopeCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
+               (PolytopeShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
+      {
+         areColliding = doSpherePolytopeCollisionDetection(objectTwo, (SphereShapeDescription<?>) descriptionTwo, objectOne,
+               (PolytopeShapeDescription<?>) descriptionOne, result);
+      }
 
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doCapsulePolytopeCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
-                     (PolytopeShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsulePolytopeCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
-                     (PolytopeShapeDescription<?>) descriptionOne, result);
-            }
-            else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCapsuleCylinderCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
-                     (CylinderShapeDescription<?>) descriptionTwo, result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
-            {
-               areColliding = doCapsuleCylinderCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
-                     (CylinderShapeDescription<?>) descriptionOne, result);
-            }
+      else if ((descriptionOne instanceof SphereShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
+      {
+         areColliding = doSphereCylinderCollisionDetection(objectOne, (SphereShapeDescription<?>) descriptionOne, objectTwo,
+               (CylinderShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof SphereShapeDescription))
+      {
+         areColliding = doSphereCylinderCollisionDetection(objectTwo, (SphereShapeDescription<?>) descriptionTwo, objectOne,
+               (CylinderShapeDescription<?>) descriptionOne, result);
+      }
 
-            else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
-            {
-               areColliding = doCylinderPolytopeCollisionDetection(objectTwo, (CylinderShapeDescription<?>) descriptionTwo, objectOne,
-                     (PolytopeShapeDescription<?>) descriptionOne, result);
-            }
-            else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
-            {
-               areColliding = doCylinderPolytopeCollisionDetection(objectOne, (CylinderShapeDescription<?>) descriptionOne, objectTwo,
-                     (PolytopeShapeDescription<?>) descriptionTwo, result);
-            }
 
-            else if ((descriptionOne instanceof BoxShapeDescription) && (descriptionTwo instanceof BoxShapeDescription))
-            {
-               areColliding = doBoxBoxCollisionDetection(objectOne, (BoxShapeDescription<?>) descriptionOne, objectTwo, (BoxShapeDescription<?>) descriptionTwo,
-                     result);
-            }
+      else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
+      {
+         areColliding = doCapsulePolytopeCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
+               (PolytopeShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
+      {
+         areColliding = doCapsulePolytopeCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
+               (PolytopeShapeDescription<?>) descriptionOne, result);
+      }
+      else if ((descriptionOne instanceof CapsuleShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
+      {
+         areColliding = doCapsuleCylinderCollisionDetection(objectOne, (CapsuleShapeDescription<?>) descriptionOne, objectTwo,
+               (CylinderShapeDescription<?>) descriptionTwo, result);
+      }
+      else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof CapsuleShapeDescription))
+      {
+         areColliding = doCapsuleCylinderCollisionDetection(objectTwo, (CapsuleShapeDescription<?>) descriptionTwo, objectOne,
+               (CylinderShapeDescription<?>) descriptionOne, result);
+      }
 
-            if (areColliding)
-            {
-               numberOfCollisions++;
-
-               if (useSimpleSpeedupMethod) haveCollided[i][j] = true;
-               //               ArrayList<CollisionShape> arrayList = collidingPairs.get(objectOne);
-               //               if (arrayList == null)
-               //               {
-               //                  arrayList = new ArrayList<>();
-               //                  collidingPairs.put(objectOne, arrayList);
-               //               }
-               //
-               //               if (!arrayList.contains(objectTwo))
-               //               {
-               //                  arrayList.add(objectTwo);
-               //               }
-            }
-         }
+      else if ((descriptionOne instanceof PolytopeShapeDescription) && (descriptionTwo instanceof CylinderShapeDescription))
+      {
+         areColliding = doCylinderPolytopeCollisionDetection(objectTwo, (CylinderShapeDescription<?>) descriptionTwo, objectOne,
+               (PolytopeShapeDescription<?>) descriptionOne, result);
       }
-      
-      if (VERBOSE)
+      else if ((descriptionOne instanceof CylinderShapeDescription) && (descriptionTwo instanceof PolytopeShapeDescription))
       {
-         System.out.println("\nboundingBoxChecks = " + boundingBoxChecks);
-         System.out.println("collisionChecks = " + collisionChecks);
-         System.out.println("numberOfCollisions = " + numberOfCollisions);
+         areColliding = doCylinderPolytopeCollisionDetection(objectOne, (CylinderShapeDescription<?>) descriptionOne, objectTwo,
+               (PolytopeShapeDescription<?>) descriptionTwo, result);
+      }
+
+      else if ((descriptionOne instanceof BoxShapeDescription) && (descriptionTwo instanceof BoxShapeDescription))
+      {
+         areColliding = doBoxBoxCollisionDetection(objectOne, (BoxShapeDescription<?>) descriptionOne, objectTwo, (BoxShapeDescription<?>) descriptionTwo,
+               result);
       }
+
+      return areColliding;
    }
 
    public ArrayList<CollisionShape> getCollisionObjects()
@@ -0,0 +1,145 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.Arrays;
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+
+/**
+ * Incremental sweep and prune along the x axis.
+ *
+ * The shapes are kept sorted by the lower x bound of their bounding box. Shapes move little between
+ * two ticks, so the order of the previous tick is almost sorted and an insertion sort restores it
+ * in close to linear time. The sweep then only compares shapes whose x intervals overlap, followed
+ * by the y and z intervals and the collision group and mask.
+ */
+public class SweepAndPruneBroadPhase implements CollisionBroadPhase
+{
+   private final BoundingBox3D boundingBox = new BoundingBox3D(0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+
+   private double[] minX = new double[0], minY = new double[0], minZ = new double[0];
+   private double[] maxX = new double[0], maxY = new double[0], maxZ = new double[0];
+
+   /** Shape indices sorted by minX */
+   private int[] order = new int[0];
+   private int numberOfShapes = 0;
+
+   /** Pairs packed as first index in the upper and second index in the lower 32 bits */
+   private long[] pairs = new long[64];
+   private int numberOfPairs = 0;
+
+   @Override
+   public int findCandidatePairs(List<CollisionShape> shapes)
+   {
+      updateBounds(shapes);
+      sortByMinX();
+
+      numberOfPairs = 0;
+      for (int a = 0; a < numberOfShapes; a++)
+      {
+         int i = order[a];
+         double maxXOne = maxX[i];
+
+         for (int b = a + 1; b < numberOfShapes; b++)
+         {
+            int j = order[b];
+            if (minX[j] > maxXOne)
+            {
+               break;
+            }
+
+            if (minY[i] > maxY[j] || minY[j] > maxY[i] || minZ[i] > maxZ[j] || minZ[j] > maxZ[i])
+            {
+               continue;
+            }
+
+            if (!CollisionBroadPhase.canCollide(shapes.get(i), shapes.get(j)))
+            {
+               continue;
+            }
+
+            addPair(Math.min(i, j), Math.max(i, j));
+         }
+      }
+
+      // Report the pairs in the same order as a nested loop over the shapes would
+      Arrays.sort(pairs, 0, numberOfPairs);
+
+      return numberOfPairs;
+   }
+
+   private void updateBounds(List<CollisionShape> shapes)
+   {
+      int size = shapes.size();
+      if (size > minX.length)
+      {
+         int capacity = Math.max(size, 2 * minX.length);
+         minX = Arrays.copyOf(minX, capacity);
+         minY = Arrays.copyOf(minY, capacity);
+         minZ = Arrays.copyOf(minZ, capacity);
+         maxX = Arrays.copyOf(maxX, capacity);
+         maxY = Arrays.copyOf(maxY, capacity);
+         maxZ = Arrays.copyOf(maxZ, capacity);
+         order = Arrays.copyOf(order, capacity);
+      }
+
+      if (size != numberOfShapes)
+      {
+         // Shapes were added or removed, start over from the natural order
+         for (int i = 0; i < size; i++)
+         {
+            order[i] = i;
+         }
+         numberOfShapes = size;
+      }
+
+      for (int i = 0; i < size; i++)
+      {
+         shapes.get(i).getBoundingBox(boundingBox);
+         minX[i] = boundingBox.getMinX();
+         minY[i] = boundingBox.getMinY();
+         minZ[i] = boundingBox.getMinZ();
+         maxX[i] = boundingBox.getMaxX();
+         maxY[i] = boundingBox.getMaxY();
+         maxZ[i] = boundingBox.getMaxZ();
+      }
+   }
+
+   private void sortByMinX()
+   {
+      for (int a = 1; a < numberOfShapes; a++)
+      {
+         int index = order[a];
+         double key = minX[index];
+         int b = a - 1;
+         while (b >= 0 && minX[order[b]] > key)
+         {
+            order[b + 1] = order[b];
+            b--;
+         }
+         order[b + 1] = index;
+      }
+   }
+
+   private void addPair(int i, int j)
+   {
+      if (numberOfPairs == pairs.length)
+      {
+         pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+      }
+      pairs[numberOfPairs++] = ((long) i << 32) | j;
+   }
+
+   @Override
+   public int getFirstShapeIndex(int pair)
+   {
+      return (int) (pairs[pair] >>> 32);
+   }
+
+   @Override
+   public int getSecondShapeIndex(int pair)
+   {
+      return (int) pairs[pair];
+   }
+}
@@ -17,6 +17,10 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    private BoundingBox3D boundingBox = null;
 
    private ArrayList<TerrainObject3D> terrainObjects = new ArrayList<TerrainObject3D>();
+   /** Index of the terrain objects, rebuilt on the first query after objects were added */
+   private volatile TerrainObjectGrid terrainObjectGrid = null;
+   /** Combined terrain objects this one was added to, their index depends on the bounding box of this one */
+   private final ArrayList<CombinedTerrainObject3D> parents = new ArrayList<>();
    private Graphics3DObject linkGraphics;
 
    private final String name;
@@ -128,6 +132,12 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    public void addTerrainObject(TerrainObject3D object)
    {
       terrainObjects.add(object);
+      invalidateTerrainObjectGrid();
+
+      if (object instanceof CombinedTerrainObject3D)
+      {
+         ((CombinedTerrainObject3D) object).parents.add(this);
+      }
       linkGraphics.combine(object.getLinkGraphics());
 
       if (boundingBox == null)
@@ -150,6 +160,33 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       return terrainObjects;
    }
 
+   private void invalidateTerrainObjectGrid()
+   {
+      terrainObjectGrid = null;
+      for (int i = 0; i < parents.size(); i++)
+      {
+         parents.get(i).invalidateTerrainObjectGrid();
+      }
+   }
+
+   private TerrainObjectGrid getTerrainObjectGrid()
+   {
+      TerrainObjectGrid grid = terrainObjectGrid;
+      if (grid == null)
+      {
+         synchronized (this)
+         {
+            grid = terrainObjectGrid;
+            if (grid == null)
+            {
+               grid = new TerrainObjectGrid(terrainObjects);
+               terrainObjectGrid = grid;
+            }
+         }
+      }
+      return grid;
+   }
+
    @Override
    public Graphics3DObject getLinkGraphics()
    {
@@ -171,9 +208,10 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
       intersectionToPack.set(x, y, 0.0);
       normalToPack.set(0.0, 0.0, 1.0);
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidates = getTerrainObjectGrid().getCandidates(x, y);
+      for (int i = 0; i < candidates.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates[i]);
          if (terrainObject.isClose(x, y, z))
          {
             boolean localIsInside = terrainObject.checkIfInside(x, y, z, localIntersection, localNormal);
@@ -278,9 +316,10 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidates = getTerrainObjectGrid().getCandidates(x, y);
+      for (int i = 0; i < candidates.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
@@ -304,9 +343,10 @@ public class CombinedTerrainObject3D implements TerrainObject3D, HeightMapWithNo
    {
       double heightAt = Double.NEGATIVE_INFINITY;
 
-      for (int i = 0; i < terrainObjects.size(); i++)
+      int[] candidates = getTerrainObjectGrid().getCandidates(x, y);
+      for (int i = 0; i < candidates.length; i++)
       {
-         TerrainObject3D terrainObject = terrainObjects.get(i);
+         TerrainObject3D terrainObject = terrainObjects.get(candidates[i]);
 
          if (terrainObject.isClose(x, y, z))
          {
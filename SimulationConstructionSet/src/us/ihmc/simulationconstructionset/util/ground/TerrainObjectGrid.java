@@ -0,0 +1,200 @@
+package us.ihmc.simulationconstructionset.util.ground;
+
+import java.util.List;
+
+import us.ihmc.euclid.geometry.BoundingBox3D;
+
+/**
+ * Uniform grid over the XY bounding boxes of the terrain objects of a
+ * {@link CombinedTerrainObject3D}.
+ *
+ * Every cell lists the terrain objects whose bounding box overlaps the cell, in the order they were
+ * added. Terrain objects without a finite bounding box, or with a bounding box covering a large part
+ * of the terrain like a ground plane, are listed in every cell and are also returned for points
+ * outside of the grid. A terrain object is never close to a point outside of its bounding box, so
+ * the terrain objects returned for a point are the only ones that can be close to it.
+ *
+ * The grid is immutable and can be queried from several threads.
+ */
+class TerrainObjectGrid
+{
+   private static final int[] EMPTY = new int[0];
+
+   /** Terrain objects larger than this fraction of the whole terrain are checked everywhere */
+   private static final double LARGE_OBJECT_AREA_FRACTION = 0.25;
+   private static final int CELLS_PER_OBJECT = 4;
+   private static final int MAXIMUM_CELLS_PER_AXIS = 1024;
+
+   private final double minX, minY, maxX, maxY;
+   private final double cellSizeX, cellSizeY;
+   private final int numberOfCellsX, numberOfCellsY;
+   private final int[][] cells;
+   private final int[] everywhere;
+
+   TerrainObjectGrid(List<TerrainObject3D> terrainObjects)
+   {
+      int numberOfObjects = terrainObjects.size();
+
+      boolean[] isEverywhere = new boolean[numberOfObjects];
+      double[] bounds = new double[4];
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         isEverywhere[i] = !isFinite(terrainObjects.get(i).getBoundingBox());
+      }
+
+      // Large objects would make every cell list them anyway, and would stretch the grid
+      double totalArea = computeBounds(terrainObjects, isEverywhere, bounds);
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         if (!isEverywhere[i] && computeArea(terrainObjects.get(i).getBoundingBox()) > LARGE_OBJECT_AREA_FRACTION * totalArea)
+         {
+            isEverywhere[i] = true;
+         }
+      }
+      computeBounds(terrainObjects, isEverywhere, bounds);
+
+      int numberOfEverywhereObjects = 0;
+      for (int i = 0; i < numberOfObjects; i++)
+      {
+         if (isEverywhere[i])
+            numberOfEverywhereObjects++;
+      }
+      everywhere = new int[numberOfEverywhereObjects];
+      for (int i = 0, next = 0; i < numberOfObjects; i++)
+      {
+         if (isEverywhere[i])
+            everywhere[next++] = i;
+      }
+
+      minX = bounds[0];
+      minY = bounds[1];
+      maxX = bounds[2];
+      maxY = bounds[3];
+
+      int numberOfGridObjects = numberOfObjects - numberOfEverywhereObjects;
+      if (numberOfGridObjects == 0)
+      {
+         cellSizeX = cellSizeY = 1.0;
+         numberOfCellsX = numberOfCellsY = 0;
+         cells = new int[0][];
+         return;
+      }
+
+      // Roughly square cells, a few per object
+      double sizeX = Math.max(maxX - minX, 1e-6);
+      double sizeY = Math.max(maxY - minY, 1e-6);
+      double cellSize = Math.sqrt(sizeX * sizeY / (CELLS_PER_OBJECT * numberOfGridObjects));
+      numberOfCellsX = clamp((int) Math.ceil(sizeX / cellSize), 1, MAXIMUM_CELLS_PER_AXIS);
+      numberOfCellsY = clamp((int) Math.ceil(sizeY / cellSize), 1, MAXIMUM_CELLS_PER_AXIS);
+      cellSizeX = sizeX / numberOfCellsX;
+      cellSizeY = sizeY / numberOfCellsY;
+
+      // First pass counts the objects per cell, the second pass fills the cells in the order of the objects
+      int[] cellSizes = new int[numberOfCellsX * numberOfCellsY];
+      fillCells(terrainObjects, isEverywhere, cellSizes, null);
+
+      cells = new int[cellSizes.length][];
+      for (int cell = 0; cell < cells.length; cell++)
+      {
+         cells[cell] = cellSizes[cell] == 0 ? EMPTY : new int[cellSizes[cell]];
+         cellSizes[cell] = 0;
+      }
+      fillCells(terrainObjects, isEverywhere, cellSizes, cells);
+   }
+
+   private void fillCells(List<TerrainObject3D> terrainObjects, boolean[] isEverywhere, int[] cellSizes, int[][] cellsToFill)
+   {
+      for (int i = 0; i < terrainObjects.size(); i++)
+      {
+         int xStart = 0, xEnd = numberOfCellsX - 1;
+         int yStart = 0, yEnd = numberOfCellsY - 1;
+         if (!isEverywhere[i])
+         {
+            BoundingBox3D boundingBox = terrainObjects.get(i).getBoundingBox();
+            xStart = getCellX(boundingBox.getMinX());
+            xEnd = getCellX(boundingBox.getMaxX());
+            yStart = getCellY(boundingBox.getMinY());
+            yEnd = getCellY(boundingBox.getMaxY());
+         }
+
+         for (int cellX = xStart; cellX <= xEnd; cellX++)
+         {
+            for (int cellY = yStart; cellY <= yEnd; cellY++)
+            {
+               int cell = cellX * numberOfCellsY + cellY;
+               if (cellsToFill != null)
+               {
+                  cellsToFill[cell][cellSizes[cell]] = i;
+               }
+               cellSizes[cell]++;
+            }
+         }
+      }
+   }
+
+   /**
+    * @return the indices of the terrain objects that can be close to the point, in ascending order.
+    *         The array must not be modified.
+    */
+   int[] getCandidates(double x, double y)
+   {
+      if (!(x >= minX && x <= maxX && y >= minY && y <= maxY) || cells.length == 0)
+      {
+         return everywhere;
+      }
+
+      return cells[getCellX(x) * numberOfCellsY + getCellY(y)];
+   }
+
+   private int getCellX(double x)
+   {
+      return clamp((int) Math.floor((x - minX) / cellSizeX), 0, numberOfCellsX - 1);
+   }
+
+   private int getCellY(double y)
+   {
+      return clamp((int) Math.floor((y - minY) / cellSizeY), 0, numberOfCellsY - 1);
+   }
+
+   private static double computeBounds(List<TerrainObject3D> terrainObjects, boolean[] isEverywhere, double[] boundsToPack)
+   {
+      boundsToPack[0] = boundsToPack[1] = Double.POSITIVE_INFINITY;
+      boundsToPack[2] = boundsToPack[3] = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < terrainObjects.size(); i++)
+      {
+         if (isEverywhere[i])
+            continue;
+
+         BoundingBox3D boundingBox = terrainObjects.get(i).getBoundingBox();
+         boundsToPack[0] = Math.min(boundsToPack[0], boundingBox.getMinX());
+         boundsToPack[1] = Math.min(boundsToPack[1], boundingBox.getMinY());
+         boundsToPack[2] = Math.max(boundsToPack[2], boundingBox.getMaxX());
+         boundsToPack[3] = Math.max(boundsToPack[3], boundingBox.getMaxY());
+      }
+
+      return (boundsToPack[2] - boundsToPack[0]) * (boundsToPack[3] - boundsToPack[1]);
+   }
+
+   private static double computeArea(BoundingBox3D boundingBox)
+   {
+      return (boundingBox.getMaxX() - boundingBox.getMinX()) * (boundingBox.getMaxY() - boundingBox.getMinY());
+   }
+
+   private static boolean isFinite(BoundingBox3D boundingBox)
+   {
+      if (boundingBox == null)
+         return false;
+
+      return isFinite(boundingBox.getMinX()) && isFinite(boundingBox.getMinY()) && isFinite(boundingBox.getMaxX()) && isFinite(boundingBox.getMaxY());
+   }
+
+   private static boolean isFinite(double value)
+   {
+      return !Double.isNaN(value) && !Double.isInfinite(value);
+   }
+
+   private static int clamp(int value, int min, int max)
+   {
+      return Math.max(min, Math.min(max, value));
+   }
+}
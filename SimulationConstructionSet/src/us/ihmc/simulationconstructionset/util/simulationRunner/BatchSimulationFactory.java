@@ -0,0 +1,29 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationDoneCriterion;
+
+/**
+ * Creates the robots of a single run of a {@link BatchSimulationRunner}.
+ *
+ * Runs execute concurrently, so every call has to create new robots and controllers that share no
+ * state with the robots of other runs. Each robot brings its own YoVariableRegistry tree.
+ *
+ * @param <P> type of the parameter set of a run
+ */
+public interface BatchSimulationFactory<P>
+{
+   /**
+    * @return the robots, with their controllers attached, for a run with the given parameters
+    */
+   public Robot[] createRobots(P parameters);
+
+   /**
+    * @return a criterion that ends the run early, for example when the robot fell, or null to always
+    *         run for the full duration
+    */
+   public default SimulationDoneCriterion createDoneCriterion(Robot[] robots, P parameters)
+   {
+      return null;
+   }
+}
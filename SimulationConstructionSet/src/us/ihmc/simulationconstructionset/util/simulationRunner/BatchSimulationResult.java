@@ -0,0 +1,190 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.util.Arrays;
+
+/**
+ * Summary of a single run of a {@link BatchSimulationRunner}.
+ *
+ * For every recorded variable the result holds the final, minimum and maximum value. If samples
+ * were requested it also holds the value of every recorded variable at every sample.
+ */
+public class BatchSimulationResult<P>
+{
+   private final P parameters;
+   private final String[] variableNames;
+
+   private double simulatedTime = 0.0;
+   private double wallTime = 0.0;
+   private Throwable failure = null;
+   private boolean stoppedByDoneCriterion = false;
+
+   private final double[] finalValues;
+   private final double[] minimumValues;
+   private final double[] maximumValues;
+
+   private int numberOfSamples = 0;
+   private double[] sampleTimes;
+   private double[][] samples;
+
+   BatchSimulationResult(P parameters, String[] variableNames, boolean keepSamples)
+   {
+      this.parameters = parameters;
+      this.variableNames = variableNames;
+
+      finalValues = new double[variableNames.length];
+      minimumValues = new double[variableNames.length];
+      maximumValues = new double[variableNames.length];
+      Arrays.fill(finalValues, Double.NaN);
+      Arrays.fill(minimumValues, Double.POSITIVE_INFINITY);
+      Arrays.fill(maximumValues, Double.NEGATIVE_INFINITY);
+
+      if (keepSamples)
+      {
+         sampleTimes = new double[64];
+         samples = new double[variableNames.length][64];
+      }
+   }
+
+   void addSample(double time, double[] values)
+   {
+      simulatedTime = time;
+
+      for (int i = 0; i < values.length; i++)
+      {
+         finalValues[i] = values[i];
+         minimumValues[i] = Math.min(minimumValues[i], values[i]);
+         maximumValues[i] = Math.max(maximumValues[i], values[i]);
+      }
+
+      if (samples != null)
+      {
+         if (numberOfSamples == sampleTimes.length)
+         {
+            sampleTimes = Arrays.copyOf(sampleTimes, 2 * numberOfSamples);
+            for (int i = 0; i < samples.length; i++)
+            {
+               samples[i] = Arrays.copyOf(samples[i], 2 * numberOfSamples);
+            }
+         }
+
+         sampleTimes[numberOfSamples] = time;
+         for (int i = 0; i < values.length; i++)
+         {
+            samples[i][numberOfSamples] = values[i];
+         }
+      }
+      numberOfSamples++;
+   }
+
+   void setFinished(double simulatedTime, double wallTime, boolean stoppedByDoneCriterion, Throwable failure)
+   {
+      this.simulatedTime = simulatedTime;
+      this.wallTime = wallTime;
+      this.stoppedByDoneCriterion = stoppedByDoneCriterion;
+      this.failure = failure;
+   }
+
+   public P getParameters()
+   {
+      return parameters;
+   }
+
+   /**
+    * @return true if the run neither crashed nor threw an exception
+    */
+   public boolean isSuccessful()
+   {
+      return failure == null;
+   }
+
+   /**
+    * @return the exception that ended the run, or null if it was successful
+    */
+   public Throwable getFailure()
+   {
+      return failure;
+   }
+
+   /**
+    * @return true if the done criterion of the run ended it before the full duration
+    */
+   public boolean isStoppedByDoneCriterion()
+   {
+      return stoppedByDoneCriterion;
+   }
+
+   /**
+    * @return the simulated time in seconds when the run ended
+    */
+   public double getSimulatedTime()
+   {
+      return simulatedTime;
+   }
+
+   /**
+    * @return the time in seconds it took to run the simulation
+    */
+   public double getWallTime()
+   {
+      return wallTime;
+   }
+
+   public String[] getVariableNames()
+   {
+      return variableNames;
+   }
+
+   public double getFinalValue(String variableName)
+   {
+      return finalValues[getVariableIndex(variableName)];
+   }
+
+   public double getMinimumValue(String variableName)
+   {
+      return minimumValues[getVariableIndex(variableName)];
+   }
+
+   public double getMaximumValue(String variableName)
+   {
+      return maximumValues[getVariableIndex(variableName)];
+   }
+
+   public int getNumberOfSamples()
+   {
+      return numberOfSamples;
+   }
+
+   /**
+    * @return the simulated times of the samples, or null if samples were not kept
+    */
+   public double[] getSampleTimes()
+   {
+      return sampleTimes == null ? null : Arrays.copyOf(sampleTimes, numberOfSamples);
+   }
+
+   /**
+    * @return the samples of the variable, or null if samples were not kept
+    */
+   public double[] getSamples(String variableName)
+   {
+      return samples == null ? null : Arrays.copyOf(samples[getVariableIndex(variableName)], numberOfSamples);
+   }
+
+   private int getVariableIndex(String variableName)
+   {
+      for (int i = 0; i < variableNames.length; i++)
+      {
+         if (variableNames[i].equals(variableName))
+            return i;
+      }
+
+      throw new RuntimeException("Variable " + variableName + " was not recorded");
+   }
+
+   @Override
+   public String toString()
+   {
+      String status = isSuccessful() ? (stoppedByDoneCriterion ? "done" : "completed") : "failed (" + failure + ")";
+      return parameters + ": " + status + " at t = " + simulatedTime + ", took " + wallTime + "s";
+   }
+}
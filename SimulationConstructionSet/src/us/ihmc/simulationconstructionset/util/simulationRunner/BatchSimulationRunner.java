@@ -0,0 +1,209 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import us.ihmc.robotics.dataStructures.variable.YoVariable;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationDoneCriterion;
+import us.ihmc.simulationconstructionset.Simulator;
+import us.ihmc.simulationconstructionset.UnreasonableAccelerationException;
+import us.ihmc.simulationconstructionset.synchronization.SimulationSynchronizer;
+
+/**
+ * Runs many short simulations, for example for parameter sweeps, concurrently in a single JVM.
+ *
+ * Every run gets its own robots from a {@link BatchSimulationFactory} and is stepped by its own
+ * {@link Simulator}. There is no GUI and no DataBuffer: only the selected variables are read, every
+ * record interval, and condensed into a {@link BatchSimulationResult}. A run that throws, for
+ * example an {@link UnreasonableAccelerationException} or a StackOverflowError, is reported as failed and
+ * does not affect the other runs.
+ *
+ * <pre>
+ * BatchSimulationRunner&lt;Double&gt; runner = new BatchSimulationRunner&lt;&gt;(factory, 8);
+ * runner.setDuration(10.0);
+ * runner.setRecordedVariables("q_x", "q_z");
+ * List&lt;BatchSimulationResult&lt;Double&gt;&gt; results = runner.run(gains);
+ * </pre>
+ */
+public class BatchSimulationRunner<P>
+{
+   private final BatchSimulationFactory<P> factory;
+   private final int numberOfThreads;
+
+   private double dt = 0.0004;
+   private double duration = 1.0;
+   private int recordTicks = 10;
+   private boolean keepSamples = false;
+   private String[] recordedVariables = new String[0];
+
+   /**
+    * @param numberOfThreads number of simulations that run at the same time
+    */
+   public BatchSimulationRunner(BatchSimulationFactory<P> factory, int numberOfThreads)
+   {
+      if (numberOfThreads < 1)
+      {
+         throw new RuntimeException("Need at least one thread to run simulations on");
+      }
+
+      this.factory = factory;
+      this.numberOfThreads = numberOfThreads;
+   }
+
+   public void setDT(double dt)
+   {
+      this.dt = dt;
+   }
+
+   /**
+    * @param duration simulated time of every run in seconds
+    */
+   public void setDuration(double duration)
+   {
+      this.duration = duration;
+   }
+
+   /**
+    * @param recordTicks number of simulation ticks between two reads of the recorded variables
+    */
+   public void setRecordTicks(int recordTicks)
+   {
+      if (recordTicks < 1)
+      {
+         throw new RuntimeException("Need to record at least once every tick, got " + recordTicks);
+      }
+      this.recordTicks = recordTicks;
+   }
+
+   /**
+    * @param keepSamples keep every sample of the recorded variables in the result instead of only
+    *           their final, minimum and maximum value
+    */
+   public void setKeepSamples(boolean keepSamples)
+   {
+      this.keepSamples = keepSamples;
+   }
+
+   /**
+    * @param variableNames names of the YoVariables of the robots to record, looked up on the robots
+    *           of every run
+    */
+   public void setRecordedVariables(String... variableNames)
+   {
+      this.recordedVariables = variableNames.clone();
+   }
+
+   /**
+    * Runs a simulation for every parameter set and blocks till all of them are done.
+    *
+    * @return the results in the order of the parameter sets
+    */
+   public List<BatchSimulationResult<P>> run(List<P> parameterSets)
+   {
+      ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, runnable ->
+      {
+         Thread thread = new Thread(runnable, "BatchSimulationRunner");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      try
+      {
+         ArrayList<Future<BatchSimulationResult<P>>> futures = new ArrayList<>();
+         for (P parameters : parameterSets)
+         {
+            futures.add(executor.submit(() -> runSimulation(parameters)));
+         }
+
+         ArrayList<BatchSimulationResult<P>> results = new ArrayList<>();
+         for (Future<BatchSimulationResult<P>> future : futures)
+         {
+            results.add(future.get());
+         }
+         return results;
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+         throw new RuntimeException(e);
+      }
+      finally
+      {
+         executor.shutdownNow();
+      }
+   }
+
+   /**
+    * Runs a single simulation on the calling thread.
+    */
+   public BatchSimulationResult<P> runSimulation(P parameters)
+   {
+      BatchSimulationResult<P> result = new BatchSimulationResult<>(parameters, recordedVariables, keepSamples);
+      long startTime = System.nanoTime();
+
+      Robot[] robots = null;
+      boolean stoppedByDoneCriterion = false;
+      Throwable failure = null;
+      try
+      {
+         robots = factory.createRobots(parameters);
+         SimulationDoneCriterion doneCriterion = factory.createDoneCriterion(robots, parameters);
+         YoVariable<?>[] variables = findVariables(robots);
+         double[] values = new double[variables.length];
+
+         Simulator simulator = new Simulator(new SimulationSynchronizer(), robots, dt);
+         int numberOfTicks = (int) Math.round(duration / dt);
+         for (int tick = 1; tick <= numberOfTicks; tick++)
+         {
+            simulator.simulate();
+
+            boolean done = doneCriterion != null && doneCriterion.isSimulationDone();
+            if (done || tick % recordTicks == 0 || tick == numberOfTicks)
+            {
+               for (int i = 0; i < variables.length; i++)
+               {
+                  values[i] = variables[i].getValueAsDouble();
+               }
+               result.addSample(robots[0].getTime(), values);
+            }
+
+            if (done)
+            {
+               stoppedByDoneCriterion = tick < numberOfTicks;
+               break;
+            }
+         }
+      }
+      catch (Throwable e)
+      {
+         // Errors are the failure of this run as well, rethrowing them would abort the whole batch
+         failure = e;
+      }
+
+      double simulatedTime = robots != null && robots.length > 0 ? robots[0].getTime() : 0.0;
+      result.setFinished(simulatedTime, (System.nanoTime() - startTime) * 1.0e-9, stoppedByDoneCriterion, failure);
+      return result;
+   }
+
+   private YoVariable<?>[] findVariables(Robot[] robots)
+   {
+      YoVariable<?>[] variables = new YoVariable<?>[recordedVariables.length];
+      for (int i = 0; i < recordedVariables.length; i++)
+      {
+         for (int j = 0; j < robots.length && variables[i] == null; j++)
+         {
+            variables[i] = robots[j].getVariable(recordedVariables[i]);
+         }
+
+         if (variables[i] == null)
+         {
+            throw new RuntimeException("Could not find variable " + recordedVariables[i]);
+         }
+      }
+      return variables;
+   }
+}
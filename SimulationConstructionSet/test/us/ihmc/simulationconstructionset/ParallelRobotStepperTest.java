@@ -0,0 +1,138 @@
+package us.ihmc.simulationconstructionset;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.robotics.dataStructures.registry.YoVariableRegistry;
+import us.ihmc.robotics.dataStructures.variable.DoubleYoVariable;
+import us.ihmc.robotics.robotController.RobotController;
+
+public class ParallelRobotStepperTest
+{
+   private static final int NUMBER_OF_ROBOTS = 6;
+   private static final int NUMBER_OF_TICKS = 2000;
+
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testParallelSteppingMatchesSequentialStepping() throws UnreasonableAccelerationException
+   {
+      Robot[] sequentialRobots = createRobots();
+      Simulation sequentialSimulation = new Simulation(sequentialRobots, 16);
+
+      Robot[] parallelRobots = createRobots();
+      Simulation parallelSimulation = new Simulation(parallelRobots, 16);
+      ParallelRobotStepper parallelRobotStepper = new ParallelRobotStepper(3);
+      parallelRobotStepper.coupleRobots(parallelRobots[1], parallelRobots[4]);
+      parallelSimulation.setParallelRobotStepper(parallelRobotStepper);
+
+      sequentialSimulation.simulate(NUMBER_OF_TICKS);
+      parallelSimulation.simulate(NUMBER_OF_TICKS);
+
+      assertEquals(NUMBER_OF_ROBOTS - 1, parallelRobotStepper.getNumberOfIslands());
+
+      for (int i = 0; i < NUMBER_OF_ROBOTS; i++)
+      {
+         assertEquals(sequentialRobots[i].getTime(), parallelRobots[i].getTime(), 0.0);
+         Joint sequentialJoint = sequentialRobots[i].getRootJoints().get(0);
+         Joint parallelJoint = parallelRobots[i].getRootJoints().get(0);
+         while (sequentialJoint != null)
+         {
+            assertEquals(((PinJoint) sequentialJoint).getQ(), ((PinJoint) parallelJoint).getQ(), 0.0);
+            assertEquals(((PinJoint) sequentialJoint).getQD(), ((PinJoint) parallelJoint).getQD(), 0.0);
+            assertEquals(((PinJoint) sequentialJoint).getTau(), ((PinJoint) parallelJoint).getTau(), 0.0);
+
+            sequentialJoint = sequentialJoint.getChildrenJoints().isEmpty() ? null : sequentialJoint.getChildrenJoints().get(0);
+            parallelJoint = parallelJoint.getChildrenJoints().isEmpty() ? null : parallelJoint.getChildrenJoints().get(0);
+         }
+      }
+
+      sequentialSimulation.closeAndDispose();
+      parallelSimulation.closeAndDispose();
+   }
+
+   private static Robot[] createRobots()
+   {
+      Robot[] robots = new Robot[NUMBER_OF_ROBOTS];
+      for (int i = 0; i < NUMBER_OF_ROBOTS; i++)
+      {
+         robots[i] = createDoublePendulum("pendulum" + i, 0.2 * (i + 1));
+      }
+      return robots;
+   }
+
+   private static Robot createDoublePendulum(String name, double initialQ)
+   {
+      Robot robot = new Robot(name);
+
+      PinJoint jointOne = new PinJoint(name + "JointOne", new Vector3D(), robot, new Vector3D(1.0, 0.0, 0.0));
+      Link linkOne = new Link(name + "LinkOne");
+      linkOne.setMass(1.0);
+      linkOne.setMomentOfInertia(0.1, 0.1, 0.01);
+      linkOne.setComOffset(0.0, 0.0, -0.3);
+      jointOne.setLink(linkOne);
+      jointOne.setQ(initialQ);
+      robot.addRootJoint(jointOne);
+
+      PinJoint jointTwo = new PinJoint(name + "JointTwo", new Vector3D(0.0, 0.0, -0.6), robot, new Vector3D(1.0, 0.0, 0.0));
+      Link linkTwo = new Link(name + "LinkTwo");
+      linkTwo.setMass(0.5);
+      linkTwo.setMomentOfInertia(0.05, 0.05, 0.01);
+      linkTwo.setComOffset(0.0, 0.0, -0.25);
+      jointTwo.setLink(linkTwo);
+      jointOne.addJoint(jointTwo);
+
+      robot.setController(new DampingController(name, jointOne, jointTwo));
+
+      return robot;
+   }
+
+   private static class DampingController implements RobotController
+   {
+      private final YoVariableRegistry registry;
+      private final DoubleYoVariable damping;
+      private final PinJoint[] joints;
+
+      public DampingController(String name, PinJoint... joints)
+      {
+         this.registry = new YoVariableRegistry(name + "Controller");
+         this.damping = new DoubleYoVariable(name + "Damping", registry);
+         this.joints = joints;
+         damping.set(0.5);
+      }
+
+      @Override
+      public void doControl()
+      {
+         for (PinJoint joint : joints)
+         {
+            joint.setTau(-damping.getDoubleValue() * joint.getQD() - 2.0 * joint.getQ());
+         }
+      }
+
+      @Override
+      public void initialize()
+      {
+      }
+
+      @Override
+      public YoVariableRegistry getYoVariableRegistry()
+      {
+         return registry;
+      }
+
+      @Override
+      public String getName()
+      {
+         return registry.getName();
+      }
+
+      @Override
+      public String getDescription()
+      {
+         return getName();
+      }
+   }
+}
@@ -0,0 +1,133 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+
+/**
+ * Compares the time per tick of the broad phases for a field of moving spheres and capsules. The
+ * field grows with the number of shapes, so the number of touching shapes per shape stays about the
+ * same. The detector column includes the narrow phase, using the default broad phase.
+ */
+public class CollisionBroadPhaseBenchmark
+{
+   private static final int[] NUMBER_OF_SHAPES = {10, 50, 100, 250, 500, 1000, 2000};
+   private static final int WARMUP_TICKS = 200;
+   private static final int TICKS = 500;
+
+   public static void main(String[] args)
+   {
+      System.out.println(String.format("%8s %12s %22s %22s %22s", "shapes", "pairs/tick", "bruteForce [us/tick]", "sweepAndPrune [us/tick]",
+                                       "detector [us/tick]"));
+
+      for (int numberOfShapes : NUMBER_OF_SHAPES)
+      {
+         long[] pairs = new long[1];
+         double bruteForceTime = timeBroadPhase(new BruteForceBroadPhase(), numberOfShapes, pairs);
+         double sweepAndPruneTime = timeBroadPhase(new SweepAndPruneBroadPhase(), numberOfShapes, pairs);
+         double detectorTime = timeDetector(numberOfShapes);
+
+         System.out.println(String.format("%8d %12.1f %22.1f %22.1f %22.1f", numberOfShapes, (double) pairs[0] / TICKS, bruteForceTime, sweepAndPruneTime,
+                                          detectorTime));
+      }
+   }
+
+   /**
+    * @param pairsToPack total number of candidate pairs over the timed ticks
+    * @return the average time per tick in microseconds
+    */
+   private static double timeBroadPhase(CollisionBroadPhase broadPhase, int numberOfShapes, long[] pairsToPack)
+   {
+      Random random = new Random(42L);
+      ArrayList<CollisionShape> shapes = new ArrayList<>();
+      ArrayList<RigidBodyTransform> transforms = new ArrayList<>();
+      createField(random, numberOfShapes, shapes, transforms);
+
+      long pairs = 0;
+      long time = 0;
+      for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++)
+      {
+         moveField(random, shapes, transforms);
+
+         long start = System.nanoTime();
+         int numberOfPairs = broadPhase.findCandidatePairs(shapes);
+         if (tick >= WARMUP_TICKS)
+         {
+            time += System.nanoTime() - start;
+            pairs += numberOfPairs;
+         }
+      }
+
+      pairsToPack[0] = pairs;
+      return time / 1000.0 / TICKS;
+   }
+
+   private static double timeDetector(int numberOfShapes)
+   {
+      Random random = new Random(42L);
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      ArrayList<CollisionShape> shapes = new ArrayList<>();
+      ArrayList<RigidBodyTransform> transforms = new ArrayList<>();
+      createField(random, numberOfShapes, shapes, transforms);
+      for (CollisionShape shape : shapes)
+      {
+         detector.addShape(shape);
+      }
+
+      CollisionDetectionResult result = new CollisionDetectionResult();
+      long time = 0;
+      for (int tick = 0; tick < WARMUP_TICKS + TICKS; tick++)
+      {
+         moveField(random, shapes, transforms);
+         result.clear();
+
+         long start = System.nanoTime();
+         detector.performCollisionDetection(result);
+         if (tick >= WARMUP_TICKS)
+         {
+            time += System.nanoTime() - start;
+         }
+      }
+
+      return time / 1000.0 / TICKS;
+   }
+
+   private static void createField(Random random, int numberOfShapes, ArrayList<CollisionShape> shapes, ArrayList<RigidBodyTransform> transforms)
+   {
+      double fieldSize = Math.cbrt(numberOfShapes) * 0.6;
+      for (int i = 0; i < numberOfShapes; i++)
+      {
+         SimpleCollisionShape shape;
+         if (random.nextBoolean())
+         {
+            shape = new SimpleCollisionShape(new SphereShapeDescription(0.1, new Point3D()));
+         }
+         else
+         {
+            shape = new SimpleCollisionShape(new CapsuleShapeDescription(0.05, 0.2));
+         }
+         shape.setCollisionGroup(0xFFFF);
+         shape.setCollisionMask(0xFFFF);
+         shapes.add(shape);
+
+         RigidBodyTransform transform = new RigidBodyTransform();
+         transform.setTranslation(fieldSize * random.nextDouble(), fieldSize * random.nextDouble(), fieldSize * random.nextDouble());
+         transforms.add(transform);
+      }
+   }
+
+   private static void moveField(Random random, ArrayList<CollisionShape> shapes, ArrayList<RigidBodyTransform> transforms)
+   {
+      for (int i = 0; i < shapes.size(); i++)
+      {
+         RigidBodyTransform transform = transforms.get(i);
+         transform.appendTranslation(0.01 * (random.nextDouble() - 0.5), 0.01 * (random.nextDouble() - 0.5), 0.01 * (random.nextDouble() - 0.5));
+         shapes.get(i).setTransformToWorld(transform);
+         shapes.get(i).computeTransformedCollisionShape();
+      }
+   }
+}
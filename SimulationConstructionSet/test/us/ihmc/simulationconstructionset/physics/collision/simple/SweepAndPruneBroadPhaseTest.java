@@ -0,0 +1,120 @@
+package us.ihmc.simulationconstructionset.physics.collision.simple;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.transform.RigidBodyTransform;
+import us.ihmc.euclid.tuple3D.Point3D;
+import us.ihmc.simulationconstructionset.physics.CollisionShape;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeDescription;
+import us.ihmc.simulationconstructionset.physics.CollisionShapeFactory;
+import us.ihmc.simulationconstructionset.physics.collision.CollisionDetectionResult;
+
+public class SweepAndPruneBroadPhaseTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testSameCandidatePairsAsBruteForce()
+   {
+      Random random = new Random(1984L);
+      ArrayList<CollisionShape> shapes = new ArrayList<>();
+      ArrayList<RigidBodyTransform> transforms = new ArrayList<>();
+
+      BruteForceBroadPhase bruteForce = new BruteForceBroadPhase();
+      SweepAndPruneBroadPhase sweepAndPrune = new SweepAndPruneBroadPhase();
+
+      int totalPairs = 0;
+      for (int tick = 0; tick < 200; tick++)
+      {
+         // Add shapes while the scene is moving, to test the incremental sort
+         if (tick % 50 == 0)
+         {
+            for (int i = 0; i < 50; i++)
+            {
+               CollisionShape shape = new SimpleCollisionShape(createRandomShapeDescription(random));
+               shape.setCollisionGroup(1 << random.nextInt(3));
+               shape.setCollisionMask(random.nextInt(8));
+               shapes.add(shape);
+
+               RigidBodyTransform transform = new RigidBodyTransform();
+               transform.setTranslation(5.0 * random.nextDouble(), 5.0 * random.nextDouble(), 2.0 * random.nextDouble());
+               transforms.add(transform);
+            }
+         }
+
+         for (int i = 0; i < shapes.size(); i++)
+         {
+            RigidBodyTransform transform = transforms.get(i);
+            transform.appendTranslation(0.05 * (random.nextDouble() - 0.5), 0.05 * (random.nextDouble() - 0.5), 0.05 * (random.nextDouble() - 0.5));
+            transform.appendYawRotation(0.1 * random.nextDouble());
+            shapes.get(i).setTransformToWorld(transform);
+            shapes.get(i).computeTransformedCollisionShape();
+         }
+
+         int expectedPairs = bruteForce.findCandidatePairs(shapes);
+         int numberOfPairs = sweepAndPrune.findCandidatePairs(shapes);
+
+         assertEquals(expectedPairs, numberOfPairs);
+         for (int pair = 0; pair < numberOfPairs; pair++)
+         {
+            assertEquals(bruteForce.getFirstShapeIndex(pair), sweepAndPrune.getFirstShapeIndex(pair));
+            assertEquals(bruteForce.getSecondShapeIndex(pair), sweepAndPrune.getSecondShapeIndex(pair));
+            assertTrue(sweepAndPrune.getFirstShapeIndex(pair) < sweepAndPrune.getSecondShapeIndex(pair));
+         }
+         totalPairs += numberOfPairs;
+      }
+
+      // Make sure the scene actually has overlapping shapes
+      assertTrue(totalPairs > 0);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.1)
+   @Test(timeout = 30000)
+   public void testCollisionMaskFiltering()
+   {
+      SimpleCollisionDetector detector = new SimpleCollisionDetector();
+      CollisionShapeFactory shapeFactory = detector.getShapeFactory();
+
+      RigidBodyTransform shapeToLink = new RigidBodyTransform();
+      CollisionShape shapeOne = shapeFactory.addShape(null, shapeToLink, shapeFactory.createSphere(0.5), false, 0x01, 0x02);
+      CollisionShape shapeTwo = shapeFactory.addShape(null, shapeToLink, shapeFactory.createSphere(0.5), false, 0x02, 0x01);
+      CollisionShape shapeThree = shapeFactory.addShape(null, shapeToLink, shapeFactory.createSphere(0.5), false, 0x04, 0x01);
+
+      RigidBodyTransform transform = new RigidBodyTransform();
+      shapeOne.setTransformToWorld(transform);
+      transform.setTranslation(0.5, 0.0, 0.0);
+      shapeTwo.setTransformToWorld(transform);
+      transform.setTranslation(0.0, 0.5, 0.0);
+      shapeThree.setTransformToWorld(transform);
+
+      // Three overlapping spheres, but only shapes one and two are in each others masks
+      CollisionDetectionResult result = new CollisionDetectionResult();
+      detector.performCollisionDetection(result);
+      assertEquals(1, result.getNumberOfCollisions());
+
+      detector.setBroadPhase(new BruteForceBroadPhase());
+      result.clear();
+      detector.performCollisionDetection(result);
+      assertEquals(1, result.getNumberOfCollisions());
+   }
+
+   private static CollisionShapeDescription<?> createRandomShapeDescription(Random random)
+   {
+      double size = 0.05 + 0.3 * random.nextDouble();
+      switch (random.nextInt(3))
+      {
+      case 0:
+         return new SphereShapeDescription(size, new Point3D());
+      case 1:
+         return new CapsuleShapeDescription(size, 2.0 * size);
+      default:
+         return new CylinderShapeDescription(size, 2.0 * size);
+      }
+   }
+}
@@ -1,5 +1,10 @@
 package us.ihmc.simulationconstructionset.util.ground;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
 import org.junit.Test;
 
 import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
@@ -7,6 +12,7 @@ import us.ihmc.euclid.geometry.ConvexPolygon2D;
 import us.ihmc.euclid.tools.EuclidCoreTestTools;
 import us.ihmc.euclid.tuple3D.Point3D;
 import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.jMonkeyEngineToolkit.HeightMapWithNormals;
 
 public class CombinedTerrainObjectTest
 {
@@ -36,6 +42,102 @@ public class CombinedTerrainObjectTest
       EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, resultNormal, 1e-4);
    }
 
+   @ContinuousIntegrationTest(estimatedDuration = 0.5)
+   @Test(timeout = 30000)
+   public void testQueriesMatchCheckingAllTerrainObjects()
+   {
+      Random random = new Random(1776L);
+      CombinedTerrainObject3D combinedTerrainObject = new CombinedTerrainObject3D("Many Boxes");
+      combinedTerrainObject.addBox(-50.0, -50.0, 50.0, 50.0, -0.1, 0.0);
+
+      CombinedTerrainObject3D nestedTerrainObject = new CombinedTerrainObject3D("Nested");
+      nestedTerrainObject.addBox(-1.0, -1.0, 1.0, 1.0, 0.5);
+      combinedTerrainObject.addTerrainObject(nestedTerrainObject);
+
+      for (int i = 0; i < 300; i++)
+      {
+         double x = 20.0 * (random.nextDouble() - 0.5);
+         double y = 20.0 * (random.nextDouble() - 0.5);
+         double size = 0.1 + random.nextDouble();
+         double height = random.nextDouble();
+         if (random.nextBoolean())
+            combinedTerrainObject.addBox(x, y, x + size, y + size, height);
+         else
+            combinedTerrainObject.addRamp(x, y, x + size, y + 0.5 * size, height);
+      }
+
+      compareWithAllTerrainObjects(random, combinedTerrainObject);
+
+      // Growing a nested terrain object after the first query has to update the index of its parent
+      nestedTerrainObject.addBox(30.0, 30.0, 31.0, 31.0, 2.0);
+      compareWithAllTerrainObjects(random, combinedTerrainObject);
+
+      Vector3D normal = new Vector3D();
+      assertEquals(2.0, combinedTerrainObject.heightAndNormalAt(30.5, 30.5, 3.0, normal), 1e-10);
+   }
+
+   private void compareWithAllTerrainObjects(Random random, CombinedTerrainObject3D combinedTerrainObject)
+   {
+      Point3D intersection = new Point3D();
+      Vector3D normal = new Vector3D();
+      Point3D expectedIntersection = new Point3D();
+      Vector3D expectedNormal = new Vector3D();
+
+      for (int i = 0; i < 5000; i++)
+      {
+         double x = 80.0 * (random.nextDouble() - 0.5);
+         double y = 80.0 * (random.nextDouble() - 0.5);
+         double z = 2.0 * random.nextDouble() - 0.5;
+
+         double expectedHeight = heightAndNormalAtAllTerrainObjects(combinedTerrainObject.getTerrainObjects(), x, y, z, expectedNormal);
+         assertEquals(expectedHeight, combinedTerrainObject.heightAndNormalAt(x, y, z, normal), 0.0);
+         if (expectedHeight != Double.NEGATIVE_INFINITY)
+            EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, normal, 0.0);
+
+         boolean expectedInside = checkIfInsideAllTerrainObjects(combinedTerrainObject.getTerrainObjects(), x, y, z, expectedIntersection, expectedNormal);
+         assertEquals(expectedInside, combinedTerrainObject.checkIfInside(x, y, z, intersection, normal));
+         EuclidCoreTestTools.assertTuple3DEquals(expectedIntersection, intersection, 0.0);
+         EuclidCoreTestTools.assertTuple3DEquals(expectedNormal, normal, 0.0);
+      }
+   }
+
+   private static double heightAndNormalAtAllTerrainObjects(ArrayList<TerrainObject3D> terrainObjects, double x, double y, double z, Vector3D normalToPack)
+   {
+      double heightAt = Double.NEGATIVE_INFINITY;
+      for (TerrainObject3D terrainObject : terrainObjects)
+      {
+         HeightMapWithNormals heightMap = terrainObject.getHeightMapIfAvailable();
+         if (terrainObject.isClose(x, y, z) && heightMap != null && heightMap.heightAt(x, y, z) > heightAt)
+            heightAt = heightMap.heightAndNormalAt(x, y, z, normalToPack);
+      }
+      return heightAt;
+   }
+
+   private static boolean checkIfInsideAllTerrainObjects(ArrayList<TerrainObject3D> terrainObjects, double x, double y, double z, Point3D intersectionToPack,
+                                                         Vector3D normalToPack)
+   {
+      Point3D point = new Point3D(x, y, z);
+      Point3D localIntersection = new Point3D();
+      Vector3D localNormal = new Vector3D();
+      double smallestDistance = Double.MAX_VALUE;
+      boolean isInside = false;
+
+      intersectionToPack.set(x, y, 0.0);
+      normalToPack.set(0.0, 0.0, 1.0);
+      for (TerrainObject3D terrainObject : terrainObjects)
+      {
+         if (terrainObject.isClose(x, y, z) && terrainObject.checkIfInside(x, y, z, localIntersection, localNormal)
+               && point.distance(localIntersection) < smallestDistance)
+         {
+            smallestDistance = point.distance(localIntersection);
+            intersectionToPack.set(localIntersection);
+            normalToPack.set(localNormal);
+            isInside = true;
+         }
+      }
+      return isInside;
+   }
+
    private void setupTwoIntersectingBoxesMadeFromPolygons(CombinedTerrainObject3D combinedTerrainObject)
    {
       Vector3D normalVector = new Vector3D(0.0, 0.0, 1.0);
@@ -0,0 +1,125 @@
+package us.ihmc.simulationconstructionset.util.simulationRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import us.ihmc.continuousIntegration.ContinuousIntegrationAnnotations.ContinuousIntegrationTest;
+import us.ihmc.euclid.tuple3D.Vector3D;
+import us.ihmc.simulationconstructionset.Link;
+import us.ihmc.simulationconstructionset.PinJoint;
+import us.ihmc.simulationconstructionset.Robot;
+import us.ihmc.simulationconstructionset.SimulationDoneCriterion;
+
+public class BatchSimulationRunnerTest
+{
+   @ContinuousIntegrationTest(estimatedDuration = 1.0)
+   @Test(timeout = 30000)
+   public void testConcurrentRunsMatchSequentialRuns()
+   {
+      List<Double> dampings = new ArrayList<>();
+      for (int i = 0; i < 8; i++)
+      {
+         dampings.add(0.1 * i);
+      }
+
+      List<BatchSimulationResult<Double>> sequentialResults = createRunner(1).run(dampings);
+      List<BatchSimulationResult<Double>> concurrentResults = createRunner(4).run(dampings);
+
+      assertEquals(dampings.size(), concurrentResults.size());
+      for (int i = 0; i < dampings.size(); i++)
+      {
+         BatchSimulationResult<Double> sequential = sequentialResults.get(i);
+         BatchSimulationResult<Double> concurrent = concurrentResults.get(i);
+
+         assertTrue(concurrent.isSuccessful());
+         assertEquals(dampings.get(i), concurrent.getParameters());
+         assertEquals(2.0, concurrent.getSimulatedTime(), 1e-9);
+         assertEquals(200, concurrent.getNumberOfSamples());
+         assertEquals(sequential.getFinalValue("q_pendulum"), concurrent.getFinalValue("q_pendulum"), 0.0);
+         assertArrayEquals(sequential.getSamples("q_pendulum"), concurrent.getSamples("q_pendulum"), 0.0);
+         assertTrue(concurrent.getMinimumValue("q_pendulum") <= concurrent.getFinalValue("q_pendulum"));
+         assertTrue(concurrent.getMaximumValue("q_pendulum") >= concurrent.getFinalValue("q_pendulum"));
+      }
+
+      // More damping leaves less energy in the pendulum
+      double undampedAmplitude = concurrentResults.get(0).getMaximumValue("qd_pendulum");
+      double dampedAmplitude = Math.abs(concurrentResults.get(7).getFinalValue("qd_pendulum"));
+      assertTrue(dampedAmplitude < undampedAmplitude);
+   }
+
+   @ContinuousIntegrationTest(estimatedDuration = 0.2)
+   @Test(timeout = 30000)
+   public void testFailedAndStoppedRuns()
+   {
+      BatchSimulationFactory<Double> factory = new BatchSimulationFactory<Double>()
+      {
+         @Override
+         public Robot[] createRobots(Double damping)
+         {
+            if (damping < 0.0)
+               throw new RuntimeException("Negative damping");
+            if (damping > 10.0)
+               throw new AssertionError("Excessive damping");
+
+            return new Robot[] {createPendulum(damping)};
+         }
+
+         @Override
+         public SimulationDoneCriterion createDoneCriterion(Robot[] robots, Double damping)
+         {
+            return () -> robots[0].getTime() >= 0.5 - 1e-6;
+         }
+      };
+
+      BatchSimulationRunner<Double> runner = new BatchSimulationRunner<>(factory, 2);
+      runner.setDT(0.001);
+      runner.setDuration(2.0);
+      runner.setRecordedVariables("q_pendulum");
+
+      List<Double> dampings = new ArrayList<>();
+      dampings.add(-1.0);
+      dampings.add(0.5);
+      dampings.add(11.0);
+      List<BatchSimulationResult<Double>> results = runner.run(dampings);
+
+      assertFalse(results.get(0).isSuccessful());
+      assertFalse(results.get(2).isSuccessful());
+      assertTrue(results.get(2).getFailure() instanceof AssertionError);
+      assertTrue(results.get(1).isSuccessful());
+      assertTrue(results.get(1).isStoppedByDoneCriterion());
+      assertEquals(0.5, results.get(1).getSimulatedTime(), 1e-6);
+   }
+
+   private static BatchSimulationRunner<Double> createRunner(int numberOfThreads)
+   {
+      BatchSimulationRunner<Double> runner = new BatchSimulationRunner<>(damping -> new Robot[] {createPendulum(damping)}, numberOfThreads);
+      runner.setDT(0.001);
+      runner.setDuration(2.0);
+      runner.setRecordTicks(10);
+      runner.setKeepSamples(true);
+      runner.setRecordedVariables("q_pendulum", "qd_pendulum");
+      return runner;
+   }
+
+   private static Robot createPendulum(double damping)
+   {
+      Robot robot = new Robot("pendulum");
+      PinJoint joint = new PinJoint("pendulum", new Vector3D(), robot, new Vector3D(1.0, 0.0, 0.0));
+      Link link = new Link("pendulumLink");
+      link.setMass(1.0);
+      link.setMomentOfInertia(0.1, 0.1, 0.01);
+      link.setComOffset(0.0, 0.0, -0.5);
+      joint.setLink(link);
+      joint.setDamping(damping);
+      joint.setQ(1.0);
+      robot.addRootJoint(joint);
+      return robot;
+   }
+}